@@ -0,0 +1,23 @@
+package app.lovable;
+
+import android.os.SystemClock;
+
+import app.lovable.core.Clock;
+
+/** Android time sources for the policies in app.lovable.core, which cannot see SystemClock. */
+final class Clocks {
+    /** Monotonic, and keeps counting while the device sleeps. */
+    static final Clock ELAPSED = new Clock() {
+        @Override
+        public long nowMs() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public long nowNanos() {
+            return SystemClock.elapsedRealtimeNanos();
+        }
+    };
+
+    private Clocks() {}
+}
@@ -0,0 +1,61 @@
+package app.lovable;
+
+import app.lovable.core.EventCoalescer;
+
+import com.getcapacitor.JSObject;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide {@link EventCoalescer} for native events headed to JS.
+ * Services publish here from any thread; NativeEventsPlugin registers as
+ * the sink and sends each frame as one eventFrame bridge message.
+ *
+ * Gauge and stream events published while no plugin is listening are
+ * skipped outright, so a service running without the app open pays
+ * nothing for them.
+ */
+public final class EventBridge {
+    static final long DEFAULT_INTERVAL_MS = 100;
+    static final int DEFAULT_MAX_BATCH = 64;
+    private static final int MAX_PENDING = 512;
+
+    private static final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "EventBridge"));
+    private static final EventCoalescer<JSObject> coalescer = new EventCoalescer<>(Clocks.ELAPSED,
+            (task, delayMs) -> flusher.schedule(task, delayMs, TimeUnit.MILLISECONDS),
+            DEFAULT_INTERVAL_MS, DEFAULT_MAX_BATCH, MAX_PENDING);
+
+    static {
+        Metrics.get().register("events.deliveryDelay", coalescer.getDeliveryDelay());
+        Metrics.get().gauge("events.dropped", coalescer::getDropped);
+    }
+
+    private EventBridge() {}
+
+    static EventCoalescer<JSObject> get() {
+        return coalescer;
+    }
+
+    /** False while no plugin is listening, when gauge and stream events would be skipped anyway. */
+    public static boolean isListening() {
+        return coalescer.hasSink();
+    }
+
+    /** Latest-value event, e.g. an audio level; replaces one not yet sent. */
+    public static void gauge(String type, JSObject data) {
+        if (coalescer.hasSink()) coalescer.publish(type, EventCoalescer.Kind.GAUGE, data);
+    }
+
+    /** Ordered event that may be dropped, oldest first, if JS falls behind. */
+    public static void stream(String type, JSObject data) {
+        if (coalescer.hasSink()) coalescer.publish(type, EventCoalescer.Kind.STREAM, data);
+    }
+
+    /** Sent at once and kept until a listener receives it. */
+    public static void critical(String type, JSObject data) {
+        coalescer.publish(type, EventCoalescer.Kind.CRITICAL, data);
+    }
+}
@@ -0,0 +1,79 @@
+package app.lovable;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import app.lovable.core.GeocodeCache;
+import app.lovable.core.LatencyHistogram;
+
+@CapacitorPlugin(name = "Geocode")
+public class GeocodePlugin extends Plugin {
+    /** Close enough that the cached street is still the right one to read out. */
+    private static final double DEFAULT_RADIUS_M = 100;
+
+    /** Answers from the on-device cache only; never touches the network. */
+    @PluginMethod
+    public void lookup(PluginCall call) {
+        Double lat = call.getDouble("latitude");
+        Double lng = call.getDouble("longitude");
+        if (lat == null || lng == null) {
+            call.reject("latitude and longitude are required");
+            return;
+        }
+        GeocodeCache.Match m = GeocodeStore.get(getContext())
+                .nearest(lat, lng, call.getDouble("radiusM", DEFAULT_RADIUS_M));
+        JSObject ret = new JSObject();
+        ret.put("cached", m != null);
+        if (m != null) {
+            ret.put("address", m.entry.address);
+            ret.put("distanceM", m.distanceM);
+            ret.put("storedAt", m.entry.storedAtMs);
+        }
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void put(PluginCall call) {
+        Double lat = call.getDouble("latitude");
+        Double lng = call.getDouble("longitude");
+        String address = call.getString("address");
+        if (lat == null || lng == null || address == null || address.isEmpty()) {
+            call.reject("latitude, longitude and address are required");
+            return;
+        }
+        GeocodeStore.put(getContext(), lat, lng, address);
+        call.resolve();
+    }
+
+    /** Where the prewarm job fetches addresses from; the app passes its reverse-geocode function. */
+    @PluginMethod
+    public void configure(PluginCall call) {
+        String endpoint = call.getString("endpoint");
+        if (endpoint == null || !endpoint.startsWith("https://")) {
+            call.reject("An https endpoint is required");
+            return;
+        }
+        GeocodeStore.configure(getContext(), endpoint, call.getString("apiKey", ""));
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        GeocodeCache cache = GeocodeStore.get(getContext());
+        LatencyHistogram lookup = cache.getLookupTime();
+        JSObject ret = new JSObject();
+        ret.put("size", cache.size());
+        ret.put("capacity", cache.capacity());
+        ret.put("hits", cache.getHits());
+        ret.put("misses", cache.getMisses());
+        ret.put("evictions", cache.getEvictions());
+        ret.put("frequentAreas", cache.frequentAreas(Integer.MAX_VALUE).size());
+        ret.put("lookupP50Us", lookup.percentileMicros(50));
+        ret.put("lookupP99Us", lookup.percentileMicros(99));
+        ret.put("lookupMaxUs", lookup.getMaxMicros());
+        call.resolve(ret);
+    }
+}
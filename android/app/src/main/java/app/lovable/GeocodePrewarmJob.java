@@ -0,0 +1,66 @@
+package app.lovable;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.util.Log;
+
+import app.lovable.core.GeocodeCache;
+
+import java.util.List;
+
+/**
+ * Fills the geocode cache around the user's most visited areas while the
+ * phone is idle and charging, so an SOS there can name the street with no
+ * data connection. Paced to one request a second to respect the upstream
+ * geocoder's usage policy.
+ */
+public class GeocodePrewarmJob extends JobService {
+    private static final String TAG = "GeocodePrewarmJob";
+    private static final int AREAS = 3;
+    /** Matches the plugin's default lookup radius. */
+    private static final double RADIUS_M = 100;
+    private static final int MAX_REQUESTS = 60;
+    private static final long PACE_MS = 1_100;
+
+    private volatile boolean stopped;
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        stopped = false;
+        Thread worker = new Thread(() -> {
+            int filled = prewarm();
+            Log.d(TAG, "Prewarmed " + filled + " addresses");
+            jobFinished(params, false);
+        }, TAG);
+        worker.start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        stopped = true;
+        // Periodic anyway; the next window picks up where this one stopped.
+        return false;
+    }
+
+    private int prewarm() {
+        GeocodeCache cache = GeocodeStore.get(this);
+        List<double[]> targets = cache.prewarmTargets(AREAS, RADIUS_M, MAX_REQUESTS);
+        int filled = 0;
+        for (double[] t : targets) {
+            if (stopped) break;
+            String address = GeocodeStore.fetch(this, t[0], t[1]);
+            if (address != null) {
+                GeocodeStore.put(this, t[0], t[1], address);
+                filled++;
+            }
+            try {
+                Thread.sleep(PACE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return filled;
+    }
+}
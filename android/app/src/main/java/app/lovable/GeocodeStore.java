@@ -0,0 +1,176 @@
+package app.lovable;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import app.lovable.core.Clock;
+import app.lovable.core.GeocodeCache;
+
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Android side of {@link GeocodeCache}: one process-wide cache persisted to
+ * filesDir/geocode.cache, saved a few seconds after it changes, plus the
+ * reverse-geocode endpoint the app configured so the idle-time prewarm job
+ * can fetch addresses without the WebView.
+ */
+public final class GeocodeStore {
+    private static final String TAG = "GeocodeStore";
+    private static final String FILE_NAME = "geocode.cache";
+    static final String PREFS_NAME = "resqme_geocode";
+    static final String PREF_ENDPOINT = "endpoint";
+    static final String PREF_API_KEY = "api_key";
+
+    private static final int CAPACITY = 2_000;
+    private static final long SAVE_DELAY_MS = 5_000;
+    private static final int PREWARM_JOB_ID = 4101;
+    private static final long PREWARM_PERIOD_MS = TimeUnit.HOURS.toMillis(12);
+    private static final int TIMEOUT_MS = 10_000;
+
+    private static GeocodeCache cache;
+    private static File file;
+    private static boolean saveScheduled;
+    private static final ScheduledExecutorService io =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG));
+
+    private GeocodeStore() {}
+
+    public static synchronized GeocodeCache get(Context context) {
+        if (cache == null) {
+            cache = new GeocodeCache(Clock.SYSTEM, CAPACITY);
+            file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+            if (file.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    cache.readFrom(in);
+                } catch (IOException e) {
+                    Log.e(TAG, "Discarding unreadable geocode cache", e);
+                    cache = new GeocodeCache(Clock.SYSTEM, CAPACITY);
+                }
+            }
+        }
+        return cache;
+    }
+
+    public static void put(Context context, double lat, double lng, String address) {
+        get(context).put(lat, lng, address, System.currentTimeMillis());
+        scheduleSave();
+    }
+
+    public static void recordVisit(Context context, double lat, double lng) {
+        get(context).recordVisit(lat, lng);
+        scheduleSave();
+    }
+
+    private static synchronized void scheduleSave() {
+        if (saveScheduled) return;
+        saveScheduled = true;
+        io.schedule(GeocodeStore::save, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void save() {
+        GeocodeCache c;
+        File target;
+        synchronized (GeocodeStore.class) {
+            saveScheduled = false;
+            c = cache;
+            target = file;
+        }
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            c.writeTo(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to save geocode cache", e);
+            return;
+        }
+        if (!tmp.renameTo(target)) Log.e(TAG, "Failed to replace geocode cache");
+    }
+
+    public static void configure(Context context, String endpoint, String apiKey) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putString(PREF_ENDPOINT, endpoint)
+                .putString(PREF_API_KEY, apiKey)
+                .apply();
+        schedulePrewarm(context);
+    }
+
+    /** Runs the prewarm job at most twice a day, only while idle, charging and on unmetered network. */
+    public static void schedulePrewarm(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getString(PREF_ENDPOINT, null) == null) return;
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null || scheduler.getPendingJob(PREWARM_JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(PREWARM_JOB_ID, new ComponentName(context, GeocodePrewarmJob.class))
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(PREWARM_PERIOD_MS)
+                .setPersisted(true)
+                .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) Log.w(TAG, "Prewarm job not scheduled");
+    }
+
+    /**
+     * Asks the app's reverse-geocode endpoint for an address. Blocking;
+     * returns null when unconfigured, offline or the endpoint has nothing.
+     */
+    static String fetch(Context context, double lat, double lng) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String endpoint = prefs.getString(PREF_ENDPOINT, null);
+        if (endpoint == null) return null;
+        String apiKey = prefs.getString(PREF_API_KEY, "");
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(endpoint).openConnection();
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            if (!apiKey.isEmpty()) {
+                conn.setRequestProperty("apikey", apiKey);
+                conn.setRequestProperty("Authorization", "Bearer " + apiKey);
+            }
+            byte[] body = new JSONObject().put("latitude", lat).put("longitude", lng).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) return null;
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            try (InputStream in = conn.getInputStream()) {
+                byte[] buf = new byte[4096];
+                int n;
+                while ((n = in.read(buf)) > 0) response.write(buf, 0, n);
+            }
+            String address = new JSONObject(response.toString("UTF-8")).optString("address", "");
+            return address.isEmpty() ? null : address;
+        } catch (Exception e) {
+            Log.w(TAG, "Reverse geocode failed: " + e.getMessage());
+            return null;
+        } finally {
+            if (conn != null) conn.disconnect();
+        }
+    }
+}
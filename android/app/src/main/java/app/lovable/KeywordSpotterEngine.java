@@ -0,0 +1,284 @@
+package app.lovable;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import app.lovable.core.KeywordSpotter;
+import app.lovable.core.KeywordTemplate;
+import app.lovable.core.MfccExtractor;
+import app.lovable.core.PcmRingBuffer;
+import app.lovable.core.TemplateRecorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Wake word engine that reads 16 kHz PCM straight from AudioRecord and runs
+ * the pure-Java MFCC + DTW spotter on a dedicated audio thread. Unlike the
+ * SpeechRecognizer engine it listens continuously with no restart gaps and
+ * works when no recognition service is installed, but it only knows the
+ * phrase the user enrolled.
+ *
+ * Enrolled templates are written and read back on a background thread, so
+ * the audio thread never waits on storage.
+ */
+public class KeywordSpotterEngine implements MfccExtractor.FrameListener {
+    private static final String TAG = "KeywordSpotterEngine";
+    private static final String TEMPLATE_DIR = "wake_templates";
+    public static final int MAX_TEMPLATES = 5;
+
+    /** Called on the main thread. */
+    public interface Listener {
+        void onKeywordDetected(float score);
+        void onTemplateEnrolled(int templateCount);
+
+        /** The microphone stopped delivering audio; the engine has released it and is no longer running. */
+        void onCaptureFailed();
+    }
+
+    private static final ExecutorService templateIo =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "KeywordTemplates"));
+
+    private final Context context;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final PcmRingBuffer ring = new PcmRingBuffer(MfccExtractor.SAMPLE_RATE / 2);
+    private final short[] readBuffer = new short[MfccExtractor.HOP_LENGTH * 4];
+    private final MfccExtractor extractor = new MfccExtractor();
+    private final KeywordSpotter spotter = new KeywordSpotter();
+    private final TemplateRecorder recorder = new TemplateRecorder();
+    // Templates reloaded after an enrollment, for the audio thread to pick up.
+    private final AtomicReference<List<KeywordTemplate>> reloadedTemplates = new AtomicReference<>();
+
+    private volatile boolean running = false;
+    private volatile boolean enrolling = false;
+    private Thread audioThread;
+    private AudioRecord audioRecord;
+
+    private long framesProcessed = 0;
+    private long frameNanosTotal = 0;
+
+    public KeywordSpotterEngine(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    public static boolean hasTemplates(Context context) {
+        File[] files = templateDir(context).listFiles();
+        return files != null && files.length > 0;
+    }
+
+    public static int templateCount(Context context) {
+        File[] files = templateDir(context).listFiles();
+        return files == null ? 0 : files.length;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts capturing. Returns false if the microphone could not be opened.
+     * With no enrolled templates the engine still runs so enrollment works,
+     * but it cannot detect anything.
+     */
+    @SuppressLint("MissingPermission") // Checked by WakeWordDetector before starting any engine.
+    public synchronized boolean start() {
+        if (running) return true;
+        // A capture that failed may not have been cleaned up yet.
+        if (audioThread != null) release();
+
+        List<KeywordTemplate> templates = loadTemplates();
+        spotter.setTemplates(templates);
+        spotter.setThreshold(KeywordSpotter.calibrate(templates));
+
+        int minBuffer = AudioRecord.getMinBufferSize(MfccExtractor.SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        int bufferBytes = Math.max(minBuffer, readBuffer.length * 2 * 4);
+        try {
+            audioRecord = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION,
+                    MfccExtractor.SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                    AudioFormat.ENCODING_PCM_16BIT, bufferBytes);
+            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+                Log.e(TAG, "AudioRecord failed to initialize");
+                audioRecord.release();
+                audioRecord = null;
+                return false;
+            }
+            audioRecord.startRecording();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to open microphone", e);
+            audioRecord = null;
+            return false;
+        }
+
+        PreRoll.attach(MfccExtractor.SAMPLE_RATE);
+        running = true;
+        audioThread = new Thread(this::captureLoop, "KeywordSpotter");
+        audioThread.start();
+        Log.d(TAG, "Keyword spotter started with " + templates.size() + " template(s), threshold "
+                + spotter.getThreshold());
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (!running && audioThread == null) return;
+        running = false;
+        release();
+    }
+
+    private void release() {
+        if (audioThread != null) {
+            try {
+                audioThread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            audioThread = null;
+        }
+        PreRoll.detach();
+        if (audioRecord != null) {
+            try {
+                audioRecord.stop();
+            } catch (Exception ignored) {
+            }
+            audioRecord.release();
+            audioRecord = null;
+        }
+        if (framesProcessed > 0) {
+            Log.d(TAG, "Stopped after " + framesProcessed + " frames, avg "
+                    + (frameNanosTotal / framesProcessed) + " ns/frame");
+        }
+    }
+
+    /** Captures the next spoken utterance as a new template. */
+    public void enrollNext() {
+        enrolling = true;
+    }
+
+    public static void clearTemplates(Context context) {
+        File[] files = templateDir(context).listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (!f.delete()) Log.w(TAG, "Could not delete template " + f);
+        }
+    }
+
+    private void captureLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        boolean wasEnrolling = false;
+        while (running) {
+            int n = audioRecord.read(readBuffer, 0, readBuffer.length);
+            if (n <= 0) {
+                Log.e(TAG, "AudioRecord read failed: " + n);
+                running = false;
+                Thread capture = Thread.currentThread();
+                mainHandler.post(() -> onCaptureFailed(capture));
+                return;
+            }
+            List<KeywordTemplate> reloaded = reloadedTemplates.getAndSet(null);
+            if (reloaded != null) {
+                spotter.setTemplates(reloaded);
+                spotter.setThreshold(KeywordSpotter.calibrate(reloaded));
+            }
+            if (enrolling != wasEnrolling) {
+                wasEnrolling = enrolling;
+                recorder.reset();
+                spotter.reset();
+            }
+            ring.write(readBuffer, 0, n);
+            PreRoll.feed(readBuffer, n);
+            long start = System.nanoTime();
+            int frames = extractor.drain(ring, this);
+            frameNanosTotal += System.nanoTime() - start;
+            framesProcessed += frames;
+        }
+    }
+
+    /** Releases the microphone unless stop() or a new start() already did. */
+    private void onCaptureFailed(Thread capture) {
+        synchronized (this) {
+            if (audioThread != capture) return;
+            release();
+        }
+        listener.onCaptureFailed();
+    }
+
+    @Override
+    public void onFrame(float[] coeffs, float logEnergy) {
+        if (enrolling) {
+            if (recorder.onFrame(coeffs, logEnergy)) {
+                KeywordTemplate template = recorder.getResult();
+                enrolling = false;
+                templateIo.execute(() -> {
+                    int count = saveTemplate(template);
+                    reloadedTemplates.set(loadTemplates());
+                    mainHandler.post(() -> listener.onTemplateEnrolled(count));
+                });
+            }
+            return;
+        }
+
+        if (spotter.onFrame(coeffs)) {
+            float score = spotter.getLastScore();
+            mainHandler.post(() -> listener.onKeywordDetected(score));
+        }
+    }
+
+    private static File templateDir(Context context) {
+        return new File(context.getFilesDir(), TEMPLATE_DIR);
+    }
+
+    private List<KeywordTemplate> loadTemplates() {
+        List<KeywordTemplate> templates = new ArrayList<>();
+        File[] files = templateDir(context).listFiles();
+        if (files == null) return templates;
+        Arrays.sort(files);
+        for (File f : files) {
+            try (InputStream in = new FileInputStream(f)) {
+                templates.add(KeywordTemplate.readFrom(in));
+            } catch (Exception e) {
+                Log.e(TAG, "Skipping unreadable template " + f.getName(), e);
+            }
+        }
+        return templates;
+    }
+
+    private int saveTemplate(KeywordTemplate template) {
+        File dir = templateDir(context);
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Could not create " + dir);
+            return templateCount(context);
+        }
+        File[] existing = dir.listFiles();
+        if (existing != null && existing.length >= MAX_TEMPLATES) {
+            // Keep the most recent enrollments; drop the oldest.
+            Arrays.sort(existing);
+            for (int i = 0; i <= existing.length - MAX_TEMPLATES; i++) existing[i].delete();
+        }
+        File out = new File(dir, "template_" + System.currentTimeMillis() + ".bin");
+        try (OutputStream os = new FileOutputStream(out)) {
+            template.writeTo(os);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save template", e);
+        }
+        return templateCount(context);
+    }
+}
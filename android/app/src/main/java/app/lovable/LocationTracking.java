@@ -0,0 +1,155 @@
+package app.lovable;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.core.location.LocationListenerCompat;
+import androidx.core.location.LocationManagerCompat;
+import androidx.core.location.LocationRequestCompat;
+
+import app.lovable.core.GeoFix;
+import app.lovable.core.LocationTracker;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Android side of {@link LocationTracker}: one batched LocationManager
+ * request whose fixes arrive on a background thread, so tracking keeps
+ * going while the WebView is throttled. Hosted by ProtectionService;
+ * NativeSos switches it to the SOS rate when a trigger fires.
+ */
+public final class LocationTracking {
+    private static final String TAG = "LocationTracking";
+
+    private static Context appContext;
+    private static LocationTracker tracker;
+    private static LocationManager locationManager;
+    private static Executor executor;
+
+    private LocationTracking() {}
+
+    private static final LocationListenerCompat listener = new LocationListenerCompat() {
+        @Override
+        public void onLocationChanged(@NonNull Location location) {
+            record(location);
+            tracker.onWakeup();
+            GeocodeStore.recordVisit(appContext, location.getLatitude(), location.getLongitude());
+        }
+
+        @Override
+        public void onLocationChanged(@NonNull List<Location> locations) {
+            // A batched delivery: one wakeup, many fixes.
+            for (Location l : locations) record(l);
+            tracker.onWakeup();
+            if (!locations.isEmpty()) {
+                // One visit per wakeup, so busy areas are the ones the phone sat in longest.
+                Location last = locations.get(locations.size() - 1);
+                GeocodeStore.recordVisit(appContext, last.getLatitude(), last.getLongitude());
+            }
+        }
+    };
+
+    private static void record(Location l) {
+        tracker.onFix(l.getLatitude(), l.getLongitude(), l.hasAccuracy() ? l.getAccuracy() : 0f, l.getTime());
+    }
+
+    public static synchronized LocationTracker get(Context context) {
+        if (tracker == null) {
+            Context app = context.getApplicationContext();
+            appContext = app;
+            locationManager = (LocationManager) app.getSystemService(Context.LOCATION_SERVICE);
+            HandlerThread thread = new HandlerThread(TAG);
+            thread.start();
+            executor = new Handler(thread.getLooper())::post;
+            tracker = new LocationTracker(SystemClock::elapsedRealtime, LocationTracker.DEFAULT_CAPACITY,
+                    new LocationTracker.Provider() {
+                        @Override
+                        public void request(LocationTracker.Mode mode) {
+                            register(app, mode);
+                        }
+
+                        @Override
+                        public void stop() {
+                            LocationManagerCompat.removeUpdates(locationManager, listener);
+                        }
+                    });
+        }
+        return tracker;
+    }
+
+    /** Starts tracking if location access was granted; safe to call repeatedly. */
+    public static void start(Context context) {
+        if (!hasPermission(context)) {
+            Log.w(TAG, "No location permission; native tracking stays off");
+            return;
+        }
+        get(context).start();
+    }
+
+    public static synchronized void stop() {
+        if (tracker != null) tracker.stop();
+    }
+
+    public static void setMode(Context context, LocationTracker.Mode mode) {
+        get(context).setMode(mode);
+    }
+
+    /** Back to idle sampling after a called-off SOS; no-op if tracking never started. */
+    public static synchronized void endSos() {
+        if (tracker != null) tracker.setMode(LocationTracker.Mode.IDLE);
+    }
+
+    /** Newest tracked fix, or null if tracking has not produced one yet. */
+    public static synchronized GeoFix latest() {
+        return tracker == null ? null : tracker.latest(System.currentTimeMillis());
+    }
+
+    static boolean hasPermission(Context context) {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private static void register(Context context, LocationTracker.Mode mode) {
+        if (locationManager == null || !hasPermission(context)) return;
+        LocationManagerCompat.removeUpdates(locationManager, listener);
+        String provider = providerFor(mode);
+        if (provider == null) {
+            Log.w(TAG, "No location provider enabled");
+            return;
+        }
+        LocationRequestCompat request = new LocationRequestCompat.Builder(mode.intervalMs)
+                .setMaxUpdateDelayMillis(mode.maxUpdateDelayMs)
+                .setQuality(mode == LocationTracker.Mode.SOS
+                        ? LocationRequestCompat.QUALITY_HIGH_ACCURACY
+                        : LocationRequestCompat.QUALITY_BALANCED_POWER_ACCURACY)
+                .build();
+        try {
+            LocationManagerCompat.requestLocationUpdates(locationManager, provider, request, executor, listener);
+            Log.d(TAG, "Tracking " + mode + " via " + provider);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission revoked", e);
+        }
+    }
+
+    /** GPS while an alert is active; the cheaper network provider otherwise, when there is one. */
+    private static String providerFor(LocationTracker.Mode mode) {
+        boolean gps = locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER);
+        boolean network = locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER);
+        if (mode == LocationTracker.Mode.SOS) {
+            return gps ? LocationManager.GPS_PROVIDER : network ? LocationManager.NETWORK_PROVIDER : null;
+        }
+        return network ? LocationManager.NETWORK_PROVIDER : gps ? LocationManager.GPS_PROVIDER : null;
+    }
+}
@@ -1,59 +1,67 @@
 package app.lovable;
 
 import android.Manifest;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.KeyEvent;
+import android.webkit.WebView;
 
 import com.getcapacitor.BridgeActivity;
-import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginHandle;
+import com.getcapacitor.WebViewListener;
+
+import app.lovable.core.PhaseTracer;
+import app.lovable.core.TriggerDispatcher;
 
 public class MainActivity extends BridgeActivity {
     private static final String TAG = "MainActivity";
-    private static final String PREFS_NAME = "ResQMePrefs";
-    private static final String KEY_SERVICE_ENABLED = "background_service_enabled";
-    private static final String WAKE_PREFS_NAME = "resqme_settings";
-    private static final String KEY_WAKE_ENABLED = "wake_word_enabled";
     private static final int REQ_POST_NOTIFICATIONS = 10001;
     private static final int REQ_RECORD_AUDIO = 10002;
 
     private VolumeButtonPlugin volumeButtonPlugin;
-    private BroadcastReceiver sosReceiver;
-    private BroadcastReceiver wakeWordReceiver;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Startup.mark(PhaseTracer.Phase.LAUNCH, savedInstanceState != null ? "restored" : null);
         super.onCreate(savedInstanceState);
 
-        // Ensure Android 13+ can show the required foreground notifications.
-        maybeRequestNotificationPermission();
-
-        // Ensure we have mic permission for voice activation + SOS recording.
-        maybeRequestAudioPermission();
-
-        // If the user previously enabled the background trigger, restart it early
-        // (works even before the web app loads / even on /auth).
-        maybeStartVolumeButtonServiceIfEnabled();
-        maybeStartWakeWordServiceIfEnabled();
+        // If the user previously enabled the background trigger, restart it first, off the
+        // main thread (works even before the web app loads / even on /auth).
+        Startup.arm(this, null);
 
         // Register the volume button plugin
         registerPlugin(VolumeButtonPlugin.class);
+        registerPlugin(NativeSosPlugin.class);
+        registerPlugin(OutboxPlugin.class);
+        registerPlugin(NativeLocationPlugin.class);
+        registerPlugin(GeocodePlugin.class);
+        registerPlugin(RecordingUploadPlugin.class);
+        registerPlugin(RecordingStorePlugin.class);
+        registerPlugin(NativeEventsPlugin.class);
+        registerPlugin(MetricsPlugin.class);
+
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageLoaded(WebView webView) {
+                Startup.mark(PhaseTracer.Phase.WEBVIEW_READY, null);
+            }
+        });
 
-        // Setup receiver for SOS triggers from service
-        setupSOSReceiver();
-
-        // Setup receiver for wake word triggers
-        setupWakeWordReceiver();
-
+        // Triggers from the background services reach JS through SosTriggers directly.
         // Check if launched with SOS trigger
         handleIntent(getIntent());
+
+        // Permission prompts wait for the first frame rather than holding it up.
+        getWindow().getDecorView().post(() -> {
+            // Ensure Android 13+ can show the required foreground notifications.
+            maybeRequestNotificationPermission();
+
+            // Ensure we have mic permission for voice activation + SOS recording.
+            maybeRequestAudioPermission();
+        });
     }
 
     private void maybeRequestNotificationPermission() {
@@ -78,40 +86,6 @@ public class MainActivity extends BridgeActivity {
         }
     }
 
-    private void maybeStartWakeWordServiceIfEnabled() {
-        try {
-            SharedPreferences prefs = getSharedPreferences(WAKE_PREFS_NAME, Context.MODE_PRIVATE);
-            boolean enabled = prefs.getBoolean(KEY_WAKE_ENABLED, false);
-            if (!enabled) return;
-
-            Intent serviceIntent = new Intent(this, WakeWordService.class);
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                startForegroundService(serviceIntent);
-            } else {
-                startService(serviceIntent);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to auto-start WakeWordService", e);
-        }
-    }
-
-    private void maybeStartVolumeButtonServiceIfEnabled() {
-        try {
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            boolean serviceEnabled = prefs.getBoolean(KEY_SERVICE_ENABLED, false);
-            if (!serviceEnabled) return;
-
-            Intent serviceIntent = new Intent(this, VolumeButtonService.class);
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                startForegroundService(serviceIntent);
-            } else {
-                startService(serviceIntent);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to auto-start VolumeButtonService", e);
-        }
-    }
-
     @Override
     protected void onNewIntent(Intent intent) {
         super.onNewIntent(intent);
@@ -119,66 +93,31 @@ public class MainActivity extends BridgeActivity {
     }
 
     private void handleIntent(Intent intent) {
-        if (intent != null && intent.getBooleanExtra("trigger_sos", false)) {
-            Log.d(TAG, "App launched with SOS trigger");
-            // Notify the web app
-            triggerSOSFromNative();
+        if (intent == null || !intent.getBooleanExtra(SosTriggers.EXTRA_TRIGGER_SOS, false)) return;
+        TriggerDispatcher dispatcher = SosTriggers.get();
+        long triggerId = intent.getLongExtra(SosTriggers.EXTRA_TRIGGER_ID, 0);
+        if (dispatcher.wasAccepted(triggerId)) {
+            // Already delivered in-process; this launch only brought the app to the front.
+            return;
         }
+        // Relaunch after the process died, or an intent from outside the dispatcher.
+        Log.d(TAG, "App launched with SOS trigger");
+        dispatcher.submit(TriggerDispatcher.Source.LAUNCH_INTENT, System.currentTimeMillis());
     }
 
-    private void setupSOSReceiver() {
-        sosReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (VolumeButtonService.ACTION_VOLUME_BUTTONS_PRESSED.equals(intent.getAction())) {
-                    Log.d(TAG, "Received volume buttons pressed broadcast");
-                    triggerSOSFromNative();
-                }
-            }
-        };
-
-        IntentFilter filter = new IntentFilter(VolumeButtonService.ACTION_VOLUME_BUTTONS_PRESSED);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            registerReceiver(sosReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-            registerReceiver(sosReceiver, filter);
-        }
-    }
-
-    private void setupWakeWordReceiver() {
-        wakeWordReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                if (WakeWordService.ACTION_WAKE_WORD_DETECTED.equals(intent.getAction())) {
-                    Log.d(TAG, "Received wake word detected broadcast");
-                    triggerSOSFromNative();
-                }
+    private VolumeButtonPlugin volumeButtonPlugin() {
+        if (volumeButtonPlugin == null && getBridge() != null) {
+            PluginHandle handle = getBridge().getPlugin("VolumeButton");
+            if (handle != null) {
+                volumeButtonPlugin = (VolumeButtonPlugin) handle.getInstance();
             }
-        };
-
-        IntentFilter filter = new IntentFilter(WakeWordService.ACTION_WAKE_WORD_DETECTED);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            registerReceiver(wakeWordReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-            registerReceiver(wakeWordReceiver, filter);
-        }
-    }
-
-    private void triggerSOSFromNative() {
-        // Get the plugin instance and trigger the event
-        VolumeButtonPlugin plugin = (VolumeButtonPlugin) getBridge().getPlugin("VolumeButton").getInstance();
-        if (plugin != null) {
-            JSObject data = new JSObject();
-            data.put("triggered", true);
-            data.put("timestamp", System.currentTimeMillis());
-            data.put("source", "background_service");
-            plugin.notifyVolumeButtonsPressed(data);
         }
+        return volumeButtonPlugin;
     }
 
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
-        VolumeButtonPlugin plugin = (VolumeButtonPlugin) getBridge().getPlugin("VolumeButton").getInstance();
+        VolumeButtonPlugin plugin = volumeButtonPlugin();
         if (plugin != null && plugin.handleKeyEvent(event)) {
             return true;
         }
@@ -187,29 +126,10 @@ public class MainActivity extends BridgeActivity {
 
     @Override
     public boolean onKeyUp(int keyCode, KeyEvent event) {
-        VolumeButtonPlugin plugin = (VolumeButtonPlugin) getBridge().getPlugin("VolumeButton").getInstance();
+        VolumeButtonPlugin plugin = volumeButtonPlugin();
         if (plugin != null && plugin.handleKeyEvent(event)) {
             return true;
         }
         return super.onKeyUp(keyCode, event);
     }
-
-    @Override
-    public void onDestroy() {
-        super.onDestroy();
-        if (sosReceiver != null) {
-            try {
-                unregisterReceiver(sosReceiver);
-            } catch (Exception e) {
-                Log.e(TAG, "Error unregistering SOS receiver", e);
-            }
-        }
-        if (wakeWordReceiver != null) {
-            try {
-                unregisterReceiver(wakeWordReceiver);
-            } catch (Exception e) {
-                Log.e(TAG, "Error unregistering wake word receiver", e);
-            }
-        }
-    }
 }
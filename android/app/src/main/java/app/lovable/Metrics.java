@@ -0,0 +1,66 @@
+package app.lovable;
+
+import android.content.Context;
+import android.util.Log;
+
+import app.lovable.core.MetricsRegistry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide {@link MetricsRegistry}. Services and plugins keep the
+ * metrics they update in static fields; MetricsPlugin hands a snapshot to
+ * JS, and once started a compact dump is written to filesDir/metrics.txt
+ * every few minutes so the numbers survive the process for a bug report.
+ */
+public final class Metrics {
+    private static final String TAG = "Metrics";
+    private static final String FILE_NAME = "metrics.txt";
+    private static final long DUMP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final MetricsRegistry registry = new MetricsRegistry(Clocks.ELAPSED);
+    private static ScheduledExecutorService dumper;
+    private static File file;
+
+    private Metrics() {}
+
+    public static MetricsRegistry get() {
+        return registry;
+    }
+
+    /** Starts the periodic dump; later calls do nothing. */
+    static synchronized void startDump(Context context) {
+        if (dumper != null) return;
+        file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG));
+        dumper.scheduleWithFixedDelay(Metrics::dump, DUMP_INTERVAL_MS, DUMP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes the dump now, e.g. before the service stops; no-op until {@link #startDump} ran. */
+    static void dumpNow() {
+        ScheduledExecutorService d;
+        synchronized (Metrics.class) {
+            d = dumper;
+        }
+        if (d != null) d.execute(Metrics::dump);
+    }
+
+    private static void dump() {
+        String text = "# wall=" + System.currentTimeMillis() + "\n" + registry.snapshot().format();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write metrics dump", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) Log.w(TAG, "Cannot replace " + file);
+    }
+}
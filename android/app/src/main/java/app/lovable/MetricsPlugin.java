@@ -0,0 +1,54 @@
+package app.lovable;
+
+import app.lovable.core.MetricsRegistry;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Map;
+
+/** Snapshot of the native {@link Metrics} registry and the {@link Startup} trace for JS. */
+@CapacitorPlugin(name = "Metrics")
+public class MetricsPlugin extends Plugin {
+    @Override
+    public void load() {
+        super.load();
+        Metrics.startDump(getContext());
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        MetricsRegistry.Snapshot s = Metrics.get().snapshot();
+        JSObject counters = new JSObject();
+        for (Map.Entry<String, Long> e : s.counters.entrySet()) counters.put(e.getKey(), e.getValue());
+        JSObject gauges = new JSObject();
+        for (Map.Entry<String, Long> e : s.gauges.entrySet()) gauges.put(e.getKey(), e.getValue());
+        JSObject histograms = new JSObject();
+        for (Map.Entry<String, MetricsRegistry.HistogramSnapshot> e : s.histograms.entrySet()) {
+            MetricsRegistry.HistogramSnapshot h = e.getValue();
+            JSObject o = new JSObject();
+            o.put("count", h.count);
+            o.put("meanMs", h.meanMicros / 1_000.0);
+            o.put("p50Ms", h.p50Micros / 1_000.0);
+            o.put("p90Ms", h.p90Micros / 1_000.0);
+            o.put("p99Ms", h.p99Micros / 1_000.0);
+            o.put("maxMs", h.maxMicros / 1_000.0);
+            histograms.put(e.getKey(), o);
+        }
+        JSObject ret = new JSObject();
+        ret.put("timestamp", System.currentTimeMillis());
+        ret.put("counters", counters);
+        ret.put("gauges", gauges);
+        ret.put("histograms", histograms);
+        call.resolve(ret);
+    }
+
+    /** Startup phase marks and the boot/launch-to-armed times derived from them. */
+    @PluginMethod
+    public void getStartupTrace(PluginCall call) {
+        call.resolve(Startup.toJs());
+    }
+}
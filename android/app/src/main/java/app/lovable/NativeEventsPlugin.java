@@ -0,0 +1,98 @@
+package app.lovable;
+
+import app.lovable.core.EventCoalescer;
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.TriggerDispatcher;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Locale;
+
+/**
+ * Delivers {@link EventBridge} frames to JS: audio levels, transcripts and
+ * recognizer state batched into one eventFrame message per flush, with SOS
+ * triggers included as critical events.
+ */
+@CapacitorPlugin(name = "NativeEvents")
+public class NativeEventsPlugin extends Plugin {
+    private static final String EVENT = "eventFrame";
+    private final EventCoalescer.Sink<JSObject> frameSink = this::deliverFrame;
+    /** Mirrors triggers into the frame stream; the trigger events themselves stay with their plugins. */
+    private final TriggerDispatcher.Sink triggerSink = trigger -> {
+        EventBridge.critical("trigger", SosTriggers.toJs(trigger));
+        return false;
+    };
+
+    @Override
+    public void load() {
+        super.load();
+        EventBridge.get().setSink(frameSink);
+        SosTriggers.get().addSink(triggerSink);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        SosTriggers.get().removeSink(triggerSink);
+        EventBridge.get().setSink(null);
+        super.handleOnDestroy();
+    }
+
+    private boolean deliverFrame(EventCoalescer.Frame<JSObject> frame) {
+        boolean critical = frame.hasCritical();
+        // Frames with nothing critical are not worth keeping for a listener that is not there.
+        if (!critical && !hasListeners(EVENT)) return false;
+        JSArray events = new JSArray();
+        for (EventCoalescer.Event<JSObject> e : frame.events) {
+            JSObject o = new JSObject();
+            o.put("type", e.type);
+            o.put("kind", e.kind.name().toLowerCase(Locale.ROOT));
+            o.put("seq", e.seq);
+            o.put("data", e.payload);
+            events.put(o);
+        }
+        JSObject data = new JSObject();
+        data.put("events", events);
+        data.put("coalesced", frame.coalesced);
+        data.put("dropped", frame.dropped);
+        // Capacitor holds retained events until a listener is added.
+        notifyListeners(EVENT, data, critical);
+        return true;
+    }
+
+    @PluginMethod
+    public void configure(PluginCall call) {
+        int intervalMs = call.getInt("intervalMs", (int) EventBridge.DEFAULT_INTERVAL_MS);
+        int maxBatch = call.getInt("maxBatch", EventBridge.DEFAULT_MAX_BATCH);
+        if (intervalMs < 16 || intervalMs > 5_000) {
+            call.reject("intervalMs must be 16-5000");
+            return;
+        }
+        if (maxBatch < 1 || maxBatch > 1_000) {
+            call.reject("maxBatch must be 1-1000");
+            return;
+        }
+        EventBridge.get().setLimits(intervalMs, maxBatch);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        EventCoalescer<JSObject> c = EventBridge.get();
+        LatencyHistogram delay = c.getDeliveryDelay();
+        JSObject ret = new JSObject();
+        ret.put("published", c.getPublished());
+        ret.put("coalesced", c.getCoalesced());
+        ret.put("dropped", c.getDropped());
+        ret.put("delivered", c.getDelivered());
+        ret.put("frames", c.getFrames());
+        ret.put("pending", c.getPending());
+        ret.put("delayP50Ms", delay.percentileMicros(50) / 1_000.0);
+        ret.put("delayP99Ms", delay.percentileMicros(99) / 1_000.0);
+        call.resolve(ret);
+    }
+}
@@ -0,0 +1,140 @@
+package app.lovable;
+
+import android.util.Base64;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import app.lovable.core.FixRingBuffer;
+import app.lovable.core.LocationTracker;
+import app.lovable.core.TrailCodec;
+import app.lovable.core.TrailCompressor;
+
+import java.util.Locale;
+
+@CapacitorPlugin(name = "NativeLocation")
+public class NativeLocationPlugin extends Plugin {
+    /** About GPS accuracy outdoors, so simplification removes little more than jitter. */
+    private static final double DEFAULT_TRAIL_ERROR_M = 10;
+    private final LocationTracker.Sink sink = this::deliver;
+
+    @Override
+    public void load() {
+        super.load();
+        LocationTracking.get(getContext()).setSink(sink);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        LocationTracking.get(getContext()).setSink(null);
+        super.handleOnDestroy();
+    }
+
+    /** One bridge call per wakeup, however many fixes it carried. */
+    private void deliver(FixRingBuffer.Batch batch) {
+        notifyListeners("locationBatch", toJs(batch));
+    }
+
+    /** Column arrays instead of one object per fix keep the payload small. */
+    private static JSObject toJs(FixRingBuffer.Batch batch) {
+        JSArray lat = new JSArray();
+        JSArray lng = new JSArray();
+        JSArray accuracy = new JSArray();
+        JSArray time = new JSArray();
+        for (int i = 0; i < batch.count; i++) {
+            lat.put(batch.latitude[i]);
+            lng.put(batch.longitude[i]);
+            accuracy.put(batch.accuracyM[i]);
+            time.put(batch.timeMs[i]);
+        }
+        JSObject data = new JSObject();
+        data.put("firstSeq", batch.firstSeq);
+        data.put("nextSeq", batch.nextSeq());
+        data.put("skipped", batch.skipped);
+        data.put("lat", lat);
+        data.put("lng", lng);
+        data.put("accuracy", accuracy);
+        data.put("time", time);
+        return data;
+    }
+
+    @PluginMethod
+    public void start(PluginCall call) {
+        LocationTracking.start(getContext());
+        JSObject ret = new JSObject();
+        ret.put("running", LocationTracking.get(getContext()).isRunning());
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void setMode(PluginCall call) {
+        String mode = call.getString("mode");
+        if (!"idle".equals(mode) && !"sos".equals(mode)) {
+            call.reject("mode must be 'idle' or 'sos'");
+            return;
+        }
+        LocationTracking.setMode(getContext(), "sos".equals(mode) ? LocationTracker.Mode.SOS : LocationTracker.Mode.IDLE);
+        call.resolve();
+    }
+
+    /** Retained fixes from {@code sinceSeq} on, for catching up after the app was away. */
+    @PluginMethod
+    public void getFixes(PluginCall call) {
+        FixRingBuffer.Batch batch = new FixRingBuffer.Batch();
+        LocationTracking.get(getContext()).copySince(call.getLong("sinceSeq", 0L), batch);
+        call.resolve(toJs(batch));
+    }
+
+    /**
+     * Retained fixes from {@code sinceSeq} on, simplified to within
+     * {@code maxErrorM} and encoded twice: a short GSM-safe string for SMS
+     * and a base64 binary form with timestamps for uploads.
+     */
+    @PluginMethod
+    public void getTrail(PluginCall call) {
+        double maxErrorM = call.getDouble("maxErrorM", DEFAULT_TRAIL_ERROR_M);
+        if (!(maxErrorM >= 0)) {
+            call.reject("maxErrorM must be non-negative");
+            return;
+        }
+        FixRingBuffer.Batch batch = new FixRingBuffer.Batch();
+        LocationTracking.get(getContext()).copySince(call.getLong("sinceSeq", 0L), batch);
+        TrailCompressor compressor = new TrailCompressor(maxErrorM);
+        for (int i = 0; i < batch.count; i++) {
+            compressor.add(batch.latitude[i], batch.longitude[i], batch.timeMs[i]);
+        }
+        TrailCompressor.Trail trail = compressor.snapshot();
+        int digits = TrailCodec.digitsFor(maxErrorM);
+        byte[] binary = TrailCodec.encodeBinary(trail, Math.max(digits, 6));
+
+        JSObject ret = new JSObject();
+        ret.put("nextSeq", batch.nextSeq());
+        ret.put("points", batch.count);
+        ret.put("keptPoints", trail.count);
+        ret.put("sms", TrailCodec.encodeSms(trail, digits));
+        ret.put("binary", Base64.encodeToString(binary, Base64.NO_WRAP));
+        ret.put("binaryBytes", binary.length);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        LocationTracker tracker = LocationTracking.get(getContext());
+        JSObject ret = new JSObject();
+        ret.put("running", tracker.isRunning());
+        ret.put("mode", tracker.getMode().name().toLowerCase(Locale.ROOT));
+        ret.put("fixes", tracker.getFixes());
+        ret.put("wakeups", tracker.getWakeups());
+        ret.put("fixesPerWakeup", tracker.getFixesPerWakeup());
+        ret.put("batchesDelivered", tracker.getBatchesDelivered());
+        ret.put("skipped", tracker.getSkipped());
+        ret.put("modeSwitches", tracker.getModeSwitches());
+        ret.put("registrations", tracker.getRegistrations());
+        ret.put("sosMs", tracker.getSosMs());
+        call.resolve(ret);
+    }
+}
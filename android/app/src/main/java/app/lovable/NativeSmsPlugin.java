@@ -2,7 +2,7 @@ package app.lovable;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
-import android.telephony.SmsManager;
+import android.util.Log;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.getcapacitor.JSArray;
@@ -13,9 +13,15 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
 import com.getcapacitor.annotation.PermissionCallback;
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.SmsFanout;
+import app.lovable.core.SmsScheduler;
+import app.lovable.core.SmsSegmentOptimizer;
 import org.json.JSONException;
 import org.json.JSONObject;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 @CapacitorPlugin(
     name = "NativeSms",
@@ -27,7 +33,11 @@ import java.util.ArrayList;
     }
 )
 public class NativeSmsPlugin extends Plugin {
+    private static final String TAG = "NativeSmsPlugin";
     private static final int SMS_PERMISSION_REQUEST = 1001;
+    private static final long DEFAULT_DEADLINE_MS = 60_000;
+    /** An SOS that fits one segment cannot arrive partially or out of order. */
+    static final int TARGET_SEGMENTS = 1;
     private PluginCall pendingCall;
 
     @PluginMethod
@@ -53,11 +63,27 @@ public class NativeSmsPlugin extends Plugin {
             return;
         }
 
+        // Resolves once the scheduler hands the text to the radio, which may wait behind alerts.
+        int[] segments = new int[1];
         try {
-            sendSmsMessage(phoneNumber, message);
-            JSObject ret = new JSObject();
-            ret.put("success", true);
-            call.resolve(ret);
+            segments[0] = SmsDispatcher.enqueue(phoneNumber, message, call.getBoolean("primary", false),
+                    parseKind(call.getString("kind")), new SmsScheduler.Callback() {
+                        @Override
+                        public void onSent(SmsScheduler.Job job) {
+                            JSObject ret = new JSObject();
+                            ret.put("success", true);
+                            ret.put("segments", segments[0]);
+                            call.resolve(ret);
+                        }
+
+                        @Override
+                        public void onFailed(SmsScheduler.Job job, String error) {
+                            JSObject ret = new JSObject();
+                            ret.put("success", false);
+                            ret.put("error", error);
+                            call.resolve(ret);
+                        }
+                    });
         } catch (Exception e) {
             JSObject ret = new JSObject();
             ret.put("success", false);
@@ -65,6 +91,12 @@ public class NativeSmsPlugin extends Plugin {
         }
     }
 
+    /**
+     * Texts every recipient concurrently. Resolves once each one was sent or
+     * failed (or {@code deadlineMs} passed); "smsProgress" streams per
+     * recipient updates and "smsBatchFinished" follows once delivery reports
+     * are in.
+     */
     @PluginMethod
     public void sendMultipleSms(PluginCall call) {
         JSArray messagesArray = call.getArray("messages");
@@ -80,46 +112,114 @@ public class NativeSmsPlugin extends Plugin {
             return;
         }
 
-        ArrayList<JSObject> results = new ArrayList<>();
-        int successCount = 0;
-        int failedCount = 0;
-
+        List<SmsFanout.Message> messages = new ArrayList<>();
         try {
             for (int i = 0; i < messagesArray.length(); i++) {
                 JSONObject msgObj = messagesArray.getJSONObject(i);
-                String phoneNumber = msgObj.getString("phoneNumber");
-                String message = msgObj.getString("message");
-
-                JSObject result = new JSObject();
-                result.put("phoneNumber", phoneNumber);
-
-                try {
-                    sendSmsMessage(phoneNumber, message);
-                    result.put("success", true);
-                    successCount++;
-                } catch (Exception e) {
-                    result.put("success", false);
-                    result.put("error", e.getMessage());
-                    failedCount++;
-                }
-                results.add(result);
+                messages.add(new SmsFanout.Message(msgObj.getString("phoneNumber"), msgObj.getString("message"),
+                        msgObj.optBoolean("primary", false), parseKind(msgObj.optString("kind", null))));
             }
         } catch (JSONException e) {
             call.reject("Invalid messages format");
             return;
         }
 
+        long deadlineMs = call.getLong("deadlineMs", DEFAULT_DEADLINE_MS);
+        boolean awaitDelivery = call.getBoolean("awaitDelivery", true);
+        SmsDispatcher.send(getContext(), messages, deadlineMs, awaitDelivery, new SmsFanout.Listener() {
+            @Override
+            public void onProgress(SmsFanout.Batch batch, SmsFanout.Recipient r) {
+                JSObject data = recipientToJs(r);
+                data.put("batchId", batch.id);
+                notifyListeners("smsProgress", data);
+            }
+
+            @Override
+            public void onAllSent(SmsFanout.Batch batch) {
+                JSObject ret = batchToJs(batch);
+                ret.put("timeToAllSentMs", batch.getTimeToAllSentMs());
+                call.resolve(ret);
+            }
+
+            @Override
+            public void onFinished(SmsFanout.Batch batch) {
+                JSObject data = batchToJs(batch);
+                data.put("deliveredCount", batch.count(SmsFanout.State.DELIVERED));
+                data.put("timeToAllSentMs", batch.getTimeToAllSentMs());
+                data.put("timeToAllDeliveredMs", batch.getTimeToAllDeliveredMs());
+                notifyListeners("smsBatchFinished", data);
+            }
+        });
+    }
+
+    /** Reports encoding and segment count before sending, and what the optimizer would send instead. */
+    @PluginMethod
+    public void analyzeSms(PluginCall call) {
+        String message = call.getString("message");
+        if (message == null) {
+            call.reject("Message is required");
+            return;
+        }
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize(message, call.getInt("maxSegments", TARGET_SEGMENTS));
+        JSObject ret = new JSObject();
+        ret.put("encoding", r.originalEncoding.name().toLowerCase(Locale.ROOT));
+        ret.put("segments", r.originalSegments);
+        ret.put("optimizedMessage", r.text);
+        ret.put("optimizedEncoding", r.encoding.name().toLowerCase(Locale.ROOT));
+        ret.put("optimizedSegments", r.segments);
+        JSArray steps = new JSArray();
+        for (String step : r.steps) steps.put(step);
+        ret.put("steps", steps);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getSmsStats(PluginCall call) {
+        LatencyHistogram sent = SmsDispatcher.getTimeToAllSent();
+        LatencyHistogram delivered = SmsDispatcher.getTimeToAllDelivered();
+        JSObject ret = new JSObject();
+        ret.put("batches", sent.getCount());
+        ret.put("allSentP50Ms", sent.percentileMicros(50) / 1000);
+        ret.put("allSentP90Ms", sent.percentileMicros(90) / 1000);
+        ret.put("allSentMaxMs", sent.getMaxMicros() / 1000);
+        ret.put("allDeliveredP50Ms", delivered.percentileMicros(50) / 1000);
+        ret.put("allDeliveredP90Ms", delivered.percentileMicros(90) / 1000);
+        ret.put("allDeliveredMaxMs", delivered.getMaxMicros() / 1000);
+        SmsScheduler scheduler = SmsDispatcher.getScheduler();
+        LatencyHistogram wait = scheduler.getWaitTime();
+        ret.put("queueDepth", scheduler.getQueueDepth());
+        ret.put("waitP50Ms", wait.percentileMicros(50) / 1000);
+        ret.put("waitP90Ms", wait.percentileMicros(90) / 1000);
+        ret.put("waitMaxMs", wait.getMaxMicros() / 1000);
+        ret.put("retries", scheduler.getRetries());
+        ret.put("throttled", scheduler.getThrottled());
+        call.resolve(ret);
+    }
+
+    private static JSObject recipientToJs(SmsFanout.Recipient r) {
+        JSObject result = new JSObject();
+        result.put("index", r.index);
+        result.put("phoneNumber", r.phoneNumber);
+        result.put("state", r.getState().name().toLowerCase(Locale.ROOT));
+        result.put("success", r.getState() == SmsFanout.State.SENT || r.getState() == SmsFanout.State.DELIVERED);
+        result.put("parts", r.getParts());
+        if (r.getError() != null) result.put("error", r.getError());
+        return result;
+    }
+
+    /** Keeps the original {successCount, failedCount, results} shape. */
+    private static JSObject batchToJs(SmsFanout.Batch batch) {
         JSObject ret = new JSObject();
+        int successCount = batch.sentCount();
+        ret.put("batchId", batch.id);
         ret.put("successCount", successCount);
-        ret.put("failedCount", failedCount);
-        
+        ret.put("failedCount", batch.getRecipients().size() - successCount);
         JSArray resultsArray = new JSArray();
-        for (JSObject r : results) {
-            resultsArray.put(r);
+        for (SmsFanout.Recipient r : batch.getRecipients()) {
+            resultsArray.put(recipientToJs(r));
         }
         ret.put("results", resultsArray);
-        
-        call.resolve(ret);
+        return ret;
     }
 
     private boolean hasPermission() {
@@ -151,16 +251,18 @@ public class NativeSmsPlugin extends Plugin {
         }
     }
 
-    private void sendSmsMessage(String phoneNumber, String message) throws Exception {
-        SmsManager smsManager = SmsManager.getDefault();
-        
-        // Split message if too long
-        ArrayList<String> parts = smsManager.divideMessage(message);
-        
-        if (parts.size() > 1) {
-            smsManager.sendMultipartTextMessage(phoneNumber, null, parts, null, null);
-        } else {
-            smsManager.sendTextMessage(phoneNumber, null, message, null, null);
+    /** "follow_up" texts wait behind alerts; anything else is treated as part of the SOS. */
+    private static SmsScheduler.Kind parseKind(String kind) {
+        return "follow_up".equals(kind) ? SmsScheduler.Kind.FOLLOW_UP : SmsScheduler.Kind.SOS;
+    }
+
+    /** Fits the text into as few segments as it safely can before divideMessage sees it. */
+    static String optimize(String message) {
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize(message, TARGET_SEGMENTS);
+        if (r.changed()) {
+            Log.d(TAG, "SMS " + r.originalEncoding + "/" + r.originalSegments + " -> " + r.encoding + "/"
+                    + r.segments + " segments via " + r.steps);
         }
+        return r.text;
     }
 }
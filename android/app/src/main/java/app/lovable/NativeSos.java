@@ -0,0 +1,296 @@
+package app.lovable;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import app.lovable.core.GeoFix;
+import app.lovable.core.LocationTracker;
+import app.lovable.core.SmsScheduler;
+import app.lovable.core.SosPipeline;
+import app.lovable.core.TriggerDispatcher;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link SosPipeline} straight from a background trigger so the first
+ * SMS does not wait for the WebView. Contacts and the user's name are cached
+ * by the app through NativeSosPlugin; results are handed to the plugin (or
+ * kept until it loads) so JS can reconcile.
+ */
+public final class NativeSos {
+    private static final String TAG = "NativeSos";
+
+    public static final String PREFS_NAME = "resqme_sos";
+    public static final String PREF_ENABLED = "native_sos_enabled";
+    public static final String PREF_USER_NAME = "user_name";
+    public static final String PREF_CONTACTS = "contacts_json";
+    public static final String PREF_HOLD_MS = "hold_ms";
+    /** Matches the app's cancel countdown so a false trigger can still be called off. */
+    public static final long DEFAULT_HOLD_MS = 5_000;
+    /**
+     * How long one run may spend getting its texts to the radio. Texts still
+     * waiting when it ends fail the run and stay in the Outbox for replay.
+     */
+    static final long SMS_DEADLINE_MS = 60_000;
+    /** Longest {@link #isHandling} waits for a trigger still being looked at. */
+    static final long DECIDE_WAIT_MS = 1_000;
+
+    /** Receives finished runs; called on the pipeline thread. */
+    public interface Listener {
+        void onSosSent(SosPipeline.Result result);
+    }
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "NativeSos");
+        t.setPriority(Thread.MAX_PRIORITY);
+        return t;
+    });
+    // Takes triggers off the caller's thread. Separate from the executor, which blocks while a run sends.
+    private static final ExecutorService intake = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "NativeSosIntake");
+        t.setPriority(Thread.MAX_PRIORITY);
+        return t;
+    });
+    // Triggers submitted and not yet decided on; cancel() empties it.
+    private static final Set<Long> deciding = new HashSet<>();
+    private static final List<SosPipeline.Result> undelivered = new ArrayList<>();
+    private static SosPipeline pipeline;
+    private static Listener listener;
+    // Trigger of the current (or last) run, and every later trigger that joined it as the same SOS.
+    private static volatile long handlingTriggerId = Long.MIN_VALUE;
+    private static final Set<Long> joinedTriggerIds = new HashSet<>();
+    // True from scheduling a run until it finishes or is cancelled.
+    private static boolean runActive;
+    // elapsedRealtime at which the current run's SMS deadline passes.
+    private static volatile long smsDeadlineMs;
+    private static final List<ScheduledFuture<?>> pending = new ArrayList<>();
+    private static SosPipeline.Result lastResult;
+
+    private NativeSos() {}
+
+    private static synchronized SosPipeline pipeline(Context context) {
+        if (pipeline == null) {
+            Context app = context.getApplicationContext();
+            pipeline = new SosPipeline(SystemClock::elapsedRealtime, () -> lastKnownLocation(app),
+                    (contact, message) -> {
+                        // Journaled first so a text cut off by the process dying is re-sent on restart.
+                        long outboxId = Outbox.enqueueSms(app, handlingTriggerId, contact.phoneNumber, message);
+                        long remainingMs = Math.max(0, smsDeadlineMs - SystemClock.elapsedRealtime());
+                        SmsDispatcher.sendBlocking(contact.phoneNumber, message, contact.primary, SmsScheduler.Kind.SOS,
+                                remainingMs);
+                        Outbox.complete(app, outboxId);
+                    });
+            Metrics.get().register("sos.firstSms", pipeline.getFirstSmsLatency());
+        }
+        return pipeline;
+    }
+
+    /**
+     * Hands an accepted background trigger to {@link #onTrigger} on the
+     * intake thread, since that reads preferences and starts location.
+     * Until it has decided, {@link #isHandling} waits for the answer.
+     */
+    public static void submit(Context context, TriggerDispatcher.Trigger trigger) {
+        synchronized (NativeSos.class) {
+            deciding.add(trigger.id);
+        }
+        intake.execute(() -> {
+            try {
+                onTrigger(context, trigger);
+            } finally {
+                synchronized (NativeSos.class) {
+                    deciding.remove(trigger.id);
+                    NativeSos.class.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts the pipeline for an accepted background trigger if the app has
+     * enabled it, cached at least one contact and holds SEND_SMS. A trigger
+     * that arrives while a run is waiting out its hold or sending joins that
+     * run instead of starting another.
+     */
+    private static void onTrigger(Context context, TriggerDispatcher.Trigger trigger) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(PREF_ENABLED, false)) return;
+        SosPipeline.Profile profile = loadProfile(prefs);
+        if (profile.contacts.isEmpty()) {
+            Log.w(TAG, "No cached contacts; leaving SOS to the app");
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "SEND_SMS not granted; leaving SOS to the app");
+            return;
+        }
+
+        SosPipeline p = pipeline(context);
+        long triggeredAtMs = trigger.createdAtNanos / 1_000_000L;
+        long holdMs = prefs.getLong(PREF_HOLD_MS, DEFAULT_HOLD_MS);
+        synchronized (NativeSos.class) {
+            if (!deciding.contains(trigger.id)) {
+                Log.d(TAG, "Trigger " + trigger.id + " was cancelled before it started");
+                return;
+            }
+            if (runActive) {
+                // The dedup window is shorter than the hold: a later trigger is the same SOS, not a second run.
+                joinedTriggerIds.add(trigger.id);
+                Log.d(TAG, "Trigger " + trigger.id + " joins the run for " + handlingTriggerId);
+                return;
+            }
+            runActive = true;
+            handlingTriggerId = trigger.id;
+            joinedTriggerIds.clear();
+            LocationTracking.setMode(context, LocationTracker.Mode.SOS);
+            LocationTracking.start(context);
+            pending.removeIf(Future::isDone);
+            pending.add(executor.schedule(() -> {
+                smsDeadlineMs = SystemClock.elapsedRealtime() + SMS_DEADLINE_MS;
+                SosPipeline.Result result = p.run(trigger.id, triggeredAtMs, profile);
+                Log.d(TAG, "Trigger " + trigger.id + ": " + result.sentCount() + "/" + result.recipients.size()
+                        + " sent, first SMS after " + result.firstSmsLatencyMs + " ms");
+                publish(result);
+            }, holdMs, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * True if the pipeline took over SMS for this trigger, so the app should
+     * not text contacts itself. A trigger still on the intake thread is
+     * waited for, up to {@link #DECIDE_WAIT_MS}.
+     */
+    public static synchronized boolean isHandling(long triggerId) {
+        long deadline = SystemClock.elapsedRealtime() + DECIDE_WAIT_MS;
+        long remaining;
+        while (deciding.contains(triggerId) && (remaining = deadline - SystemClock.elapsedRealtime()) > 0) {
+            try {
+                NativeSos.class.wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return handlingTriggerId == triggerId || joinedTriggerIds.contains(triggerId);
+    }
+
+    /** Calls off the current run; texts already sent cannot be recalled. Returns false if there was none. */
+    public static synchronized boolean cancel(Context context) {
+        PreRoll.stopRecording();
+        boolean undecided = !deciding.isEmpty();
+        deciding.clear();
+        NativeSos.class.notifyAll();
+        long id = handlingTriggerId;
+        if (id == Long.MIN_VALUE) return undecided;
+        if (pipeline != null) pipeline.cancel(id);
+        // Texts that failed or timed out stay journaled; they must not reach contacts on a later replay.
+        Outbox.cancelTrigger(context, id);
+        LocationTracking.endSos();
+        boolean stopped = false;
+        for (ScheduledFuture<?> f : pending) stopped |= f.cancel(false);
+        pending.clear();
+        runActive = false;
+        Log.d(TAG, "Cancelled trigger " + id + (stopped ? " before sending" : ""));
+        return true;
+    }
+
+    public static synchronized SosPipeline getPipeline(Context context) {
+        return pipeline(context);
+    }
+
+    public static synchronized SosPipeline.Result getLastResult() {
+        return lastResult;
+    }
+
+    /** Registers the plugin and hands it any results that finished before it loaded. */
+    public static void setListener(Listener l) {
+        List<SosPipeline.Result> backlog;
+        synchronized (NativeSos.class) {
+            listener = l;
+            if (l == null) return;
+            backlog = new ArrayList<>(undelivered);
+            undelivered.clear();
+        }
+        for (SosPipeline.Result r : backlog) l.onSosSent(r);
+    }
+
+    private static void publish(SosPipeline.Result result) {
+        Listener l;
+        synchronized (NativeSos.class) {
+            lastResult = result;
+            if (result.triggerId == handlingTriggerId) runActive = false;
+            l = listener;
+            if (l == null) {
+                undelivered.add(result);
+                return;
+            }
+        }
+        l.onSosSent(result);
+    }
+
+    static SosPipeline.Profile loadProfile(SharedPreferences prefs) {
+        List<SosPipeline.Contact> contacts = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(prefs.getString(PREF_CONTACTS, "[]"));
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject o = array.getJSONObject(i);
+                String phone = o.optString("phoneNumber", "");
+                if (!phone.isEmpty()) {
+                    contacts.add(new SosPipeline.Contact(o.optString("name", ""), phone, o.optBoolean("primary", false)));
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ignoring unreadable cached contacts", e);
+        }
+        return new SosPipeline.Profile(prefs.getString(PREF_USER_NAME, ""), contacts);
+    }
+
+    private static GeoFix lastKnownLocation(Context context) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            return null;
+        }
+        LocationManager lm = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (lm == null) return null;
+        Location best = null;
+        for (String provider : lm.getProviders(true)) {
+            try {
+                Location l = lm.getLastKnownLocation(provider);
+                if (l != null && (best == null
+                        || l.getElapsedRealtimeNanos() > best.getElapsedRealtimeNanos())) {
+                    best = l;
+                }
+            } catch (SecurityException e) {
+                Log.w(TAG, "No access to " + provider);
+            }
+        }
+        GeoFix tracked = LocationTracking.latest();
+        if (best == null) return tracked;
+        long ageMs = (SystemClock.elapsedRealtimeNanos() - best.getElapsedRealtimeNanos()) / 1_000_000L;
+        if (tracked != null && tracked.ageMs <= ageMs) return tracked;
+        return new GeoFix(best.getLatitude(), best.getLongitude(), best.hasAccuracy() ? best.getAccuracy() : 0f, ageMs);
+    }
+}
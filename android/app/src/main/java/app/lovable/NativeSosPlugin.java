@@ -0,0 +1,125 @@
+package app.lovable;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.SosPipeline;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+@CapacitorPlugin(name = "NativeSos")
+public class NativeSosPlugin extends Plugin {
+    private static final String TAG = "NativeSosPlugin";
+    private final NativeSos.Listener sosListener = this::onSosSent;
+
+    @Override
+    public void load() {
+        super.load();
+        NativeSos.setListener(sosListener);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        NativeSos.setListener(null);
+        super.handleOnDestroy();
+    }
+
+    private void onSosSent(SosPipeline.Result result) {
+        // Retained: the run usually finishes before the app has registered its listener.
+        notifyListeners("nativeSosSent", toJs(result), true);
+    }
+
+    @PluginMethod
+    public void configure(PluginCall call) {
+        SharedPreferences prefs = getContext().getSharedPreferences(NativeSos.PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = prefs.edit();
+        Boolean enabled = call.getBoolean("enabled");
+        if (enabled != null) editor.putBoolean(NativeSos.PREF_ENABLED, enabled);
+        String userName = call.getString("userName");
+        if (userName != null) editor.putString(NativeSos.PREF_USER_NAME, userName);
+        Integer holdMs = call.getInt("holdMs");
+        if (holdMs != null) editor.putLong(NativeSos.PREF_HOLD_MS, Math.max(0, holdMs));
+
+        JSArray contacts = call.getArray("contacts");
+        if (contacts != null) {
+            try {
+                JSONArray cached = new JSONArray();
+                for (int i = 0; i < contacts.length(); i++) {
+                    JSONObject c = contacts.getJSONObject(i);
+                    String phone = c.optString("phoneNumber", "");
+                    if (phone.isEmpty()) continue;
+                    cached.put(new JSONObject().put("name", c.optString("name", "")).put("phoneNumber", phone)
+                            .put("primary", c.optBoolean("primary", false)));
+                }
+                editor.putString(NativeSos.PREF_CONTACTS, cached.toString());
+            } catch (Exception e) {
+                Log.e(TAG, "Error caching contacts", e);
+                call.reject("Invalid contacts: " + e.getMessage());
+                return;
+            }
+        }
+        editor.apply();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("cancelled", NativeSos.cancel(getContext()));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        SharedPreferences prefs = getContext().getSharedPreferences(NativeSos.PREFS_NAME, Context.MODE_PRIVATE);
+        LatencyHistogram latency = NativeSos.getPipeline(getContext()).getFirstSmsLatency();
+        JSObject ret = new JSObject();
+        ret.put("enabled", prefs.getBoolean(NativeSos.PREF_ENABLED, false));
+        ret.put("contactCount", NativeSos.loadProfile(prefs).contacts.size());
+        ret.put("holdMs", prefs.getLong(NativeSos.PREF_HOLD_MS, NativeSos.DEFAULT_HOLD_MS));
+        ret.put("runs", latency.getCount());
+        ret.put("firstSmsP50Ms", latency.percentileMicros(50) / 1_000);
+        ret.put("firstSmsP90Ms", latency.percentileMicros(90) / 1_000);
+        ret.put("firstSmsMaxMs", latency.getMaxMicros() / 1_000);
+        SosPipeline.Result last = NativeSos.getLastResult();
+        if (last != null) ret.put("lastResult", toJs(last));
+        call.resolve(ret);
+    }
+
+    private static JSObject toJs(SosPipeline.Result result) {
+        JSObject data = new JSObject();
+        data.put("triggerId", String.valueOf(result.triggerId));
+        data.put("cancelled", result.cancelled);
+        data.put("sentCount", result.sentCount());
+        data.put("firstSmsLatencyMs", result.firstSmsLatencyMs);
+        data.put("totalMs", result.totalMs);
+        if (result.location != null) {
+            JSObject loc = new JSObject();
+            loc.put("lat", result.location.latitude);
+            loc.put("lng", result.location.longitude);
+            loc.put("accuracy", result.location.accuracyM);
+            loc.put("ageMs", result.location.ageMs);
+            data.put("location", loc);
+        }
+        JSArray recipients = new JSArray();
+        for (SosPipeline.Recipient r : result.recipients) {
+            JSObject o = new JSObject();
+            o.put("phoneNumber", r.phoneNumber);
+            o.put("success", r.sent);
+            if (r.error != null) o.put("error", r.error);
+            recipients.put(o);
+        }
+        data.put("results", recipients);
+        return data;
+    }
+}
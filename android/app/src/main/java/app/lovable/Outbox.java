@@ -0,0 +1,221 @@
+package app.lovable;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import app.lovable.core.OutboxJournal;
+import app.lovable.core.SmsFanout;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide {@link OutboxJournal} in the app's files dir. SMS items
+ * left over from a previous process are re-sent by {@link #replay}, which
+ * the services and BootReceiver call on start; alert items wait for the app
+ * to sync them through OutboxPlugin.
+ *
+ * Journal failures are logged and never stop an SOS from going out.
+ */
+public final class Outbox {
+    private static final String TAG = "Outbox";
+    private static final String FILE_NAME = "outbox.journal";
+
+    /** Writes are forced to disk at most this long after they happen. */
+    private static final long SYNC_DELAY_MS = 200;
+    /** Replays per SMS item before it is left for the user to see. */
+    static final int MAX_ATTEMPTS = 3;
+    /** Older texts are dropped instead of replayed; they would only confuse contacts. */
+    static final long MAX_SMS_AGE_MS = 24 * 60 * 60 * 1000L;
+    private static final long REPLAY_DEADLINE_MS = 60_000;
+
+    private static final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(
+            r -> new Thread(r, "OutboxSync"));
+    private static OutboxJournal journal;
+    /** Items that were already pending when this process opened the journal. */
+    private static List<OutboxJournal.Entry> inherited = Collections.emptyList();
+    private static boolean syncScheduled;
+    private static boolean replayed;
+
+    private Outbox() {}
+
+    /** Returns the journal, or null if it cannot be opened. */
+    static synchronized OutboxJournal journal(Context context) {
+        if (journal == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+            try {
+                journal = new OutboxJournal(file, 0);
+                inherited = journal.pending();
+                if (journal.getTruncatedBytes() > 0) {
+                    Log.w(TAG, "Dropped " + journal.getTruncatedBytes() + " bytes of a torn write");
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot open outbox", e);
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Journals a text before it is handed to the radio, tagged with the
+     * trigger it alerts for so {@link #cancelTrigger} can find it. Returns its id, or -1.
+     */
+    public static long enqueueSms(Context context, long triggerId, String phoneNumber, String message) {
+        try {
+            String payload = new JSONObject().put("phoneNumber", phoneNumber).put("message", message)
+                    .put("triggerId", triggerId).toString();
+            return enqueue(context, OutboxJournal.Kind.SMS, payload);
+        } catch (Exception e) {
+            Log.e(TAG, "Cannot journal SMS", e);
+            return -1;
+        }
+    }
+
+    public static long enqueue(Context context, OutboxJournal.Kind kind, String payload) {
+        OutboxJournal j = journal(context);
+        if (j == null) return -1;
+        try {
+            long id = j.append(kind, payload, System.currentTimeMillis());
+            scheduleSync();
+            return id;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot journal " + kind, e);
+            return -1;
+        }
+    }
+
+    public static boolean complete(Context context, long id) {
+        OutboxJournal j = journal(context);
+        if (j == null || id < 0) return false;
+        try {
+            boolean done = j.complete(id);
+            scheduleSync();
+            return done;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot complete " + id, e);
+            return false;
+        }
+    }
+
+    /**
+     * Drops the unfinished texts of an SOS the user called off, so a text
+     * that failed or timed out is not replayed to contacts later. Returns how many.
+     */
+    public static int cancelTrigger(Context context, long triggerId) {
+        OutboxJournal j = journal(context);
+        if (j == null) return 0;
+        try {
+            int n = j.completeMatching(OutboxJournal.Kind.SMS, payload -> triggerIdOf(payload) == triggerId);
+            scheduleSync();
+            return n;
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot cancel texts of trigger " + triggerId, e);
+            return 0;
+        }
+    }
+
+    private static long triggerIdOf(String payload) {
+        try {
+            return new JSONObject(payload).optLong("triggerId", Long.MIN_VALUE);
+        } catch (Exception e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /** Forces pending writes to disk now, e.g. for an alert the user just raised. */
+    public static void sync(Context context) {
+        OutboxJournal j = journal(context);
+        if (j == null) return;
+        try {
+            j.sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Sync failed", e);
+        }
+    }
+
+    /** Group commit: one fsync covers everything written in the last SYNC_DELAY_MS. */
+    private static synchronized void scheduleSync() {
+        if (syncScheduled) return;
+        syncScheduled = true;
+        syncer.schedule(() -> {
+            synchronized (Outbox.class) {
+                syncScheduled = false;
+            }
+            try {
+                journal.sync();
+            } catch (IOException e) {
+                Log.e(TAG, "Sync failed", e);
+            }
+        }, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Re-sends texts a previous process journaled but never finished. Runs
+     * once per process; items created by this process are handled live.
+     */
+    public static void replay(Context context) {
+        List<OutboxJournal.Entry> items;
+        synchronized (Outbox.class) {
+            if (journal(context) == null || replayed) return;
+            replayed = true;
+            items = new ArrayList<>(inherited);
+        }
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (OutboxJournal.Entry e : items) {
+            if (e.kind != OutboxJournal.Kind.SMS || e.getAttempts() >= MAX_ATTEMPTS) continue;
+            // Completed since the journal was opened, e.g. its SOS was cancelled.
+            if (journal.get(e.id) == null) continue;
+            if (now - e.createdAtMs > MAX_SMS_AGE_MS) {
+                Log.w(TAG, "Dropping stale SMS " + e.id);
+                complete(context, e.id);
+                continue;
+            }
+            resend(context, e);
+        }
+    }
+
+    private static void resend(Context context, OutboxJournal.Entry e) {
+        SmsFanout.Message message;
+        try {
+            JSONObject o = new JSONObject(e.payload);
+            message = new SmsFanout.Message(o.getString("phoneNumber"), o.getString("message"));
+            journal.markAttempt(e.id);
+            scheduleSync();
+        } catch (Exception ex) {
+            Log.e(TAG, "Cannot replay " + e.id, ex);
+            return;
+        }
+        Log.d(TAG, "Replaying SMS " + e.id + " (attempt " + e.getAttempts() + ")");
+        SmsDispatcher.send(context, Collections.singletonList(message), REPLAY_DEADLINE_MS, false,
+                new SmsFanout.Listener() {
+                    @Override
+                    public void onProgress(SmsFanout.Batch batch, SmsFanout.Recipient recipient) {
+                    }
+
+                    @Override
+                    public void onAllSent(SmsFanout.Batch batch) {
+                        if (batch.sentCount() > 0) complete(context, e.id);
+                    }
+
+                    @Override
+                    public void onFinished(SmsFanout.Batch batch) {
+                    }
+                });
+    }
+}
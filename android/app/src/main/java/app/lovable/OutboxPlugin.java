@@ -0,0 +1,96 @@
+package app.lovable;
+
+import app.lovable.core.OutboxJournal;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Locale;
+
+/**
+ * Lets the app journal its own alert and SMS work natively, so it outlives
+ * the WebView's storage if the process dies before a sync.
+ */
+@CapacitorPlugin(name = "Outbox")
+public class OutboxPlugin extends Plugin {
+
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        OutboxJournal.Kind kind = parseKind(call.getString("kind"));
+        String payload = call.getString("payload");
+        if (kind == null || payload == null) {
+            call.reject("kind ('alert' or 'sms') and payload are required");
+            return;
+        }
+        long id = Outbox.enqueue(getContext(), kind, payload);
+        if (id < 0) {
+            call.reject("Outbox unavailable");
+            return;
+        }
+        if (call.getBoolean("sync", false)) Outbox.sync(getContext());
+        JSObject ret = new JSObject();
+        ret.put("id", id);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void complete(PluginCall call) {
+        Long id = call.getLong("id");
+        if (id == null) {
+            call.reject("id is required");
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("completed", Outbox.complete(getContext(), id));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getPending(PluginCall call) {
+        OutboxJournal journal = Outbox.journal(getContext());
+        String kindFilter = call.getString("kind");
+        OutboxJournal.Kind kind = kindFilter == null ? null : parseKind(kindFilter);
+        JSArray items = new JSArray();
+        if (journal != null) {
+            for (OutboxJournal.Entry e : journal.pending()) {
+                if (kind != null && e.kind != kind) continue;
+                JSObject o = new JSObject();
+                o.put("id", e.id);
+                o.put("kind", e.kind.name().toLowerCase(Locale.ROOT));
+                o.put("payload", e.payload);
+                o.put("createdAt", e.createdAtMs);
+                o.put("attempts", e.getAttempts());
+                items.put(o);
+            }
+        }
+        JSObject ret = new JSObject();
+        ret.put("items", items);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        OutboxJournal journal = Outbox.journal(getContext());
+        JSObject ret = new JSObject();
+        ret.put("available", journal != null);
+        if (journal != null) {
+            ret.put("pending", journal.size());
+            ret.put("appends", journal.getAppends());
+            ret.put("syncs", journal.getSyncs());
+            ret.put("compactions", journal.getCompactions());
+            ret.put("truncatedBytes", journal.getTruncatedBytes());
+            ret.put("fileBytes", journal.getFileBytes());
+        }
+        call.resolve(ret);
+    }
+
+    private static OutboxJournal.Kind parseKind(String kind) {
+        if ("alert".equals(kind)) return OutboxJournal.Kind.ALERT;
+        if ("sms".equals(kind)) return OutboxJournal.Kind.SMS;
+        return null;
+    }
+}
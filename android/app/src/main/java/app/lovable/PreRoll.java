@@ -0,0 +1,302 @@
+package app.lovable;
+
+import android.content.Context;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+
+import app.lovable.core.Adts;
+import app.lovable.core.EncodedAudioRing;
+import app.lovable.core.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last {@link #WINDOW_MS} of microphone audio, AAC-encoded, in
+ * an {@link EncodedAudioRing} while the keyword spotter holds the mic, so
+ * an SOS recording starts before the trigger instead of after the WebView
+ * reacts to it. On a trigger the ring is written to
+ * filesDir/recordings/sos_&lt;triggerId&gt;.aac and live audio keeps
+ * streaming into the same file until the SOS is called off, the spotter
+ * lets go of the mic or {@link #MAX_RECORDING_MS} passes.
+ *
+ * The SpeechRecognizer engine keeps the mic inside the recognition
+ * service, so there is no PCM to buffer and pre-roll stays empty there.
+ */
+public final class PreRoll {
+    private static final String TAG = "PreRoll";
+    private static final String DIR = "recordings";
+
+    static final long WINDOW_MS = 30_000;
+    static final long MAX_RECORDING_MS = 10 * 60_000;
+    private static final int BIT_RATE = 32_000;
+    private static final int CHANNELS = 1;
+    /** Twice the nominal rate, so VBR bursts do not cut the window short. */
+    private static final int CAPACITY_BYTES = (int) (WINDOW_MS / 1_000 * BIT_RATE / 8 * 2);
+    private static final long FLUSH_MS = 500;
+
+    private static volatile EncodedAudioRing ring;
+    // Fed by the capture thread; attach() and detach() run while it is stopped.
+    private static volatile MediaCodec codec;
+    private static int sampleRate;
+    private static long samplesIn;
+    private static final MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+    private static byte[] frame = new byte[1024];
+
+    private static final LatencyHistogram encodeCpu = new LatencyHistogram();
+    private static volatile long encodeCpuNanos;
+    private static volatile long audioNanos;
+    private static volatile long framesEncoded;
+    private static volatile long samplesDropped;
+
+    // Recording state; only the writer thread changes it.
+    private static final ScheduledExecutorService writer =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG));
+    private static final EncodedAudioRing.Batch batch = new EncodedAudioRing.Batch();
+    private static FileOutputStream out;
+    private static long nextSeq;
+    private static long recordingStartedMs;
+    private static byte[] packed = new byte[0];
+    private static volatile File recording;
+    private static volatile long recordedBytes;
+    private static volatile long skippedFrames;
+
+    private PreRoll() {}
+
+    /** Starts encoding mono PCM at {@code rate} into the ring. Called before the capture thread starts. */
+    static synchronized void attach(int rate) {
+        if (codec != null) return;
+        if (ring == null || sampleRate != rate) {
+            int frames = (int) (WINDOW_MS * rate / 1_000 / Adts.SAMPLES_PER_FRAME) + 64;
+            ring = new EncodedAudioRing(CAPACITY_BYTES, frames, WINDOW_MS * 1_000);
+            samplesIn = 0;
+        } else if (recording == null) {
+            // Audio from an earlier session would splice a gap into the next recording.
+            ring.clear();
+        }
+        sampleRate = rate;
+        try {
+            MediaFormat format = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC, rate, CHANNELS);
+            format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+            format.setInteger(MediaFormat.KEY_BIT_RATE, BIT_RATE);
+            MediaCodec c = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
+            c.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            c.start();
+            codec = c;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "No AAC encoder; pre-roll disabled", e);
+        }
+    }
+
+    /** Stops encoding after the capture thread has exited. A running recording drains the ring and ends. */
+    static synchronized void detach() {
+        MediaCodec c = codec;
+        if (c == null) return;
+        codec = null;
+        try {
+            c.stop();
+        } catch (RuntimeException ignored) {
+        }
+        c.release();
+        if (recording != null) writer.execute(() -> finish("microphone released"));
+    }
+
+    /** Encodes captured PCM into the ring. Called on the capture thread; never blocks on the codec. */
+    static void feed(short[] pcm, int count) {
+        MediaCodec c = codec;
+        if (c == null) return;
+        long cpuStart = Debug.threadCpuTimeNanos();
+        try {
+            int done = 0;
+            while (done < count) {
+                int in = c.dequeueInputBuffer(0);
+                if (in < 0) {
+                    // Encoder is behind; drop rather than stall the spotter, but keep timestamps honest.
+                    samplesDropped += count - done;
+                    samplesIn += count - done;
+                    break;
+                }
+                ByteBuffer buf = c.getInputBuffer(in);
+                buf.clear();
+                buf.order(ByteOrder.nativeOrder());
+                int n = Math.min(count - done, buf.remaining() / 2);
+                buf.asShortBuffer().put(pcm, done, n);
+                c.queueInputBuffer(in, 0, n * 2, samplesIn * 1_000_000L / sampleRate, 0);
+                samplesIn += n;
+                done += n;
+            }
+            drain(c);
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Encoder failed", e);
+            return;
+        }
+        long cpu = Debug.threadCpuTimeNanos() - cpuStart;
+        encodeCpu.recordNanos(cpu);
+        encodeCpuNanos += cpu;
+        audioNanos += count * 1_000_000_000L / sampleRate;
+    }
+
+    private static void drain(MediaCodec c) {
+        while (true) {
+            int index = c.dequeueOutputBuffer(info, 0);
+            if (index == MediaCodec.INFO_TRY_AGAIN_LATER) return;
+            if (index < 0) continue; // Format or buffer change; keep draining.
+            if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0 && info.size > 0) {
+                if (frame.length < info.size) frame = new byte[info.size];
+                ByteBuffer buf = c.getOutputBuffer(index);
+                buf.position(info.offset);
+                buf.get(frame, 0, info.size);
+                ring.write(frame, 0, info.size, info.presentationTimeUs);
+                framesEncoded++;
+            }
+            c.releaseOutputBuffer(index, false);
+        }
+    }
+
+    /**
+     * Starts writing the pre-roll and the live audio after it to disk for
+     * this trigger. No-op when nothing is being buffered or a recording is
+     * already running.
+     */
+    static void onTrigger(Context context, long triggerId) {
+        if (codec == null) return;
+        File dir = new File(context.getApplicationContext().getFilesDir(), DIR);
+        writer.execute(() -> begin(dir, triggerId));
+    }
+
+    /** Ends the current recording after writing what is buffered; the future yields its file, or null. */
+    static Future<File> stopRecording() {
+        return writer.submit(() -> {
+            File file = recording;
+            finish("stopped");
+            return file;
+        });
+    }
+
+    private static void begin(File dir, long triggerId) {
+        if (recording != null) return;
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Could not create " + dir);
+            return;
+        }
+        File file = new File(dir, "sos_" + triggerId + ".aac");
+        try {
+            out = new FileOutputStream(file, true);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open " + file, e);
+            return;
+        }
+        EncodedAudioRing r = ring;
+        nextSeq = r.oldestSeq();
+        recordingStartedMs = SystemClock.elapsedRealtime();
+        recordedBytes = 0;
+        skippedFrames = 0;
+        recording = file;
+        Log.d(TAG, "Recording " + file.getName() + " with " + r.bufferedUs() / 1_000 + " ms of pre-roll");
+        flushLoop();
+    }
+
+    private static void flushLoop() {
+        if (recording == null) return;
+        flush();
+        if (codec == null) {
+            finish("microphone released");
+        } else if (SystemClock.elapsedRealtime() - recordingStartedMs >= MAX_RECORDING_MS) {
+            finish("reached " + MAX_RECORDING_MS / 60_000 + " min");
+        } else {
+            writer.schedule(PreRoll::flushLoop, FLUSH_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Appends every frame encoded since the last flush, ADTS-framed, and syncs it to disk. */
+    private static void flush() {
+        ring.copySince(nextSeq, batch);
+        nextSeq = batch.nextSeq();
+        skippedFrames += batch.skipped;
+        if (batch.count == 0) return;
+        int total = batch.bytes + batch.count * Adts.HEADER_BYTES;
+        if (packed.length < total) packed = new byte[total];
+        int pos = 0;
+        for (int k = 0; k < batch.count; k++) {
+            Adts.writeHeader(packed, pos, batch.length[k], sampleRate, CHANNELS);
+            pos += Adts.HEADER_BYTES;
+            System.arraycopy(batch.data, batch.offset[k], packed, pos, batch.length[k]);
+            pos += batch.length[k];
+        }
+        try {
+            out.write(packed, 0, pos);
+            out.getFD().sync();
+            recordedBytes += pos;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write " + recording, e);
+            finish("write failed");
+        }
+    }
+
+    private static void finish(String reason) {
+        if (recording == null) return;
+        if (out != null) {
+            flush();
+            try {
+                out.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to close " + recording, e);
+            }
+            out = null;
+        }
+        Log.d(TAG, "Recording " + recording.getName() + " ended (" + reason + "), " + recordedBytes + " bytes");
+        recording = null;
+    }
+
+    static boolean isBuffering() {
+        return codec != null;
+    }
+
+    /** The file being written, or null. */
+    static File getRecording() {
+        return recording;
+    }
+
+    static synchronized EncodedAudioRing getRing() {
+        return ring;
+    }
+
+    /** CPU time the capture thread spends per feed() call. */
+    static LatencyHistogram getEncodeCpu() {
+        return encodeCpu;
+    }
+
+    /** Capture-thread CPU spent encoding as a percentage of the audio's duration. */
+    static double getEncodeCpuPercent() {
+        long audio = audioNanos;
+        return audio == 0 ? 0 : 100.0 * encodeCpuNanos / audio;
+    }
+
+    static long getFramesEncoded() {
+        return framesEncoded;
+    }
+
+    static long getSamplesDropped() {
+        return samplesDropped;
+    }
+
+    static long getRecordedBytes() {
+        return recordedBytes;
+    }
+
+    /** Frames the recorder fell too far behind to write. */
+    static long getSkippedFrames() {
+        return skippedFrames;
+    }
+}
@@ -0,0 +1,372 @@
+package app.lovable;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+
+import app.lovable.core.Clock;
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.PhaseTracer;
+import app.lovable.core.ProtectionHost;
+import app.lovable.core.ServiceSupervisor;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The one foreground service behind background protection. Hosts the trigger
+ * detectors (volume gestures, wake phrase) under a single notification, a
+ * single heartbeat and a single detector thread, and runs the shared work
+ * that used to start with each service: location tracking, outbox replay,
+ * upload resumption and geocode prewarming.
+ *
+ * The detector thread is the main looper: SpeechRecognizer and MediaSession
+ * callbacks are delivered there, so putting the detectors anywhere else would
+ * only add hops. Everything a detector does is posted to {@link #handler()}.
+ */
+public class ProtectionService extends Service implements ProtectionHost.Listener {
+    private static final String TAG = "ProtectionService";
+    private static final String CHANNEL_ID = "resqme_protection_channel";
+    /** Channel of the old stand-alone wake word service; deleted on first start. */
+    private static final String LEGACY_WAKE_CHANNEL_ID = "resqme_wakeword_channel";
+    private static final int NOTIFICATION_ID = 1001;
+
+    static final String ACTION_SET_DETECTOR = "app.lovable.SET_DETECTOR";
+    static final String ACTION_RESTART_DETECTOR = "app.lovable.RESTART_DETECTOR";
+    static final String ACTION_START_ENABLED = "app.lovable.START_ENABLED_DETECTORS";
+    static final String EXTRA_DETECTOR = "detector";
+    static final String EXTRA_ENABLED = "enabled";
+
+    // Raw numbers for comparing against the old two-service setup on a device. No such
+    // comparison has been recorded, so none of this shows a memory or wakeup saving.
+    // protection.wakeups counts this service's heartbeats, not every wakeup of the process.
+    private static final MetricsRegistry.Counter wakeups = Metrics.get().counter("protection.wakeups");
+    /** elapsedRealtime of onCreate, or -1 while the service is not running. */
+    private static volatile long createdAtMs = -1;
+    private static volatile int detectorCount;
+
+    static {
+        Metrics.get().gauge("protection.uptimeMs",
+                () -> createdAtMs < 0 ? 0 : SystemClock.elapsedRealtime() - createdAtMs);
+        Metrics.get().gauge("protection.detectors", () -> detectorCount);
+        Metrics.get().gauge("process.rssKb", ProtectionService::readRssKb);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable heartbeat = this::heartbeat;
+    private ProtectionHost detectors;
+    private boolean foreground;
+    // Detectors whose arming has been traced since they were enabled or last asked to start.
+    private final Set<String> traced = new HashSet<>();
+
+    /** Turns a detector on or off, starting the service if needed. */
+    static void setDetector(Context context, String name, boolean enabled) {
+        Intent intent = new Intent(context, ProtectionService.class)
+                .setAction(ACTION_SET_DETECTOR)
+                .putExtra(EXTRA_DETECTOR, name)
+                .putExtra(EXTRA_ENABLED, enabled);
+        if (enabled) {
+            deliver(context, intent);
+        } else if (createdAtMs >= 0) {
+            // Nothing to turn off in a service that is not running.
+            context.startService(intent);
+        }
+    }
+
+    /**
+     * Starts the service with every detector the user has on, in one start
+     * (boot, app launch); does nothing if none is on.
+     */
+    static void startEnabled(Context context) {
+        if (!Supervisor.isEnabled(context, Supervisor.VOLUME)
+                && !Supervisor.isEnabled(context, WakeWordDetector.NAME)) {
+            return;
+        }
+        deliver(context, new Intent(context, ProtectionService.class).setAction(ACTION_START_ENABLED));
+    }
+
+    /** Stops and starts a detector; used by the supervisor after a stall or death. */
+    static void restartDetector(Context context, String name) {
+        deliver(context, new Intent(context, ProtectionService.class)
+                .setAction(ACTION_RESTART_DETECTOR)
+                .putExtra(EXTRA_DETECTOR, name));
+    }
+
+    /** Sends a detector its own command (an intent action it handles), creating it if needed. */
+    static void command(Context context, String name, Intent command) {
+        deliver(context, command.setClass(context, ProtectionService.class).putExtra(EXTRA_DETECTOR, name));
+    }
+
+    private static void deliver(Context context, Intent intent) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, "Service created");
+        Startup.mark(PhaseTracer.Phase.SERVICE_CREATED, null);
+        createdAtMs = SystemClock.elapsedRealtime();
+        Metrics.startDump(this);
+        Supervisor.start(this);
+        detectors = new ProtectionHost(this::createDetector, this);
+
+        createNotificationChannel();
+        Outbox.replay(this);
+        LocationTracking.start(this);
+        GeocodeStore.schedulePrewarm(this);
+        Uploads.resume(this);
+        handler.postDelayed(heartbeat, Supervisor.HEARTBEAT_MS);
+    }
+
+    private ProtectionHost.Detector createDetector(String name) {
+        if (Supervisor.VOLUME.equals(name)) return new VolumeDetector(this);
+        if (WakeWordDetector.NAME.equals(name)) return new WakeWordDetector(this);
+        return null;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // Any start but a disable came through startForegroundService, so go foreground first.
+        goForeground();
+
+        if (intent == null || ACTION_START_ENABLED.equals(intent.getAction())) {
+            // Null after the process was killed and the service restarted: bring back whatever the user had on.
+            // A launch or boot asked for this, so trace the arming again even if already armed.
+            traced.clear();
+            for (String name : new String[] {Supervisor.VOLUME, WakeWordDetector.NAME}) {
+                if (Supervisor.isEnabled(this, name)) enable(name);
+            }
+        } else {
+            String name = intent.getStringExtra(EXTRA_DETECTOR);
+            String action = intent.getAction();
+            if (name == null) {
+                Log.w(TAG, "Intent without a detector: " + action);
+            } else if (ACTION_SET_DETECTOR.equals(action)) {
+                if (intent.getBooleanExtra(EXTRA_ENABLED, false)) {
+                    enable(name);
+                } else {
+                    detectors.disable(name);
+                    traced.remove(name);
+                }
+            } else if (ACTION_RESTART_DETECTOR.equals(action)) {
+                detectors.restart(name);
+                // A restart also covers a permission granted since the detector started.
+                goForeground();
+            } else if (WakeWordDetector.NAME.equals(name)) {
+                WakeWordDetector wake = (WakeWordDetector) detectors.obtain(name);
+                if (!wake.onCommand(intent)) Log.w(TAG, "Unknown command " + action);
+                detectors.release(name);
+            }
+        }
+
+        if (detectors.isEmpty()) stopSelf();
+        return START_STICKY;
+    }
+
+    private void enable(String name) {
+        if (!detectors.enable(name)) {
+            Log.w(TAG, "Unknown detector " + name);
+            return;
+        }
+        beat(name);
+        // The microphone type depends on the detectors now present; location on a fresh grant.
+        goForeground();
+        LocationTracking.start(this);
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        Log.d(TAG, "Service destroyed");
+        handler.removeCallbacks(heartbeat);
+        for (String name : detectors.enabledNames()) {
+            Supervisor.stopped(name);
+        }
+        detectors.destroyAll();
+        detectorCount = 0;
+        LocationTracking.stop();
+        createdAtMs = -1;
+        Metrics.dumpNow();
+    }
+
+    /**
+     * One timer beats for every enabled detector, instead of one per service.
+     * It runs on the detector thread, so a hung thread still reads as stalled.
+     */
+    private void heartbeat() {
+        wakeups.inc();
+        for (String name : detectors.enabledNames()) {
+            beat(name);
+        }
+        handler.postDelayed(heartbeat, Supervisor.HEARTBEAT_MS);
+    }
+
+    /** Reports the detector's state, tracing the first time it is armed. */
+    private void beat(String name) {
+        ServiceSupervisor.State state = detectors.obtain(name).state();
+        Supervisor.heartbeat(name, state);
+        if (state == ServiceSupervisor.State.ARMED && traced.add(name)) {
+            Startup.mark(PhaseTracer.Phase.DETECTOR_ARMED, name);
+        }
+    }
+
+    @Override
+    public void onDetectorsChanged() {
+        detectorCount = detectors.enabledNames().size();
+        refreshNotification();
+    }
+
+    @Override
+    public void onEmpty() {
+        Log.d(TAG, "No detector left");
+        stopSelf();
+    }
+
+    /** The detector thread. */
+    Handler handler() {
+        return handler;
+    }
+
+    Clock clock() {
+        return Clocks.ELAPSED;
+    }
+
+    boolean isDetectorEnabled(String name) {
+        return detectors.isEnabled(name);
+    }
+
+    /** A detector's one-off job finished; the detector is dropped unless it is enabled. */
+    void release(String name) {
+        detectors.release(name);
+    }
+
+    /** A detector's hint changed. */
+    void refreshNotification() {
+        if (!foreground) return;
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.notify(NOTIFICATION_ID, createNotification());
+        }
+    }
+
+    private void goForeground() {
+        Notification notification = createNotification();
+        int types = foregroundServiceTypes();
+        if (types != 0) {
+            ServiceCompat.startForeground(this, NOTIFICATION_ID, notification, types);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+        foreground = true;
+    }
+
+    /**
+     * Location in the background needs the location type and the wake phrase
+     * the microphone type, which Android 14 only accepts once the permission
+     * is granted; 0 keeps the manifest types.
+     */
+    private int foregroundServiceTypes() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return 0;
+        int types = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            types |= ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE;
+        }
+        if (LocationTracking.hasPermission(this)) {
+            types |= ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && detectors != null
+                && detectors.has(WakeWordDetector.NAME)
+                && ActivityCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
+                        == PackageManager.PERMISSION_GRANTED) {
+            types |= ServiceInfo.FOREGROUND_SERVICE_TYPE_MICROPHONE;
+        }
+        return types;
+    }
+
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "ResQMe Protection",
+                NotificationManager.IMPORTANCE_LOW
+            );
+            channel.setDescription("Shows when ResQMe is actively protecting you");
+            channel.setShowBadge(false);
+
+            NotificationManager manager = getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.createNotificationChannel(channel);
+                manager.deleteNotificationChannel(LEGACY_WAKE_CHANNEL_ID);
+            }
+        }
+    }
+
+    private Notification createNotification() {
+        Intent notificationIntent = new Intent(this, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            this, 0, notificationIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        String hints = detectors.notificationText();
+        WakeWordDetector wake = detectors.isEnabled(WakeWordDetector.NAME)
+                ? (WakeWordDetector) detectors.obtain(WakeWordDetector.NAME) : null;
+        String paused = wake != null ? wake.pausedNotice() : null;
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+            .setContentTitle("ResQMe Active")
+            .setContentText(hints != null ? hints + " for emergency" : paused != null ? paused : "Starting protection")
+            .setSubText(hints != null ? paused : null)
+            .setSmallIcon(android.R.drawable.ic_dialog_alert)
+            .setContentIntent(pendingIntent)
+            .setOngoing(true)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .build();
+    }
+
+    /** Resident set size of the process in kB, or 0 where /proc is unreadable. */
+    private static long readRssKb() {
+        try (BufferedReader in = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Log.w(TAG, "Cannot read VmRSS", e);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,171 @@
+package app.lovable;
+
+import android.util.Base64;
+
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.RecordingStore;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Offline alerts and their recordings, stored natively. JS gets file paths
+ * back instead of audio bytes, and listing never reads audio.
+ */
+@CapacitorPlugin(name = "RecordingStore")
+public class RecordingStorePlugin extends Plugin {
+
+    /**
+     * Stores an alert with its audio given either as {@code audioBase64}
+     * (a WebView recording) or as {@code path} (a file in app storage, moved
+     * into the store).
+     */
+    @PluginMethod
+    public void save(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        if (store == null) {
+            call.reject("Recording store unavailable");
+            return;
+        }
+        String alertId = call.getString("alertId");
+        Long createdAt = call.getLong("createdAt");
+        if (alertId == null || createdAt == null) {
+            call.reject("alertId and createdAt are required");
+            return;
+        }
+        Double lat = call.getDouble("latitude");
+        Double lng = call.getDouble("longitude");
+        RecordingStore.Meta meta = new RecordingStore.Meta(alertId, call.getString("userId"),
+                call.getString("userName"), call.getString("mimeType", "audio/webm"), createdAt,
+                call.getInt("durationMs", 0), lat != null ? lat : Double.NaN, lng != null ? lng : Double.NaN);
+        String audio = call.getString("audioBase64");
+        String path = call.getString("path");
+        RecordingStore.Entry e;
+        try {
+            if (path != null) {
+                File file = new File(path).getCanonicalFile();
+                if (!file.getPath().startsWith(getContext().getFilesDir().getCanonicalPath() + File.separator)) {
+                    call.reject("Only app recordings can be stored");
+                    return;
+                }
+                e = store.adopt(meta, file);
+            } else {
+                e = store.put(meta, audio != null ? new ByteArrayInputStream(Base64.decode(audio, Base64.DEFAULT)) : null);
+            }
+            Boolean smsSent = call.getBoolean("nativeSmsSent");
+            if (smsSent != null && store.setState(alertId, null, smsSent)) e = store.get(alertId);
+        } catch (IllegalArgumentException ex) {
+            call.reject(ex.getMessage());
+            return;
+        } catch (IOException ex) {
+            call.reject("Could not store recording: " + ex.getMessage());
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("recording", toJs(e));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void list(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        JSArray items = new JSArray();
+        if (store != null) {
+            for (RecordingStore.Entry e : store.list(call.getBoolean("pendingOnly", true))) items.put(toJs(e));
+        }
+        JSObject ret = new JSObject();
+        ret.put("recordings", items);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void get(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        String alertId = call.getString("alertId");
+        if (alertId == null) {
+            call.reject("alertId is required");
+            return;
+        }
+        RecordingStore.Entry e = store != null ? store.get(alertId) : null;
+        JSObject ret = new JSObject();
+        if (e != null) ret.put("recording", toJs(e));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void update(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        String alertId = call.getString("alertId");
+        if (alertId == null) {
+            call.reject("alertId is required");
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("updated", store != null
+                && store.setState(alertId, call.getBoolean("synced"), call.getBoolean("nativeSmsSent")));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void remove(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        String alertId = call.getString("alertId");
+        if (alertId == null) {
+            call.reject("alertId is required");
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("removed", store != null && store.remove(alertId));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void clearSynced(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        JSObject ret = new JSObject();
+        ret.put("removed", store != null ? store.removeSynced() : 0);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        RecordingStore store = Recordings.store(getContext());
+        JSObject ret = new JSObject();
+        ret.put("available", store != null);
+        if (store != null) {
+            LatencyHistogram listTime = store.getListTime();
+            ret.put("count", store.size());
+            ret.put("capacity", store.capacity());
+            ret.put("repaired", store.getRepaired());
+            ret.put("listP50Ms", listTime.percentileMicros(50) / 1_000.0);
+            ret.put("listP99Ms", listTime.percentileMicros(99) / 1_000.0);
+        }
+        call.resolve(ret);
+    }
+
+    private static JSObject toJs(RecordingStore.Entry e) {
+        JSObject o = new JSObject();
+        o.put("alertId", e.meta.alertId);
+        o.put("userId", e.meta.userId);
+        o.put("userName", e.meta.userName);
+        o.put("mimeType", e.meta.mimeType);
+        o.put("createdAt", e.meta.createdAtMs);
+        o.put("durationMs", e.meta.durationMs);
+        if (!Double.isNaN(e.meta.latitude)) o.put("latitude", e.meta.latitude);
+        if (!Double.isNaN(e.meta.longitude)) o.put("longitude", e.meta.longitude);
+        o.put("sizeBytes", e.sizeBytes);
+        o.put("crc32", Integer.toHexString(e.crc32));
+        o.put("synced", e.synced);
+        o.put("nativeSmsSent", e.smsSent);
+        if (e.file != null) o.put("path", e.file.getAbsolutePath());
+        return o;
+    }
+}
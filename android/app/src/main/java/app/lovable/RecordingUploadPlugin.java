@@ -0,0 +1,167 @@
+package app.lovable;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import app.lovable.core.ChunkUploader;
+import app.lovable.core.ChunkedUpload;
+import app.lovable.core.LatencyHistogram;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Uploads recording files straight from disk in checksummed chunks, so the
+ * audio never passes through the WebView and a dropped connection only
+ * costs the chunks in flight.
+ */
+@CapacitorPlugin(name = "RecordingUpload")
+public class RecordingUploadPlugin extends Plugin {
+    private final Uploads.Sink progressSink = this::deliverProgress;
+
+    @Override
+    public void load() {
+        super.load();
+        Uploads.setSink(progressSink);
+        Uploads.resume(getContext());
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        Uploads.setSink(null);
+        super.handleOnDestroy();
+    }
+
+    private void deliverProgress(List<ChunkedUpload> active, List<Uploads.Finished> finished) {
+        JSArray uploads = new JSArray();
+        for (ChunkedUpload u : active) uploads.put(toJs(u));
+        JSArray done = new JSArray();
+        for (Uploads.Finished f : finished) {
+            JSObject o = new JSObject();
+            o.put("uploadId", f.id);
+            o.put("ok", f.error == null);
+            if (f.error != null) o.put("error", f.error);
+            done.put(o);
+        }
+        JSObject data = new JSObject();
+        data.put("uploads", uploads);
+        data.put("finished", done);
+        notifyListeners("uploadProgress", data);
+    }
+
+    private static JSObject toJs(ChunkedUpload u) {
+        JSObject o = new JSObject();
+        o.put("uploadId", u.id);
+        o.put("size", u.size);
+        o.put("ackedBytes", u.getAckedBytes());
+        o.put("ackedOffset", u.getAckedOffset());
+        o.put("chunks", u.chunkCount());
+        o.put("ackedChunks", u.getAckedChunks());
+        return o;
+    }
+
+    @PluginMethod
+    public void configure(PluginCall call) {
+        String endpoint = call.getString("endpoint");
+        if (endpoint == null || !endpoint.startsWith("https://")) {
+            call.reject("An https endpoint is required");
+            return;
+        }
+        int streams = call.getInt("streams", Uploads.DEFAULT_STREAMS);
+        if (streams < 1 || streams > Uploads.MAX_STREAMS) {
+            call.reject("streams must be 1-" + Uploads.MAX_STREAMS);
+            return;
+        }
+        int chunkKb = call.getInt("chunkSizeKb", Uploads.DEFAULT_CHUNK_BYTES / 1024);
+        if (chunkKb < 16 || chunkKb > 4096) {
+            call.reject("chunkSizeKb must be 16-4096");
+            return;
+        }
+        Uploads.configure(getContext(), endpoint, call.getString("apiKey", ""), streams, chunkKb * 1024);
+        call.resolve();
+    }
+
+    /** Only files in the app's own storage can be uploaded. */
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        String path = call.getString("path");
+        String alertId = call.getString("alertId");
+        String userId = call.getString("userId");
+        if (path == null || alertId == null || userId == null) {
+            call.reject("path, alertId and userId are required");
+            return;
+        }
+        File file;
+        try {
+            file = new File(path).getCanonicalFile();
+            if (!file.getPath().startsWith(getContext().getFilesDir().getCanonicalPath() + File.separator)) {
+                call.reject("Only app recordings can be uploaded");
+                return;
+            }
+        } catch (IOException e) {
+            call.reject("Bad path: " + e.getMessage());
+            return;
+        }
+        String metadata;
+        try {
+            metadata = new JSONObject()
+                    .put("alertId", alertId)
+                    .put("userId", userId)
+                    .put("mimeType", call.getString("mimeType", "audio/aac"))
+                    .toString();
+        } catch (JSONException e) {
+            call.reject("Bad metadata: " + e.getMessage());
+            return;
+        }
+        String id = Uploads.enqueue(getContext(), file, metadata);
+        if (id == null) {
+            call.reject("Recording not found or upload state not saved");
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("uploadId", id);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        String id = call.getString("uploadId");
+        if (id == null) {
+            call.reject("uploadId is required");
+            return;
+        }
+        JSObject ret = new JSObject();
+        ret.put("cancelled", Uploads.cancel(getContext(), id));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        ChunkUploader uploader = Uploads.get(getContext());
+        LatencyHistogram chunkTime = uploader.getChunkTime();
+        JSArray active = new JSArray();
+        for (ChunkedUpload u : uploader.active()) active.put(toJs(u));
+        JSArray paused = new JSArray();
+        for (String id : Uploads.paused(getContext())) paused.put(id);
+
+        JSObject ret = new JSObject();
+        ret.put("active", active);
+        ret.put("paused", paused);
+        ret.put("chunksSent", uploader.getChunksSent());
+        ret.put("bytesSent", uploader.getBytesSent());
+        ret.put("chunkFailures", uploader.getChunkFailures());
+        ret.put("uploadsFinished", uploader.getUploadsFinished());
+        ret.put("uploadsFailed", uploader.getUploadsFailed());
+        ret.put("chunkP50Ms", chunkTime.percentileMicros(50) / 1_000.0);
+        ret.put("chunkP99Ms", chunkTime.percentileMicros(99) / 1_000.0);
+        call.resolve(ret);
+    }
+}
@@ -0,0 +1,41 @@
+package app.lovable;
+
+import android.content.Context;
+import android.util.Log;
+
+import app.lovable.core.Clock;
+import app.lovable.core.RecordingStore;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Process-wide {@link RecordingStore} in filesDir/recording_store. Alerts
+ * queued while offline keep their audio here as files instead of as
+ * blobs in the WebView's IndexedDB.
+ */
+public final class Recordings {
+    private static final String TAG = "Recordings";
+    private static final String DIR = "recording_store";
+    private static final int INITIAL_SLOTS = 64;
+
+    private static RecordingStore store;
+
+    private Recordings() {}
+
+    /** Returns the store, or null if it cannot be opened. */
+    static synchronized RecordingStore store(Context context) {
+        if (store == null) {
+            File dir = new File(context.getApplicationContext().getFilesDir(), DIR);
+            try {
+                store = new RecordingStore(dir, INITIAL_SLOTS, Clock.SYSTEM);
+                if (store.getRepaired() > 0) {
+                    Log.w(TAG, "Repaired " + store.getRepaired() + " slots or files left by a crash");
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot open recording store", e);
+            }
+        }
+        return store;
+    }
+}
@@ -0,0 +1,111 @@
+package app.lovable;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.SettingsStore;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide {@link SettingsStore} over the resqme_settings preferences.
+ * The volume trigger used to keep its settings in ResQMePrefs; the first
+ * load moves them over and deletes that file, so every later start reads
+ * one file. Writes go out on a background thread and are committed there.
+ */
+public final class Settings {
+    private static final String TAG = "Settings";
+    static final String PREFS_NAME = "resqme_settings";
+    private static final String LEGACY_PREFS_NAME = "ResQMePrefs";
+
+    private static final MetricsRegistry.Gauge loadMicros = Metrics.get().gauge("settings.loadMicros");
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+    private static volatile SettingsStore store;
+
+    static {
+        Metrics.get().gauge("settings.writes", () -> store != null ? store.getWrites() : 0);
+    }
+
+    private Settings() {}
+
+    /** The store, loaded from disk on first use. */
+    static SettingsStore get(Context context) {
+        SettingsStore s = store;
+        if (s != null) return s;
+        synchronized (Settings.class) {
+            if (store == null) {
+                long startNanos = SystemClock.elapsedRealtimeNanos();
+                store = new SettingsStore(new PrefsStorage(context.getApplicationContext()), writer);
+                loadMicros.set((SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000);
+            }
+            return store;
+        }
+    }
+
+    /** Wraps a listener so it runs on the handler's thread, e.g. a detector's. */
+    static SettingsStore.Listener on(Handler handler, SettingsStore.Listener listener) {
+        return (before, after) -> handler.post(() -> listener.onSettingsChanged(before, after));
+    }
+
+    private static final class PrefsStorage implements SettingsStore.Storage {
+        private final Context context;
+        private SharedPreferences prefs;
+
+        PrefsStorage(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public Map<String, ?> load() {
+            prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            Map<String, Object> all = new HashMap<>(prefs.getAll());
+            File legacy = new File(context.getApplicationInfo().dataDir, "shared_prefs/" + LEGACY_PREFS_NAME + ".xml");
+            if (legacy.exists()) {
+                Map<String, Object> moved = new HashMap<>(
+                        context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE).getAll());
+                moved.keySet().removeAll(all.keySet());
+                if (!moved.isEmpty()) {
+                    SharedPreferences.Editor editor = prefs.edit();
+                    put(editor, moved);
+                    editor.commit();
+                    all.putAll(moved);
+                }
+                context.deleteSharedPreferences(LEGACY_PREFS_NAME);
+                Log.i(TAG, "Moved " + moved.size() + " setting(s) out of " + LEGACY_PREFS_NAME);
+            }
+            return all;
+        }
+
+        @Override
+        public void write(Map<String, Object> changes) {
+            SharedPreferences.Editor editor = prefs.edit();
+            put(editor, changes);
+            if (!editor.commit()) Log.w(TAG, "Cannot write settings " + changes.keySet());
+        }
+
+        private static void put(SharedPreferences.Editor editor, Map<String, ?> values) {
+            for (Map.Entry<String, ?> e : values.entrySet()) {
+                Object v = e.getValue();
+                if (v instanceof Boolean) {
+                    editor.putBoolean(e.getKey(), (Boolean) v);
+                } else if (v instanceof Integer) {
+                    editor.putInt(e.getKey(), (Integer) v);
+                } else if (v instanceof Long) {
+                    editor.putLong(e.getKey(), (Long) v);
+                } else if (v instanceof Float) {
+                    editor.putFloat(e.getKey(), (Float) v);
+                } else if (v instanceof String) {
+                    editor.putString(e.getKey(), (String) v);
+                }
+            }
+        }
+    }
+}
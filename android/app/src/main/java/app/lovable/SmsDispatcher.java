@@ -0,0 +1,320 @@
+package app.lovable;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+import android.util.Log;
+
+import app.lovable.core.Clock;
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.SmsFanout;
+import app.lovable.core.SmsScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Android side of {@link SmsFanout}: submits on a small fixed pool, attaches
+ * a sent and a delivered PendingIntent to every part, and feeds the radio's
+ * reports back into the fan-out. Also keeps time-to-all-sent and
+ * time-to-all-delivered histograms across batches.
+ *
+ * Every text, batched or single, reaches the radio through one
+ * {@link SmsScheduler} pumped on its own thread, so primary contacts and
+ * SOS texts go first and each SIM stays under its burst limit.
+ */
+public final class SmsDispatcher {
+    private static final String TAG = "SmsDispatcher";
+
+    static final String ACTION_SMS_SENT = "app.lovable.SMS_SENT";
+    static final String ACTION_SMS_DELIVERED = "app.lovable.SMS_DELIVERED";
+    private static final String EXTRA_BATCH = "batch";
+    private static final String EXTRA_RECIPIENT = "recipient";
+
+    /** Enough to keep the radio queue full without one thread per contact. */
+    private static final int THREADS = 4;
+    /** Texts a SIM may send back to back, then one more per {@link #REFILL_MS}. */
+    private static final int BURST = 8;
+    private static final long REFILL_MS = 1_000;
+
+    private static SmsFanout fanout;
+    private static Context appContext;
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final AtomicInteger requestCodes = new AtomicInteger();
+    private static final LatencyHistogram timeToAllSent = new LatencyHistogram();
+    private static final LatencyHistogram timeToAllDelivered = new LatencyHistogram();
+    // Radio outcomes: per part for batch texts, per text for those queued without report intents.
+    private static final MetricsRegistry.Counter smsSent = Metrics.get().counter("sms.sent");
+    private static final MetricsRegistry.Counter smsFailed = Metrics.get().counter("sms.failed");
+    private static final MetricsRegistry.Counter smsDelivered = Metrics.get().counter("sms.delivered");
+    private static final MetricsRegistry.Counter smsUndelivered = Metrics.get().counter("sms.undelivered");
+    private static final ScheduledExecutorService pumpThread =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "SmsScheduler"));
+    /** Earliest pump already scheduled, so bursts of wakeAt calls collapse into one. */
+    private static long pumpAtMs = Long.MAX_VALUE;
+    private static final SmsScheduler scheduler = new SmsScheduler(
+            SystemClock::elapsedRealtime, new Random(), SmsDispatcher::wakeAt, BURST, REFILL_MS);
+
+    static {
+        Metrics.get().register("sms.timeToAllSent", timeToAllSent);
+        Metrics.get().register("sms.timeToAllDelivered", timeToAllDelivered);
+    }
+
+    private SmsDispatcher() {}
+
+    private static synchronized SmsFanout fanout(Context context) {
+        if (fanout == null) {
+            appContext = context.getApplicationContext();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS, r -> new Thread(r, "SmsDispatcher"));
+            fanout = new SmsFanout(Clock.SYSTEM, pool, SmsDispatcher::submit);
+            IntentFilter filter = new IntentFilter(ACTION_SMS_SENT);
+            filter.addAction(ACTION_SMS_DELIVERED);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                appContext.registerReceiver(reportReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+            } else {
+                appContext.registerReceiver(reportReceiver, filter);
+            }
+        }
+        return fanout;
+    }
+
+    /**
+     * Starts a batch. {@code listener} is called from pool and main threads;
+     * the batch expires after {@code deadlineMs}.
+     */
+    public static SmsFanout.Batch send(Context context, List<SmsFanout.Message> messages, long deadlineMs,
+                                       boolean awaitDelivery, SmsFanout.Listener listener) {
+        SmsFanout f = fanout(context);
+        SmsFanout.Batch batch = f.start(messages, deadlineMs, awaitDelivery, new SmsFanout.Listener() {
+            @Override
+            public void onProgress(SmsFanout.Batch b, SmsFanout.Recipient r) {
+                listener.onProgress(b, r);
+            }
+
+            @Override
+            public void onAllSent(SmsFanout.Batch b) {
+                if (b.getTimeToAllSentMs() >= 0) timeToAllSent.record(b.getTimeToAllSentMs() * 1000);
+                listener.onAllSent(b);
+            }
+
+            @Override
+            public void onFinished(SmsFanout.Batch b) {
+                if (b.getTimeToAllDeliveredMs() >= 0) timeToAllDelivered.record(b.getTimeToAllDeliveredMs() * 1000);
+                listener.onFinished(b);
+            }
+        });
+        if (!batch.isFinished()) {
+            mainHandler.postDelayed(() -> f.expire(batch.id), deadlineMs);
+        }
+        return batch;
+    }
+
+    /**
+     * Sends one text through the scheduler and waits up to {@code timeoutMs}
+     * for it to reach the radio, for callers that already run off the main
+     * thread. Returns the number of segments; throws TimeoutException if the
+     * text is still queued or retrying when the time is up.
+     */
+    public static int sendBlocking(String phoneNumber, String message, boolean primary, SmsScheduler.Kind kind,
+                                   long timeoutMs) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        String[] error = new String[1];
+        int segments = enqueue(phoneNumber, message, primary, kind, new SmsScheduler.Callback() {
+            @Override
+            public void onSent(SmsScheduler.Job job) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(SmsScheduler.Job job, String e) {
+                error[0] = e;
+                done.countDown();
+            }
+        });
+        if (!done.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("not sent within " + timeoutMs + " ms");
+        }
+        if (error[0] != null) throw new IllegalStateException(error[0]);
+        return segments;
+    }
+
+    /** Queues one text without report intents; returns its segment count. */
+    public static int enqueue(String phoneNumber, String message, boolean primary, SmsScheduler.Kind kind,
+                              SmsScheduler.Callback callback) {
+        SmsManager smsManager = SmsManager.getDefault();
+        String text = NativeSmsPlugin.optimize(message);
+        ArrayList<String> parts = smsManager.divideMessage(text);
+        scheduler.submit(new SmsScheduler.Job(subscription(), primary, kind, () -> {
+            if (parts.size() > 1) {
+                smsManager.sendMultipartTextMessage(phoneNumber, null, parts, null, null);
+            } else {
+                smsManager.sendTextMessage(phoneNumber, null, text, null, null);
+            }
+        }, new SmsScheduler.Callback() {
+            @Override
+            public void onSent(SmsScheduler.Job job) {
+                smsSent.inc();
+                callback.onSent(job);
+            }
+
+            @Override
+            public void onFailed(SmsScheduler.Job job, String error) {
+                smsFailed.inc();
+                callback.onFailed(job, error);
+            }
+        }));
+        return parts.size();
+    }
+
+    public static SmsScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public static LatencyHistogram getTimeToAllSent() {
+        return timeToAllSent;
+    }
+
+    public static LatencyHistogram getTimeToAllDelivered() {
+        return timeToAllDelivered;
+    }
+
+    /**
+     * Runs on the pool: prepares one message with per-part report intents and
+     * queues it on the scheduler. The part count is known before the radio
+     * sees it, so reports can be counted however late the scheduler sends.
+     */
+    private static int submit(long batchId, int recipient, SmsFanout.Message m) {
+        SmsManager smsManager = SmsManager.getDefault();
+        String text = NativeSmsPlugin.optimize(m.message);
+        ArrayList<String> parts = smsManager.divideMessage(text);
+        ArrayList<PendingIntent> sent = new ArrayList<>(parts.size());
+        ArrayList<PendingIntent> delivered = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            sent.add(reportIntent(ACTION_SMS_SENT, batchId, recipient));
+            delivered.add(reportIntent(ACTION_SMS_DELIVERED, batchId, recipient));
+        }
+        scheduler.submit(new SmsScheduler.Job(subscription(), m.primary, m.kind, () -> {
+            if (parts.size() > 1) {
+                smsManager.sendMultipartTextMessage(m.phoneNumber, null, parts, sent, delivered);
+            } else {
+                smsManager.sendTextMessage(m.phoneNumber, null, text, sent.get(0), delivered.get(0));
+            }
+        }, new SmsScheduler.Callback() {
+            @Override
+            public void onSent(SmsScheduler.Job job) {
+                // Part outcomes arrive through reportReceiver.
+            }
+
+            @Override
+            public void onFailed(SmsScheduler.Job job, String error) {
+                smsFailed.inc();
+                fanout.onPartSent(batchId, recipient, false, error);
+            }
+        }));
+        return parts.size();
+    }
+
+    /** Rate limits apply per SIM; the default subscription is the one SmsManager.getDefault() sends on. */
+    private static String subscription() {
+        return "sub:" + SmsManager.getDefaultSmsSubscriptionId();
+    }
+
+    private static void wakeAt(long atMs) {
+        long delay;
+        synchronized (SmsDispatcher.class) {
+            if (atMs >= pumpAtMs) return;
+            pumpAtMs = atMs;
+            delay = Math.max(0, atMs - SystemClock.elapsedRealtime());
+        }
+        pumpThread.schedule(SmsDispatcher::pump, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static void pump() {
+        synchronized (SmsDispatcher.class) {
+            pumpAtMs = Long.MAX_VALUE;
+        }
+        try {
+            scheduler.pump();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "SMS scheduler pump failed", e);
+        }
+    }
+
+    private static PendingIntent reportIntent(String action, long batchId, int recipient) {
+        Intent intent = new Intent(action);
+        intent.setPackage(appContext.getPackageName());
+        intent.putExtra(EXTRA_BATCH, batchId);
+        intent.putExtra(EXTRA_RECIPIENT, recipient);
+        // Every part needs its own request code or the system hands back the same PendingIntent.
+        return PendingIntent.getBroadcast(appContext, requestCodes.incrementAndGet(), intent,
+                PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static final BroadcastReceiver reportReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            long batchId = intent.getLongExtra(EXTRA_BATCH, -1);
+            int recipient = intent.getIntExtra(EXTRA_RECIPIENT, -1);
+            if (batchId < 0 || recipient < 0) return;
+            if (ACTION_SMS_SENT.equals(intent.getAction())) {
+                int code = getResultCode();
+                (code == Activity.RESULT_OK ? smsSent : smsFailed).inc();
+                fanout.onPartSent(batchId, recipient, code == Activity.RESULT_OK, sendError(code));
+            } else if (ACTION_SMS_DELIVERED.equals(intent.getAction())) {
+                int status = deliveryStatus(intent, getResultCode());
+                // 0x20-0x3F: the network is still trying; another report follows.
+                if (status >= 0x20 && status < 0x40) return;
+                (status < 0x20 ? smsDelivered : smsUndelivered).inc();
+                fanout.onPartDelivered(batchId, recipient, status < 0x20);
+            }
+        }
+    };
+
+    private static int deliveryStatus(Intent intent, int resultCode) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu != null) {
+            try {
+                SmsMessage report = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+                if (report != null) return report.getStatus();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unreadable status report", e);
+            }
+        }
+        return resultCode == Activity.RESULT_OK ? 0 : 0x40;
+    }
+
+    private static String sendError(int code) {
+        switch (code) {
+            case Activity.RESULT_OK:
+                return null;
+            case SmsManager.RESULT_ERROR_NO_SERVICE:
+                return "no service";
+            case SmsManager.RESULT_ERROR_RADIO_OFF:
+                return "radio off";
+            case SmsManager.RESULT_ERROR_NULL_PDU:
+                return "null PDU";
+            case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
+                return "generic failure";
+            default:
+                return "error " + code;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package app.lovable;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.TriggerDispatcher;
+
+/**
+ * Process-wide entry point for SOS triggers. Services and plugins submit
+ * here; the plugins register themselves as sinks and receive each accepted
+ * trigger once, on the main thread, without going through broadcasts.
+ */
+public final class SosTriggers {
+    private static final String TAG = "SosTriggers";
+
+    public static final String EXTRA_TRIGGER_SOS = "trigger_sos";
+    public static final String EXTRA_TRIGGER_ID = "trigger_id";
+    public static final String EXTRA_TRIGGER_TYPE = "trigger_type";
+
+    private static volatile TriggerDispatcher dispatcher;
+    private static final MetricsRegistry.Counter fired = Metrics.get().counter("trigger.fired");
+    private static final MetricsRegistry.Counter duplicates = Metrics.get().counter("trigger.duplicates");
+
+    private SosTriggers() {}
+
+    public static TriggerDispatcher get() {
+        TriggerDispatcher d = dispatcher;
+        if (d == null) {
+            synchronized (SosTriggers.class) {
+                d = dispatcher;
+                if (d == null) {
+                    Handler main = new Handler(Looper.getMainLooper());
+                    d = new TriggerDispatcher(Clocks.ELAPSED, main::post, System.currentTimeMillis() * 1_000L);
+                    Metrics.get().register("trigger.toJs", d.getLatency());
+                    dispatcher = d;
+                }
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Submits a trigger from a background source and, if it is not a
+     * duplicate, starts the native SMS pipeline and brings MainActivity to
+     * the front so the SOS screen shows.
+     * The launch intent carries the trigger ID so MainActivity does not
+     * submit it a second time.
+     */
+    public static TriggerDispatcher.Trigger fire(Context context, TriggerDispatcher.Source source) {
+        TriggerDispatcher.Trigger trigger = get().submit(source, System.currentTimeMillis());
+        if (trigger == null) {
+            duplicates.inc();
+            Log.d(TAG, "Dropped duplicate " + source.wireName + " trigger");
+            return null;
+        }
+        fired.inc();
+        Log.d(TAG, "Trigger " + trigger.id + " from " + source.wireName);
+        // Saves the buffered audio from before the trigger and keeps recording.
+        PreRoll.onTrigger(context, trigger.id);
+        // Texts go out natively without waiting for the WebView; JS is told via nativeSos.
+        // Both calls only queue their work, so a trigger on the main thread does not wait on storage.
+        NativeSos.submit(context, trigger);
+
+        Intent launchIntent = new Intent(context, MainActivity.class);
+        launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        launchIntent.putExtra(EXTRA_TRIGGER_SOS, true);
+        launchIntent.putExtra(EXTRA_TRIGGER_ID, trigger.id);
+        launchIntent.putExtra(EXTRA_TRIGGER_TYPE, source.wireName);
+        try {
+            context.startActivity(launchIntent);
+        } catch (Exception e) {
+            // Background activity starts can be blocked; JS still gets the event once the app is opened.
+            Log.e(TAG, "Failed to bring MainActivity to front", e);
+        }
+        return trigger;
+    }
+
+    /** Payload of the volumeButtonsPressed event. */
+    public static JSObject toJs(TriggerDispatcher.Trigger trigger) {
+        JSObject data = new JSObject();
+        data.put("triggered", true);
+        data.put("timestamp", trigger.timestamp);
+        data.put("source", trigger.source.wireName);
+        data.put("triggerId", String.valueOf(trigger.id));
+        data.put("nativeSos", NativeSos.isHandling(trigger.id));
+        return data;
+    }
+}
@@ -0,0 +1,80 @@
+package app.lovable;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import app.lovable.core.PhaseTracer;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup path shared by BootReceiver and MainActivity, and the process-wide
+ * {@link PhaseTracer} that times it. Arming the enabled detectors is the
+ * only work that must happen before anything else; it runs on a background
+ * thread (the settings load is a disk read) and everything else waits.
+ *
+ * Times are elapsedRealtime, which counts from device boot, so the time a
+ * detector armed after a boot is also the boot-to-armed time.
+ */
+public final class Startup {
+    private static final String TAG = "Startup";
+    private static final int TRACE_CAPACITY = 64;
+
+    private static final PhaseTracer tracer = new PhaseTracer(Clocks.ELAPSED, TRACE_CAPACITY);
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+
+    static {
+        tracer.markAt(PhaseTracer.Phase.PROCESS_START, null, Process.getStartElapsedRealtime());
+    }
+
+    private Startup() {}
+
+    static void mark(PhaseTracer.Phase phase, String detail) {
+        tracer.mark(phase, detail);
+    }
+
+    /** Starts the enabled detectors off the calling thread, then runs {@code after}, if any. */
+    static void arm(Context context, Runnable after) {
+        Context app = context.getApplicationContext();
+        worker.execute(() -> {
+            try {
+                ProtectionService.startEnabled(app);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Cannot start protection", e);
+            }
+            if (after != null) after.run();
+        });
+    }
+
+    /** Payload of the startup-trace plugin call; -1 for a span that has not completed. */
+    static JSObject toJs() {
+        JSObject ret = new JSObject();
+        long receiverToArmed = tracer.span(PhaseTracer.Phase.BOOT_COMPLETED, PhaseTracer.Phase.DETECTOR_ARMED);
+        // Only set in a process the boot receiver started; the arming time is itself time since boot.
+        ret.put("bootToArmedMs", receiverToArmed < 0 ? -1
+                : tracer.last(PhaseTracer.Phase.BOOT_COMPLETED) + receiverToArmed);
+        ret.put("bootReceivedToArmedMs", receiverToArmed);
+        ret.put("launchToArmedMs", tracer.span(PhaseTracer.Phase.LAUNCH, PhaseTracer.Phase.DETECTOR_ARMED));
+        ret.put("launchToWebViewMs", tracer.span(PhaseTracer.Phase.LAUNCH, PhaseTracer.Phase.WEBVIEW_READY));
+        ret.put("processToArmedMs", tracer.span(PhaseTracer.Phase.PROCESS_START, PhaseTracer.Phase.DETECTOR_ARMED));
+        long wallOffsetMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        JSArray marks = new JSArray();
+        for (PhaseTracer.Mark m : tracer.marks()) {
+            JSObject o = new JSObject();
+            o.put("phase", m.phase.name().toLowerCase(Locale.ROOT));
+            if (m.detail != null) o.put("detail", m.detail);
+            o.put("at", m.atMs + wallOffsetMs);
+            o.put("sinceBootMs", m.atMs);
+            marks.put(o);
+        }
+        ret.put("marks", marks);
+        return ret;
+    }
+}
@@ -0,0 +1,141 @@
+package app.lovable;
+
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.ServiceSupervisor;
+import app.lovable.core.SettingsStore;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide {@link ServiceSupervisor} for the detectors hosted by
+ * ProtectionService. The service beats for each enabled detector every
+ * {@link #HEARTBEAT_MS} from the detector thread, so a hung thread shows up
+ * as a stall; a watchdog thread checks every {@link #CHECK_MS} and restarts
+ * a detector that has stalled or died while the user has it on.
+ *
+ * A killed process takes the watchdog with it, so SupervisorJob also runs
+ * every 15 minutes and starts whatever is enabled but not running.
+ */
+public final class Supervisor {
+    private static final String TAG = "Supervisor";
+
+    static final String WAKE_WORD = "wakeword";
+    static final String VOLUME = "volume";
+
+    static final long HEARTBEAT_MS = 5_000;
+    private static final long CHECK_MS = 5_000;
+    /** Three missed heartbeats. */
+    private static final long STALE_MS = 15_000;
+    private static final long BASE_BACKOFF_MS = 2_000;
+    private static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long HEALTHY_RESET_MS = TimeUnit.MINUTES.toMillis(2);
+    private static final int BACKSTOP_JOB_ID = 4102;
+    private static final long BACKSTOP_PERIOD_MS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final ServiceSupervisor supervisor = new ServiceSupervisor(Clocks.ELAPSED, Supervisor::restart,
+            STALE_MS, BASE_BACKOFF_MS, MAX_BACKOFF_MS, HEALTHY_RESET_MS);
+    private static final MetricsRegistry.Counter restarts = Metrics.get().counter("supervisor.restarts");
+    private static Context appContext;
+    private static ScheduledExecutorService watchdog;
+
+    static {
+        Metrics.get().register("supervisor.timeToDetect", supervisor.getTimeToDetect());
+        Metrics.get().register("supervisor.timeToRecover", supervisor.getTimeToRecover());
+        Metrics.get().gauge("supervisor.failures", supervisor::getFailures);
+    }
+
+    private Supervisor() {}
+
+    /** Loads which services the user has on and starts the watchdog; later calls do nothing. */
+    static synchronized void start(Context context) {
+        if (watchdog != null) return;
+        appContext = context.getApplicationContext();
+        supervisor.setExpected(WAKE_WORD, isEnabled(appContext, WAKE_WORD));
+        supervisor.setExpected(VOLUME, isEnabled(appContext, VOLUME));
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG));
+        watchdog.scheduleWithFixedDelay(() -> {
+            try {
+                supervisor.check();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Watchdog check failed", e);
+            }
+        }, CHECK_MS, CHECK_MS, TimeUnit.MILLISECONDS);
+        scheduleBackstop(appContext);
+    }
+
+    /** The user turned a service on or off; call before starting or stopping it. */
+    static void setExpected(Context context, String service, boolean expected) {
+        start(context);
+        supervisor.setExpected(service, expected);
+    }
+
+    static void heartbeat(String service, ServiceSupervisor.State state) {
+        supervisor.heartbeat(service, state);
+    }
+
+    static void stopped(String service) {
+        supervisor.stopped(service);
+    }
+
+    static ServiceSupervisor.Status status(String service) {
+        return supervisor.status(service);
+    }
+
+    /** Payload of the plugins' running-status calls. */
+    static JSObject toJs(ServiceSupervisor.Status status) {
+        JSObject ret = new JSObject();
+        ret.put("running", status.alive);
+        ret.put("state", status.state.name().toLowerCase(Locale.ROOT));
+        ret.put("enabled", status.expected);
+        if (status.sinceHeartbeatMs >= 0) ret.put("sinceHeartbeatMs", status.sinceHeartbeatMs);
+        ret.put("recovering", status.failed);
+        ret.put("restarts", status.restarts);
+        return ret;
+    }
+
+    /** Starts every enabled service that is not beating, without waiting for the watchdog. */
+    static void startEnabled(Context context) {
+        start(context);
+        for (String service : new String[] {WAKE_WORD, VOLUME}) {
+            ServiceSupervisor.Status s = supervisor.status(service);
+            if (s.expected && !s.alive) restart(service);
+        }
+    }
+
+    static boolean isEnabled(Context context, String service) {
+        SettingsStore.Snapshot settings = Settings.get(context).get();
+        return WAKE_WORD.equals(service) ? settings.wakeWordEnabled : settings.volumeEnabled;
+    }
+
+    private static void restart(String service) {
+        Log.w(TAG, "Restarting " + service);
+        restarts.inc();
+        try {
+            ProtectionService.restartDetector(appContext, service);
+        } catch (RuntimeException e) {
+            // Background starts can be refused; the next check or the backstop job tries again.
+            Log.e(TAG, "Cannot restart " + service, e);
+        }
+    }
+
+    private static void scheduleBackstop(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null || scheduler.getPendingJob(BACKSTOP_JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(BACKSTOP_JOB_ID, new ComponentName(context, SupervisorJob.class))
+                .setPeriodic(BACKSTOP_PERIOD_MS)
+                .setPersisted(true)
+                .build();
+        if (scheduler.schedule(job) != JobScheduler.RESULT_SUCCESS) Log.w(TAG, "Backstop job not scheduled");
+    }
+}
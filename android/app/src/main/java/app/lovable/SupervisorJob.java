@@ -0,0 +1,22 @@
+package app.lovable;
+
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+
+/**
+ * Periodic backstop for {@link Supervisor}: after a task killer takes the
+ * whole process, nothing is left to notice the services are gone, so this
+ * job brings back whatever the user has enabled.
+ */
+public class SupervisorJob extends JobService {
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        Supervisor.startEnabled(this);
+        return false;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        return false;
+    }
+}
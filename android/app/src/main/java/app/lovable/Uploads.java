@@ -0,0 +1,291 @@
+package app.lovable;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import app.lovable.core.ChunkUploader;
+import app.lovable.core.ChunkedUpload;
+import app.lovable.core.HttpChunkTransport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Android side of {@link ChunkUploader}: one process-wide uploader sending
+ * recording files to the upload-recording function. Each upload's
+ * acknowledged chunks are saved to filesDir/uploads/&lt;id&gt;.state after
+ * every ack, so {@link #resume} (called by the services, the plugin and
+ * whenever a network comes up) picks up after process death or a failed
+ * run without resending what the server already has.
+ *
+ * Progress goes to the {@link Sink} at most every {@link #PROGRESS_MS}, all
+ * uploads in one call, instead of once per chunk.
+ */
+public final class Uploads {
+    private static final String TAG = "Uploads";
+    private static final String DIR = "uploads";
+    static final String PREFS_NAME = "resqme_uploads";
+    static final String PREF_ENDPOINT = "endpoint";
+    static final String PREF_API_KEY = "api_key";
+    static final String PREF_STREAMS = "streams";
+    static final String PREF_CHUNK_BYTES = "chunk_bytes";
+
+    static final int DEFAULT_STREAMS = 2;
+    static final int MAX_STREAMS = 6;
+    static final int DEFAULT_CHUNK_BYTES = 256 * 1024;
+    private static final int TIMEOUT_MS = 30_000;
+    private static final long RETRY_BASE_MS = 2_000;
+    static final long PROGRESS_MS = 250;
+
+    /** Receives batched progress on a background thread. */
+    public interface Sink {
+        void onProgress(List<ChunkedUpload> active, List<Finished> finished);
+    }
+
+    public static final class Finished {
+        public final String id;
+        public final String error;
+
+        Finished(String id, String error) {
+            this.id = id;
+            this.error = error;
+        }
+    }
+
+    private static Context appContext;
+    private static ChunkUploader uploader;
+    private static int streams;
+    private static volatile String endpoint;
+    private static volatile String apiKey = "";
+    private static volatile Sink sink;
+    private static boolean networkCallbackRegistered;
+    private static boolean progressDirty;
+    private static final List<Finished> finished = new ArrayList<>();
+    private static final ScheduledExecutorService io =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, TAG));
+
+    private Uploads() {}
+
+    /** Uses the endpoint configured when each request starts, so configure() applies to running uploads. */
+    private static final ChunkUploader.Transport transport = new ChunkUploader.Transport() {
+        @Override
+        public void putChunk(ChunkedUpload upload, int chunk, byte[] data, int length, String sha256)
+                throws IOException {
+            current().putChunk(upload, chunk, data, length, sha256);
+        }
+
+        @Override
+        public void complete(ChunkedUpload upload) throws IOException {
+            current().complete(upload);
+        }
+
+        private HttpChunkTransport current() throws IOException {
+            String url = endpoint;
+            if (url == null) throw new IOException("upload endpoint not configured");
+            return new HttpChunkTransport(url, apiKey, TIMEOUT_MS);
+        }
+    };
+
+    private static final ChunkUploader.Listener listener = new ChunkUploader.Listener() {
+        @Override
+        public void onChunkAcked(ChunkedUpload upload, int chunk) {
+            saveState(upload);
+            markProgress();
+        }
+
+        @Override
+        public void onFinished(ChunkedUpload upload, String error) {
+            if (error == null) {
+                Log.d(TAG, "Uploaded " + upload.file.getName() + " (" + upload.size + " bytes)");
+                if (!stateFile(upload.id).delete()) Log.w(TAG, "Could not delete state of " + upload.id);
+            } else {
+                Log.w(TAG, "Upload " + upload.id + " paused after " + upload.getAckedBytes() + " bytes: " + error);
+            }
+            synchronized (Uploads.class) {
+                finished.add(new Finished(upload.id, error));
+            }
+            markProgress();
+        }
+    };
+
+    static synchronized ChunkUploader get(Context context) {
+        if (uploader == null) {
+            appContext = context.getApplicationContext();
+            SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            endpoint = prefs.getString(PREF_ENDPOINT, null);
+            apiKey = prefs.getString(PREF_API_KEY, "");
+            streams = prefs.getInt(PREF_STREAMS, DEFAULT_STREAMS);
+            uploader = new ChunkUploader(SystemClock::elapsedRealtime, transport, listener, streams,
+                    RETRY_BASE_MS, new Random());
+            registerNetworkCallback();
+        }
+        return uploader;
+    }
+
+    public static void configure(Context context, String url, String key, int streamCount, int chunkBytes) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putString(PREF_ENDPOINT, url)
+                .putString(PREF_API_KEY, key)
+                .putInt(PREF_STREAMS, streamCount)
+                .putInt(PREF_CHUNK_BYTES, chunkBytes)
+                .apply();
+        endpoint = url;
+        apiKey = key;
+        synchronized (Uploads.class) {
+            if (uploader != null && streams != streamCount) {
+                // Stream threads are fixed per uploader; rebuild it and let resume() pick the work back up.
+                uploader.shutdown();
+                uploader = null;
+            }
+        }
+        resume(context);
+    }
+
+    /**
+     * Starts uploading a file under {@code metadata} (JSON the server
+     * receives on completion). Returns the upload id, or null if the file
+     * is missing or its state could not be saved.
+     */
+    public static String enqueue(Context context, File file, String metadata) {
+        if (!file.isFile()) return null;
+        int chunkBytes = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getInt(PREF_CHUNK_BYTES, DEFAULT_CHUNK_BYTES);
+        ChunkedUpload upload = new ChunkedUpload(UUID.randomUUID().toString(), file, file.length(),
+                chunkBytes, metadata);
+        ChunkUploader u = get(context);
+        if (!saveState(upload)) return null;
+        u.submit(upload);
+        markProgress();
+        return upload.id;
+    }
+
+    /** Submits every saved upload that is not already running, off the caller's thread. */
+    public static void resume(Context context) {
+        get(context);
+        io.execute(Uploads::resumeNow);
+    }
+
+    private static void resumeNow() {
+        ChunkUploader u = get(appContext);
+        File[] files = dir().listFiles((d, name) -> name.endsWith(".state"));
+        if (files == null) return;
+        for (File f : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                u.submit(ChunkedUpload.readFrom(in));
+            } catch (IOException e) {
+                Log.e(TAG, "Discarding unreadable upload state " + f.getName(), e);
+                f.delete();
+            }
+        }
+    }
+
+    /** Stops an upload and forgets it; the recording file is kept. */
+    public static boolean cancel(Context context, String id) {
+        boolean running = get(context).cancel(id);
+        boolean saved = stateFile(id).delete();
+        markProgress();
+        return running || saved;
+    }
+
+    /** Ids of uploads saved but not running, e.g. paused after repeated failures. */
+    public static List<String> paused(Context context) {
+        List<String> ids = new ArrayList<>();
+        File[] files = dir().listFiles((d, name) -> name.endsWith(".state"));
+        if (files == null) return ids;
+        List<String> running = new ArrayList<>();
+        for (ChunkedUpload u : get(context).active()) running.add(u.id);
+        for (File f : files) {
+            String id = f.getName().substring(0, f.getName().length() - ".state".length());
+            if (!running.contains(id)) ids.add(id);
+        }
+        return ids;
+    }
+
+    public static void setSink(Sink s) {
+        sink = s;
+    }
+
+    private static synchronized void markProgress() {
+        if (progressDirty) return;
+        progressDirty = true;
+        io.schedule(Uploads::deliverProgress, PROGRESS_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void deliverProgress() {
+        List<ChunkedUpload> active;
+        List<Finished> done;
+        synchronized (Uploads.class) {
+            progressDirty = false;
+            active = uploader != null ? uploader.active() : new ArrayList<>();
+            done = new ArrayList<>(finished);
+            finished.clear();
+        }
+        Sink s = sink;
+        if (s != null) s.onProgress(active, done);
+    }
+
+    private static boolean saveState(ChunkedUpload upload) {
+        File target = stateFile(upload.id);
+        File tmp = new File(target.getPath() + ".tmp");
+        synchronized (upload) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                upload.writeTo(out);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save upload state", e);
+                return false;
+            }
+            if (!tmp.renameTo(target)) {
+                Log.e(TAG, "Failed to replace upload state " + target.getName());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static File dir() {
+        File d = new File(appContext.getFilesDir(), DIR);
+        if (!d.exists() && !d.mkdirs()) Log.e(TAG, "Could not create " + d);
+        return d;
+    }
+
+    private static File stateFile(String id) {
+        return new File(dir(), id + ".state");
+    }
+
+    /** Retries paused uploads as soon as any network is back. */
+    private static void registerNetworkCallback() {
+        if (networkCallbackRegistered) return;
+        ConnectivityManager cm = (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+        try {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    io.execute(Uploads::resumeNow);
+                }
+            });
+            networkCallbackRegistered = true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "No network callback; uploads resume on next start only", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package app.lovable;
+
+import android.annotation.SuppressLint;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import app.lovable.core.PcmRingBuffer;
+import app.lovable.core.VoiceActivityDetector;
+
+/**
+ * Low-rate (8 kHz) microphone capture feeding the voice activity detector.
+ * Runs only while the recognizer gate is closed and reports the first
+ * speech onset, after which the caller stops it and hands the microphone to
+ * SpeechRecognizer.
+ */
+public class VoiceActivityGate {
+    private static final String TAG = "VoiceActivityGate";
+
+    /** Called on the main thread. */
+    public interface Listener {
+        void onSpeechStart();
+    }
+
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final VoiceActivityDetector vad;
+    private final PcmRingBuffer ring = new PcmRingBuffer(VoiceActivityDetector.DEFAULT_SAMPLE_RATE / 4);
+    private final short[] readBuffer = new short[VoiceActivityDetector.DEFAULT_SAMPLE_RATE / 10];
+    private final short[] frameBuffer;
+
+    private volatile boolean running = false;
+    private Thread thread;
+    private AudioRecord audioRecord;
+
+    public VoiceActivityGate(VoiceActivityDetector.Settings settings, Listener listener) {
+        this.vad = new VoiceActivityDetector(VoiceActivityDetector.DEFAULT_SAMPLE_RATE, settings);
+        this.frameBuffer = new short[vad.frameSize()];
+        this.listener = listener;
+    }
+
+    public void setSettings(VoiceActivityDetector.Settings settings) {
+        vad.setSettings(settings);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @SuppressLint("MissingPermission") // Checked by WakeWordDetector before listening.
+    public synchronized boolean start() {
+        if (running) return true;
+        // The capture loop exits on its own after an onset; release what it left behind.
+        stop();
+        int rate = VoiceActivityDetector.DEFAULT_SAMPLE_RATE;
+        int minBuffer = AudioRecord.getMinBufferSize(rate,
+                AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        try {
+            audioRecord = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, rate,
+                    AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT,
+                    Math.max(minBuffer, readBuffer.length * 2 * 2));
+            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+                Log.e(TAG, "AudioRecord failed to initialize");
+                audioRecord.release();
+                audioRecord = null;
+                return false;
+            }
+            audioRecord.startRecording();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to open microphone", e);
+            audioRecord = null;
+            return false;
+        }
+
+        ring.clear();
+        vad.reset();
+        running = true;
+        thread = new Thread(this::captureLoop, "VoiceActivityGate");
+        thread.start();
+        return true;
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        if (audioRecord != null) {
+            try {
+                audioRecord.stop();
+            } catch (Exception ignored) {
+            }
+            audioRecord.release();
+            audioRecord = null;
+        }
+    }
+
+    private void captureLoop() {
+        while (running) {
+            int n = audioRecord.read(readBuffer, 0, readBuffer.length);
+            if (n <= 0) {
+                Log.e(TAG, "AudioRecord read failed: " + n);
+                break;
+            }
+            ring.write(readBuffer, 0, n);
+            if (vad.drain(ring, frameBuffer)) {
+                Log.d(TAG, "Speech onset, energy " + vad.getLastEnergyDb()
+                        + " dB over floor " + vad.getNoiseFloorDb() + " dB");
+                running = false;
+                mainHandler.post(listener::onSpeechStart);
+            }
+        }
+    }
+}
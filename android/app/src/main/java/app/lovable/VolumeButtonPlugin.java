@@ -1,9 +1,6 @@
 package app.lovable;
 
 import android.content.Context;
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.Build;
 import android.view.KeyEvent;
 
 import com.getcapacitor.JSObject;
@@ -12,61 +9,97 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.SettingsStore;
+import app.lovable.core.TriggerDispatcher;
+import app.lovable.core.VolumeGestureRecognizer;
+
 @CapacitorPlugin(name = "VolumeButton")
 public class VolumeButtonPlugin extends Plugin {
-    private boolean volumeUpPressed = false;
-    private boolean volumeDownPressed = false;
-    private long lastVolumeUpTime = 0;
-    private long lastVolumeDownTime = 0;
-    private static final long SIMULTANEOUS_THRESHOLD = 500; // 500ms window (match background service)
+    private final TriggerDispatcher.Sink triggerSink = this::deliverTrigger;
+
+    @Override
+    public void load() {
+        super.load();
+        SosTriggers.get().addSink(triggerSink);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        SosTriggers.get().removeSink(triggerSink);
+        super.handleOnDestroy();
+    }
+
+    private boolean deliverTrigger(TriggerDispatcher.Trigger trigger) {
+        // Retained so a trigger that beats the JS listener registration is not lost.
+        notifyListeners("volumeButtonsPressed", SosTriggers.toJs(trigger), true);
+        return true;
+    }
 
     public boolean handleKeyEvent(KeyEvent event) {
-        int action = event.getAction();
         int keyCode = event.getKeyCode();
-        long currentTime = System.currentTimeMillis();
-
-        if (action == KeyEvent.ACTION_DOWN) {
-            if (keyCode == KeyEvent.KEYCODE_VOLUME_UP) {
-                volumeUpPressed = true;
-                lastVolumeUpTime = currentTime;
-                checkSimultaneousPress();
-                return true;
-            } else if (keyCode == KeyEvent.KEYCODE_VOLUME_DOWN) {
-                volumeDownPressed = true;
-                lastVolumeDownTime = currentTime;
-                checkSimultaneousPress();
-                return true;
-            }
-        } else if (action == KeyEvent.ACTION_UP) {
-            if (keyCode == KeyEvent.KEYCODE_VOLUME_UP) {
-                volumeUpPressed = false;
-            } else if (keyCode == KeyEvent.KEYCODE_VOLUME_DOWN) {
-                volumeDownPressed = false;
-            }
+        int key;
+        if (keyCode == KeyEvent.KEYCODE_VOLUME_UP) {
+            key = VolumeGestureRecognizer.KEY_UP;
+        } else if (keyCode == KeyEvent.KEYCODE_VOLUME_DOWN) {
+            key = VolumeGestureRecognizer.KEY_DOWN;
+        } else {
+            return false;
         }
 
+        // KeyEvent times are SystemClock.uptimeMillis(), the clock the recognizer runs on.
+        if (event.getAction() == KeyEvent.ACTION_DOWN) {
+            VolumeGestures.onKeyDown(getContext(), key, event.getEventTime(),
+                TriggerDispatcher.Source.VOLUME_FOREGROUND);
+            return true;
+        } else if (event.getAction() == KeyEvent.ACTION_UP) {
+            VolumeGestures.onKeyUp(getContext(), key, event.getEventTime(),
+                TriggerDispatcher.Source.VOLUME_FOREGROUND);
+        }
         return false;
     }
 
-    private void checkSimultaneousPress() {
-        long timeDiff = Math.abs(lastVolumeUpTime - lastVolumeDownTime);
-        
-        if (volumeUpPressed && volumeDownPressed && timeDiff < SIMULTANEOUS_THRESHOLD) {
-            // Both buttons pressed within threshold
-            JSObject ret = new JSObject();
-            ret.put("triggered", true);
-            ret.put("timestamp", System.currentTimeMillis());
-            ret.put("source", "foreground");
-            notifyListeners("volumeButtonsPressed", ret);
-            
-            // Reset states
-            volumeUpPressed = false;
-            volumeDownPressed = false;
-        }
+    @PluginMethod
+    public void setGestures(PluginCall call) {
+        SettingsStore.Editor editor = Settings.get(getContext()).edit();
+        Boolean simultaneous = call.getBoolean("simultaneous");
+        if (simultaneous != null) editor.gestureSimultaneous(simultaneous);
+        Integer rapidPresses = call.getInt("rapidPresses");
+        if (rapidPresses != null) editor.gestureRapidPresses(rapidPresses);
+        Integer longHoldMs = call.getInt("longHoldMs");
+        if (longHoldMs != null) editor.gestureLongHoldMs(longHoldMs);
+        Boolean upDownUp = call.getBoolean("upDownUp");
+        if (upDownUp != null) editor.gestureUpDownUp(upDownUp);
+        // VolumeGestures rebuilds its recognizer when the store tells it.
+        editor.apply();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getGestures(PluginCall call) {
+        SettingsStore.Snapshot settings = Settings.get(getContext()).get();
+        JSObject ret = new JSObject();
+        ret.put("simultaneous", settings.gestureSimultaneous);
+        ret.put("rapidPresses", settings.gestureRapidPresses);
+        ret.put("longHoldMs", settings.gestureLongHoldMs);
+        ret.put("upDownUp", settings.gestureUpDownUp);
+        call.resolve(ret);
     }
 
-    public void notifyVolumeButtonsPressed(JSObject data) {
-        notifyListeners("volumeButtonsPressed", data);
+    @PluginMethod
+    public void getTriggerStats(PluginCall call) {
+        TriggerDispatcher dispatcher = SosTriggers.get();
+        LatencyHistogram latency = dispatcher.getLatency();
+        JSObject ret = new JSObject();
+        ret.put("accepted", dispatcher.getAccepted());
+        ret.put("duplicates", dispatcher.getDuplicates());
+        ret.put("delivered", dispatcher.getDelivered());
+        ret.put("pending", dispatcher.getPending());
+        ret.put("latencyP50Us", latency.percentileMicros(50));
+        ret.put("latencyP90Us", latency.percentileMicros(90));
+        ret.put("latencyP99Us", latency.percentileMicros(99));
+        ret.put("latencyMaxUs", latency.getMaxMicros());
+        call.resolve(ret);
     }
 
     @PluginMethod
@@ -81,16 +114,10 @@ public class VolumeButtonPlugin extends Plugin {
         Context context = getContext();
 
         // Persist user's choice so BootReceiver/MainActivity can restart it later.
-        SharedPreferences prefs = context.getSharedPreferences("ResQMePrefs", Context.MODE_PRIVATE);
-        prefs.edit().putBoolean("background_service_enabled", true).apply();
-
-        Intent serviceIntent = new Intent(context, VolumeButtonService.class);
+        Settings.get(context).edit().volumeEnabled(true).apply();
+        Supervisor.setExpected(context, Supervisor.VOLUME, true);
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            context.startForegroundService(serviceIntent);
-        } else {
-            context.startService(serviceIntent);
-        }
+        ProtectionService.setDetector(context, Supervisor.VOLUME, true);
 
         JSObject ret = new JSObject();
         ret.put("started", true);
@@ -101,11 +128,10 @@ public class VolumeButtonPlugin extends Plugin {
     public void stopBackgroundService(PluginCall call) {
         Context context = getContext();
 
-        SharedPreferences prefs = context.getSharedPreferences("ResQMePrefs", Context.MODE_PRIVATE);
-        prefs.edit().putBoolean("background_service_enabled", false).apply();
+        Settings.get(context).edit().volumeEnabled(false).apply();
+        Supervisor.setExpected(context, Supervisor.VOLUME, false);
 
-        Intent serviceIntent = new Intent(context, VolumeButtonService.class);
-        context.stopService(serviceIntent);
+        ProtectionService.setDetector(context, Supervisor.VOLUME, false);
 
         JSObject ret = new JSObject();
         ret.put("stopped", true);
@@ -114,9 +140,7 @@ public class VolumeButtonPlugin extends Plugin {
 
     @PluginMethod
     public void isBackgroundServiceRunning(PluginCall call) {
-        // Simple check - in production you'd want a more robust check
-        JSObject ret = new JSObject();
-        ret.put("running", false); // Would need proper service status check
-        call.resolve(ret);
+        Supervisor.start(getContext());
+        call.resolve(Supervisor.toJs(Supervisor.status(Supervisor.VOLUME)));
     }
 }
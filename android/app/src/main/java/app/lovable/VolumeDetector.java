@@ -0,0 +1,186 @@
+package app.lovable;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.media.AudioManager;
+import android.media.VolumeProvider;
+import android.media.session.MediaSession;
+import android.media.session.PlaybackState;
+import android.os.SystemClock;
+import android.util.Log;
+
+import app.lovable.core.ProtectionHost;
+import app.lovable.core.ServiceSupervisor;
+import app.lovable.core.TriggerDispatcher;
+import app.lovable.core.VolumeGestureRecognizer;
+
+/**
+ * Volume-key SOS gestures in the background, hosted by ProtectionService.
+ * Holds a media session for the keys themselves and, as a fallback, listens
+ * for volume changes.
+ */
+final class VolumeDetector implements ProtectionHost.Detector {
+    private static final String TAG = "VolumeDetector";
+
+    private final ProtectionService host;
+    private AudioManager audioManager;
+    private BroadcastReceiver volumeReceiver;
+    private MediaSession mediaSession;
+    private int originalVolume = -1;
+    // Keys the media session reported down and not yet up, by VolumeGestureRecognizer key.
+    private final boolean[] sessionHeld = new boolean[2];
+
+    VolumeDetector(ProtectionService host) {
+        this.host = host;
+    }
+
+    @Override
+    public void start() {
+        audioManager = (AudioManager) host.getSystemService(Context.AUDIO_SERVICE);
+        originalVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+        VolumeGestures.reload(host);
+        setupMediaSession();
+        setupVolumeListener();
+        Log.d(TAG, "Volume gestures armed");
+    }
+
+    @Override
+    public void stop() {
+        if (mediaSession != null) {
+            mediaSession.release();
+            mediaSession = null;
+        }
+        if (volumeReceiver != null) {
+            try {
+                host.unregisterReceiver(volumeReceiver);
+            } catch (Exception e) {
+                Log.e(TAG, "Error unregistering receiver", e);
+            }
+            volumeReceiver = null;
+        }
+        sessionHeld[VolumeGestureRecognizer.KEY_UP] = false;
+        sessionHeld[VolumeGestureRecognizer.KEY_DOWN] = false;
+    }
+
+    @Override
+    public void destroy() {
+        // stop() released everything.
+    }
+
+    @Override
+    public boolean isBusy() {
+        return false;
+    }
+
+    /** Without the media session only volume-change broadcasts are seen: no presses at max or min volume. */
+    @Override
+    public ServiceSupervisor.State state() {
+        return mediaSession != null ? ServiceSupervisor.State.ARMED : ServiceSupervisor.State.DEGRADED;
+    }
+
+    @Override
+    public String notificationHint() {
+        return "press Vol+ & Vol- together";
+    }
+
+    /**
+     * Primary key source: while our media session holds volume control it
+     * receives press (+1/-1) and release (0) callbacks for the volume keys
+     * directly, screen off included, regardless of the current volume level.
+     *
+     * Holding the keys would otherwise leave them doing nothing for as long
+     * as protection is on, so every press (and auto-repeat) is passed on to
+     * the media stream, as the keys do when no app is playing. The volume
+     * this causes is recorded before the broadcast arrives, so the fallback
+     * listener does not count the same press again as a tap.
+     */
+    private void setupMediaSession() {
+        try {
+            mediaSession = new MediaSession(host, TAG);
+            mediaSession.setPlaybackToRemote(new VolumeProvider(VolumeProvider.VOLUME_CONTROL_RELATIVE, 100, 50) {
+                @Override
+                public void onAdjustVolume(int direction) {
+                    long now = SystemClock.uptimeMillis();
+                    if (direction != 0) {
+                        forwardAdjustment(direction);
+                        int key = keyFor(direction);
+                        sessionHeld[key] = true;
+                        VolumeGestures.onKeyDown(host, key, now,
+                                TriggerDispatcher.Source.VOLUME_SERVICE);
+                    } else {
+                        // A release does not say which key: with both down, the first 0 lets go of both.
+                        for (int key = VolumeGestureRecognizer.KEY_UP; key <= VolumeGestureRecognizer.KEY_DOWN; key++) {
+                            if (!sessionHeld[key]) continue;
+                            sessionHeld[key] = false;
+                            VolumeGestures.onKeyUp(host, key, now,
+                                    TriggerDispatcher.Source.VOLUME_SERVICE);
+                        }
+                    }
+                }
+            });
+            mediaSession.setPlaybackState(new PlaybackState.Builder()
+                    .setState(PlaybackState.STATE_PLAYING, 0, 0f)
+                    .build());
+            mediaSession.setActive(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Media session unavailable; relying on volume changes", e);
+            mediaSession = null;
+        }
+    }
+
+    private void forwardAdjustment(int direction) {
+        try {
+            audioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC,
+                    direction > 0 ? AudioManager.ADJUST_RAISE : AudioManager.ADJUST_LOWER,
+                    AudioManager.FLAG_SHOW_UI);
+            originalVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+        } catch (SecurityException e) {
+            // Do Not Disturb can refuse volume changes; the press still counts.
+            Log.w(TAG, "Volume change refused", e);
+        }
+    }
+
+    private static int keyFor(int direction) {
+        return direction > 0 ? VolumeGestureRecognizer.KEY_UP : VolumeGestureRecognizer.KEY_DOWN;
+    }
+
+    /**
+     * Fallback for when another app's media session owns the volume keys:
+     * infer taps from volume changes. Holds are invisible here and presses at
+     * the top or bottom of the range are missed.
+     */
+    private void setupVolumeListener() {
+        volumeReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if ("android.media.VOLUME_CHANGED_ACTION".equals(intent.getAction())) {
+                    int streamType = intent.getIntExtra("android.media.EXTRA_VOLUME_STREAM_TYPE", -1);
+
+                    if (streamType == AudioManager.STREAM_MUSIC || streamType == AudioManager.STREAM_RING) {
+                        int currentVolume = audioManager.getStreamVolume(streamType);
+                        long now = SystemClock.uptimeMillis();
+
+                        if (currentVolume > originalVolume) {
+                            Log.d(TAG, "Volume UP detected");
+                            VolumeGestures.onKeyTap(host, VolumeGestureRecognizer.KEY_UP, now,
+                                TriggerDispatcher.Source.VOLUME_SERVICE);
+                        } else if (currentVolume < originalVolume) {
+                            Log.d(TAG, "Volume DOWN detected");
+                            VolumeGestures.onKeyTap(host, VolumeGestureRecognizer.KEY_DOWN, now,
+                                TriggerDispatcher.Source.VOLUME_SERVICE);
+                        }
+
+                        originalVolume = currentVolume;
+                    }
+                }
+            }
+        };
+
+        IntentFilter filter = new IntentFilter("android.media.VOLUME_CHANGED_ACTION");
+        // Delivered on the detector thread with everything else the host runs.
+        host.registerReceiver(volumeReceiver, filter, null, host.handler());
+        Log.d(TAG, "Volume listener registered");
+    }
+}
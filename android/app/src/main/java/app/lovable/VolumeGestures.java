@@ -0,0 +1,105 @@
+package app.lovable;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import app.lovable.core.SettingsStore;
+import app.lovable.core.TriggerDispatcher;
+import app.lovable.core.VolumeGestureRecognizer;
+
+/**
+ * The one volume-key gesture recognizer shared by VolumeButtonPlugin
+ * (foreground key events) and VolumeDetector (background). Both feed it
+ * on the main thread with SystemClock.uptimeMillis() times; a completed
+ * gesture becomes an SOS trigger.
+ */
+public final class VolumeGestures {
+    private static final String TAG = "VolumeGestures";
+
+    static final long SIMULTANEOUS_WINDOW_MS = 500;
+    static final long RAPID_WINDOW_MS = 3_000;
+    static final long SEQUENCE_WINDOW_MS = 2_000;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Runnable tick = VolumeGestures::onTick;
+    private static VolumeGestureRecognizer recognizer;
+    private static Context appContext;
+
+    private VolumeGestures() {}
+
+    /**
+     * (Re)builds the recognizer from the gesture settings. Main thread only.
+     * The first call also subscribes to the settings, so later gesture
+     * changes rebuild it without another call.
+     */
+    public static void reload(Context context) {
+        if (appContext == null) {
+            Settings.get(context).addListener(Settings.on(mainHandler, (before, after) -> {
+                if (after.gesturesDiffer(before)) reload(appContext);
+            }));
+        }
+        appContext = context.getApplicationContext();
+        SettingsStore.Snapshot settings = Settings.get(context).get();
+        VolumeGestureRecognizer.Builder builder = new VolumeGestureRecognizer.Builder();
+        if (settings.gestureSimultaneous) {
+            builder.simultaneous("both keys", SIMULTANEOUS_WINDOW_MS);
+        }
+        int rapid = settings.gestureRapidPresses;
+        if (rapid >= 2) {
+            builder.rapidPresses(rapid + " rapid presses", VolumeGestureRecognizer.KEY_ANY, rapid, RAPID_WINDOW_MS);
+        }
+        long holdMs = settings.gestureLongHoldMs;
+        if (holdMs > 0) {
+            builder.longHold("long hold", VolumeGestureRecognizer.KEY_ANY, holdMs);
+        }
+        if (settings.gestureUpDownUp) {
+            builder.sequence("up-down-up", SEQUENCE_WINDOW_MS,
+                    VolumeGestureRecognizer.KEY_UP, VolumeGestureRecognizer.KEY_DOWN, VolumeGestureRecognizer.KEY_UP);
+        }
+        recognizer = builder.build();
+        mainHandler.removeCallbacks(tick);
+    }
+
+    private static VolumeGestureRecognizer recognizer(Context context) {
+        if (recognizer == null) reload(context);
+        return recognizer;
+    }
+
+    public static void onKeyDown(Context context, int key, long uptimeMs, TriggerDispatcher.Source source) {
+        handle(context, recognizer(context).onKeyDown(key, uptimeMs), source);
+    }
+
+    public static void onKeyUp(Context context, int key, long uptimeMs, TriggerDispatcher.Source source) {
+        handle(context, recognizer(context).onKeyUp(key, uptimeMs), source);
+    }
+
+    /** A press seen only as a volume change, with no separate release. */
+    public static void onKeyTap(Context context, int key, long uptimeMs, TriggerDispatcher.Source source) {
+        handle(context, recognizer(context).onKeyTap(key, uptimeMs), source);
+    }
+
+    private static void onTick() {
+        if (recognizer == null) return;
+        // Only long holds complete on a timeout; fire() is also fine when the app is in front.
+        handle(appContext, recognizer.onTick(SystemClock.uptimeMillis()), TriggerDispatcher.Source.VOLUME_SERVICE);
+    }
+
+    private static void handle(Context context, int gesture, TriggerDispatcher.Source source) {
+        if (gesture != VolumeGestureRecognizer.NONE) {
+            Log.d(TAG, "Gesture: " + recognizer.patternName(gesture));
+            if (source == TriggerDispatcher.Source.VOLUME_FOREGROUND) {
+                SosTriggers.get().submit(source, System.currentTimeMillis());
+            } else {
+                SosTriggers.fire(context, source);
+            }
+        }
+        mainHandler.removeCallbacks(tick);
+        long deadline = recognizer.nextDeadline();
+        if (deadline != Long.MAX_VALUE) {
+            mainHandler.postAtTime(tick, deadline);
+        }
+    }
+}
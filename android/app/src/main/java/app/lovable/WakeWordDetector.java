@@ -0,0 +1,780 @@
+package app.lovable;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.speech.RecognitionListener;
+import android.speech.RecognizerIntent;
+import android.speech.SpeechRecognizer;
+import android.util.Log;
+
+import androidx.core.app.ActivityCompat;
+
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.ProtectionHost;
+import app.lovable.core.RecognizerGate;
+import app.lovable.core.RestartScheduler;
+import app.lovable.core.ServiceSupervisor;
+import app.lovable.core.SettingsStore;
+import app.lovable.core.TranscriptBuffer;
+import app.lovable.core.TriggerDispatcher;
+import app.lovable.core.VoiceActivityDetector;
+import app.lovable.core.WakePhraseMatcher;
+import app.lovable.core.WakeVocabulary;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Wake phrase detection in the background, hosted by ProtectionService.
+ * Also records wake phrase enrollments and transcribes an active SOS;
+ * both can run while detection itself is turned off.
+ */
+public final class WakeWordDetector implements ProtectionHost.Detector {
+    private static final String TAG = "WakeWordDetector";
+
+    public static final String ACTION_TEMPLATE_ENROLLED = "app.lovable.WAKE_TEMPLATE_ENROLLED";
+    public static final String ACTION_RECOGNIZER_STATE = "app.lovable.WAKE_RECOGNIZER_STATE";
+    static final String ACTION_SOS_TRANSCRIBE_START = "SOS_TRANSCRIBE_START";
+    static final String ACTION_SOS_TRANSCRIBE_STOP = "SOS_TRANSCRIBE_STOP";
+    public static final String DEFAULT_WAKE_WORD = SettingsStore.DEFAULT_WAKE_WORD;
+    /** Name under ProtectionService and the supervisor. */
+    static final String NAME = Supervisor.WAKE_WORD;
+
+    /** Engines selectable through the wake engine setting. */
+    public static final String ENGINE_RECOGNIZER = SettingsStore.DEFAULT_WAKE_ENGINE;
+    public static final String ENGINE_SPOTTER = "spotter";
+
+    private static final long TRIGGER_COOLDOWN_MS = 10_000;
+    // Pause before listening again after the spotter lost the microphone.
+    private static final long CAPTURE_RETRY_MS = 5_000;
+    /** A partial word that reads the same this long is committed to the SOS transcript. */
+    private static final long TRANSCRIPT_STABLE_MS = 600;
+    private static final int TRANSCRIPT_MAX_CHARS = 32_000;
+    /** Unacknowledged segments per push; JS acks to get the next ones. */
+    static final int TRANSCRIPT_PUSH_SEGMENTS = 32;
+
+    private final ProtectionService host;
+    private final Handler mainHandler;
+    private final SettingsStore.Listener settingsListener;
+    private volatile boolean isListening = false;
+    private String currentWakeWord = DEFAULT_WAKE_WORD;
+    private WakePhraseMatcher phraseMatcher;
+    private String currentEngine = ENGINE_RECOGNIZER;
+    private long lastTriggerAt = 0;
+    // Last partial transcript sent to JS in this session; null after a final result.
+    private String lastPartialText;
+    private long lastRmsAtMs;
+
+    private SpeechRecognizer speechRecognizer;
+    private Intent recognizerIntent;
+    private RestartScheduler restartScheduler;
+    private static volatile RestartScheduler.State recognizerState = RestartScheduler.State.RUNNING;
+    private boolean restartRecreates = false;
+    private final Runnable pendingRestart = this::performRestart;
+    private final Runnable pendingProbe = this::probeRecognizer;
+    private final Runnable pendingCaptureRetry = this::startListening;
+    // Spotter standing in while the recognizer is suspended by the circuit breaker.
+    private boolean spotterFallback = false;
+
+    private KeywordSpotterEngine spotterEngine;
+    // True while the spotter only holds the mic to record an enrollment, not to detect.
+    private boolean enrollmentOnly = false;
+    // Set while the breaker has the recognizer suspended with no fallback; shown in the notification.
+    private long pausedProbeDelayMs = -1;
+
+    // Voice activity gate: when enabled, SpeechRecognizer only runs after the VAD hears speech.
+    private boolean voiceGateEnabled = false;
+    private VoiceActivityDetector.Settings voiceGateSettings = new VoiceActivityDetector.Settings();
+    private VoiceActivityGate voiceGate;
+    private static volatile RecognizerGate recognizerGate;
+
+    // Indexed by SpeechRecognizer error code, up to the highest one the SDK defines.
+    private static final MetricsRegistry.Counter[] recognizerErrors =
+            new MetricsRegistry.Counter[SpeechRecognizer.ERROR_CANNOT_LISTEN_TO_DOWNLOAD_EVENTS + 1];
+    // Codes outside that range, e.g. from a newer platform.
+    private static final MetricsRegistry.Counter otherRecognizerErrors = Metrics.get().counter("recognizer.error.other");
+    private static final MetricsRegistry.Counter restarts = Metrics.get().counter("recognizer.restarts");
+    private static final MetricsRegistry.Counter recreates = Metrics.get().counter("recognizer.recreates");
+    private static final MetricsRegistry.Counter suspends = Metrics.get().counter("recognizer.suspends");
+
+    static {
+        for (int code = 0; code < recognizerErrors.length; code++) {
+            recognizerErrors[code] = Metrics.get().counter("recognizer.error." + code);
+        }
+    }
+
+    // SOS transcription: the recognizer runs continuously and feeds the transcript instead of the matcher.
+    private boolean sosTranscribing = false;
+    private static volatile TranscriptBuffer sosTranscript;
+    private static volatile boolean transcriptActive;
+
+    WakeWordDetector(ProtectionService host) {
+        this.host = host;
+        mainHandler = host.handler();
+        restartScheduler = new RestartScheduler(host.clock(), new Random(), this::onRecognizerStateChanged);
+        loadSettings(Settings.get(host).get());
+        settingsListener = Settings.on(mainHandler, this::onSettingsChanged);
+        Settings.get(host).addListener(settingsListener);
+    }
+
+    @Override
+    public void start() {
+        // An SOS transcription or enrollment holds the microphone; listening resumes when it ends.
+        if (sosTranscribing || enrollmentOnly) return;
+        startListening();
+    }
+
+    @Override
+    public void stop() {
+        if (sosTranscribing || enrollmentOnly) return;
+        stopListening();
+    }
+
+    @Override
+    public void destroy() {
+        Settings.get(host).removeListener(settingsListener);
+        if (sosTranscribing) {
+            sosTranscribing = false;
+            transcriptActive = false;
+            finishSosTranscript();
+        }
+        enrollmentOnly = false;
+        stopListening();
+    }
+
+    @Override
+    public boolean isBusy() {
+        return isListening || sosTranscribing || enrollmentOnly;
+    }
+
+    /** Degraded while the circuit breaker has the recognizer suspended with no spotter standing in. */
+    @Override
+    public ServiceSupervisor.State state() {
+        if (sosTranscribing) return ServiceSupervisor.State.ARMED;
+        if (!isListening) return ServiceSupervisor.State.ARMING;
+        if (recognizerState == RestartScheduler.State.OPEN && !spotterFallback
+                && !ENGINE_SPOTTER.equals(currentEngine)) {
+            return ServiceSupervisor.State.DEGRADED;
+        }
+        return ServiceSupervisor.State.ARMED;
+    }
+
+    /** None while the recognizer is paused; {@link #pausedNotice} says so instead. */
+    @Override
+    public String notificationHint() {
+        if (pausedProbeDelayMs >= 0) return null;
+        return "say \"" + currentWakeWord + " help\"";
+    }
+
+    /** Shown under the shared notification while the breaker has voice activation paused, else null. */
+    String pausedNotice() {
+        if (pausedProbeDelayMs < 0) return null;
+        return "Voice activation paused; retrying in " + Math.max(1, pausedProbeDelayMs / 60_000) + " min";
+    }
+
+    /** Handles one of this detector's command intents; returns false for anything else. */
+    boolean onCommand(Intent intent) {
+        String action = intent.getAction();
+        if (ACTION_SOS_TRANSCRIBE_START.equals(action)) {
+            startSosTranscription();
+        } else if (ACTION_SOS_TRANSCRIBE_STOP.equals(action)) {
+            stopSosTranscription();
+        } else if ("ENROLL_TEMPLATE".equals(action)) {
+            enrollTemplate();
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void loadSettings(SettingsStore.Snapshot settings) {
+        currentWakeWord = settings.wakeWord.toLowerCase(Locale.ROOT).trim();
+        phraseMatcher = buildMatcher(currentWakeWord);
+        currentEngine = settings.wakeEngine;
+        voiceGateEnabled = settings.voiceGateEnabled;
+        voiceGateSettings = settings.voiceGate();
+        Log.d(TAG, "Loaded wake word: " + currentWakeWord + " (engine: " + currentEngine + ")");
+    }
+
+    /** Applies a settings change live; runs on the main thread. */
+    private void onSettingsChanged(SettingsStore.Snapshot before, SettingsStore.Snapshot after) {
+        if (!after.wakeWord.equals(before.wakeWord)) updateWakeWord(after.wakeWord);
+        if (!after.wakeEngine.equals(before.wakeEngine)) updateEngine(after.wakeEngine);
+        if (after.voiceGateDiffers(before)) updateVoiceGate(after);
+    }
+
+    private void updateWakeWord(String newWakeWord) {
+        currentWakeWord = newWakeWord.toLowerCase(Locale.ROOT).trim();
+        phraseMatcher = buildMatcher(currentWakeWord);
+        host.refreshNotification();
+
+        Log.d(TAG, "Updated wake word to: " + currentWakeWord);
+    }
+
+    private void updateEngine(String engine) {
+        if (engine.equals(currentEngine)) return;
+        currentEngine = engine;
+        Log.d(TAG, "Switching wake word engine to: " + engine);
+
+        if (isListening && !sosTranscribing) {
+            stopListening();
+            startListening();
+        }
+    }
+
+    private void updateVoiceGate(SettingsStore.Snapshot settings) {
+        boolean wasEnabled = voiceGateEnabled;
+        voiceGateEnabled = settings.voiceGateEnabled;
+        voiceGateSettings = settings.voiceGate();
+        if (voiceGate != null) voiceGate.setSettings(voiceGateSettings);
+        if (recognizerGate != null) recognizerGate.setHangoverMs(voiceGateSettings.hangoverMs);
+        Log.d(TAG, "Voice gate " + (voiceGateEnabled ? "enabled" : "disabled")
+                + ", hangover " + voiceGateSettings.hangoverMs + " ms");
+
+        if (wasEnabled != voiceGateEnabled && isListening && !sosTranscribing) {
+            stopListening();
+            startListening();
+        }
+    }
+
+    /** Counters of the current detector's voice gate, or null if it has not been used. */
+    public static RecognizerGate getRecognizerGate() {
+        return recognizerGate;
+    }
+
+    private static WakePhraseMatcher buildMatcher(String wakeWord) {
+        return new WakePhraseMatcher(
+                WakeVocabulary.forLanguage(wakeWord, Locale.getDefault().getLanguage()));
+    }
+
+    private void startListening() {
+        if (isListening) {
+            Log.d(TAG, "Already listening");
+            return;
+        }
+
+        if (ActivityCompat.checkSelfPermission(host, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "Microphone permission not granted");
+            return;
+        }
+
+        boolean recognitionAvailable = SpeechRecognizer.isRecognitionAvailable(host);
+        boolean spotterReady = KeywordSpotterEngine.hasTemplates(host);
+        if (spotterReady && (ENGINE_SPOTTER.equals(currentEngine) || !recognitionAvailable)) {
+            isListening = startSpotter();
+            return;
+        }
+        if (!recognitionAvailable) {
+            Log.e(TAG, "Speech recognition not available on this device and no wake phrase is enrolled");
+            return;
+        }
+        if (ENGINE_SPOTTER.equals(currentEngine)) {
+            Log.w(TAG, "No enrolled wake phrase; using SpeechRecognizer until one is recorded");
+        }
+
+        isListening = true;
+        restartScheduler.reset();
+        if (voiceGateEnabled) {
+            startVoiceGate();
+        } else {
+            startRecognizer();
+        }
+    }
+
+    private void startVoiceGate() {
+        if (recognizerGate == null) {
+            recognizerGate = new RecognizerGate(voiceGateSettings.hangoverMs);
+        }
+        if (voiceGate == null) {
+            voiceGate = new VoiceActivityGate(voiceGateSettings, this::onVoiceGateSpeech);
+        }
+        if (!voiceGate.start()) {
+            Log.w(TAG, "Voice gate unavailable; running SpeechRecognizer continuously");
+            voiceGateEnabled = false;
+            startRecognizer();
+            return;
+        }
+        recognizerGate.park(SystemClock.elapsedRealtime());
+    }
+
+    private void onVoiceGateSpeech() {
+        if (!isListening) return;
+        // Hand the microphone over to the recognizer.
+        voiceGate.stop();
+        recognizerGate.open(SystemClock.elapsedRealtime());
+        startRecognizer();
+    }
+
+    private void noteRecognizedSpeech() {
+        if (voiceGateEnabled && recognizerGate != null) {
+            recognizerGate.noteSpeech(SystemClock.elapsedRealtime());
+        }
+    }
+
+    private void startRecognizer() {
+        recognizerIntent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_CALLING_PACKAGE, host.getPackageName());
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_MAX_RESULTS, 3);
+        recognizerIntent.putExtra(RecognizerIntent.EXTRA_PARTIAL_RESULTS, true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            recognizerIntent.putExtra(RecognizerIntent.EXTRA_PREFER_OFFLINE, true);
+        }
+
+        mainHandler.post(() -> {
+            try {
+                if (speechRecognizer != null) {
+                    try { speechRecognizer.destroy(); } catch (Exception ignored) {}
+                }
+                speechRecognizer = SpeechRecognizer.createSpeechRecognizer(host.getApplicationContext());
+                speechRecognizer.setRecognitionListener(new RecognitionListener() {
+                    @Override public void onReadyForSpeech(Bundle params) { Log.d(TAG, "Ready for speech"); }
+                    @Override public void onBeginningOfSpeech() {
+                        TranscriptBuffer transcript = sosTranscript;
+                        if (sosTranscribing && transcript != null) transcript.onSpeechStart();
+                        restartScheduler.onSpeechDetected();
+                        noteRecognizedSpeech();
+                    }
+                    @Override public void onRmsChanged(float rmsdB) {
+                        // Called about every 10 ms, but the bridge sends one level per frame at most:
+                        // build an event only once per frame interval, and only if JS is listening.
+                        long now = SystemClock.elapsedRealtime();
+                        if (now - lastRmsAtMs < EventBridge.DEFAULT_INTERVAL_MS || !EventBridge.isListening()) return;
+                        lastRmsAtMs = now;
+                        JSObject level = new JSObject();
+                        level.put("db", rmsdB);
+                        EventBridge.gauge("rms", level);
+                    }
+                    @Override public void onBufferReceived(byte[] buffer) { }
+                    @Override public void onEndOfSpeech() {
+                        // onResults or onError always follows; the restart is scheduled there.
+                    }
+                    @Override public void onError(int error) {
+                        if (error >= 0 && error < recognizerErrors.length) {
+                            recognizerErrors[error].inc();
+                        } else {
+                            otherRecognizerErrors.inc();
+                        }
+                        RestartScheduler.Decision decision = restartScheduler.onError(error);
+                        Log.e(TAG, "SpeechRecognizer error: " + error + " -> " + decision);
+                        applyRestartDecision(decision);
+                    }
+                    @Override public void onResults(Bundle results) {
+                        if (sosTranscribing) {
+                            appendTranscript(results, false);
+                        } else {
+                            handleResults(results, false);
+                        }
+                        applyRestartDecision(restartScheduler.onSessionEnded());
+                    }
+                    @Override public void onPartialResults(Bundle partialResults) {
+                        restartScheduler.onSpeechDetected();
+                        noteRecognizedSpeech();
+                        if (sosTranscribing) {
+                            appendTranscript(partialResults, true);
+                        } else {
+                            handleResults(partialResults, true);
+                        }
+                    }
+                    @Override public void onEvent(int eventType, Bundle params) { }
+                });
+
+                speechRecognizer.startListening(recognizerIntent);
+                Log.d(TAG, "Started SpeechRecognizer listening");
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to start SpeechRecognizer", e);
+                applyRestartDecision(restartScheduler.onError(RestartScheduler.ERROR_CLIENT));
+            }
+        });
+    }
+
+    private boolean startSpotter() {
+        if (spotterEngine == null) {
+            spotterEngine = new KeywordSpotterEngine(host, new KeywordSpotterEngine.Listener() {
+                @Override
+                public void onKeywordDetected(float score) {
+                    if (enrollmentOnly) return;
+                    if (System.currentTimeMillis() - lastTriggerAt < TRIGGER_COOLDOWN_MS) return;
+                    triggerWakePhrase("spotter, score " + score);
+                }
+
+                @Override
+                public void onTemplateEnrolled(int templateCount) {
+                    onEnrollmentFinished(templateCount);
+                }
+
+                @Override
+                public void onCaptureFailed() {
+                    mainHandler.post(WakeWordDetector.this::onSpotterFailed);
+                }
+            });
+        }
+        return spotterEngine.start();
+    }
+
+    /** The spotter lost the microphone; listen again after a pause rather than spinning on a dead device. */
+    private void onSpotterFailed() {
+        if (enrollmentOnly) {
+            enrollmentOnly = false;
+            finishEnrollmentOnly();
+        } else if (spotterFallback) {
+            // The recognizer probe is still scheduled and takes over from here.
+            spotterFallback = false;
+        } else if (isListening && !sosTranscribing) {
+            Log.w(TAG, "Keyword spotter stopped; listening again in " + CAPTURE_RETRY_MS + " ms");
+            stopListening();
+            mainHandler.postDelayed(pendingCaptureRetry, CAPTURE_RETRY_MS);
+        }
+    }
+
+    private void stopSpotter() {
+        if (spotterEngine != null) {
+            spotterEngine.stop();
+        }
+    }
+
+    private void enrollTemplate() {
+        if (ActivityCompat.checkSelfPermission(host, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.e(TAG, "Microphone permission not granted");
+            return;
+        }
+        if (sosTranscribing) {
+            Log.w(TAG, "Not enrolling during an SOS");
+            return;
+        }
+        if (spotterEngine == null || !spotterEngine.isRunning()) {
+            // The recognizer owns the microphone (or nothing is running); hand it to the spotter for the recording.
+            stopListening();
+            enrollmentOnly = true;
+            if (!startSpotter()) {
+                enrollmentOnly = false;
+                finishEnrollmentOnly();
+                return;
+            }
+        }
+        spotterEngine.enrollNext();
+        Log.d(TAG, "Recording wake phrase enrollment");
+    }
+
+    private void onEnrollmentFinished(int templateCount) {
+        Log.d(TAG, "Wake phrase enrolled, " + templateCount + " template(s) stored");
+        Intent intent = new Intent(ACTION_TEMPLATE_ENROLLED);
+        intent.setPackage(host.getPackageName());
+        intent.putExtra("template_count", templateCount);
+        host.sendBroadcast(intent);
+
+        if (enrollmentOnly) {
+            enrollmentOnly = false;
+            stopSpotter();
+            finishEnrollmentOnly();
+        }
+    }
+
+    private void finishEnrollmentOnly() {
+        if (host.isDetectorEnabled(NAME)) {
+            startListening();
+        } else {
+            // Created only to enroll while voice activation is off.
+            host.release(NAME);
+        }
+    }
+
+    private void applyRestartDecision(RestartScheduler.Decision decision) {
+        if (!isListening) return;
+        switch (decision.action) {
+            case RESTART:
+                restarts.inc();
+                scheduleRestart(decision.delayMs, false);
+                break;
+            case RECREATE:
+                recreates.inc();
+                scheduleRestart(decision.delayMs, true);
+                break;
+            case SUSPEND:
+                suspends.inc();
+                suspendRecognizer(decision.delayMs);
+                break;
+        }
+    }
+
+    private void scheduleRestart(long delayMs, boolean recreate) {
+        // Only one restart may be pending; a newer decision replaces it.
+        mainHandler.removeCallbacks(pendingRestart);
+        restartRecreates = recreate;
+        mainHandler.postDelayed(pendingRestart, delayMs);
+    }
+
+    private void performRestart() {
+        if (!isListening) return;
+        if (voiceGateEnabled && recognizerGate != null && !sosTranscribing) {
+            // Parked: the VAD owns the microphone until it hears speech.
+            if (!recognizerGate.isOpen()) return;
+            if (!recognizerGate.onSessionEnded(SystemClock.elapsedRealtime())) {
+                // No speech for the hangover time: park the recognizer and go back to the VAD.
+                if (speechRecognizer != null) {
+                    try { speechRecognizer.cancel(); } catch (Exception ignored) {}
+                }
+                startVoiceGate();
+                return;
+            }
+        }
+        if (restartRecreates || speechRecognizer == null) {
+            startRecognizer();
+            return;
+        }
+        try {
+            speechRecognizer.cancel();
+            speechRecognizer.startListening(recognizerIntent);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to restart SpeechRecognizer; recreating", e);
+            startRecognizer();
+        }
+    }
+
+    /** Circuit breaker tripped: release the recognizer, fall back, and probe again after the delay. */
+    private void suspendRecognizer(long probeDelayMs) {
+        mainHandler.removeCallbacks(pendingRestart);
+        mainHandler.removeCallbacks(pendingProbe);
+        destroyRecognizer();
+
+        if (!spotterFallback && KeywordSpotterEngine.hasTemplates(host) && startSpotter()) {
+            spotterFallback = true;
+            Log.w(TAG, "SpeechRecognizer suspended; keyword spotter standing in");
+        } else if (!spotterFallback) {
+            Log.w(TAG, "SpeechRecognizer suspended with no fallback engine");
+            pausedProbeDelayMs = probeDelayMs;
+            host.refreshNotification();
+        }
+        mainHandler.postDelayed(pendingProbe, probeDelayMs);
+    }
+
+    private void probeRecognizer() {
+        if (!isListening) return;
+        if (spotterFallback) {
+            stopSpotter();
+            spotterFallback = false;
+        }
+        if (pausedProbeDelayMs >= 0) {
+            pausedProbeDelayMs = -1;
+            host.refreshNotification();
+        }
+        applyRestartDecision(restartScheduler.onProbeDue());
+    }
+
+    private void destroyRecognizer() {
+        if (speechRecognizer != null) {
+            try {
+                speechRecognizer.cancel();
+                speechRecognizer.destroy();
+            } catch (Exception ignored) {
+            }
+            speechRecognizer = null;
+        }
+    }
+
+    private void onRecognizerStateChanged(RestartScheduler.State from, RestartScheduler.State to, String reason) {
+        recognizerState = to;
+        Log.i(TAG, "Recognizer " + from + " -> " + to + " (" + reason + ")");
+        Intent intent = new Intent(ACTION_RECOGNIZER_STATE);
+        intent.setPackage(host.getPackageName());
+        intent.putExtra("from", from.name());
+        intent.putExtra("to", to.name());
+        intent.putExtra("reason", reason);
+        host.sendBroadcast(intent);
+
+        JSObject state = new JSObject();
+        state.put("from", from.name());
+        state.put("to", to.name());
+        state.put("reason", reason);
+        EventBridge.stream("recognizerState", state);
+    }
+
+    /** Latest restart-scheduler state of the running detector. */
+    public static RestartScheduler.State getRecognizerState() {
+        return recognizerState;
+    }
+
+    private void handleResults(Bundle bundle, boolean partial) {
+        if (!isListening || bundle == null) return;
+
+        ArrayList<String> matches = bundle.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        if (matches == null || matches.isEmpty()) return;
+
+        // Partials repeat the same text several times a second; publish only when it changes.
+        String text = matches.get(0);
+        if (!partial) {
+            lastPartialText = null;
+            if (EventBridge.isListening()) EventBridge.stream("transcript", transcriptEvent(text));
+        } else if (!text.equals(lastPartialText) && EventBridge.isListening()) {
+            lastPartialText = text;
+            EventBridge.gauge("partialTranscript", transcriptEvent(text));
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastTriggerAt < TRIGGER_COOLDOWN_MS) return;
+
+        for (String m : matches) {
+            if (m == null) continue;
+
+            // Accept: "<wakeword> help" or "<wakeword> emergency" (also allow just "help" / "emergency"),
+            // plus localized commands and phonetic near-misses of the wake word.
+            if (phraseMatcher.matches(m)) {
+                triggerWakePhrase((partial ? "partial" : "final") + ": " + m);
+                break;
+            }
+        }
+    }
+
+    private static JSObject transcriptEvent(String text) {
+        JSObject event = new JSObject();
+        event.put("text", text);
+        return event;
+    }
+
+    private void triggerWakePhrase(String detail) {
+        lastTriggerAt = System.currentTimeMillis();
+        Log.d(TAG, "Wake phrase matched (" + detail + ")");
+
+        onWakeWordConfirmed(host);
+    }
+
+    /**
+     * Hands the microphone to a continuously restarted SpeechRecognizer
+     * that writes a transcript of the SOS, so JS does not need to open
+     * its own recognizer. Wake phrase detection pauses meanwhile.
+     */
+    private void startSosTranscription() {
+        if (sosTranscribing) return;
+        if (ActivityCompat.checkSelfPermission(host, Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED || !SpeechRecognizer.isRecognitionAvailable(host)) {
+            Log.e(TAG, "Cannot transcribe SOS: no microphone permission or recognizer");
+            return;
+        }
+        stopListening();
+        enrollmentOnly = false;
+        sosTranscribing = true;
+        sosTranscript = new TranscriptBuffer(host.clock(), TRANSCRIPT_STABLE_MS,
+                TRANSCRIPT_MAX_CHARS);
+        transcriptActive = true;
+        isListening = true;
+        restartScheduler.reset();
+        startRecognizer();
+        pushTranscript();
+        Log.d(TAG, "SOS transcription started");
+    }
+
+    private void stopSosTranscription() {
+        if (!sosTranscribing) return;
+        sosTranscribing = false;
+        transcriptActive = false;
+        stopListening();
+        finishSosTranscript();
+        Log.d(TAG, "SOS transcription stopped");
+        if (host.isDetectorEnabled(NAME)) {
+            startListening();
+        } else {
+            // Created only for the SOS while voice activation is off.
+            host.release(NAME);
+        }
+    }
+
+    static void finishSosTranscript() {
+        TranscriptBuffer transcript = sosTranscript;
+        if (transcript == null) return;
+        transcript.finish();
+        pushTranscript();
+    }
+
+    private void appendTranscript(Bundle bundle, boolean partial) {
+        TranscriptBuffer transcript = sosTranscript;
+        if (bundle == null || transcript == null) return;
+        ArrayList<String> matches = bundle.getStringArrayList(SpeechRecognizer.RESULTS_RECOGNITION);
+        String best = matches == null || matches.isEmpty() ? null : matches.get(0);
+        if (best == null) return;
+        boolean added = !(partial ? transcript.onPartial(best) : transcript.onFinal(best)).isEmpty();
+        if (added || partial) pushTranscript();
+    }
+
+    /** Transcript of the current or last SOS, or null if there has been none in this process. */
+    static TranscriptBuffer getSosTranscript() {
+        return sosTranscript;
+    }
+
+    static boolean isSosTranscribing() {
+        return transcriptActive;
+    }
+
+    /**
+     * Sends the unacknowledged segments (at most TRANSCRIPT_PUSH_SEGMENTS)
+     * plus the unstable tail as one gauge: each push supersedes the last,
+     * nothing is lost until JS acknowledges it, and a slow reader only
+     * ever holds back this bounded window.
+     */
+    static void pushTranscript() {
+        TranscriptBuffer transcript = sosTranscript;
+        if (transcript == null) return;
+        long wallOffsetMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        JSArray segments = new JSArray();
+        for (TranscriptBuffer.Segment seg : transcript.unacked(TRANSCRIPT_PUSH_SEGMENTS)) {
+            JSObject o = new JSObject();
+            o.put("seq", seg.seq);
+            o.put("text", seg.text);
+            o.put("heardAt", seg.heardAtMs + wallOffsetMs);
+            o.put("latencyMs", seg.committedAtMs - seg.heardAtMs);
+            segments.put(o);
+        }
+        JSObject data = new JSObject();
+        data.put("segments", segments);
+        data.put("pending", transcript.pending());
+        data.put("nextSeq", transcript.getNextSeq());
+        data.put("active", transcriptActive);
+        EventBridge.gauge("sosTranscript", data);
+    }
+
+    private void stopListening() {
+        isListening = false;
+        mainHandler.removeCallbacks(pendingRestart);
+        mainHandler.removeCallbacks(pendingProbe);
+        mainHandler.removeCallbacks(pendingCaptureRetry);
+        spotterFallback = false;
+        stopSpotter();
+        if (voiceGate != null) {
+            voiceGate.stop();
+        }
+        if (recognizerGate != null) {
+            recognizerGate.close(SystemClock.elapsedRealtime());
+        }
+        mainHandler.post(() -> {
+            if (speechRecognizer != null) {
+                try {
+                    speechRecognizer.cancel();
+                    speechRecognizer.destroy();
+                } catch (Exception ignored) {
+                }
+                speechRecognizer = null;
+            }
+        });
+        Log.d(TAG, "Stopped listening");
+    }
+
+    /**
+     * Called when wake word + command is confirmed.
+     */
+    public static void onWakeWordConfirmed(Context context) {
+        Log.d(TAG, "Wake phrase confirmed! Triggering emergency...");
+        SosTriggers.fire(context, TriggerDispatcher.Source.VOICE);
+    }
+}
@@ -1,49 +1,77 @@
 package app.lovable;
 
+import android.Manifest;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
 import android.os.Build;
+import android.os.SystemClock;
+import android.speech.SpeechRecognizer;
 import android.util.Log;
 
+import androidx.core.content.ContextCompat;
+
+import app.lovable.core.EncodedAudioRing;
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.RecognizerGate;
+import app.lovable.core.SettingsStore;
+import app.lovable.core.TranscriptBuffer;
+import app.lovable.core.TriggerDispatcher;
+
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
 @CapacitorPlugin(name = "WakeWord")
 public class WakeWordPlugin extends Plugin {
     private static final String TAG = "WakeWordPlugin";
     private BroadcastReceiver wakeWordReceiver;
+    private final TriggerDispatcher.Sink triggerSink = this::deliverTrigger;
 
     @Override
     public void load() {
         super.load();
         setupBroadcastReceiver();
+        SosTriggers.get().addSink(triggerSink);
+    }
+
+    private boolean deliverTrigger(TriggerDispatcher.Trigger trigger) {
+        if (trigger.source != TriggerDispatcher.Source.VOICE) return false;
+        JSObject data = new JSObject();
+        data.put("wakeWord", Settings.get(getContext()).get().wakeWord);
+        data.put("action", "trigger");
+        data.put("triggerId", String.valueOf(trigger.id));
+        notifyListeners("wakeWordDetected", data, true);
+        return true;
     }
 
     private void setupBroadcastReceiver() {
         wakeWordReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                if (WakeWordService.ACTION_WAKE_WORD_DETECTED.equals(intent.getAction())) {
-                    String wakeWord = intent.getStringExtra("wake_word");
-                    String action = intent.getStringExtra("action");
-                    
+                if (WakeWordDetector.ACTION_TEMPLATE_ENROLLED.equals(intent.getAction())) {
+                    JSObject data = new JSObject();
+                    data.put("templateCount", intent.getIntExtra("template_count", 0));
+                    notifyListeners("wakeWordEnrolled", data);
+                } else if (WakeWordDetector.ACTION_RECOGNIZER_STATE.equals(intent.getAction())) {
                     JSObject data = new JSObject();
-                    data.put("wakeWord", wakeWord != null ? wakeWord : "resqme");
-                    data.put("action", action != null ? action : "start_recognition");
-                    
-                    notifyListeners("wakeWordDetected", data);
-                    Log.d(TAG, "Wake word event broadcast to JS: " + wakeWord);
+                    data.put("from", intent.getStringExtra("from"));
+                    data.put("to", intent.getStringExtra("to"));
+                    data.put("reason", intent.getStringExtra("reason"));
+                    notifyListeners("recognizerStateChanged", data);
                 }
             }
         };
 
-        IntentFilter filter = new IntentFilter(WakeWordService.ACTION_WAKE_WORD_DETECTED);
+        IntentFilter filter = new IntentFilter(WakeWordDetector.ACTION_TEMPLATE_ENROLLED);
+        filter.addAction(WakeWordDetector.ACTION_RECOGNIZER_STATE);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             getContext().registerReceiver(wakeWordReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
         } else {
@@ -53,25 +81,14 @@ public class WakeWordPlugin extends Plugin {
 
     @PluginMethod
     public void startService(PluginCall call) {
-        String wakeWord = call.getString("wakeWord", WakeWordService.DEFAULT_WAKE_WORD);
+        String wakeWord = call.getString("wakeWord", WakeWordDetector.DEFAULT_WAKE_WORD);
         
         try {
-            Intent serviceIntent = new Intent(getContext(), WakeWordService.class);
-            serviceIntent.putExtra("wake_word", wakeWord);
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                getContext().startForegroundService(serviceIntent);
-            } else {
-                getContext().startService(serviceIntent);
-            }
-            
-            // Save setting
-            SharedPreferences prefs = getContext().getSharedPreferences(
-                WakeWordService.PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit()
-                .putString(WakeWordService.PREF_WAKE_WORD, wakeWord)
-                .putBoolean(WakeWordService.PREF_WAKE_WORD_ENABLED, true)
-                .apply();
+            // Save setting first: the detector reads the wake word from it when it starts.
+            Settings.get(getContext()).edit().wakeWord(wakeWord).wakeWordEnabled(true).apply();
+
+            Supervisor.setExpected(getContext(), Supervisor.WAKE_WORD, true);
+            ProtectionService.setDetector(getContext(), WakeWordDetector.NAME, true);
             
             Log.d(TAG, "WakeWord service started with word: " + wakeWord);
             call.resolve();
@@ -84,13 +101,11 @@ public class WakeWordPlugin extends Plugin {
     @PluginMethod
     public void stopService(PluginCall call) {
         try {
-            Intent serviceIntent = new Intent(getContext(), WakeWordService.class);
-            getContext().stopService(serviceIntent);
+            Supervisor.setExpected(getContext(), Supervisor.WAKE_WORD, false);
+            ProtectionService.setDetector(getContext(), WakeWordDetector.NAME, false);
             
             // Save setting
-            SharedPreferences prefs = getContext().getSharedPreferences(
-                WakeWordService.PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putBoolean(WakeWordService.PREF_WAKE_WORD_ENABLED, false).apply();
+            Settings.get(getContext()).edit().wakeWordEnabled(false).apply();
             
             Log.d(TAG, "WakeWord service stopped");
             call.resolve();
@@ -109,15 +124,8 @@ public class WakeWordPlugin extends Plugin {
         }
 
         try {
-            Intent updateIntent = new Intent(getContext(), WakeWordService.class);
-            updateIntent.setAction("UPDATE_WAKE_WORD");
-            updateIntent.putExtra("wake_word", wakeWord);
-            getContext().startService(updateIntent);
-            
-            // Save setting
-            SharedPreferences prefs = getContext().getSharedPreferences(
-                WakeWordService.PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putString(WakeWordService.PREF_WAKE_WORD, wakeWord).apply();
+            // A running detector hears about it from the settings store.
+            Settings.get(getContext()).edit().wakeWord(wakeWord).apply();
             
             Log.d(TAG, "Wake word updated to: " + wakeWord);
             call.resolve();
@@ -127,35 +135,246 @@ public class WakeWordPlugin extends Plugin {
         }
     }
 
+    @PluginMethod
+    public void setEngine(PluginCall call) {
+        String engine = call.getString("engine");
+        if (!WakeWordDetector.ENGINE_RECOGNIZER.equals(engine)
+                && !WakeWordDetector.ENGINE_SPOTTER.equals(engine)) {
+            call.reject("Engine must be \"" + WakeWordDetector.ENGINE_RECOGNIZER
+                    + "\" or \"" + WakeWordDetector.ENGINE_SPOTTER + "\"");
+            return;
+        }
+
+        try {
+            Settings.get(getContext()).edit().wakeEngine(engine).apply();
+
+            Log.d(TAG, "Wake word engine set to: " + engine);
+            call.resolve();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to set wake word engine", e);
+            call.reject("Failed to set engine: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void enrollWakeWord(PluginCall call) {
+        try {
+            ProtectionService.command(getContext(), WakeWordDetector.NAME, new Intent("ENROLL_TEMPLATE"));
+            Log.d(TAG, "Wake phrase enrollment requested");
+            call.resolve();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to start enrollment", e);
+            call.reject("Failed to start enrollment: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void clearEnrollment(PluginCall call) {
+        KeywordSpotterEngine.clearTemplates(getContext());
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void setVoiceGate(PluginCall call) {
+        SettingsStore.Editor editor = Settings.get(getContext()).edit();
+
+        Boolean enabled = call.getBoolean("enabled");
+        if (enabled != null) editor.voiceGateEnabled(enabled);
+        Float onDb = call.getFloat("onThresholdDb");
+        if (onDb != null) editor.voiceGateOnDb(onDb);
+        Float offDb = call.getFloat("offThresholdDb");
+        if (offDb != null) editor.voiceGateOffDb(offDb);
+        Integer hangoverMs = call.getInt("hangoverMs");
+        if (hangoverMs != null) {
+            if (hangoverMs < 0) {
+                call.reject("hangoverMs must not be negative");
+                return;
+            }
+            editor.voiceGateHangoverMs(hangoverMs);
+        }
+        // A running detector hears about it from the settings store.
+        editor.apply();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getVoiceGateStats(PluginCall call) {
+        SettingsStore.Snapshot settings = Settings.get(getContext()).get();
+
+        JSObject result = new JSObject();
+        result.put("enabled", settings.voiceGateEnabled);
+        result.put("onThresholdDb", settings.voiceGateOnDb);
+        result.put("offThresholdDb", settings.voiceGateOffDb);
+        result.put("hangoverMs", settings.voiceGateHangoverMs);
+
+        RecognizerGate gate = WakeWordDetector.getRecognizerGate();
+        long now = SystemClock.elapsedRealtime();
+        result.put("open", gate != null && gate.isOpen());
+        result.put("speechOnsets", gate != null ? gate.getOnsets() : 0);
+        result.put("sessionsStarted", gate != null ? gate.getSessionsStarted() : 0);
+        result.put("sessionsAvoided", gate != null ? gate.getSessionsAvoided(now) : 0);
+        result.put("gatedMs", gate != null ? gate.getClosedMs(now) : 0);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getPreRollStats(PluginCall call) {
+        EncodedAudioRing ring = PreRoll.getRing();
+        LatencyHistogram cpu = PreRoll.getEncodeCpu();
+        File recording = PreRoll.getRecording();
+
+        JSObject result = new JSObject();
+        result.put("buffering", PreRoll.isBuffering());
+        result.put("windowMs", PreRoll.WINDOW_MS);
+        result.put("bufferedMs", ring != null ? ring.bufferedUs() / 1_000 : 0);
+        result.put("bufferedBytes", ring != null ? ring.bytesUsed() : 0);
+        result.put("capacityBytes", ring != null ? ring.capacityBytes() : 0);
+        result.put("framesEncoded", PreRoll.getFramesEncoded());
+        result.put("framesEvicted", ring != null ? ring.getEvicted() : 0);
+        result.put("samplesDropped", PreRoll.getSamplesDropped());
+        result.put("encodeCpuPercent", PreRoll.getEncodeCpuPercent());
+        result.put("encodeCpuP50Us", cpu.percentileMicros(50));
+        result.put("encodeCpuP99Us", cpu.percentileMicros(99));
+        result.put("recording", recording != null ? recording.getAbsolutePath() : null);
+        result.put("recordedBytes", PreRoll.getRecordedBytes());
+        result.put("skippedFrames", PreRoll.getSkippedFrames());
+        call.resolve(result);
+    }
+
+    /**
+     * Starts the SOS recording from the pre-roll for an SOS raised in the app.
+     * A background trigger has already started one, which keeps going.
+     * Resolves native=false when nothing is buffered, so the caller records
+     * with its own microphone; otherwise the ring holds the microphone.
+     */
+    @PluginMethod
+    public void startPreRollRecording(PluginCall call) {
+        boolean buffering = PreRoll.isBuffering();
+        if (buffering) PreRoll.onTrigger(getContext(), System.currentTimeMillis());
+        JSObject result = new JSObject();
+        result.put("native", buffering);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void stopPreRollRecording(PluginCall call) {
+        File file;
+        try {
+            file = PreRoll.stopRecording().get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            call.reject("Failed to stop recording: " + e.getMessage());
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("path", file != null ? file.getAbsolutePath() : null);
+        call.resolve(result);
+    }
+
+    /**
+     * Moves SOS transcription into the service, which keeps the microphone
+     * it already holds. Resolves native=false if the device cannot do it,
+     * so the caller can fall back to its own recognizer.
+     */
+    @PluginMethod
+    public void startSosTranscription(PluginCall call) {
+        JSObject result = new JSObject();
+        if (ContextCompat.checkSelfPermission(getContext(), Manifest.permission.RECORD_AUDIO)
+                != PackageManager.PERMISSION_GRANTED || !SpeechRecognizer.isRecognitionAvailable(getContext())) {
+            result.put("native", false);
+            call.resolve(result);
+            return;
+        }
+        try {
+            ProtectionService.command(getContext(), WakeWordDetector.NAME,
+                    new Intent(WakeWordDetector.ACTION_SOS_TRANSCRIBE_START));
+            result.put("native", true);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to start SOS transcription", e);
+            result.put("native", false);
+        }
+        call.resolve(result);
+    }
+
+    /** Ends SOS transcription and resolves with the whole transcript. */
+    @PluginMethod
+    public void stopSosTranscription(PluginCall call) {
+        // Commit the unfinished utterance now rather than when the service gets to the intent.
+        WakeWordDetector.finishSosTranscript();
+        if (WakeWordDetector.isSosTranscribing()) {
+            try {
+                ProtectionService.command(getContext(), WakeWordDetector.NAME,
+                        new Intent(WakeWordDetector.ACTION_SOS_TRANSCRIBE_STOP));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to stop SOS transcription", e);
+            }
+        }
+        TranscriptBuffer transcript = WakeWordDetector.getSosTranscript();
+        JSObject result = new JSObject();
+        result.put("text", transcript != null ? transcript.text() : "");
+        result.put("segments", transcript != null ? transcript.size() : 0);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getSosTranscript(PluginCall call) {
+        TranscriptBuffer transcript = WakeWordDetector.getSosTranscript();
+        JSObject result = new JSObject();
+        result.put("active", WakeWordDetector.isSosTranscribing());
+        if (transcript != null) {
+            LatencyHistogram latency = transcript.getLatency();
+            result.put("text", transcript.text());
+            result.put("pending", transcript.pending());
+            result.put("nextSeq", transcript.getNextSeq());
+            result.put("acked", transcript.getAcked());
+            result.put("revisions", transcript.getRevisions());
+            result.put("droppedSegments", transcript.getDroppedSegments());
+            result.put("latencyP50Ms", latency.percentileMicros(50) / 1_000.0);
+            result.put("latencyP99Ms", latency.percentileMicros(99) / 1_000.0);
+        } else {
+            result.put("text", "");
+        }
+        call.resolve(result);
+    }
+
+    /** JS has applied segments up to seq; the next push starts after it. */
+    @PluginMethod
+    public void ackSosTranscript(PluginCall call) {
+        Long seq = call.getLong("seq");
+        if (seq == null) {
+            call.reject("seq is required");
+            return;
+        }
+        TranscriptBuffer transcript = WakeWordDetector.getSosTranscript();
+        boolean advanced = transcript != null && transcript.ack(seq);
+        if (advanced) WakeWordDetector.pushTranscript();
+        JSObject result = new JSObject();
+        result.put("acked", transcript != null ? transcript.getAcked() : 0);
+        call.resolve(result);
+    }
+
     @PluginMethod
     public void getSettings(PluginCall call) {
-        SharedPreferences prefs = getContext().getSharedPreferences(
-            WakeWordService.PREFS_NAME, Context.MODE_PRIVATE);
-        
-        String wakeWord = prefs.getString(WakeWordService.PREF_WAKE_WORD, 
-            WakeWordService.DEFAULT_WAKE_WORD);
-        boolean enabled = prefs.getBoolean(WakeWordService.PREF_WAKE_WORD_ENABLED, false);
+        SettingsStore.Snapshot settings = Settings.get(getContext()).get();
         
         JSObject result = new JSObject();
-        result.put("wakeWord", wakeWord);
-        result.put("enabled", enabled);
+        result.put("wakeWord", settings.wakeWord);
+        result.put("enabled", settings.wakeWordEnabled);
+        result.put("engine", settings.wakeEngine);
+        result.put("enrolledTemplates", KeywordSpotterEngine.templateCount(getContext()));
+        result.put("recognizerState", WakeWordDetector.getRecognizerState().name());
         
         call.resolve(result);
     }
 
     @PluginMethod
     public void isServiceRunning(PluginCall call) {
-        SharedPreferences prefs = getContext().getSharedPreferences(
-            WakeWordService.PREFS_NAME, Context.MODE_PRIVATE);
-        boolean running = prefs.getBoolean(WakeWordService.PREF_WAKE_WORD_ENABLED, false);
-        
-        JSObject result = new JSObject();
-        result.put("running", running);
-        call.resolve(result);
+        Supervisor.start(getContext());
+        call.resolve(Supervisor.toJs(Supervisor.status(Supervisor.WAKE_WORD)));
     }
 
     @Override
     protected void handleOnDestroy() {
+        SosTriggers.get().removeSink(triggerSink);
         if (wakeWordReceiver != null) {
             try {
                 getContext().unregisterReceiver(wakeWordReceiver);
@@ -0,0 +1,55 @@
+package app.lovable.core;
+
+/**
+ * ADTS framing for raw AAC-LC frames. MediaCodec hands out bare access
+ * units; prefixing each with a 7-byte ADTS header makes the recording a
+ * plain .aac stream that any player can open, and lets a file cut off
+ * mid-write (or concatenated from pieces) still decode up to the last
+ * whole frame.
+ */
+public final class Adts {
+    public static final int HEADER_BYTES = 7;
+    /** Largest frame the 13-bit length field can describe, header included. */
+    public static final int MAX_FRAME_BYTES = (1 << 13) - 1;
+    /** Samples per AAC-LC frame. */
+    public static final int SAMPLES_PER_FRAME = 1024;
+
+    private static final int[] SAMPLE_RATES = {
+            96_000, 88_200, 64_000, 48_000, 44_100, 32_000, 24_000, 22_050, 16_000, 12_000, 11_025, 8_000, 7_350,
+    };
+    private static final int PROFILE_AAC_LC = 2;
+
+    private Adts() {}
+
+    public static int sampleRateIndex(int sampleRate) {
+        for (int i = 0; i < SAMPLE_RATES.length; i++) {
+            if (SAMPLE_RATES[i] == sampleRate) return i;
+        }
+        throw new IllegalArgumentException("no ADTS index for " + sampleRate + " Hz");
+    }
+
+    /** Writes the header for a frame carrying {@code payloadBytes} of AAC-LC data into {@code dst}. */
+    public static void writeHeader(byte[] dst, int off, int payloadBytes, int sampleRate, int channels) {
+        int frameBytes = payloadBytes + HEADER_BYTES;
+        if (payloadBytes < 0 || frameBytes > MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("frame of " + payloadBytes + " bytes does not fit ADTS");
+        }
+        if (channels < 1 || channels > 7) throw new IllegalArgumentException("channels must be 1-7");
+        int rate = sampleRateIndex(sampleRate);
+        dst[off] = (byte) 0xFF;
+        // MPEG-4, layer 0, no CRC.
+        dst[off + 1] = (byte) 0xF1;
+        dst[off + 2] = (byte) (((PROFILE_AAC_LC - 1) << 6) | (rate << 2) | (channels >> 2));
+        dst[off + 3] = (byte) (((channels & 3) << 6) | (frameBytes >> 11));
+        dst[off + 4] = (byte) ((frameBytes >> 3) & 0xFF);
+        // Buffer fullness 0x7FF (variable bit rate), one raw data block.
+        dst[off + 5] = (byte) (((frameBytes & 7) << 5) | 0x1F);
+        dst[off + 6] = (byte) 0xFC;
+    }
+
+    /** Total frame length (header included) read from a header at {@code off}, or -1 if there is no sync word. */
+    public static int frameLength(byte[] src, int off) {
+        if ((src[off] & 0xFF) != 0xFF || (src[off + 1] & 0xF0) != 0xF0) return -1;
+        return ((src[off + 3] & 0x03) << 11) | ((src[off + 4] & 0xFF) << 3) | ((src[off + 5] & 0xE0) >> 5);
+    }
+}
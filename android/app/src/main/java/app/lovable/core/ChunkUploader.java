@@ -0,0 +1,307 @@
+package app.lovable.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads {@link ChunkedUpload}s over a fixed number of parallel streams.
+ *
+ * Each stream is a thread with its own chunk buffer and digest. It claims
+ * the next unsent chunk of the oldest upload that has one, reads it from
+ * the file with a positional {@link FileChannel} read, hashes it and hands
+ * it to the {@link Transport}. Files are never loaded whole. Once every
+ * chunk of an upload is acknowledged one stream asks the server to
+ * assemble it.
+ *
+ * A failed chunk goes back to its upload, which then waits a full-jitter
+ * exponential backoff before any stream takes work from it again. After
+ * {@link #MAX_FAILURES} failures in a row the upload is reported failed;
+ * its acknowledged chunks stay acknowledged, so submitting it again later
+ * resumes where it stopped.
+ */
+public final class ChunkUploader {
+    public interface Transport {
+        /** Sends one chunk; returns once the server has stored it, throws otherwise. */
+        void putChunk(ChunkedUpload upload, int chunk, byte[] data, int length, String sha256) throws IOException;
+
+        /** Asks the server to assemble the upload from its chunks. */
+        void complete(ChunkedUpload upload) throws IOException;
+    }
+
+    /** Called on the stream threads. */
+    public interface Listener {
+        void onChunkAcked(ChunkedUpload upload, int chunk);
+
+        /** {@code error} is null when the upload finished. */
+        void onFinished(ChunkedUpload upload, String error);
+    }
+
+    static final int MAX_FAILURES = 5;
+    private static final long RETRY_MAX_MS = 60_000;
+
+    private static final class Run {
+        final ChunkedUpload upload;
+        final FileChannel channel;
+        int failures;
+        long notBeforeMs;
+        boolean completing;
+
+        Run(ChunkedUpload upload, FileChannel channel) {
+            this.upload = upload;
+            this.channel = channel;
+        }
+    }
+
+    private final Clock clock;
+    private final Transport transport;
+    private final Listener listener;
+    private final long retryBaseMs;
+    private final Random random;
+    private final ExecutorService streams;
+    private final LinkedHashMap<String, Run> runs = new LinkedHashMap<>();
+    private final LatencyHistogram chunkTime = new LatencyHistogram();
+    private boolean shutdown;
+
+    private long chunksSent;
+    private long bytesSent;
+    private long chunkFailures;
+    private long uploadsFinished;
+    private long uploadsFailed;
+
+    public ChunkUploader(Clock clock, Transport transport, Listener listener, int streamCount,
+                         long retryBaseMs, Random random) {
+        if (streamCount < 1) throw new IllegalArgumentException("need at least one stream");
+        this.clock = clock;
+        this.transport = transport;
+        this.listener = listener;
+        this.retryBaseMs = retryBaseMs;
+        this.random = random;
+        int[] n = {0};
+        streams = Executors.newFixedThreadPool(streamCount, r -> new Thread(r, "ChunkUploader-" + n[0]++));
+        for (int i = 0; i < streamCount; i++) streams.execute(this::streamLoop);
+    }
+
+    /**
+     * Starts (or resumes) an upload. Returns false if one with the same id
+     * is already running. A missing file fails the upload right away.
+     */
+    public boolean submit(ChunkedUpload upload) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(upload.file.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            synchronized (this) {
+                uploadsFailed++;
+            }
+            listener.onFinished(upload, "cannot open " + upload.file.getName() + ": " + e.getMessage());
+            return true;
+        }
+        synchronized (this) {
+            if (shutdown || runs.containsKey(upload.id)) {
+                closeQuietly(channel);
+                return false;
+            }
+            runs.put(upload.id, new Run(upload, channel));
+            notifyAll();
+        }
+        return true;
+    }
+
+    /** Stops scheduling work for an upload; chunks already being sent finish. Returns false if unknown. */
+    public synchronized boolean cancel(String id) {
+        Run run = runs.remove(id);
+        if (run == null) return false;
+        closeQuietly(run.channel);
+        return true;
+    }
+
+    public synchronized List<ChunkedUpload> active() {
+        List<ChunkedUpload> out = new ArrayList<>();
+        for (Run r : runs.values()) out.add(r.upload);
+        return out;
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        for (Run r : runs.values()) closeQuietly(r.channel);
+        runs.clear();
+        notifyAll();
+        streams.shutdown();
+    }
+
+    /** Waits for the stream threads to exit after {@link #shutdown()}. */
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        return streams.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void streamLoop() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[0];
+        while (true) {
+            Run run;
+            int chunk;
+            synchronized (this) {
+                long waitMs;
+                while (true) {
+                    if (shutdown) return;
+                    waitMs = Long.MAX_VALUE;
+                    run = null;
+                    chunk = -1;
+                    long now = clock.nowMs();
+                    for (Run r : runs.values()) {
+                        if (r.notBeforeMs > now) {
+                            waitMs = Math.min(waitMs, r.notBeforeMs - now);
+                            continue;
+                        }
+                        chunk = r.upload.claim();
+                        if (chunk >= 0 || (!r.completing && r.upload.isComplete())) {
+                            run = r;
+                            if (chunk < 0) r.completing = true;
+                            break;
+                        }
+                    }
+                    if (run != null) break;
+                    try {
+                        if (waitMs == Long.MAX_VALUE) wait(); else wait(waitMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            if (chunk >= 0) {
+                int length = run.upload.lengthOf(chunk);
+                if (buffer.length < length) buffer = new byte[length];
+                sendChunk(run, chunk, buffer, length, digest);
+            } else {
+                finish(run);
+            }
+        }
+    }
+
+    private void sendChunk(Run run, int chunk, byte[] buffer, int length, MessageDigest digest) {
+        long start = clock.nowNanos();
+        try {
+            ByteBuffer dst = ByteBuffer.wrap(buffer, 0, length);
+            long position = run.upload.offsetOf(chunk);
+            while (dst.hasRemaining()) {
+                if (run.channel.read(dst, position + dst.position()) < 0) {
+                    throw new IOException("file shorter than expected");
+                }
+            }
+            digest.reset();
+            digest.update(buffer, 0, length);
+            transport.putChunk(run.upload, chunk, buffer, length, hex(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            run.upload.release(chunk);
+            onFailure(run, e);
+            return;
+        }
+        chunkTime.recordNanos(clock.nowNanos() - start);
+        // Still claimed while the listener runs, so no stream completes the upload under it.
+        if (run.upload.ack(chunk)) listener.onChunkAcked(run.upload, chunk);
+        run.upload.release(chunk);
+        synchronized (this) {
+            chunksSent++;
+            bytesSent += length;
+            run.failures = 0;
+            // The last ack may make the upload ready to assemble.
+            notifyAll();
+        }
+    }
+
+    private void finish(Run run) {
+        try {
+            transport.complete(run.upload);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                run.completing = false;
+            }
+            onFailure(run, e);
+            return;
+        }
+        synchronized (this) {
+            if (runs.remove(run.upload.id) == null) return;
+            uploadsFinished++;
+            closeQuietly(run.channel);
+        }
+        listener.onFinished(run.upload, null);
+    }
+
+    private void onFailure(Run run, Exception e) {
+        boolean failed;
+        synchronized (this) {
+            chunkFailures++;
+            run.failures++;
+            failed = run.failures >= MAX_FAILURES && runs.get(run.upload.id) == run;
+            if (failed) {
+                runs.remove(run.upload.id);
+                uploadsFailed++;
+                closeQuietly(run.channel);
+            } else {
+                long cap = Math.min(RETRY_MAX_MS, retryBaseMs << Math.min(run.failures - 1, 20));
+                run.notBeforeMs = clock.nowMs() + (long) (random.nextDouble() * cap);
+                notifyAll();
+            }
+        }
+        if (failed) listener.onFinished(run.upload, e.getMessage() != null ? e.getMessage() : e.toString());
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static String hex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            out[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    /** Time to read, hash and send one chunk, successful sends only. */
+    public LatencyHistogram getChunkTime() {
+        return chunkTime;
+    }
+
+    public synchronized long getChunksSent() {
+        return chunksSent;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized long getChunkFailures() {
+        return chunkFailures;
+    }
+
+    public synchronized long getUploadsFinished() {
+        return uploadsFinished;
+    }
+
+    public synchronized long getUploadsFailed() {
+        return uploadsFailed;
+    }
+}
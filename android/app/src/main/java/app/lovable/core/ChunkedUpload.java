@@ -0,0 +1,139 @@
+package app.lovable.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * One file being uploaded in fixed-size chunks, and which of them the
+ * server has acknowledged.
+ *
+ * Chunk {@code i} covers bytes {@code [i * chunkSize, min(size, (i + 1) * chunkSize))};
+ * the last one may be short. Streams {@link #claim()} a chunk, {@link #ack}
+ * it once the server has it and {@link #release} it when done, so parallel
+ * streams never send the same chunk at once and the upload is only
+ * complete when no stream is still handling one. The acknowledged set is
+ * what {@link #writeTo} persists; a restarted process resumes by sending
+ * only the chunks missing from it.
+ *
+ * Thread-safe.
+ */
+public final class ChunkedUpload {
+    private static final int FILE_VERSION = 1;
+
+    public final String id;
+    public final File file;
+    public final long size;
+    public final int chunkSize;
+    /** Passed through to the server with the final request (alert id, mime type, ...). */
+    public final String metadata;
+    private final int chunks;
+    private final BitSet acked;
+    private final BitSet inFlight = new BitSet();
+    private long ackedBytes;
+
+    public ChunkedUpload(String id, File file, long size, int chunkSize, String metadata) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunk size must be positive");
+        if (size < 0) throw new IllegalArgumentException("size must not be negative");
+        long n = (size + chunkSize - 1) / chunkSize;
+        if (n > Integer.MAX_VALUE) throw new IllegalArgumentException("too many chunks");
+        this.id = id;
+        this.file = file;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.metadata = metadata;
+        this.chunks = (int) n;
+        this.acked = new BitSet(chunks);
+    }
+
+    public int chunkCount() {
+        return chunks;
+    }
+
+    public long offsetOf(int chunk) {
+        return (long) chunk * chunkSize;
+    }
+
+    public int lengthOf(int chunk) {
+        return (int) Math.min(chunkSize, size - offsetOf(chunk));
+    }
+
+    /** Lowest chunk that is neither acknowledged nor being sent, marked as being sent; -1 if none. */
+    public synchronized int claim() {
+        int i = acked.nextClearBit(0);
+        while (i < chunks && inFlight.get(i)) i = acked.nextClearBit(i + 1);
+        if (i >= chunks) return -1;
+        inFlight.set(i);
+        return i;
+    }
+
+    /** The server has the chunk; returns false if it was already acknowledged. */
+    public synchronized boolean ack(int chunk) {
+        if (acked.get(chunk)) return false;
+        acked.set(chunk);
+        ackedBytes += lengthOf(chunk);
+        return true;
+    }
+
+    /** Ends a claim; an unacknowledged chunk becomes available again. */
+    public synchronized void release(int chunk) {
+        inFlight.clear(chunk);
+    }
+
+    public synchronized boolean isAcked(int chunk) {
+        return acked.get(chunk);
+    }
+
+    public synchronized boolean isComplete() {
+        return acked.cardinality() == chunks && inFlight.isEmpty();
+    }
+
+    public synchronized long getAckedBytes() {
+        return ackedBytes;
+    }
+
+    /** End of the acknowledged prefix: every byte before it is on the server. */
+    public synchronized long getAckedOffset() {
+        return Math.min(size, offsetOf(acked.nextClearBit(0)));
+    }
+
+    public synchronized int getAckedChunks() {
+        return acked.cardinality();
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_VERSION);
+        out.writeUTF(id);
+        out.writeUTF(file.getPath());
+        out.writeLong(size);
+        out.writeInt(chunkSize);
+        out.writeUTF(metadata);
+        byte[] bits = acked.toByteArray();
+        out.writeInt(bits.length);
+        out.write(bits);
+    }
+
+    /** Restores what {@link #writeTo} wrote; nothing is in flight afterwards. */
+    public static ChunkedUpload readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) throw new IOException("unknown upload state version " + version);
+        String id = in.readUTF();
+        File file = new File(in.readUTF());
+        long size = in.readLong();
+        int chunkSize = in.readInt();
+        String metadata = in.readUTF();
+        byte[] bits = new byte[in.readInt()];
+        in.readFully(bits);
+        ChunkedUpload u;
+        try {
+            u = new ChunkedUpload(id, file, size, chunkSize, metadata);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("corrupt upload state", e);
+        }
+        BitSet saved = BitSet.valueOf(bits);
+        for (int i = saved.nextSetBit(0); i >= 0 && i < u.chunks; i = saved.nextSetBit(i + 1)) u.ack(i);
+        return u;
+    }
+}
@@ -0,0 +1,27 @@
+package app.lovable.core;
+
+/**
+ * Monotonic time source. Policies in this package take a Clock instead of
+ * reading the system time so tests can drive them with a virtual one.
+ */
+public interface Clock {
+    long nowMs();
+
+    /** Nanosecond reading for latency measurements; defaults to millisecond resolution. */
+    default long nowNanos() {
+        return nowMs() * 1_000_000L;
+    }
+
+    /** Monotonic JVM clock; on Android the services pass SystemClock::elapsedRealtime instead. */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long nowMs() {
+            return System.nanoTime() / 1_000_000L;
+        }
+
+        @Override
+        public long nowNanos() {
+            return System.nanoTime();
+        }
+    };
+}
@@ -0,0 +1,192 @@
+package app.lovable.core;
+
+/**
+ * Bounded ring of encoded audio frames for the pre-roll buffer.
+ *
+ * Frame payloads live back to back in one byte arena allocated up front;
+ * a parallel index ring holds each frame's offset, length and timestamp.
+ * A frame never straddles the end of the arena: if it does not fit in the
+ * tail it goes to the start and the tail is left unused. Writing evicts
+ * the oldest frames once they fall out of the time window, the index is
+ * full or their bytes are needed, so memory never grows past what the
+ * constructor allocated.
+ *
+ * Like {@link FixRingBuffer}, every frame gets a sequence number and a
+ * reader copies out whatever is still retained since the last one it saw.
+ *
+ * Thread-safe: the audio thread writes while the recorder thread copies,
+ * and both only hold the lock for array copies.
+ */
+public final class EncodedAudioRing {
+    private final byte[] arena;
+    private final int[] offset;
+    private final int[] length;
+    private final long[] ptsUs;
+    private final long windowUs;
+
+    /** Frames ever written; the next frame gets this sequence number. */
+    private long written;
+    private long oldest;
+    /** Arena position right after the newest frame. */
+    private int head;
+    private int bytesUsed;
+    private long evicted;
+    private long rejected;
+
+    /** A run of consecutive frames copied out of the ring, packed into {@code data}. Reusable. */
+    public static final class Batch {
+        public byte[] data = new byte[0];
+        public int[] offset = new int[0];
+        public int[] length = new int[0];
+        public long[] ptsUs = new long[0];
+        public int count;
+        public int bytes;
+        /** Sequence number of the first frame in the batch. */
+        public long firstSeq;
+        /** Frames the reader asked for that had already been evicted. */
+        public long skipped;
+
+        void ensure(int frames, int totalBytes) {
+            if (offset.length < frames) {
+                offset = new int[frames];
+                length = new int[frames];
+                ptsUs = new long[frames];
+            }
+            if (data.length < totalBytes) data = new byte[totalBytes];
+        }
+
+        public long nextSeq() {
+            return firstSeq + count;
+        }
+    }
+
+    /**
+     * @param capacityBytes arena size; bounds the encoded bytes held
+     * @param maxFrames     index size; bounds the number of frames held
+     * @param windowUs      frames older than this behind the newest are dropped
+     */
+    public EncodedAudioRing(int capacityBytes, int maxFrames, long windowUs) {
+        if (capacityBytes <= 0 || maxFrames <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (windowUs <= 0) throw new IllegalArgumentException("window must be positive");
+        arena = new byte[capacityBytes];
+        offset = new int[maxFrames];
+        length = new int[maxFrames];
+        ptsUs = new long[maxFrames];
+        this.windowUs = windowUs;
+    }
+
+    /**
+     * Appends one frame, evicting old ones as needed. Returns false (and
+     * keeps everything already held) if the frame is larger than the arena.
+     */
+    public synchronized boolean write(byte[] src, int off, int len, long pts) {
+        if (len > arena.length) {
+            rejected++;
+            return false;
+        }
+        while (size() > 0 && (ptsUs[index(oldest)] < pts - windowUs || size() == offset.length)) evictOldest();
+        int pos;
+        while ((pos = placeFor(len)) < 0) evictOldest();
+
+        int i = index(written);
+        System.arraycopy(src, off, arena, pos, len);
+        offset[i] = pos;
+        length[i] = len;
+        ptsUs[i] = pts;
+        head = pos + len;
+        bytesUsed += len;
+        written++;
+        return true;
+    }
+
+    /** Arena position where a frame of {@code len} bytes fits without touching retained frames, or -1. */
+    private int placeFor(int len) {
+        if (size() == 0) return 0;
+        int tail = offset[index(oldest)];
+        if (head > tail) {
+            if (arena.length - head >= len) return head;
+            return tail >= len ? 0 : -1;
+        }
+        return tail - head >= len ? head : -1;
+    }
+
+    private void evictOldest() {
+        bytesUsed -= length[index(oldest)];
+        oldest++;
+        evicted++;
+        if (size() == 0) head = 0;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % offset.length);
+    }
+
+    /** Copies frames from {@code fromSeq} on (or the oldest retained one) into {@code out}. */
+    public synchronized void copySince(long fromSeq, Batch out) {
+        long start = Math.max(fromSeq, oldest);
+        int n = (int) Math.max(0, written - start);
+        int total = 0;
+        for (long s = start; s < written; s++) total += length[index(s)];
+        out.ensure(n, total);
+        out.firstSeq = start;
+        out.count = n;
+        out.bytes = total;
+        out.skipped = Math.max(0, start - fromSeq);
+        int pos = 0;
+        for (int k = 0; k < n; k++) {
+            int i = index(start + k);
+            System.arraycopy(arena, offset[i], out.data, pos, length[i]);
+            out.offset[k] = pos;
+            out.length[k] = length[i];
+            out.ptsUs[k] = ptsUs[i];
+            pos += length[i];
+        }
+    }
+
+    /** Drops every frame; sequence numbers keep counting. */
+    public synchronized void clear() {
+        oldest = written;
+        head = 0;
+        bytesUsed = 0;
+    }
+
+    public synchronized int size() {
+        return (int) (written - oldest);
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    public synchronized long oldestSeq() {
+        return oldest;
+    }
+
+    public int capacityBytes() {
+        return arena.length;
+    }
+
+    /** Encoded bytes currently held. */
+    public synchronized int bytesUsed() {
+        return bytesUsed;
+    }
+
+    /** Time between the oldest and newest frame held. */
+    public synchronized long bufferedUs() {
+        return size() == 0 ? 0 : ptsUs[index(written - 1)] - ptsUs[index(oldest)];
+    }
+
+    public long windowUs() {
+        return windowUs;
+    }
+
+    /** Frames dropped to make room or because they aged out of the window. */
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    /** Frames too large for the arena. */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,288 @@
+package app.lovable.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches high-rate native events into frames so the JS bridge sees one
+ * message per flush instead of one per event.
+ *
+ * Events come in three kinds:
+ * <ul>
+ *   <li>{@link Kind#GAUGE}: only the latest value per type matters (RMS
+ *       level, partial transcript); a newer one replaces the pending one.</li>
+ *   <li>{@link Kind#STREAM}: every event matters, in order, but under
+ *       backpressure the oldest are dropped once {@code maxPending} wait.</li>
+ *   <li>{@link Kind#CRITICAL}: never coalesced or dropped (SOS triggers); a
+ *       critical event flushes at once and waits for a sink if there is none.</li>
+ * </ul>
+ *
+ * A flush is scheduled at most every {@code intervalMs}, or at once when
+ * {@code maxBatch} events are waiting. A frame carries every critical event
+ * plus at most {@code maxBatch} others; the rest wait for the next interval,
+ * which is how a slow consumer slows the producer side down to a fixed rate.
+ * Events in a frame are in publish order (a gauge takes the position of its
+ * latest update).
+ *
+ * Thread-safe; the sink is called outside the lock, from the scheduler.
+ */
+public final class EventCoalescer<T> {
+    public enum Kind {
+        GAUGE, STREAM, CRITICAL
+    }
+
+    public static final class Event<T> {
+        public final String type;
+        public final Kind kind;
+        public final T payload;
+        /** Publish time on the coalescer's clock. */
+        public final long timeMs;
+        public final long seq;
+
+        Event(String type, Kind kind, T payload, long timeMs, long seq) {
+            this.type = type;
+            this.kind = kind;
+            this.payload = payload;
+            this.timeMs = timeMs;
+            this.seq = seq;
+        }
+    }
+
+    public static final class Frame<T> {
+        public final List<Event<T>> events;
+        /** Gauge updates replaced by a newer value since the previous frame. */
+        public final long coalesced;
+        /** Stream events dropped for backpressure since the previous frame. */
+        public final long dropped;
+
+        Frame(List<Event<T>> events, long coalesced, long dropped) {
+            this.events = events;
+            this.coalesced = coalesced;
+            this.dropped = dropped;
+        }
+
+        public boolean hasCritical() {
+            for (Event<T> e : events) {
+                if (e.kind == Kind.CRITICAL) return true;
+            }
+            return false;
+        }
+    }
+
+    public interface Sink<T> {
+        /** Returns false if nobody received the frame; its critical events are then kept for the next one. */
+        boolean deliver(Frame<T> frame);
+    }
+
+    /** Runs {@code task} after {@code delayMs}, on one thread. */
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    private final Clock clock;
+    private final Scheduler scheduler;
+    private final int maxPending;
+    private long intervalMs;
+    private int maxBatch;
+    private Sink<T> sink;
+
+    private final LinkedHashMap<String, Event<T>> gauges = new LinkedHashMap<>();
+    private final ArrayDeque<Event<T>> stream = new ArrayDeque<>();
+    private final ArrayDeque<Event<T>> critical = new ArrayDeque<>();
+    private long nextSeq;
+    private long lastFlushMs = Long.MIN_VALUE;
+    /** Time the pending flush runs, or -1; a flush task from an older schedule is ignored. */
+    private long flushAtMs = -1;
+    private long flushGeneration;
+    private long coalescedSinceFrame;
+    private long droppedSinceFrame;
+
+    private long published;
+    private long coalesced;
+    private long dropped;
+    private long delivered;
+    private long frames;
+    private final LatencyHistogram deliveryDelay = new LatencyHistogram();
+
+    public EventCoalescer(Clock clock, Scheduler scheduler, long intervalMs, int maxBatch, int maxPending) {
+        if (maxPending < 1) throw new IllegalArgumentException("maxPending must be positive");
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.maxPending = maxPending;
+        setLimits(intervalMs, maxBatch);
+    }
+
+    public synchronized void setLimits(long intervalMs, int maxBatch) {
+        if (intervalMs < 0) throw new IllegalArgumentException("intervalMs must not be negative");
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be positive");
+        this.intervalMs = intervalMs;
+        this.maxBatch = maxBatch;
+    }
+
+    /** Sets (or clears) the receiver; critical events held for lack of one go out next. */
+    public void setSink(Sink<T> s) {
+        synchronized (this) {
+            sink = s;
+            if (s == null || pendingCount() == 0) return;
+            scheduleLocked(clock.nowMs(), true);
+        }
+    }
+
+    public synchronized boolean hasSink() {
+        return sink != null;
+    }
+
+    public void publish(String type, Kind kind, T payload) {
+        synchronized (this) {
+            long now = clock.nowMs();
+            Event<T> e = new Event<>(type, kind, payload, now, nextSeq++);
+            published++;
+            switch (kind) {
+                case GAUGE:
+                    // Remove first so the map's order follows the latest update.
+                    if (gauges.remove(type) != null) {
+                        coalesced++;
+                        coalescedSinceFrame++;
+                    }
+                    gauges.put(type, e);
+                    break;
+                case STREAM:
+                    if (stream.size() >= maxPending) {
+                        stream.pollFirst();
+                        dropped++;
+                        droppedSinceFrame++;
+                    }
+                    stream.addLast(e);
+                    break;
+                case CRITICAL:
+                    critical.addLast(e);
+                    break;
+            }
+            if (kind == Kind.CRITICAL && sink == null) return;
+            scheduleLocked(now, kind == Kind.CRITICAL || gauges.size() + stream.size() >= maxBatch);
+        }
+    }
+
+    private void scheduleLocked(long now, boolean urgent) {
+        long due = urgent || lastFlushMs == Long.MIN_VALUE ? now : Math.max(now, lastFlushMs + intervalMs);
+        if (flushAtMs >= 0 && flushAtMs <= due) return;
+        flushAtMs = due;
+        long generation = ++flushGeneration;
+        scheduler.schedule(() -> flush(generation), due - now);
+    }
+
+    /** Sends one frame now, whatever the schedule; for tests and shutdown. */
+    public void flushNow() {
+        long generation;
+        synchronized (this) {
+            generation = ++flushGeneration;
+        }
+        flush(generation);
+    }
+
+    private void flush(long generation) {
+        Frame<T> frame;
+        Sink<T> s;
+        synchronized (this) {
+            if (generation != flushGeneration) return;
+            flushAtMs = -1;
+            s = sink;
+            long now = clock.nowMs();
+            lastFlushMs = now;
+            List<Event<T>> events = new ArrayList<>(critical);
+            critical.clear();
+            if (s != null) {
+                takeOldest(events, maxBatch);
+            } else {
+                // Nothing would see them; only critical events are worth keeping.
+                dropped += gauges.size() + stream.size();
+                droppedSinceFrame += gauges.size() + stream.size();
+                gauges.clear();
+                stream.clear();
+            }
+            if (events.isEmpty()) return;
+            if (s == null) {
+                critical.addAll(events);
+                return;
+            }
+            events.sort((a, b) -> Long.compare(a.seq, b.seq));
+            frame = new Frame<>(events, coalescedSinceFrame, droppedSinceFrame);
+            coalescedSinceFrame = 0;
+            droppedSinceFrame = 0;
+            if (gauges.size() + stream.size() > 0) scheduleLocked(now, false);
+        }
+        boolean received = s.deliver(frame);
+        synchronized (this) {
+            long now = clock.nowMs();
+            if (received) {
+                frames++;
+                delivered += frame.events.size();
+                for (Event<T> e : frame.events) deliveryDelay.record((now - e.timeMs) * 1_000L);
+                return;
+            }
+            // Put critical events back ahead of anything newer; the rest are lost.
+            List<Event<T>> keep = new ArrayList<>();
+            for (Event<T> e : frame.events) {
+                if (e.kind == Kind.CRITICAL) keep.add(e);
+                else dropped++;
+            }
+            for (int i = keep.size() - 1; i >= 0; i--) critical.addFirst(keep.get(i));
+        }
+    }
+
+    /** Moves up to {@code limit} of the oldest gauge and stream events into {@code out}. */
+    private void takeOldest(List<Event<T>> out, int limit) {
+        Iterator<Map.Entry<String, Event<T>>> g = gauges.entrySet().iterator();
+        Event<T> nextGauge = g.hasNext() ? g.next().getValue() : null;
+        for (int n = 0; n < limit; n++) {
+            Event<T> nextStream = stream.peekFirst();
+            if (nextGauge == null && nextStream == null) break;
+            if (nextStream == null || (nextGauge != null && nextGauge.seq < nextStream.seq)) {
+                out.add(nextGauge);
+                g.remove();
+                nextGauge = g.hasNext() ? g.next().getValue() : null;
+            } else {
+                out.add(stream.pollFirst());
+            }
+        }
+    }
+
+    private int pendingCount() {
+        return gauges.size() + stream.size() + critical.size();
+    }
+
+    public synchronized int getPending() {
+        return pendingCount();
+    }
+
+    public synchronized long getPublished() {
+        return published;
+    }
+
+    /** Gauge updates that never reached JS because a newer value replaced them. */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /** Stream and gauge events dropped for backpressure or because nobody was listening. */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public synchronized long getDelivered() {
+        return delivered;
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /** Publish-to-delivery time of delivered events. */
+    public LatencyHistogram getDeliveryDelay() {
+        return deliveryDelay;
+    }
+}
@@ -0,0 +1,101 @@
+package app.lovable.core;
+
+/**
+ * Fixed-capacity ring of location fixes held in parallel primitive arrays,
+ * so recording a fix allocates nothing. Every fix gets a sequence number;
+ * readers remember the next one they want and {@link #copySince} hands
+ * back whatever is still retained. Fixes overwritten before a reader got
+ * to them are counted in the returned batch.
+ *
+ * Not thread-safe; {@link LocationTracker} serializes access.
+ */
+public final class FixRingBuffer {
+    private final double[] latitude;
+    private final double[] longitude;
+    private final float[] accuracyM;
+    private final long[] timeMs;
+    /** Fixes ever written; the next fix gets this sequence number. */
+    private long written;
+
+    /** A run of consecutive fixes copied out of the ring. Reusable. */
+    public static final class Batch {
+        public double[] latitude = new double[0];
+        public double[] longitude = new double[0];
+        public float[] accuracyM = new float[0];
+        public long[] timeMs = new long[0];
+        public int count;
+        /** Sequence number of the first fix in the batch. */
+        public long firstSeq;
+        /** Fixes the reader asked for that had already been overwritten. */
+        public long skipped;
+
+        void ensure(int n) {
+            if (latitude.length >= n) return;
+            latitude = new double[n];
+            longitude = new double[n];
+            accuracyM = new float[n];
+            timeMs = new long[n];
+        }
+
+        public long nextSeq() {
+            return firstSeq + count;
+        }
+    }
+
+    public FixRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        latitude = new double[capacity];
+        longitude = new double[capacity];
+        accuracyM = new float[capacity];
+        timeMs = new long[capacity];
+    }
+
+    public int capacity() {
+        return latitude.length;
+    }
+
+    public int size() {
+        return (int) Math.min(written, latitude.length);
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long oldestSeq() {
+        return written - size();
+    }
+
+    public void add(double lat, double lng, float accuracy, long time) {
+        int i = (int) (written % latitude.length);
+        latitude[i] = lat;
+        longitude[i] = lng;
+        accuracyM[i] = accuracy;
+        timeMs[i] = time;
+        written++;
+    }
+
+    /** Copies fixes from {@code fromSeq} on (or the oldest retained one) into {@code out}. */
+    public void copySince(long fromSeq, Batch out) {
+        long start = Math.max(fromSeq, oldestSeq());
+        int n = (int) Math.max(0, written - start);
+        out.ensure(n);
+        out.firstSeq = start;
+        out.count = n;
+        out.skipped = Math.max(0, start - fromSeq);
+        for (int k = 0; k < n; k++) {
+            int i = (int) ((start + k) % latitude.length);
+            out.latitude[k] = latitude[i];
+            out.longitude[k] = longitude[i];
+            out.accuracyM[k] = accuracyM[i];
+            out.timeMs[k] = timeMs[i];
+        }
+    }
+
+    /** The most recent fix, or null if none was recorded; {@code nowMs} is on the fixes' time base. */
+    public GeoFix latest(long nowMs) {
+        if (written == 0) return null;
+        int i = (int) ((written - 1) % latitude.length);
+        return new GeoFix(latitude[i], longitude[i], accuracyM[i], Math.max(0, nowMs - timeMs[i]));
+    }
+}
@@ -0,0 +1,18 @@
+package app.lovable.core;
+
+/** A location fix as the native code sees it, independent of android.location. */
+public final class GeoFix {
+    public final double latitude;
+    public final double longitude;
+    /** Horizontal accuracy in meters, or 0 if unknown. */
+    public final float accuracyM;
+    /** Age of the fix when it was read, in milliseconds. */
+    public final long ageMs;
+
+    public GeoFix(double latitude, double longitude, float accuracyM, long ageMs) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracyM = accuracyM;
+        this.ageMs = ageMs;
+    }
+}
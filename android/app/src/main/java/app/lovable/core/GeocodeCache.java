@@ -0,0 +1,241 @@
+package app.lovable.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bounded reverse-geocode cache with a geohash spatial index.
+ *
+ * Entries are keyed by a precision-9 geohash (cells of a few meters) in a
+ * sorted map, so every geohash prefix is a contiguous key range. A
+ * nearest-neighbour lookup picks the longest prefix whose cells are at
+ * least the search radius across, then scans the ranges of that cell and
+ * its eight neighbours. A second, access-ordered map evicts the least
+ * recently used entry once {@code capacity} is reached.
+ *
+ * The cache also counts visits per precision-6 area (about a kilometre)
+ * so idle-time prewarming can fill in the places the user actually goes.
+ *
+ * Thread-safe.
+ */
+public final class GeocodeCache {
+    static final int KEY_PRECISION = 9;
+    static final int AREA_PRECISION = 6;
+    /** Prewarm samples one point per cell at this precision (about 150 m). */
+    static final int PREWARM_PRECISION = 7;
+    static final int MAX_AREAS = 256;
+    private static final int FILE_VERSION = 1;
+
+    public static final class Entry {
+        public final String geohash;
+        public final double latitude;
+        public final double longitude;
+        public final String address;
+        /** Wall-clock time the address was fetched. */
+        public final long storedAtMs;
+
+        Entry(String geohash, double latitude, double longitude, String address, long storedAtMs) {
+            this.geohash = geohash;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.address = address;
+            this.storedAtMs = storedAtMs;
+        }
+    }
+
+    public static final class Match {
+        public final Entry entry;
+        public final double distanceM;
+
+        Match(Entry entry, double distanceM) {
+            this.entry = entry;
+            this.distanceM = distanceM;
+        }
+    }
+
+    private final Clock clock;
+    private final int capacity;
+    private final TreeMap<String, Entry> spatial = new TreeMap<>();
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Integer> visits = new HashMap<>();
+    private final LatencyHistogram lookupTime = new LatencyHistogram();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public GeocodeCache(Clock clock, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.clock = clock;
+        this.capacity = capacity;
+    }
+
+    /** Closest cached address within {@code radiusM}, or null. */
+    public synchronized Match nearest(double lat, double lng, double radiusM) {
+        long start = clock.nowNanos();
+        int precision = Math.min(KEY_PRECISION, Geohash.precisionFor(radiusM, lat));
+        Entry best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (String cell : Geohash.neighbourhood(Geohash.encode(lat, lng, precision))) {
+            for (Entry e : spatial.subMap(cell, true, cell + '~', false).values()) {
+                double d = TrailCompressor.distanceM(lat, lng, e.latitude, e.longitude);
+                if (d <= radiusM && d < bestDistance) {
+                    best = e;
+                    bestDistance = d;
+                }
+            }
+        }
+        Match match = null;
+        if (best != null) {
+            lru.get(best.geohash);
+            hits++;
+            match = new Match(best, bestDistance);
+        } else {
+            misses++;
+        }
+        lookupTime.recordNanos(clock.nowNanos() - start);
+        return match;
+    }
+
+    /** Caches an address; a point in the same few-meter cell replaces the older one. */
+    public synchronized void put(double lat, double lng, String address, long storedAtMs) {
+        String key = Geohash.encode(lat, lng, KEY_PRECISION);
+        Entry e = new Entry(key, lat, lng, address, storedAtMs);
+        spatial.put(key, e);
+        lru.put(key, e);
+        for (Iterator<Entry> it = lru.values().iterator(); lru.size() > capacity && it.hasNext(); ) {
+            Entry eldest = it.next();
+            it.remove();
+            spatial.remove(eldest.geohash);
+            evictions++;
+        }
+    }
+
+    /** Counts a visit to the area around (lat, lng) for prewarming. */
+    public synchronized void recordVisit(double lat, double lng) {
+        String area = Geohash.encode(lat, lng, AREA_PRECISION);
+        Integer n = visits.get(area);
+        if (n == null && visits.size() >= MAX_AREAS) {
+            // Forget the least visited area to stay bounded.
+            String least = null;
+            int leastCount = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> v : visits.entrySet()) {
+                if (v.getValue() < leastCount) {
+                    least = v.getKey();
+                    leastCount = v.getValue();
+                }
+            }
+            visits.remove(least);
+        }
+        visits.put(area, n == null ? 1 : n + 1);
+    }
+
+    /** The most visited areas, most visited first. */
+    public synchronized List<String> frequentAreas(int max) {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(visits.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < sorted.size() && i < max; i++) out.add(sorted.get(i).getKey());
+        return out;
+    }
+
+    /**
+     * Points worth fetching ahead of time: the centre of every ~150 m cell
+     * in the most visited areas that has no cached address within
+     * {@code radiusM}, at most {@code limit} of them, busiest areas first.
+     * Returned as {lat, lng} pairs. Does not count as lookups.
+     */
+    public synchronized List<double[]> prewarmTargets(int maxAreas, double radiusM, int limit) {
+        List<double[]> targets = new ArrayList<>();
+        for (String area : frequentAreas(maxAreas)) {
+            for (int i = 0; i < Geohash.BASE32.length() && targets.size() < limit; i++) {
+                double[] b = Geohash.bounds(area + Geohash.BASE32.charAt(i));
+                double lat = (b[0] + b[2]) / 2;
+                double lng = (b[1] + b[3]) / 2;
+                if (!hasEntryWithin(lat, lng, radiusM)) targets.add(new double[] {lat, lng});
+            }
+        }
+        return targets;
+    }
+
+    private boolean hasEntryWithin(double lat, double lng, double radiusM) {
+        int precision = Math.min(KEY_PRECISION, Geohash.precisionFor(radiusM, lat));
+        for (String cell : Geohash.neighbourhood(Geohash.encode(lat, lng, precision))) {
+            for (Entry e : spatial.subMap(cell, true, cell + '~', false).values()) {
+                if (TrailCompressor.distanceM(lat, lng, e.latitude, e.longitude) <= radiusM) return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return lru.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Wall time of each {@link #nearest} call. */
+    public LatencyHistogram getLookupTime() {
+        return lookupTime;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** Writes entries least recently used first, so {@link #readFrom} restores the LRU order. */
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_VERSION);
+        out.writeInt(lru.size());
+        for (Entry e : lru.values()) {
+            out.writeDouble(e.latitude);
+            out.writeDouble(e.longitude);
+            out.writeLong(e.storedAtMs);
+            out.writeUTF(e.address);
+        }
+        out.writeInt(visits.size());
+        for (Map.Entry<String, Integer> v : visits.entrySet()) {
+            out.writeUTF(v.getKey());
+            out.writeInt(v.getValue());
+        }
+    }
+
+    /** Replaces the contents with what {@link #writeTo} wrote; entries beyond capacity are evicted. */
+    public synchronized void readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FILE_VERSION) throw new IOException("unknown geocode cache version " + version);
+        spatial.clear();
+        lru.clear();
+        visits.clear();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            double lat = in.readDouble();
+            double lng = in.readDouble();
+            long storedAt = in.readLong();
+            put(lat, lng, in.readUTF(), storedAt);
+        }
+        int areas = in.readInt();
+        for (int i = 0; i < areas; i++) {
+            String area = in.readUTF();
+            int count = in.readInt();
+            if (visits.size() < MAX_AREAS) visits.put(area, count);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package app.lovable.core;
+
+import java.util.Arrays;
+
+/**
+ * Standard base-32 geohash. Each character halves the cell five times,
+ * alternating longitude and latitude, so a shared prefix means a shared
+ * cell and sorting hashes groups nearby points together.
+ */
+public final class Geohash {
+    static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    public static final int MAX_PRECISION = 12;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private Geohash() {}
+
+    public static String encode(double lat, double lng, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be 1-" + MAX_PRECISION);
+        }
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        char[] out = new char[precision];
+        boolean even = true;
+        int bits = 0;
+        int ch = 0;
+        int n = 0;
+        while (n < precision) {
+            if (even) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bits == 5) {
+                out[n++] = BASE32.charAt(ch);
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return new String(out);
+    }
+
+    /** Cell bounds as {minLat, minLng, maxLat, maxLng}. */
+    public static double[] bounds(String hash) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        boolean even = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int v = BASE32.indexOf(hash.charAt(i));
+            if (v < 0) throw new IllegalArgumentException("bad geohash character '" + hash.charAt(i) + "'");
+            for (int b = 4; b >= 0; b--) {
+                boolean bit = ((v >> b) & 1) == 1;
+                if (even) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (bit) minLng = mid; else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bit) minLat = mid; else maxLat = mid;
+                }
+                even = !even;
+            }
+        }
+        return new double[] {minLat, minLng, maxLat, maxLng};
+    }
+
+    /** The cell and its eight neighbours at the same precision; fewer near the poles. */
+    public static String[] neighbourhood(String hash) {
+        double[] b = bounds(hash);
+        double dLat = b[2] - b[0];
+        double dLng = b[3] - b[1];
+        double lat = (b[0] + b[2]) / 2;
+        double lng = (b[1] + b[3]) / 2;
+        String[] out = new String[9];
+        int n = 0;
+        for (int i = -1; i <= 1; i++) {
+            double nLat = lat + i * dLat;
+            if (nLat > 90 || nLat < -90) continue;
+            for (int j = -1; j <= 1; j++) {
+                double nLng = lng + j * dLng;
+                if (nLng > 180) nLng -= 360;
+                if (nLng < -180) nLng += 360;
+                out[n++] = encode(nLat, nLng, hash.length());
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Longest precision whose cells are at least {@code radiusM} across at
+     * {@code lat}, so a circle of that radius lies within the 3x3 neighbourhood.
+     */
+    public static int precisionFor(double radiusM, double lat) {
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        for (int p = MAX_PRECISION; p > 1; p--) {
+            int lngBits = (5 * p + 1) / 2;
+            int latBits = 5 * p / 2;
+            double width = 360.0 / (1L << lngBits) * METERS_PER_DEGREE * cos;
+            double height = 180.0 / (1L << latBits) * METERS_PER_DEGREE;
+            if (Math.min(width, height) >= radiusM) return p;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,90 @@
+package app.lovable.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link ChunkUploader.Transport} for the upload-recording function.
+ *
+ * A chunk is a {@code PUT ?uploadId=&chunk=} whose body is the raw bytes,
+ * with the SHA-256 in {@code X-Chunk-Sha256} so the server can reject a
+ * corrupted chunk. Completing is a {@code POST ?uploadId=&complete=1}
+ * whose body is the upload's metadata JSON. Any 2xx counts as
+ * acknowledged. Bodies are streamed with a fixed length, so
+ * HttpURLConnection does not buffer a second copy.
+ */
+public final class HttpChunkTransport implements ChunkUploader.Transport {
+    private final String endpoint;
+    private final String apiKey;
+    private final int timeoutMs;
+
+    public HttpChunkTransport(String endpoint, String apiKey, int timeoutMs) {
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void putChunk(ChunkedUpload upload, int chunk, byte[] data, int length, String sha256) throws IOException {
+        HttpURLConnection conn = open(upload, "&chunk=" + chunk, "PUT");
+        conn.setRequestProperty("Content-Type", "application/octet-stream");
+        conn.setRequestProperty("X-Chunk-Offset", String.valueOf(upload.offsetOf(chunk)));
+        conn.setRequestProperty("X-Chunk-Sha256", sha256);
+        send(conn, data, length);
+    }
+
+    @Override
+    public void complete(ChunkedUpload upload) throws IOException {
+        HttpURLConnection conn = open(upload, "&complete=1", "POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        byte[] body = upload.metadata.getBytes(StandardCharsets.UTF_8);
+        send(conn, body, body.length);
+    }
+
+    private HttpURLConnection open(ChunkedUpload upload, String query, String method) throws IOException {
+        String url = endpoint + (endpoint.indexOf('?') < 0 ? "?" : "&")
+                + "uploadId=" + URLEncoder.encode(upload.id, "UTF-8") + query;
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(timeoutMs);
+        conn.setReadTimeout(timeoutMs);
+        conn.setRequestMethod(method);
+        conn.setDoOutput(true);
+        conn.setRequestProperty("X-Upload-Size", String.valueOf(upload.size));
+        conn.setRequestProperty("X-Upload-Chunks", String.valueOf(upload.chunkCount()));
+        if (!apiKey.isEmpty()) {
+            conn.setRequestProperty("apikey", apiKey);
+            conn.setRequestProperty("Authorization", "Bearer " + apiKey);
+        }
+        return conn;
+    }
+
+    /** Sends the body and drains the response, so a kept-alive connection can carry the next chunk. */
+    private static void send(HttpURLConnection conn, byte[] body, int length) throws IOException {
+        int status;
+        try {
+            conn.setFixedLengthStreamingMode(length);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body, 0, length);
+            }
+            status = conn.getResponseCode();
+            InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream();
+            if (in != null) {
+                try (InputStream r = in) {
+                    byte[] skip = new byte[512];
+                    while (r.read(skip) > 0) {
+                        // Discard.
+                    }
+                }
+            }
+        } catch (IOException e) {
+            conn.disconnect();
+            throw e;
+        }
+        if (status / 100 != 2) throw new IOException("HTTP " + status);
+    }
+}
@@ -0,0 +1,198 @@
+package app.lovable.core;
+
+import java.util.List;
+
+/**
+ * Streaming keyword spotter that matches MFCC frames against enrolled
+ * templates with open-begin (subsequence) DTW.
+ *
+ * Each template keeps one DTW column that is advanced per input frame, so
+ * the cost is O(template length) per frame with no windowing or restarts.
+ * A detection fires when a path reaching the end of a template has an
+ * average per-frame distance below the threshold and a plausible duration
+ * (half to twice the template length).
+ */
+public final class KeywordSpotter {
+    /** Used when fewer than two templates are enrolled to calibrate from. */
+    public static final float DEFAULT_THRESHOLD = 9.0f;
+    private static final float CALIBRATION_MARGIN = 1.25f;
+    private static final int REFRACTORY_FRAMES = 100;
+
+    private Column[] columns = new Column[0];
+    private float threshold = DEFAULT_THRESHOLD;
+    private int refractory;
+    private float lastScore = Float.POSITIVE_INFINITY;
+
+    public void setTemplates(List<KeywordTemplate> templates) {
+        Column[] next = new Column[templates.size()];
+        for (int i = 0; i < next.length; i++) next[i] = new Column(templates.get(i));
+        columns = next;
+        reset();
+    }
+
+    public int templateCount() {
+        return columns.length;
+    }
+
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /** Best normalized end-of-template score seen on the most recent frame. */
+    public float getLastScore() {
+        return lastScore;
+    }
+
+    public void reset() {
+        for (Column c : columns) c.reset();
+        refractory = 0;
+        lastScore = Float.POSITIVE_INFINITY;
+    }
+
+    /** Advances every template by one frame; returns true on detection. */
+    public boolean onFrame(float[] coeffs) {
+        float best = Float.POSITIVE_INFINITY;
+        for (Column c : columns) {
+            float score = c.advance(coeffs);
+            if (score < best) best = score;
+        }
+        lastScore = best;
+
+        if (refractory > 0) {
+            refractory--;
+            return false;
+        }
+        if (best < threshold) {
+            for (Column c : columns) c.reset();
+            refractory = REFRACTORY_FRAMES;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Suggests a threshold from the spread between enrolled templates: the
+     * largest template-to-template alignment cost plus a margin. Returns
+     * {@link #DEFAULT_THRESHOLD} when there is nothing to compare.
+     */
+    public static float calibrate(List<KeywordTemplate> templates) {
+        if (templates.size() < 2) return DEFAULT_THRESHOLD;
+        float worst = 0f;
+        for (int i = 0; i < templates.size(); i++) {
+            for (int j = i + 1; j < templates.size(); j++) {
+                worst = Math.max(worst, alignmentCost(templates.get(i), templates.get(j)));
+            }
+        }
+        return worst * CALIBRATION_MARGIN;
+    }
+
+    /** Full (closed-begin) DTW cost between two templates, normalized by path length. */
+    static float alignmentCost(KeywordTemplate a, KeywordTemplate b) {
+        Column column = new Column(b);
+        column.openBegin = false;
+        for (int i = 0; i < a.length(); i++) column.advance(a.frame(i));
+        return column.lastNormalized();
+    }
+
+    static float distance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float d = a[i] - b[i];
+            sum += d * d;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private static final class Column {
+        final KeywordTemplate template;
+        final int length;
+        // Double-buffered DTW column: accumulated cost, path steps and the input frame the path began at.
+        float[] cost;
+        int[] steps;
+        long[] begin;
+        float[] nextCost;
+        int[] nextSteps;
+        long[] nextBegin;
+        boolean openBegin = true;
+        long frameIndex;
+
+        Column(KeywordTemplate template) {
+            this.template = template;
+            this.length = template.length();
+            cost = new float[length];
+            steps = new int[length];
+            begin = new long[length];
+            nextCost = new float[length];
+            nextSteps = new int[length];
+            nextBegin = new long[length];
+            reset();
+        }
+
+        void reset() {
+            for (int j = 0; j < length; j++) {
+                cost[j] = Float.POSITIVE_INFINITY;
+                steps[j] = 0;
+            }
+            frameIndex = 0;
+        }
+
+        /** Returns the normalized cost of the best path ending at the template's last frame. */
+        float advance(float[] frame) {
+            for (int j = 0; j < length; j++) {
+                float d = distance(frame, template.frame(j));
+                float bestPrev = Float.POSITIVE_INFINITY;
+                int bestSteps = 0;
+                long bestBegin = frameIndex;
+                if (j == 0) {
+                    // Open begin: a match may start at any input frame.
+                    if (openBegin || frameIndex == 0) {
+                        bestPrev = 0f;
+                    } else {
+                        bestPrev = cost[0];
+                        bestSteps = steps[0];
+                        bestBegin = begin[0];
+                    }
+                } else {
+                    if (cost[j - 1] < bestPrev) {
+                        bestPrev = cost[j - 1];
+                        bestSteps = steps[j - 1];
+                        bestBegin = begin[j - 1];
+                    }
+                    if (cost[j] < bestPrev) {
+                        bestPrev = cost[j];
+                        bestSteps = steps[j];
+                        bestBegin = begin[j];
+                    }
+                    if (nextCost[j - 1] < bestPrev) {
+                        bestPrev = nextCost[j - 1];
+                        bestSteps = nextSteps[j - 1];
+                        bestBegin = nextBegin[j - 1];
+                    }
+                }
+                nextCost[j] = bestPrev + d;
+                nextSteps[j] = bestSteps + 1;
+                nextBegin[j] = bestBegin;
+            }
+
+            float[] tc = cost; cost = nextCost; nextCost = tc;
+            int[] ts = steps; steps = nextSteps; nextSteps = ts;
+            long[] tb = begin; begin = nextBegin; nextBegin = tb;
+
+            long span = frameIndex - begin[length - 1] + 1;
+            frameIndex++;
+            if (openBegin && (span < length / 2 || span > length * 2L)) {
+                return Float.POSITIVE_INFINITY;
+            }
+            return lastNormalized();
+        }
+
+        float lastNormalized() {
+            int n = steps[length - 1];
+            return n == 0 ? Float.POSITIVE_INFINITY : cost[length - 1] / n;
+        }
+    }
+}
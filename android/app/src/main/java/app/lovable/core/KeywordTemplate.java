@@ -0,0 +1,55 @@
+package app.lovable.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An enrolled utterance of the wake phrase as a sequence of MFCC frames.
+ */
+public final class KeywordTemplate {
+    private static final int MAGIC = 0x52514b54; // "RQKT"
+
+    private final float[][] frames;
+
+    public KeywordTemplate(float[][] frames) {
+        if (frames.length == 0) throw new IllegalArgumentException("template has no frames");
+        this.frames = frames;
+    }
+
+    public int length() {
+        return frames.length;
+    }
+
+    public float[] frame(int index) {
+        return frames[index];
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(frames.length);
+        data.writeInt(frames[0].length);
+        for (float[] f : frames) {
+            for (float v : f) data.writeFloat(v);
+        }
+        data.flush();
+    }
+
+    public static KeywordTemplate readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a keyword template");
+        int count = data.readInt();
+        int dims = data.readInt();
+        if (count <= 0 || count > 10_000 || dims <= 0 || dims > 128) {
+            throw new IOException("corrupt keyword template header");
+        }
+        float[][] frames = new float[count][dims];
+        for (float[] f : frames) {
+            for (int i = 0; i < dims; i++) f[i] = data.readFloat();
+        }
+        return new KeywordTemplate(frames);
+    }
+}
@@ -0,0 +1,174 @@
+package app.lovable.core;
+
+/**
+ * Keeps recent location fixes natively and hands them to the app in
+ * batches.
+ *
+ * The {@link Provider} registers one batched request for the current
+ * {@link Mode}: the platform collects fixes at the mode's interval and
+ * wakes us at most once per max update delay with all of them. Each
+ * wakeup records its fixes into a {@link FixRingBuffer} and then, if a
+ * {@link Sink} is attached, delivers everything it has not seen in one
+ * call. Without a sink the ring keeps the newest fixes until one attaches.
+ *
+ * Thread-safe; the sink is called with the tracker locked and must not block.
+ */
+public final class LocationTracker {
+    public enum Mode {
+        /** Armed but nothing is happening: coarse and heavily batched. */
+        IDLE(30_000, 5 * 60_000),
+        /** An alert is active: frequent fixes, delivered within seconds. */
+        SOS(2_000, 6_000);
+
+        public final long intervalMs;
+        public final long maxUpdateDelayMs;
+
+        Mode(long intervalMs, long maxUpdateDelayMs) {
+            this.intervalMs = intervalMs;
+            this.maxUpdateDelayMs = maxUpdateDelayMs;
+        }
+    }
+
+    /** Registers (or replaces) the platform location request. */
+    public interface Provider {
+        void request(Mode mode);
+        void stop();
+    }
+
+    public interface Sink {
+        void onFixes(FixRingBuffer.Batch batch);
+    }
+
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final Clock clock;
+    private final Provider provider;
+    private final FixRingBuffer ring;
+    private final FixRingBuffer.Batch batch = new FixRingBuffer.Batch();
+    private Sink sink;
+    private Mode mode = Mode.IDLE;
+    private boolean running;
+    private long deliveredSeq;
+    private long sosSinceMs = -1;
+
+    private long wakeups;
+    private long batchesDelivered;
+    private long skipped;
+    private long modeSwitches;
+    private long registrations;
+    private long sosMs;
+
+    public LocationTracker(Clock clock, int capacity, Provider provider) {
+        this.clock = clock;
+        this.provider = provider;
+        this.ring = new FixRingBuffer(capacity);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        register();
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        provider.stop();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    /** Switches sampling rate; re-registers the request only if the mode actually changed. */
+    public synchronized void setMode(Mode next) {
+        if (next == mode) return;
+        long now = clock.nowMs();
+        if (mode == Mode.SOS) sosMs += now - sosSinceMs;
+        sosSinceMs = next == Mode.SOS ? now : -1;
+        mode = next;
+        modeSwitches++;
+        if (running) register();
+    }
+
+    private void register() {
+        registrations++;
+        provider.request(mode);
+    }
+
+    /** Records one fix of the current wakeup; {@code timeMs} is wall-clock time of the fix. */
+    public synchronized void onFix(double latitude, double longitude, float accuracyM, long timeMs) {
+        ring.add(latitude, longitude, accuracyM, timeMs);
+    }
+
+    /** Ends a wakeup: counts it and delivers the new fixes in one batch. */
+    public synchronized void onWakeup() {
+        wakeups++;
+        flush();
+    }
+
+    /** Attaches (or detaches with null) the sink; anything it missed is delivered right away. */
+    public synchronized void setSink(Sink sink) {
+        this.sink = sink;
+        flush();
+    }
+
+    private void flush() {
+        if (sink == null || ring.getWritten() == deliveredSeq) return;
+        ring.copySince(deliveredSeq, batch);
+        skipped += batch.skipped;
+        deliveredSeq = batch.nextSeq();
+        batchesDelivered++;
+        sink.onFixes(batch);
+    }
+
+    /** Copies retained fixes from {@code fromSeq} on, for callers that poll instead of listening. */
+    public synchronized void copySince(long fromSeq, FixRingBuffer.Batch out) {
+        ring.copySince(fromSeq, out);
+    }
+
+    /** Newest fix, or null; {@code nowMs} is wall-clock time. */
+    public synchronized GeoFix latest(long nowMs) {
+        return ring.latest(nowMs);
+    }
+
+    public synchronized long getFixes() {
+        return ring.getWritten();
+    }
+
+    public synchronized long getWakeups() {
+        return wakeups;
+    }
+
+    /** Fixes per wakeup: how well batching is amortizing each CPU wakeup. */
+    public synchronized double getFixesPerWakeup() {
+        return wakeups == 0 ? 0 : (double) ring.getWritten() / wakeups;
+    }
+
+    public synchronized long getBatchesDelivered() {
+        return batchesDelivered;
+    }
+
+    /** Fixes overwritten before a sink received them. */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    public synchronized long getModeSwitches() {
+        return modeSwitches;
+    }
+
+    /** Location requests registered with the platform; each one may restart the GPS. */
+    public synchronized long getRegistrations() {
+        return registrations;
+    }
+
+    /** Total time spent sampling at the SOS rate, including the current stretch. */
+    public synchronized long getSosMs() {
+        return sosMs + (mode == Mode.SOS ? clock.nowMs() - sosSinceMs : 0);
+    }
+}
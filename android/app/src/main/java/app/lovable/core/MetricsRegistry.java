@@ -0,0 +1,191 @@
+package app.lovable.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms shared by the native
+ * services and plugins.
+ *
+ * Metrics are looked up (or created) once by name and then kept by the
+ * caller; updating one is lock-free and allocates nothing. Counters are
+ * striped ({@link LongAdder}), so services bumping the same counter from
+ * different threads do not contend on one cache line. Histograms are
+ * {@link LatencyHistogram}s: fixed log-linear buckets, at most 12.5% error.
+ * A histogram a component already keeps can be {@link #register registered}
+ * instead of duplicated.
+ *
+ * A name belongs to one kind of metric; asking for it as another kind
+ * throws. {@link #snapshot} reads everything without stopping writers, so
+ * values in one snapshot may be a few updates apart.
+ */
+public final class MetricsRegistry {
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        Counter() {}
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        Gauge() {}
+
+        public void set(long v) {
+            value.set(v);
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /** Summary of one histogram; latencies in microseconds. */
+    public static final class HistogramSnapshot {
+        public final long count;
+        public final long meanMicros;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        HistogramSnapshot(LatencyHistogram h) {
+            count = h.getCount();
+            meanMicros = h.getMeanMicros();
+            p50Micros = h.percentileMicros(50);
+            p90Micros = h.percentileMicros(90);
+            p99Micros = h.percentileMicros(99);
+            maxMicros = h.getMaxMicros();
+        }
+    }
+
+    /** Point-in-time copy, sorted by name. */
+    public static final class Snapshot {
+        /** On the registry's clock. */
+        public final long takenAtMs;
+        public final Map<String, Long> counters = new TreeMap<>();
+        public final Map<String, Long> gauges = new TreeMap<>();
+        public final Map<String, HistogramSnapshot> histograms = new TreeMap<>();
+
+        Snapshot(long takenAtMs) {
+            this.takenAtMs = takenAtMs;
+        }
+
+        /**
+         * One line per metric: {@code name value} for counters and gauges,
+         * {@code name count p50 p99 max} (microseconds) for histograms.
+         */
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append("# t=").append(takenAtMs).append('\n');
+            for (Map.Entry<String, Long> e : counters.entrySet()) {
+                out.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+            }
+            for (Map.Entry<String, Long> e : gauges.entrySet()) {
+                out.append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+            }
+            for (Map.Entry<String, HistogramSnapshot> e : histograms.entrySet()) {
+                HistogramSnapshot h = e.getValue();
+                out.append(e.getKey()).append(' ').append(h.count)
+                        .append(' ').append(h.p50Micros)
+                        .append(' ').append(h.p99Micros)
+                        .append(' ').append(h.maxMicros).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> computed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public MetricsRegistry(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Counter counter(String name) {
+        Counter c = counters.get(name);
+        if (c != null) return c;
+        synchronized (this) {
+            checkFree(name, counters);
+            return counters.computeIfAbsent(name, n -> new Counter());
+        }
+    }
+
+    public Gauge gauge(String name) {
+        Gauge g = gauges.get(name);
+        if (g != null) return g;
+        synchronized (this) {
+            checkFree(name, gauges);
+            return gauges.computeIfAbsent(name, n -> new Gauge());
+        }
+    }
+
+    /** Gauge read from {@code value} at snapshot time; replaces an earlier one of the same name. */
+    public synchronized void gauge(String name, LongSupplier value) {
+        checkFree(name, computed);
+        computed.put(name, value);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram h = histograms.get(name);
+        if (h != null) return h;
+        synchronized (this) {
+            checkFree(name, histograms);
+            return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+        }
+    }
+
+    /** Publishes an existing histogram under {@code name}; replaces an earlier one of the same name. */
+    public synchronized void register(String name, LatencyHistogram histogram) {
+        checkFree(name, histograms);
+        histograms.put(name, histogram);
+    }
+
+    private void checkFree(String name, Map<String, ?> own) {
+        if (name == null || name.isEmpty() || name.indexOf(' ') >= 0 || name.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Bad metric name: " + name);
+        }
+        if ((own != counters && counters.containsKey(name))
+                || (own != gauges && gauges.containsKey(name))
+                || (own != computed && computed.containsKey(name))
+                || (own != histograms && histograms.containsKey(name))) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as another kind");
+        }
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = new Snapshot(clock.nowMs());
+        for (Map.Entry<String, Counter> e : counters.entrySet()) s.counters.put(e.getKey(), e.getValue().get());
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) s.gauges.put(e.getKey(), e.getValue().get());
+        for (Map.Entry<String, LongSupplier> e : computed.entrySet()) {
+            s.gauges.put(e.getKey(), e.getValue().getAsLong());
+        }
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            s.histograms.put(e.getKey(), new HistogramSnapshot(e.getValue()));
+        }
+        return s;
+    }
+}
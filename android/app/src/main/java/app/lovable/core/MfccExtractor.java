@@ -0,0 +1,139 @@
+package app.lovable.core;
+
+/**
+ * Incremental MFCC front end for 16 kHz mono PCM.
+ *
+ * Frames are 25 ms with a 10 ms hop: pre-emphasis, Hamming window, 512-point
+ * power spectrum, 26 log-mel bands and a DCT down to 12 cepstral
+ * coefficients (c0 is dropped and reported separately as frame log-energy so
+ * loudness does not dominate template distances). All buffers are allocated
+ * up front; the coefficient array handed to the listener is reused for every
+ * frame and must be copied if kept.
+ */
+public final class MfccExtractor {
+    public static final int SAMPLE_RATE = 16_000;
+    public static final int FRAME_LENGTH = 400;
+    public static final int HOP_LENGTH = 160;
+    public static final int FFT_SIZE = 512;
+    public static final int MEL_BANDS = 26;
+    public static final int NUM_COEFFS = 12;
+
+    private static final float PRE_EMPHASIS = 0.97f;
+    private static final float MIN_FREQ = 20f;
+    private static final float MAX_FREQ = 7600f;
+    private static final float LOG_FLOOR = 1e-10f;
+
+    /** Receives one feature vector per hop. */
+    public interface FrameListener {
+        void onFrame(float[] coeffs, float logEnergy);
+    }
+
+    private final Fft fft = new Fft(FFT_SIZE);
+    private final float[] window = new float[FRAME_LENGTH];
+    private final int[] bandStart = new int[MEL_BANDS];
+    private final float[][] bandWeights = new float[MEL_BANDS][];
+    private final float[][] dct = new float[NUM_COEFFS][MEL_BANDS];
+
+    private final short[] frame = new short[FRAME_LENGTH];
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] logMel = new float[MEL_BANDS];
+    private final float[] coeffs = new float[NUM_COEFFS];
+
+    public MfccExtractor() {
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            window[i] = (float) (0.54 - 0.46 * Math.cos(2 * Math.PI * i / (FRAME_LENGTH - 1)));
+        }
+
+        // Triangular filters equally spaced on the mel scale.
+        double melMin = hzToMel(MIN_FREQ);
+        double melMax = hzToMel(MAX_FREQ);
+        int[] bins = new int[MEL_BANDS + 2];
+        for (int i = 0; i < bins.length; i++) {
+            double hz = melToHz(melMin + (melMax - melMin) * i / (MEL_BANDS + 1));
+            bins[i] = (int) Math.floor((FFT_SIZE + 1) * hz / SAMPLE_RATE);
+        }
+        for (int b = 0; b < MEL_BANDS; b++) {
+            int lo = bins[b];
+            int mid = Math.max(bins[b + 1], lo + 1);
+            int hi = Math.max(bins[b + 2], mid + 1);
+            bandStart[b] = lo;
+            float[] w = new float[hi - lo + 1];
+            for (int k = lo; k <= hi; k++) {
+                w[k - lo] = k <= mid
+                        ? (float) (k - lo) / (mid - lo)
+                        : (float) (hi - k) / (hi - mid);
+            }
+            bandWeights[b] = w;
+        }
+
+        for (int c = 0; c < NUM_COEFFS; c++) {
+            for (int b = 0; b < MEL_BANDS; b++) {
+                dct[c][b] = (float) Math.cos(Math.PI * (c + 1) * (b + 0.5) / MEL_BANDS);
+            }
+        }
+    }
+
+    /**
+     * Emits a frame for every full window available in {@code ring}, advancing
+     * it by one hop per frame. Returns the number of frames emitted.
+     */
+    public int drain(PcmRingBuffer ring, FrameListener listener) {
+        int frames = 0;
+        while (ring.available() >= FRAME_LENGTH) {
+            ring.peek(frame, 0, FRAME_LENGTH);
+            ring.skip(HOP_LENGTH);
+            process(frame, 0, listener);
+            frames++;
+        }
+        return frames;
+    }
+
+    /** Computes the features of one {@link #FRAME_LENGTH}-sample frame. */
+    public void process(short[] pcm, int offset, FrameListener listener) {
+        float energy = 0f;
+        float prev = offset > 0 ? pcm[offset - 1] : pcm[offset];
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            float s = pcm[offset + i];
+            energy += s * s;
+            re[i] = (s - PRE_EMPHASIS * prev) * window[i] / 32768f;
+            prev = s;
+        }
+        for (int i = FRAME_LENGTH; i < FFT_SIZE; i++) re[i] = 0f;
+        for (int i = 0; i < FFT_SIZE; i++) im[i] = 0f;
+
+        fft.transform(re, im);
+        int bins = FFT_SIZE / 2 + 1;
+        for (int k = 0; k < bins; k++) {
+            re[k] = re[k] * re[k] + im[k] * im[k];
+        }
+
+        for (int b = 0; b < MEL_BANDS; b++) {
+            float[] w = bandWeights[b];
+            int start = bandStart[b];
+            float sum = 0f;
+            for (int k = 0; k < w.length && start + k < bins; k++) {
+                sum += w[k] * re[start + k];
+            }
+            logMel[b] = (float) Math.log(Math.max(sum, LOG_FLOOR));
+        }
+
+        for (int c = 0; c < NUM_COEFFS; c++) {
+            float[] row = dct[c];
+            float sum = 0f;
+            for (int b = 0; b < MEL_BANDS; b++) sum += row[b] * logMel[b];
+            coeffs[c] = sum;
+        }
+
+        float logEnergy = (float) Math.log(Math.max(energy / FRAME_LENGTH, 1f));
+        listener.onFrame(coeffs, logEnergy);
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595.0 * Math.log10(1.0 + hz / 700.0);
+    }
+
+    private static double melToHz(double mel) {
+        return 700.0 * (Math.pow(10.0, mel / 2595.0) - 1.0);
+    }
+}
@@ -0,0 +1,376 @@
+package app.lovable.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of alert and SMS work items that must survive the
+ * process being killed mid-SOS.
+ *
+ * File layout: a 16-byte header (magic, version, first free id, so ids
+ * are never reused after compaction) followed by frames of
+ * {@code [int bodyLength][int crc32(body)][body]}. A body is an op byte and
+ * an item id, plus kind, creation time, attempt count and payload for
+ * {@code PUT}. {@code ATTEMPT} and {@code DONE} frames update an item.
+ *
+ * Recovery replays frames from the start and stops at the first frame
+ * that is short or fails its checksum, i.e. a write torn by a crash. The
+ * file is truncated there, so later appends start from a clean boundary.
+ *
+ * Writes reach the OS on every call, which is enough to survive the process
+ * dying. fsync (needed only against power loss) is batched: it runs after
+ * every {@code syncEvery} appends, or when the owner calls {@link #sync()}.
+ * When finished items make up more than half of a large file, the live
+ * items are rewritten to a side file that atomically replaces the journal.
+ *
+ * Thread-safe.
+ */
+public final class OutboxJournal implements Closeable {
+    public enum Kind {
+        ALERT, SMS
+    }
+
+    public static final class Entry {
+        public final long id;
+        public final Kind kind;
+        public final String payload;
+        /** Wall-clock time supplied by the caller, so it stays meaningful across reboots. */
+        public final long createdAtMs;
+        int attempts;
+
+        Entry(long id, Kind kind, String payload, long createdAtMs, int attempts) {
+            this.id = id;
+            this.kind = kind;
+            this.payload = payload;
+            this.createdAtMs = createdAtMs;
+            this.attempts = attempts;
+        }
+
+        /** How often a replay was started for this item. */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    static final int MAGIC = 0x52514F42; // "RQOB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    /** Frame prefix: body length and checksum. */
+    static final int FRAME_OVERHEAD = 8;
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_ATTEMPT = 2;
+    private static final byte OP_DONE = 3;
+
+    /** Compaction is not worth it below this size. */
+    static final long COMPACT_MIN_BYTES = 64 * 1024;
+
+    private final File file;
+    private final int syncEvery;
+    private final LinkedHashMap<Long, Entry> live = new LinkedHashMap<>();
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long position;
+    private long nextId = 1;
+    private long liveBytes;
+    private int unsynced;
+
+    private long appends;
+    private long syncs;
+    private long compactions;
+    private long truncatedBytes;
+
+    /**
+     * Opens (or creates) the journal, recovering from a torn tail.
+     *
+     * @param syncEvery appends per fsync; 1 syncs every record, 0 leaves it all to {@link #sync()}
+     */
+    public OutboxJournal(File file, int syncEvery) throws IOException {
+        this.file = file;
+        this.syncEvery = syncEvery;
+        Files.deleteIfExists(compactFile().toPath());
+        channel = open(file);
+        recover();
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private File compactFile() {
+        return new File(file.getPath() + ".compact");
+    }
+
+    private void recover() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            // New file, or the header itself was torn: nothing in it can be trusted.
+            channel.truncate(0);
+            writeHeader(channel, nextId);
+            channel.force(true);
+            position = HEADER_BYTES;
+            truncatedBytes += size;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException("Not an outbox journal: " + file);
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported outbox journal version " + version);
+        nextId = Math.max(1, header.getLong());
+
+        long pos = HEADER_BYTES;
+        ByteBuffer prefix = ByteBuffer.allocate(FRAME_OVERHEAD);
+        while (pos + FRAME_OVERHEAD <= size) {
+            prefix.clear();
+            readFully(prefix, pos);
+            prefix.flip();
+            int length = prefix.getInt();
+            int checksum = prefix.getInt();
+            if (length <= 0 || length > MAX_BODY_BYTES || pos + FRAME_OVERHEAD + length > size) break;
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, pos + FRAME_OVERHEAD);
+            if (checksum(body.array(), length) != checksum) break;
+            body.flip();
+            apply(body, FRAME_OVERHEAD + length);
+            pos += FRAME_OVERHEAD + length;
+        }
+        if (pos < size) {
+            truncatedBytes += size - pos;
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        position = pos;
+    }
+
+    private void apply(ByteBuffer body, int frameBytes) {
+        byte op = body.get();
+        long id = body.getLong();
+        nextId = Math.max(nextId, id + 1);
+        if (op == OP_PUT) {
+            Kind kind = Kind.values()[body.get()];
+            long createdAtMs = body.getLong();
+            int attempts = body.getInt();
+            byte[] payload = new byte[body.getInt()];
+            body.get(payload);
+            live.put(id, new Entry(id, kind, new String(payload, StandardCharsets.UTF_8), createdAtMs, attempts));
+            liveBytes += frameBytes;
+        } else if (op == OP_ATTEMPT) {
+            Entry e = live.get(id);
+            if (e != null) e.attempts++;
+        } else if (op == OP_DONE) {
+            Entry e = live.remove(id);
+            if (e != null) liveBytes -= putFrameBytes(e);
+        }
+    }
+
+    /** Journals a new work item and returns its id. */
+    public synchronized long append(Kind kind, String payload, long createdAtMs) throws IOException {
+        Entry e = new Entry(nextId++, kind, payload, createdAtMs, 0);
+        ByteBuffer frame = putFrame(e);
+        write(frame);
+        live.put(e.id, e);
+        liveBytes += frame.limit();
+        appends++;
+        afterWrite();
+        return e.id;
+    }
+
+    /** Records that a replay of this item is starting. */
+    public synchronized void markAttempt(long id) throws IOException {
+        Entry e = live.get(id);
+        if (e == null) return;
+        write(smallFrame(OP_ATTEMPT, id));
+        e.attempts++;
+        afterWrite();
+    }
+
+    /** The item is finished and will not be replayed again. Returns false if it was unknown. */
+    public synchronized boolean complete(long id) throws IOException {
+        Entry e = live.remove(id);
+        if (e == null) return false;
+        write(smallFrame(OP_DONE, id));
+        liveBytes -= putFrameBytes(e);
+        afterWrite();
+        if (position >= COMPACT_MIN_BYTES && liveBytes * 2 < position) compact();
+        return true;
+    }
+
+    /**
+     * Completes every unfinished item of {@code kind} whose payload matches,
+     * e.g. the texts of an SOS the user called off. Returns how many.
+     */
+    public synchronized int completeMatching(Kind kind, Predicate<String> payload) throws IOException {
+        int n = 0;
+        for (Entry e : new ArrayList<>(live.values())) {
+            if (e.kind == kind && payload.test(e.payload) && complete(e.id)) n++;
+        }
+        return n;
+    }
+
+    /** Unfinished items, oldest first. */
+    public synchronized List<Entry> pending() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized Entry get(long id) {
+        return live.get(id);
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    /** Forces everything written so far to the device. */
+    public synchronized void sync() throws IOException {
+        if (unsynced == 0) return;
+        channel.force(false);
+        unsynced = 0;
+        syncs++;
+    }
+
+    /** Rewrites the journal with only the unfinished items. */
+    public synchronized void compact() throws IOException {
+        sync();
+        File tmp = compactFile();
+        long size = HEADER_BYTES;
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out, nextId);
+            for (Entry e : live.values()) {
+                ByteBuffer frame = putFrame(e);
+                while (frame.hasRemaining()) size += out.write(frame, size);
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory();
+        channel = open(file);
+        position = size;
+        liveBytes = size - HEADER_BYTES;
+        compactions++;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    public synchronized long getAppends() {
+        return appends;
+    }
+
+    public synchronized long getSyncs() {
+        return syncs;
+    }
+
+    public synchronized long getCompactions() {
+        return compactions;
+    }
+
+    /** Bytes dropped from torn or corrupt tails since this journal was opened. */
+    public synchronized long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public synchronized long getFileBytes() {
+        return position;
+    }
+
+    private void afterWrite() throws IOException {
+        unsynced++;
+        if (syncEvery > 0 && unsynced >= syncEvery) sync();
+    }
+
+    private void write(ByteBuffer frame) throws IOException {
+        long pos = position;
+        while (frame.hasRemaining()) pos += channel.write(frame, pos);
+        position = pos;
+    }
+
+    private ByteBuffer putFrame(Entry e) {
+        byte[] payload = e.payload.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 8 + 1 + 8 + 4 + 4 + payload.length;
+        if (length > MAX_BODY_BYTES) throw new IllegalArgumentException("Payload too large: " + payload.length);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + length);
+        frame.position(FRAME_OVERHEAD);
+        frame.put(OP_PUT).putLong(e.id).put((byte) e.kind.ordinal()).putLong(e.createdAtMs)
+                .putInt(e.attempts).putInt(payload.length).put(payload);
+        return seal(frame, length);
+    }
+
+    private ByteBuffer smallFrame(byte op, long id) {
+        int length = 1 + 8;
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + length);
+        frame.position(FRAME_OVERHEAD);
+        frame.put(op).putLong(id);
+        return seal(frame, length);
+    }
+
+    private ByteBuffer seal(ByteBuffer frame, int length) {
+        crc.reset();
+        crc.update(frame.array(), FRAME_OVERHEAD, length);
+        frame.putInt(0, length);
+        frame.putInt(4, (int) crc.getValue());
+        frame.rewind();
+        return frame;
+    }
+
+    private int checksum(byte[] body, int length) {
+        crc.reset();
+        crc.update(body, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static int putFrameBytes(Entry e) {
+        return FRAME_OVERHEAD + 1 + 8 + 1 + 8 + 4 + 4 + e.payload.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeHeader(FileChannel out, long firstId) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstId).flip();
+        long pos = 0;
+        while (header.hasRemaining()) pos += out.write(header, pos);
+    }
+
+    private void readFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos);
+            if (n < 0) throw new IOException("Unexpected end of journal");
+            pos += n;
+        }
+    }
+
+    /** Makes the rename itself durable where the platform allows it. */
+    private void syncDirectory() {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir == null) return;
+        try (FileChannel d = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException | RuntimeException ignored) {
+            // Not supported everywhere; the rename is still atomic.
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package app.lovable.core;
+
+/**
+ * Fixed-capacity ring of 16-bit PCM samples. When the writer outruns the
+ * reader the oldest samples are overwritten and counted in {@link #getDropped()}.
+ *
+ * Not thread-safe; the audio thread both writes and consumes.
+ */
+public final class PcmRingBuffer {
+    private final short[] data;
+    private int readPos;
+    private int size;
+    private long dropped;
+
+    public PcmRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        data = new short[capacity];
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    public int available() {
+        return size;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void write(short[] src, int offset, int length) {
+        if (length > data.length) {
+            dropped += length - data.length;
+            offset += length - data.length;
+            length = data.length;
+        }
+        int overflow = size + length - data.length;
+        if (overflow > 0) skip(overflow);
+        dropped += Math.max(overflow, 0);
+
+        int writePos = (readPos + size) % data.length;
+        int first = Math.min(length, data.length - writePos);
+        System.arraycopy(src, offset, data, writePos, first);
+        if (first < length) System.arraycopy(src, offset + first, data, 0, length - first);
+        size += length;
+    }
+
+    /** Copies the oldest {@code length} samples into {@code dst} without consuming them. */
+    public void peek(short[] dst, int offset, int length) {
+        if (length > size) throw new IllegalArgumentException("only " + size + " samples available");
+        int first = Math.min(length, data.length - readPos);
+        System.arraycopy(data, readPos, dst, offset, first);
+        if (first < length) System.arraycopy(data, 0, dst, offset + first, length - first);
+    }
+
+    public void skip(int length) {
+        int n = Math.min(length, size);
+        readPos = (readPos + n) % data.length;
+        size -= n;
+    }
+
+    public void clear() {
+        readPos = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timestamps of the startup phases, from process start to a detector
+ * being armed and the WebView being ready, kept in a fixed-size ring so
+ * a long-lived process only remembers its recent starts.
+ *
+ * Marks are cheap (no allocation besides the detail string the caller
+ * passes) and may come from any thread.
+ */
+public final class PhaseTracer {
+    public enum Phase {
+        PROCESS_START,
+        BOOT_COMPLETED,
+        LAUNCH,
+        SERVICE_CREATED,
+        DETECTOR_ARMED,
+        WEBVIEW_READY
+    }
+
+    public static final class Mark {
+        public final Phase phase;
+        /** E.g. the detector that armed; may be null. */
+        public final String detail;
+        public final long atMs;
+
+        Mark(Phase phase, String detail, long atMs) {
+            this.phase = phase;
+            this.detail = detail;
+            this.atMs = atMs;
+        }
+    }
+
+    private final Clock clock;
+    private final Phase[] phases;
+    private final String[] details;
+    private final long[] times;
+    private int next;
+    private int size;
+    private long dropped;
+
+    public PhaseTracer(Clock clock, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.clock = clock;
+        phases = new Phase[capacity];
+        details = new String[capacity];
+        times = new long[capacity];
+    }
+
+    public void mark(Phase phase, String detail) {
+        markAt(phase, detail, clock.nowMs());
+    }
+
+    /** Records a phase that happened earlier, e.g. process start read from the OS. */
+    public synchronized void markAt(Phase phase, String detail, long atMs) {
+        if (size == phases.length) {
+            dropped++;
+        } else {
+            size++;
+        }
+        phases[next] = phase;
+        details[next] = detail;
+        times[next] = atMs;
+        next = (next + 1) % phases.length;
+    }
+
+    /** Marks still in the ring, oldest first. */
+    public synchronized List<Mark> marks() {
+        List<Mark> out = new ArrayList<>(size);
+        int start = (next - size + phases.length) % phases.length;
+        for (int i = 0; i < size; i++) {
+            int at = (start + i) % phases.length;
+            out.add(new Mark(phases[at], details[at], times[at]));
+        }
+        return out;
+    }
+
+    /** Time of the latest mark of the phase, or -1. */
+    public synchronized long last(Phase phase) {
+        int at = indexOfLast(phase);
+        return at < 0 ? -1 : times[at];
+    }
+
+    /**
+     * Time from the latest {@code from} mark to the first {@code to} mark
+     * recorded after it, or -1 if either has not happened yet.
+     */
+    public synchronized long span(Phase from, Phase to) {
+        int at = indexOfLast(from);
+        if (at < 0) return -1;
+        long fromMs = times[at];
+        int oldest = (next - size + phases.length) % phases.length;
+        int steps = (at - oldest + phases.length) % phases.length;
+        for (int i = steps + 1; i < size; i++) {
+            int j = (oldest + i) % phases.length;
+            if (phases[j] == to) return times[j] - fromMs;
+        }
+        return -1;
+    }
+
+    /** Marks overwritten because the ring was full. */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    private int indexOfLast(Phase phase) {
+        for (int i = 1; i <= size; i++) {
+            int at = (next - i + phases.length) % phases.length;
+            if (phases[at] == phase) return at;
+        }
+        return -1;
+    }
+}
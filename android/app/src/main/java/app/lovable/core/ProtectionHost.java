@@ -0,0 +1,163 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lifecycle of the trigger detectors (volume gestures, wake phrase, future
+ * sensors) hosted by the one protection service.
+ *
+ * A detector is created on first use and {@link Detector#start started}
+ * when the user enables it. Disabling it stops it; it is destroyed then,
+ * or once it reports it is no longer {@link Detector#isBusy busy} with a
+ * one-off job (an enrollment or SOS transcription can run while the
+ * detector itself is off), and {@link #release} is called. When no
+ * detector is left, the {@link Listener} is told so the service can stop.
+ *
+ * Not thread-safe; the service drives it from its one detector thread.
+ */
+public final class ProtectionHost {
+    public interface Detector {
+        /** Begin detecting; called when the user enables the detector. */
+        void start();
+
+        /** Stop detecting; a one-off job in progress may keep it busy. */
+        void stop();
+
+        /** Release everything; the detector is not used again. */
+        void destroy();
+
+        /** Still doing something after {@link #stop}, e.g. a recording the user asked for. */
+        boolean isBusy();
+
+        /** Reported with each heartbeat while enabled. */
+        ServiceSupervisor.State state();
+
+        /** Phrase for the shared notification, e.g. "say \"resqme help\"", or null. */
+        String notificationHint();
+    }
+
+    public interface Factory {
+        /** Returns null for an unknown name. */
+        Detector create(String name);
+    }
+
+    public interface Listener {
+        /** The set of detectors or their hints changed; refresh the notification. */
+        void onDetectorsChanged();
+
+        /** No detector is left. */
+        void onEmpty();
+    }
+
+    private final Factory factory;
+    private final Listener listener;
+    private final Map<String, Detector> detectors = new LinkedHashMap<>();
+    private final Set<String> enabled = new LinkedHashSet<>();
+    private long created;
+
+    public ProtectionHost(Factory factory, Listener listener) {
+        this.factory = factory;
+        this.listener = listener;
+    }
+
+    /** The detector, created (but not started) if needed; null if the name is unknown. */
+    public Detector obtain(String name) {
+        Detector d = detectors.get(name);
+        if (d == null) {
+            d = factory.create(name);
+            if (d == null) return null;
+            detectors.put(name, d);
+            created++;
+        }
+        return d;
+    }
+
+    /** Starts the detector unless it is already enabled. Returns false for an unknown name. */
+    public boolean enable(String name) {
+        Detector d = obtain(name);
+        if (d == null) return false;
+        if (enabled.add(name)) {
+            d.start();
+            listener.onDetectorsChanged();
+        }
+        return true;
+    }
+
+    public void disable(String name) {
+        if (!enabled.remove(name)) return;
+        detectors.get(name).stop();
+        listener.onDetectorsChanged();
+        release(name);
+    }
+
+    /** Stops and starts an enabled detector, e.g. after the supervisor saw it stall. */
+    public void restart(String name) {
+        Detector d = detectors.get(name);
+        if (d == null || !enabled.contains(name)) {
+            enable(name);
+            return;
+        }
+        d.stop();
+        d.start();
+    }
+
+    /** A detector's one-off job finished; destroys it if it is neither enabled nor busy. */
+    public void release(String name) {
+        Detector d = detectors.get(name);
+        if (d == null || enabled.contains(name) || d.isBusy()) return;
+        detectors.remove(name);
+        d.destroy();
+        if (detectors.isEmpty()) listener.onEmpty();
+    }
+
+    /** Stops and destroys every detector, e.g. when the service itself is destroyed. */
+    public void destroyAll() {
+        for (Map.Entry<String, Detector> e : detectors.entrySet()) {
+            if (enabled.contains(e.getKey())) e.getValue().stop();
+            e.getValue().destroy();
+        }
+        detectors.clear();
+        enabled.clear();
+    }
+
+    /** True if the detector exists, enabled or busy; unlike {@link #obtain} this never creates it. */
+    public boolean has(String name) {
+        return detectors.containsKey(name);
+    }
+
+    public boolean isEnabled(String name) {
+        return enabled.contains(name);
+    }
+
+    public boolean isEmpty() {
+        return detectors.isEmpty();
+    }
+
+    /** Names of the enabled detectors, in the order they were enabled. */
+    public List<String> enabledNames() {
+        return new ArrayList<>(enabled);
+    }
+
+    /** Hints of the enabled detectors joined with "or", or null if none has one. */
+    public String notificationText() {
+        StringBuilder out = new StringBuilder();
+        for (String name : enabled) {
+            String hint = detectors.get(name).notificationHint();
+            if (hint == null || hint.isEmpty()) continue;
+            if (out.length() > 0) out.append(" or ");
+            out.append(hint);
+        }
+        if (out.length() == 0) return null;
+        return Character.toUpperCase(out.charAt(0)) + out.substring(1);
+    }
+
+    /** Detectors created since the host started; a restart that recreates one counts again. */
+    public long getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,129 @@
+package app.lovable.core;
+
+/**
+ * Duty-cycle state machine for the speech recognizer.
+ *
+ * While closed, only the voice activity detector runs. A VAD onset opens the
+ * gate and starts a recognizer session; each time a session ends the gate
+ * stays open (another session is started) until {@code hangoverMs} have
+ * passed without speech evidence, then it closes again.
+ *
+ * Closed time, and the sessions it avoided, accrue only while the gate is
+ * {@link #park parked}: closed with the VAD holding the microphone. Stopping
+ * listening or turning the gate off pauses it until the next park.
+ *
+ * Times are passed in by the caller so the policy can be driven by a virtual
+ * clock in tests. Methods are synchronized so the plugin thread can read the
+ * counters while the service drives the gate from the main thread.
+ */
+public final class RecognizerGate {
+    /** Assumed length of a back-to-back recognizer session before any have been measured. */
+    static final long DEFAULT_SESSION_MS = 5_000;
+
+    private long hangoverMs;
+    private boolean open;
+    private boolean parked;
+    private long lastSpeechAt;
+    private long parkedSince;
+    private long sessionStartedAt;
+
+    private long sessionsStarted;
+    private long onsets;
+    private long closedMs;
+    private long sessionMsTotal;
+    private long sessionsEnded;
+
+    public RecognizerGate(long hangoverMs) {
+        this.hangoverMs = hangoverMs;
+    }
+
+    public synchronized void setHangoverMs(long hangoverMs) {
+        this.hangoverMs = hangoverMs;
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    /** The VAD has the microphone: closed time accrues from now. */
+    public synchronized void park(long now) {
+        if (open || parked) return;
+        parked = true;
+        parkedSince = now;
+    }
+
+    /** VAD onset: opens the gate and counts the first recognizer session. */
+    public synchronized void open(long now) {
+        if (open) return;
+        unpark(now);
+        open = true;
+        lastSpeechAt = now;
+        onsets++;
+        startSession(now);
+    }
+
+    /** Recognizer reported speech (beginning of speech, partial or final results). */
+    public synchronized void noteSpeech(long now) {
+        lastSpeechAt = now;
+    }
+
+    /**
+     * A recognizer session ended. Returns true if another session should be
+     * started, or false if the gate closed and the VAD should take over.
+     */
+    public synchronized boolean onSessionEnded(long now) {
+        if (!open) return false;
+        sessionMsTotal += now - sessionStartedAt;
+        sessionsEnded++;
+        if (now - lastSpeechAt >= hangoverMs) {
+            // Closed, but not accruing until the VAD has the microphone again.
+            open = false;
+            return false;
+        }
+        startSession(now);
+        return true;
+    }
+
+    /** Forces the gate closed and stops accruing, e.g. when listening stops or the gate is turned off. */
+    public synchronized void close(long now) {
+        open = false;
+        unpark(now);
+    }
+
+    private void unpark(long now) {
+        if (!parked) return;
+        closedMs += now - parkedSince;
+        parked = false;
+    }
+
+    private void startSession(long now) {
+        sessionStartedAt = now;
+        sessionsStarted++;
+    }
+
+    public synchronized long getSessionsStarted() {
+        return sessionsStarted;
+    }
+
+    public synchronized long getOnsets() {
+        return onsets;
+    }
+
+    /** Total time spent parked on the VAD, including the current stretch. */
+    public synchronized long getClosedMs(long now) {
+        return closedMs + (parked ? now - parkedSince : 0);
+    }
+
+    /** Average measured session length, or {@link #DEFAULT_SESSION_MS} before any session ended. */
+    public synchronized long getAverageSessionMs() {
+        return sessionsEnded == 0 ? DEFAULT_SESSION_MS : Math.max(1, sessionMsTotal / sessionsEnded);
+    }
+
+    /**
+     * Estimated number of recognizer sessions an always-on loop would have
+     * started while the gate was closed.
+     */
+    public synchronized long getSessionsAvoided(long now) {
+        return getClosedMs(now) / getAverageSessionMs();
+    }
+}
@@ -0,0 +1,463 @@
+package app.lovable.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Alert recordings kept as plain files next to a fixed-slot, memory-mapped
+ * index of their metadata.
+ *
+ * The index is a 16-byte header (magic, version, slot count) followed by
+ * {@link #SLOT_BYTES}-byte slots holding flags, CRC-32 and size of the
+ * audio, creation time, duration, location and short strings (alert id,
+ * user id, mime type, user name). Listing reads the slots straight out of
+ * the mapping, so it never opens an audio file and costs the same whether
+ * the recordings are seconds or minutes long. Full slots double the index.
+ *
+ * A recording's file is written to a temporary name, synced and renamed
+ * before its slot is filled in, and the slot's flags byte is written last,
+ * so a crash leaves either the old state or the new one. On open, slots
+ * whose audio is missing or the wrong size keep their alert but lose the
+ * audio flag, and files no slot refers to are deleted.
+ *
+ * Thread-safe.
+ */
+public final class RecordingStore implements Closeable {
+    static final int MAGIC = 0x52515253; // "RQRS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int SLOT_BYTES = 256;
+    static final String INDEX_NAME = "index.bin";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    static final int FLAG_LIVE = 1;
+    static final int FLAG_AUDIO = 2;
+    static final int FLAG_SYNCED = 4;
+    static final int FLAG_SMS_SENT = 8;
+
+    private static final int OFF_FLAGS = 0;
+    private static final int OFF_CRC = 4;
+    private static final int OFF_CREATED = 8;
+    private static final int OFF_SIZE = 16;
+    private static final int OFF_DURATION = 24;
+    private static final int OFF_LAT = 32;
+    private static final int OFF_LNG = 40;
+    private static final int OFF_ALERT_ID = 48;
+    private static final int OFF_USER_ID = 89;
+    private static final int OFF_MIME = 130;
+    private static final int OFF_USER_NAME = 156;
+    static final int MAX_ID_BYTES = 40;
+    static final int MAX_MIME_BYTES = 25;
+    static final int MAX_NAME_BYTES = 99;
+
+    /** What the caller knows about a recording before it is stored. */
+    public static final class Meta {
+        public final String alertId;
+        public final String userId;
+        public final String userName;
+        public final String mimeType;
+        public final long createdAtMs;
+        public final int durationMs;
+        /** NaN when the location was unknown. */
+        public final double latitude;
+        public final double longitude;
+
+        public Meta(String alertId, String userId, String userName, String mimeType, long createdAtMs,
+                    int durationMs, double latitude, double longitude) {
+            this.alertId = alertId;
+            this.userId = userId == null ? "" : userId;
+            this.userName = userName == null ? "" : userName;
+            this.mimeType = mimeType == null ? "" : mimeType;
+            this.createdAtMs = createdAtMs;
+            this.durationMs = durationMs;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    public static final class Entry {
+        public final Meta meta;
+        /** The audio file, or null if the alert has none. */
+        public final File file;
+        public final long sizeBytes;
+        public final int crc32;
+        public final boolean synced;
+        public final boolean smsSent;
+
+        Entry(Meta meta, File file, long sizeBytes, int crc32, boolean synced, boolean smsSent) {
+            this.meta = meta;
+            this.file = file;
+            this.sizeBytes = sizeBytes;
+            this.crc32 = crc32;
+            this.synced = synced;
+            this.smsSent = smsSent;
+        }
+    }
+
+    private final File dir;
+    private final File indexFile;
+    private final FileChannel channel;
+    private MappedByteBuffer index;
+    private int slots;
+    private final Map<String, Integer> byAlert = new HashMap<>();
+    private final ArrayDeque<Integer> free = new ArrayDeque<>();
+    private final byte[] copyBuf = new byte[64 * 1024];
+    private final LatencyHistogram listTime = new LatencyHistogram();
+    private final Clock clock;
+    private long repaired;
+
+    /** Opens (or creates) the store in {@code dir}, repairing slots and files a crash left inconsistent. */
+    public RecordingStore(File dir, int initialSlots, Clock clock) throws IOException {
+        if (initialSlots < 1) throw new IllegalArgumentException("initialSlots must be positive");
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        this.dir = dir;
+        this.clock = clock;
+        this.indexFile = new File(dir, INDEX_NAME);
+        channel = FileChannel.open(indexFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            open(initialSlots);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void open(int initialSlots) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            map(initialSlots);
+            index.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, initialSlots);
+            index.force();
+        } else {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a recording index: " + indexFile);
+            int version = header.getInt(4);
+            if (version != VERSION) throw new IOException("Unsupported recording index version " + version);
+            int n = header.getInt(8);
+            if (n < 1) throw new IOException("Corrupt recording index: " + n + " slots");
+            // A grow torn before the header was updated leaves zeroed, i.e. free, slots past n.
+            map(n);
+        }
+        Set<String> referenced = new HashSet<>();
+        for (int s = 0; s < slots; s++) {
+            int flags = flags(s);
+            if ((flags & FLAG_LIVE) == 0) {
+                free.add(s);
+                continue;
+            }
+            String alertId = readString(s, OFF_ALERT_ID);
+            if (byAlert.containsKey(alertId)) {
+                // Only possible from a hand-edited or corrupt index; keep the first.
+                index.put(base(s) + OFF_FLAGS, (byte) 0);
+                free.add(s);
+                repaired++;
+                continue;
+            }
+            byAlert.put(alertId, s);
+            if ((flags & FLAG_AUDIO) != 0) {
+                File f = audioFile(alertId, readString(s, OFF_MIME));
+                if (f.length() != index.getLong(base(s) + OFF_SIZE)) {
+                    index.put(base(s) + OFF_FLAGS, (byte) (flags & ~FLAG_AUDIO));
+                    repaired++;
+                } else {
+                    referenced.add(f.getName());
+                }
+            }
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.getName().equals(INDEX_NAME) || referenced.contains(f.getName())) continue;
+                if (f.delete()) repaired++;
+            }
+        }
+        if (repaired > 0) index.force();
+    }
+
+    private void map(int n) throws IOException {
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) n * SLOT_BYTES);
+        slots = n;
+    }
+
+    private void grow() throws IOException {
+        int from = slots;
+        int to = from * 2;
+        map(to);
+        index.putInt(8, to);
+        index.force();
+        for (int s = from; s < to; s++) free.add(s);
+    }
+
+    /**
+     * Stores an alert and its audio, replacing any earlier recording of the
+     * same alert. With null audio only the metadata changes and audio
+     * already stored for the alert is kept. Returns the stored entry.
+     */
+    public synchronized Entry put(Meta meta, InputStream audio) throws IOException {
+        checkMeta(meta);
+        File tmp = null;
+        long size = 0;
+        int crc = 0;
+        if (audio != null) {
+            tmp = new File(dir, meta.alertId + TMP_SUFFIX);
+            CRC32 c = new CRC32();
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                int n;
+                while ((n = audio.read(copyBuf)) > 0) {
+                    c.update(copyBuf, 0, n);
+                    out.write(copyBuf, 0, n);
+                    size += n;
+                }
+                out.getFD().sync();
+            } catch (IOException e) {
+                tmp.delete();
+                throw e;
+            }
+            crc = (int) c.getValue();
+        }
+        return commit(meta, tmp, size, crc);
+    }
+
+    /** Moves an existing file (e.g. a finished native recording) into the store under {@code meta}. */
+    public synchronized Entry adopt(Meta meta, File source) throws IOException {
+        checkMeta(meta);
+        if (!source.isFile()) throw new IOException("No such recording: " + source);
+        File tmp = new File(dir, meta.alertId + TMP_SUFFIX);
+        move(source, tmp);
+        CRC32 c = new CRC32();
+        try (InputStream in = new FileInputStream(tmp)) {
+            int n;
+            while ((n = in.read(copyBuf)) > 0) c.update(copyBuf, 0, n);
+        }
+        return commit(meta, tmp, tmp.length(), (int) c.getValue());
+    }
+
+    private Entry commit(Meta meta, File tmp, long size, int crc) throws IOException {
+        Integer existing = byAlert.get(meta.alertId);
+        int flagsBefore = existing != null ? flags(existing) : 0;
+        boolean hadAudio = (flagsBefore & FLAG_AUDIO) != 0;
+        if (tmp != null) {
+            File previous = hadAudio ? audioFile(meta.alertId, readString(existing, OFF_MIME)) : null;
+            File target = audioFile(meta.alertId, meta.mimeType);
+            move(tmp, target);
+            if (previous != null && !previous.equals(target)) previous.delete();
+        } else if (hadAudio) {
+            // Metadata-only update: the file name depends on the stored mime type, so that stays.
+            int b = base(existing);
+            size = index.getLong(b + OFF_SIZE);
+            crc = index.getInt(b + OFF_CRC);
+            meta = new Meta(meta.alertId, meta.userId, meta.userName, readString(existing, OFF_MIME),
+                    meta.createdAtMs, meta.durationMs, meta.latitude, meta.longitude);
+        }
+        boolean audio = tmp != null || hadAudio;
+
+        if (existing == null && free.isEmpty()) grow();
+        int s = existing != null ? existing : free.poll();
+        int b = base(s);
+        // Clear the slot's flags first: a crash mid-write must not leave a live slot with mixed fields.
+        index.put(b + OFF_FLAGS, (byte) 0);
+        index.putInt(b + OFF_CRC, crc);
+        index.putLong(b + OFF_CREATED, meta.createdAtMs);
+        index.putLong(b + OFF_SIZE, size);
+        index.putInt(b + OFF_DURATION, meta.durationMs);
+        index.putDouble(b + OFF_LAT, meta.latitude);
+        index.putDouble(b + OFF_LNG, meta.longitude);
+        writeString(s, OFF_ALERT_ID, MAX_ID_BYTES, meta.alertId);
+        writeString(s, OFF_USER_ID, MAX_ID_BYTES, meta.userId);
+        writeString(s, OFF_MIME, MAX_MIME_BYTES, meta.mimeType);
+        writeString(s, OFF_USER_NAME, MAX_NAME_BYTES, meta.userName);
+        // Re-recording an alert keeps its sync and SMS state.
+        int flags = FLAG_LIVE | (audio ? FLAG_AUDIO : 0) | (flagsBefore & (FLAG_SYNCED | FLAG_SMS_SENT));
+        index.put(b + OFF_FLAGS, (byte) flags);
+        index.force();
+        byAlert.put(meta.alertId, s);
+        return read(s);
+    }
+
+    public synchronized Entry get(String alertId) {
+        Integer s = byAlert.get(alertId);
+        return s == null ? null : read(s);
+    }
+
+    /** Stored alerts, oldest first; with {@code pendingOnly}, only those not yet synced. No audio is read. */
+    public synchronized List<Entry> list(boolean pendingOnly) {
+        long start = clock.nowNanos();
+        List<Entry> out = new ArrayList<>(byAlert.size());
+        for (int s : byAlert.values()) {
+            if (pendingOnly && (flags(s) & FLAG_SYNCED) != 0) continue;
+            out.add(read(s));
+        }
+        out.sort((a, b) -> Long.compare(a.meta.createdAtMs, b.meta.createdAtMs));
+        listTime.recordNanos(clock.nowNanos() - start);
+        return out;
+    }
+
+    /** Sets or clears the synced and SMS-sent flags; returns false for an unknown alert. */
+    public synchronized boolean setState(String alertId, Boolean synced, Boolean smsSent) {
+        Integer s = byAlert.get(alertId);
+        if (s == null) return false;
+        int flags = flags(s);
+        if (synced != null) flags = synced ? flags | FLAG_SYNCED : flags & ~FLAG_SYNCED;
+        if (smsSent != null) flags = smsSent ? flags | FLAG_SMS_SENT : flags & ~FLAG_SMS_SENT;
+        index.put(base(s) + OFF_FLAGS, (byte) flags);
+        index.force();
+        return true;
+    }
+
+    /** Deletes an alert and its audio; returns false if it was unknown. */
+    public synchronized boolean remove(String alertId) {
+        Integer s = byAlert.remove(alertId);
+        if (s == null) return false;
+        release(s, alertId);
+        index.force();
+        return true;
+    }
+
+    /** Deletes every synced alert and returns how many there were. */
+    public synchronized int removeSynced() {
+        List<String> synced = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : byAlert.entrySet()) {
+            if ((flags(e.getValue()) & FLAG_SYNCED) != 0) synced.add(e.getKey());
+        }
+        for (String id : synced) release(byAlert.remove(id), id);
+        if (!synced.isEmpty()) index.force();
+        return synced.size();
+    }
+
+    /** Re-reads the audio and compares it with the checksum in the index. */
+    public synchronized boolean verify(String alertId) throws IOException {
+        Integer s = byAlert.get(alertId);
+        if (s == null) return false;
+        Entry e = read(s);
+        if (e.file == null) return true;
+        CRC32 c = new CRC32();
+        try (InputStream in = new FileInputStream(e.file)) {
+            int n;
+            while ((n = in.read(copyBuf)) > 0) c.update(copyBuf, 0, n);
+        }
+        return (int) c.getValue() == e.crc32;
+    }
+
+    public synchronized int size() {
+        return byAlert.size();
+    }
+
+    public synchronized int capacity() {
+        return slots;
+    }
+
+    /** Slots and files fixed up when the store was opened. */
+    public synchronized long getRepaired() {
+        return repaired;
+    }
+
+    public LatencyHistogram getListTime() {
+        return listTime;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        channel.close();
+    }
+
+    private void release(int s, String alertId) {
+        if ((flags(s) & FLAG_AUDIO) != 0) audioFile(alertId, readString(s, OFF_MIME)).delete();
+        index.put(base(s) + OFF_FLAGS, (byte) 0);
+        free.add(s);
+    }
+
+    private Entry read(int s) {
+        int b = base(s);
+        int flags = flags(s);
+        Meta meta = new Meta(readString(s, OFF_ALERT_ID), readString(s, OFF_USER_ID),
+                readString(s, OFF_USER_NAME), readString(s, OFF_MIME), index.getLong(b + OFF_CREATED),
+                index.getInt(b + OFF_DURATION), index.getDouble(b + OFF_LAT), index.getDouble(b + OFF_LNG));
+        boolean audio = (flags & FLAG_AUDIO) != 0;
+        return new Entry(meta, audio ? audioFile(meta.alertId, meta.mimeType) : null,
+                audio ? index.getLong(b + OFF_SIZE) : 0, index.getInt(b + OFF_CRC),
+                (flags & FLAG_SYNCED) != 0, (flags & FLAG_SMS_SENT) != 0);
+    }
+
+    private int flags(int s) {
+        return index.get(base(s) + OFF_FLAGS) & 0xFF;
+    }
+
+    private static int base(int s) {
+        return HEADER_BYTES + s * SLOT_BYTES;
+    }
+
+    private String readString(int s, int off) {
+        int b = base(s) + off;
+        int n = index.get(b) & 0xFF;
+        byte[] bytes = new byte[n];
+        for (int i = 0; i < n; i++) bytes[i] = index.get(b + 1 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Writes a length-prefixed string, cut at a character boundary if it is too long. */
+    private void writeString(int s, int off, int max, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(bytes.length, max);
+        while (n < bytes.length && n > 0 && (bytes[n] & 0xC0) == 0x80) n--;
+        int b = base(s) + off;
+        index.put(b, (byte) n);
+        for (int i = 0; i < n; i++) index.put(b + 1 + i, bytes[i]);
+    }
+
+    private static void checkMeta(Meta meta) {
+        String id = meta.alertId;
+        if (id == null || id.isEmpty() || id.length() > MAX_ID_BYTES || !id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Bad alert id: " + id);
+        }
+        if (meta.userId.getBytes(StandardCharsets.UTF_8).length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("User id too long");
+        }
+        if (meta.mimeType.getBytes(StandardCharsets.UTF_8).length > MAX_MIME_BYTES) {
+            throw new IllegalArgumentException("Mime type too long: " + meta.mimeType);
+        }
+    }
+
+    private File audioFile(String alertId, String mimeType) {
+        return new File(dir, alertId + extension(mimeType));
+    }
+
+    static String extension(String mimeType) {
+        String m = mimeType.toLowerCase(Locale.ROOT);
+        if (m.contains("aac")) return ".aac";
+        if (m.contains("webm")) return ".webm";
+        if (m.contains("mp4") || m.contains("m4a")) return ".m4a";
+        if (m.contains("ogg")) return ".ogg";
+        if (m.contains("wav")) return ".wav";
+        return ".bin";
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
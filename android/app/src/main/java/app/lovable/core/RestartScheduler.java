@@ -0,0 +1,246 @@
+package app.lovable.core;
+
+import java.util.Random;
+
+/**
+ * Decides when and how to restart the speech recognizer after each session
+ * ends or fails.
+ *
+ * Error codes are classified into per-class policies: benign endings
+ * (no match, speech timeout) restart right away; transient failures
+ * (network, server, audio) back off exponentially with jitter; recognizer
+ * faults (client error, busy) back off and recreate the recognizer; fatal
+ * errors (permissions, unsupported language) suspend it. Repeated failures
+ * inside a time window trip a circuit breaker that suspends the recognizer
+ * for a growing cool-down, after which a single probe session decides
+ * whether to resume.
+ *
+ * Every state change is reported to the {@link Listener}. Not thread-safe;
+ * WakeWordDetector drives it from the main thread.
+ */
+public final class RestartScheduler {
+    // Mirrors android.speech.SpeechRecognizer.ERROR_* so this class stays platform-independent.
+    public static final int ERROR_NETWORK_TIMEOUT = 1;
+    public static final int ERROR_NETWORK = 2;
+    public static final int ERROR_AUDIO = 3;
+    public static final int ERROR_SERVER = 4;
+    public static final int ERROR_CLIENT = 5;
+    public static final int ERROR_SPEECH_TIMEOUT = 6;
+    public static final int ERROR_NO_MATCH = 7;
+    public static final int ERROR_RECOGNIZER_BUSY = 8;
+    public static final int ERROR_INSUFFICIENT_PERMISSIONS = 9;
+    public static final int ERROR_TOO_MANY_REQUESTS = 10;
+    public static final int ERROR_SERVER_DISCONNECTED = 11;
+    public static final int ERROR_LANGUAGE_NOT_SUPPORTED = 12;
+    public static final int ERROR_LANGUAGE_UNAVAILABLE = 13;
+
+    static final long IMMEDIATE_DELAY_MS = 50;
+    static final long BACKOFF_BASE_MS = 250;
+    static final long BACKOFF_MAX_MS = 30_000;
+    static final int BREAKER_FAILURES = 6;
+    static final long BREAKER_WINDOW_MS = 60_000;
+    static final long COOLDOWN_BASE_MS = 60_000;
+    static final long COOLDOWN_MAX_MS = 15 * 60_000;
+
+    public enum State {
+        /** Sessions are ending normally. */
+        RUNNING,
+        /** Retrying after failures with growing delays. */
+        BACKOFF,
+        /** Breaker tripped; the recognizer is suspended until the probe. */
+        OPEN,
+        /** One probe session is running after the cool-down. */
+        HALF_OPEN
+    }
+
+    public enum ErrorClass { BENIGN, TRANSIENT, RECOGNIZER_FAULT, FATAL }
+
+    public enum Action {
+        /** cancel() + startListening() on the existing recognizer. */
+        RESTART,
+        /** destroy() the recognizer and create a new one. */
+        RECREATE,
+        /** Stop the recognizer; call {@link #onProbeDue()} after the delay. */
+        SUSPEND
+    }
+
+    public static final class Decision {
+        public final Action action;
+        public final long delayMs;
+
+        Decision(Action action, long delayMs) {
+            this.action = action;
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public String toString() {
+            return action + " in " + delayMs + " ms";
+        }
+    }
+
+    public interface Listener {
+        void onStateChanged(State from, State to, String reason);
+    }
+
+    private static final Decision RESTART_NOW = new Decision(Action.RESTART, IMMEDIATE_DELAY_MS);
+
+    private final Clock clock;
+    private final Random random;
+    private final Listener listener;
+
+    private State state = State.RUNNING;
+    private int consecutiveFailures;
+    private int trips;
+    private final long[] failureTimes = new long[BREAKER_FAILURES];
+    private int failureCursor;
+    private final long[] errorCounts = new long[ErrorClass.values().length];
+
+    public RestartScheduler(Clock clock, Random random, Listener listener) {
+        this.clock = clock;
+        this.random = random;
+        this.listener = listener;
+        for (int i = 0; i < failureTimes.length; i++) failureTimes[i] = Long.MIN_VALUE;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getErrorCount(ErrorClass errorClass) {
+        return errorCounts[errorClass.ordinal()];
+    }
+
+    public static ErrorClass classify(int error) {
+        switch (error) {
+            case ERROR_NO_MATCH:
+            case ERROR_SPEECH_TIMEOUT:
+                return ErrorClass.BENIGN;
+            case ERROR_CLIENT:
+            case ERROR_RECOGNIZER_BUSY:
+                return ErrorClass.RECOGNIZER_FAULT;
+            case ERROR_INSUFFICIENT_PERMISSIONS:
+            case ERROR_LANGUAGE_NOT_SUPPORTED:
+            case ERROR_LANGUAGE_UNAVAILABLE:
+                return ErrorClass.FATAL;
+            case ERROR_NETWORK_TIMEOUT:
+            case ERROR_NETWORK:
+            case ERROR_AUDIO:
+            case ERROR_SERVER:
+            case ERROR_TOO_MANY_REQUESTS:
+            case ERROR_SERVER_DISCONNECTED:
+            default:
+                return ErrorClass.TRANSIENT;
+        }
+    }
+
+    /** A session delivered final results. */
+    public Decision onSessionEnded() {
+        recordSuccess("session completed");
+        return RESTART_NOW;
+    }
+
+    /** The recognizer heard speech; the current setup evidently works. */
+    public void onSpeechDetected() {
+        recordSuccess("speech detected");
+    }
+
+    public Decision onError(int error) {
+        ErrorClass errorClass = classify(error);
+        errorCounts[errorClass.ordinal()]++;
+
+        if (state == State.OPEN) {
+            // Late callback from the suspended recognizer.
+            return new Decision(Action.SUSPEND, cooldownMs());
+        }
+
+        switch (errorClass) {
+            case BENIGN:
+                // Silence is not a failure, but it does not prove a HALF_OPEN probe healthy either.
+                return RESTART_NOW;
+            case FATAL:
+                return trip("fatal error " + error);
+            default:
+                break;
+        }
+
+        long now = clock.nowMs();
+        if (state == State.HALF_OPEN) {
+            return trip("probe failed with error " + error);
+        }
+
+        failureTimes[failureCursor] = now;
+        failureCursor = (failureCursor + 1) % failureTimes.length;
+        if (failuresInWindow(now) >= BREAKER_FAILURES) {
+            return trip(BREAKER_FAILURES + " failures within " + (BREAKER_WINDOW_MS / 1000) + " s");
+        }
+
+        consecutiveFailures++;
+        transition(State.BACKOFF, "error " + error + " (" + errorClass + ")");
+        Action action = errorClass == ErrorClass.RECOGNIZER_FAULT ? Action.RECREATE : Action.RESTART;
+        return new Decision(action, backoffMs());
+    }
+
+    /** The suspension delay elapsed: allow one probe session with a fresh recognizer. */
+    public Decision onProbeDue() {
+        if (state != State.OPEN) return RESTART_NOW;
+        transition(State.HALF_OPEN, "cool-down elapsed");
+        return new Decision(Action.RECREATE, 0);
+    }
+
+    /** Clears all failure history, e.g. when listening is restarted by the user. */
+    public void reset() {
+        consecutiveFailures = 0;
+        trips = 0;
+        for (int i = 0; i < failureTimes.length; i++) failureTimes[i] = Long.MIN_VALUE;
+        transition(State.RUNNING, "reset");
+    }
+
+    private void recordSuccess(String reason) {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) trips = 0;
+        if (state == State.BACKOFF || state == State.HALF_OPEN) {
+            transition(State.RUNNING, reason);
+        }
+    }
+
+    private Decision trip(String reason) {
+        trips++;
+        consecutiveFailures = 0;
+        for (int i = 0; i < failureTimes.length; i++) failureTimes[i] = Long.MIN_VALUE;
+        transition(State.OPEN, reason);
+        return new Decision(Action.SUSPEND, cooldownMs());
+    }
+
+    private int failuresInWindow(long now) {
+        int n = 0;
+        for (long t : failureTimes) {
+            if (t != Long.MIN_VALUE && now - t < BREAKER_WINDOW_MS) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Equal jitter: uniform in [d/2, d] with d = base * 2^(failures-1), capped.
+     * Unlike the full jitter of the SMS and upload retries this keeps a floor,
+     * so a recognizer that keeps failing is never recreated straight away.
+     */
+    private long backoffMs() {
+        int exp = Math.min(consecutiveFailures - 1, 20);
+        long d = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << exp);
+        long half = d / 2;
+        return half + (long) (random.nextDouble() * (d - half));
+    }
+
+    private long cooldownMs() {
+        int exp = Math.min(Math.max(trips - 1, 0), 10);
+        return Math.min(COOLDOWN_MAX_MS, COOLDOWN_BASE_MS << exp);
+    }
+
+    private void transition(State to, String reason) {
+        if (state == to) return;
+        State from = state;
+        state = to;
+        if (listener != null) listener.onStateChanged(from, to, reason);
+    }
+}
@@ -0,0 +1,225 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Liveness registry and watchdog for the protection services.
+ *
+ * Each service reports a heartbeat with its {@link State} every few
+ * seconds and {@link #stopped} from onDestroy. A service that is
+ * {@link #setExpected expected} to run is failed when it stopped, has
+ * not beaten for {@code staleMs}, or never came up within {@code staleMs}
+ * of being expected. {@link #check} (run by a timer every few seconds, so
+ * a stall is detected within {@code staleMs} plus one check) restarts a
+ * failed service through the {@link Restarter}: the first time at once,
+ * then with exponential backoff up to {@code maxBackoffMs}. The backoff
+ * resets once the service has stayed up for {@code healthyResetMs}.
+ *
+ * Time-to-detect runs from the last sign of life to the failure being
+ * noticed; time-to-recover from then to the next ARMED or DEGRADED
+ * heartbeat.
+ *
+ * Thread-safe; the restarter is called outside the lock.
+ */
+public final class ServiceSupervisor {
+    public enum State {
+        /** Starting up: permissions, recognizer, media session. */
+        ARMING,
+        /** Listening for triggers as configured. */
+        ARMED,
+        /** Running, but a trigger source is down (e.g. recognizer suspended with no fallback). */
+        DEGRADED,
+        /** Not running. */
+        STOPPED
+    }
+
+    public interface Restarter {
+        void restart(String service);
+    }
+
+    public static final class Status {
+        public final String service;
+        public final State state;
+        public final boolean expected;
+        /** Beat within {@code staleMs} and not stopped. */
+        public final boolean alive;
+        /** Time since the last heartbeat, or -1 if there has been none. */
+        public final long sinceHeartbeatMs;
+        /** Failure detected and not yet recovered from. */
+        public final boolean failed;
+        public final long restarts;
+
+        Status(String service, State state, boolean expected, boolean alive, long sinceHeartbeatMs,
+               boolean failed, long restarts) {
+            this.service = service;
+            this.state = state;
+            this.expected = expected;
+            this.alive = alive;
+            this.sinceHeartbeatMs = sinceHeartbeatMs;
+            this.failed = failed;
+            this.restarts = restarts;
+        }
+    }
+
+    private static final class Record {
+        State state = State.STOPPED;
+        boolean expected;
+        long expectedSinceMs;
+        long lastBeatMs = -1;
+        /** When the failure was noticed, or -1 while healthy. */
+        long failedAtMs = -1;
+        long restartAtMs;
+        int attempts;
+        long restarts;
+        long recoveredAtMs = -1;
+    }
+
+    private final Clock clock;
+    private final Restarter restarter;
+    private final long staleMs;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final long healthyResetMs;
+    private final Map<String, Record> records = new LinkedHashMap<>();
+    private final LatencyHistogram timeToDetect = new LatencyHistogram();
+    private final LatencyHistogram timeToRecover = new LatencyHistogram();
+    private long failures;
+
+    public ServiceSupervisor(Clock clock, Restarter restarter, long staleMs, long baseBackoffMs,
+                             long maxBackoffMs, long healthyResetMs) {
+        if (staleMs < 1) throw new IllegalArgumentException("staleMs must be positive");
+        if (baseBackoffMs < 1 || maxBackoffMs < baseBackoffMs) {
+            throw new IllegalArgumentException("Need 0 < baseBackoffMs <= maxBackoffMs");
+        }
+        this.clock = clock;
+        this.restarter = restarter;
+        this.staleMs = staleMs;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.healthyResetMs = healthyResetMs;
+    }
+
+    private Record record(String service) {
+        Record r = records.get(service);
+        if (r == null) {
+            r = new Record();
+            records.put(service, r);
+        }
+        return r;
+    }
+
+    /** Whether the user has the service turned on; only expected services are restarted. */
+    public synchronized void setExpected(String service, boolean expected) {
+        Record r = record(service);
+        if (r.expected == expected) return;
+        r.expected = expected;
+        r.expectedSinceMs = clock.nowMs();
+        if (!expected) {
+            // Turned off: whatever failure was pending is no longer ours to fix.
+            r.failedAtMs = -1;
+            r.attempts = 0;
+        }
+    }
+
+    public synchronized void heartbeat(String service, State state) {
+        if (state == State.STOPPED) throw new IllegalArgumentException("Use stopped() for STOPPED");
+        long now = clock.nowMs();
+        Record r = record(service);
+        r.state = state;
+        r.lastBeatMs = now;
+        if (r.failedAtMs >= 0 && state != State.ARMING) {
+            timeToRecover.record((now - r.failedAtMs) * 1_000L);
+            r.failedAtMs = -1;
+            r.recoveredAtMs = now;
+        } else if (r.recoveredAtMs < 0 && state != State.ARMING) {
+            r.recoveredAtMs = now;
+        }
+    }
+
+    /** The service is going away; if it is still expected this counts as a failure right now. */
+    public synchronized void stopped(String service) {
+        long now = clock.nowMs();
+        Record r = record(service);
+        r.state = State.STOPPED;
+        r.lastBeatMs = now;
+        if (r.expected && r.failedAtMs < 0) fail(r, now, now);
+    }
+
+    private void fail(Record r, long lastSignMs, long now) {
+        if (r.recoveredAtMs >= 0 && now - r.recoveredAtMs >= healthyResetMs) r.attempts = 0;
+        r.failedAtMs = now;
+        r.recoveredAtMs = -1;
+        r.restartAtMs = now + backoff(r.attempts);
+        failures++;
+        timeToDetect.record((now - lastSignMs) * 1_000L);
+    }
+
+    private long backoff(int attempts) {
+        if (attempts == 0) return 0;
+        return Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts - 1, 30));
+    }
+
+    private boolean alive(Record r, long now) {
+        return r.state != State.STOPPED && r.lastBeatMs >= 0 && now - r.lastBeatMs <= staleMs;
+    }
+
+    /** Detects failures and restarts what is due; returns the services restarted. */
+    public List<String> check() {
+        List<String> due = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.nowMs();
+            for (Map.Entry<String, Record> e : records.entrySet()) {
+                Record r = e.getValue();
+                if (!r.expected) continue;
+                boolean alive = alive(r, now);
+                if (r.failedAtMs < 0) {
+                    if (alive) continue;
+                    if (r.state != State.STOPPED && r.lastBeatMs >= 0) {
+                        fail(r, r.lastBeatMs, now);
+                    } else if (now - Math.max(r.expectedSinceMs, r.lastBeatMs) > staleMs) {
+                        // Never came up, or stopped without telling us.
+                        fail(r, Math.max(r.expectedSinceMs, r.lastBeatMs), now);
+                    } else {
+                        continue;
+                    }
+                }
+                // Beating again but still arming: give it until it goes stale.
+                if (alive || now < r.restartAtMs) continue;
+                r.attempts++;
+                r.restarts++;
+                r.restartAtMs = now + staleMs + backoff(r.attempts);
+                due.add(e.getKey());
+            }
+        }
+        for (String service : due) restarter.restart(service);
+        return due;
+    }
+
+    public synchronized Status status(String service) {
+        long now = clock.nowMs();
+        Record r = records.get(service);
+        if (r == null) return new Status(service, State.STOPPED, false, false, -1, false, 0);
+        boolean alive = alive(r, now);
+        State state = alive || r.state == State.STOPPED ? r.state : State.STOPPED;
+        long since = r.lastBeatMs < 0 ? -1 : now - r.lastBeatMs;
+        return new Status(service, state, r.expected, alive, since, r.failedAtMs >= 0, r.restarts);
+    }
+
+    /** Failures detected so far, for every service. */
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /** Last sign of life to failure noticed. */
+    public LatencyHistogram getTimeToDetect() {
+        return timeToDetect;
+    }
+
+    /** Failure noticed to the service reporting ARMED or DEGRADED again. */
+    public LatencyHistogram getTimeToRecover() {
+        return timeToRecover;
+    }
+}
@@ -0,0 +1,287 @@
+package app.lovable.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * The user's protection settings (which triggers are on, the volume
+ * gestures, the wake phrase and its voice gate) as one typed, immutable
+ * {@link Snapshot}.
+ *
+ * Storage is read once, when the store is created. An {@link Editor} builds
+ * the next snapshot, which replaces the current one atomically; listeners
+ * then hear about it, so a running detector can reconfigure itself without
+ * being sent a command. Changed keys are written back on the writer
+ * executor; edits made before a write starts go out together in that write.
+ */
+public final class SettingsStore {
+    public static final String KEY_VOLUME_ENABLED = "background_service_enabled";
+    public static final String KEY_GESTURE_SIMULTANEOUS = "gesture_simultaneous";
+    public static final String KEY_GESTURE_RAPID_PRESSES = "gesture_rapid_presses";
+    public static final String KEY_GESTURE_LONG_HOLD_MS = "gesture_long_hold_ms";
+    public static final String KEY_GESTURE_UP_DOWN_UP = "gesture_up_down_up";
+    public static final String KEY_WAKE_WORD_ENABLED = "wake_word_enabled";
+    public static final String KEY_WAKE_WORD = "wake_word";
+    public static final String KEY_WAKE_ENGINE = "wake_engine";
+    public static final String KEY_VOICE_GATE_ENABLED = "voice_gate_enabled";
+    public static final String KEY_VOICE_GATE_ON_DB = "voice_gate_on_threshold_db";
+    public static final String KEY_VOICE_GATE_OFF_DB = "voice_gate_off_threshold_db";
+    public static final String KEY_VOICE_GATE_HANGOVER_MS = "voice_gate_hangover_ms";
+
+    public static final String DEFAULT_WAKE_WORD = "resqme";
+    public static final String DEFAULT_WAKE_ENGINE = "recognizer";
+
+    /** Where the settings live, e.g. a SharedPreferences file. */
+    public interface Storage {
+        /** Everything stored; keys this class does not know are ignored. */
+        Map<String, ?> load();
+
+        /** Persists the changed keys. Values are Boolean, Integer, Long, Float or String. */
+        void write(Map<String, Object> changes);
+    }
+
+    public interface Listener {
+        /** Called on the editing thread, after the new snapshot is visible through {@link #get}. */
+        void onSettingsChanged(Snapshot before, Snapshot after);
+    }
+
+    public static final class Snapshot {
+        public final boolean volumeEnabled;
+        public final boolean gestureSimultaneous;
+        /** 0 when the rapid-presses gesture is off. */
+        public final int gestureRapidPresses;
+        /** 0 when the long-hold gesture is off. */
+        public final long gestureLongHoldMs;
+        public final boolean gestureUpDownUp;
+        public final boolean wakeWordEnabled;
+        public final String wakeWord;
+        public final String wakeEngine;
+        public final boolean voiceGateEnabled;
+        public final float voiceGateOnDb;
+        public final float voiceGateOffDb;
+        public final int voiceGateHangoverMs;
+
+        Snapshot(Map<String, ?> values) {
+            VoiceActivityDetector.Settings gate = new VoiceActivityDetector.Settings();
+            volumeEnabled = bool(values, KEY_VOLUME_ENABLED, false);
+            gestureSimultaneous = bool(values, KEY_GESTURE_SIMULTANEOUS, true);
+            gestureRapidPresses = Math.max(0, number(values, KEY_GESTURE_RAPID_PRESSES, 0).intValue());
+            gestureLongHoldMs = Math.max(0, number(values, KEY_GESTURE_LONG_HOLD_MS, 0).longValue());
+            gestureUpDownUp = bool(values, KEY_GESTURE_UP_DOWN_UP, false);
+            wakeWordEnabled = bool(values, KEY_WAKE_WORD_ENABLED, false);
+            wakeWord = string(values, KEY_WAKE_WORD, DEFAULT_WAKE_WORD);
+            wakeEngine = string(values, KEY_WAKE_ENGINE, DEFAULT_WAKE_ENGINE);
+            voiceGateEnabled = bool(values, KEY_VOICE_GATE_ENABLED, false);
+            voiceGateOnDb = number(values, KEY_VOICE_GATE_ON_DB, gate.onThresholdDb).floatValue();
+            voiceGateOffDb = number(values, KEY_VOICE_GATE_OFF_DB, gate.offThresholdDb).floatValue();
+            voiceGateHangoverMs = Math.max(0, number(values, KEY_VOICE_GATE_HANGOVER_MS, gate.hangoverMs).intValue());
+        }
+
+        /** Every setting under its storage key, with the types {@link Storage#write} is given. */
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put(KEY_VOLUME_ENABLED, volumeEnabled);
+            m.put(KEY_GESTURE_SIMULTANEOUS, gestureSimultaneous);
+            m.put(KEY_GESTURE_RAPID_PRESSES, gestureRapidPresses);
+            m.put(KEY_GESTURE_LONG_HOLD_MS, gestureLongHoldMs);
+            m.put(KEY_GESTURE_UP_DOWN_UP, gestureUpDownUp);
+            m.put(KEY_WAKE_WORD_ENABLED, wakeWordEnabled);
+            m.put(KEY_WAKE_WORD, wakeWord);
+            m.put(KEY_WAKE_ENGINE, wakeEngine);
+            m.put(KEY_VOICE_GATE_ENABLED, voiceGateEnabled);
+            m.put(KEY_VOICE_GATE_ON_DB, voiceGateOnDb);
+            m.put(KEY_VOICE_GATE_OFF_DB, voiceGateOffDb);
+            m.put(KEY_VOICE_GATE_HANGOVER_MS, voiceGateHangoverMs);
+            return m;
+        }
+
+        /** Voice gate thresholds in the detector's own form. */
+        public VoiceActivityDetector.Settings voiceGate() {
+            return new VoiceActivityDetector.Settings(voiceGateOnDb, voiceGateOffDb,
+                    new VoiceActivityDetector.Settings().attackMs, voiceGateHangoverMs);
+        }
+
+        public boolean gesturesDiffer(Snapshot other) {
+            return gestureSimultaneous != other.gestureSimultaneous
+                    || gestureRapidPresses != other.gestureRapidPresses
+                    || gestureLongHoldMs != other.gestureLongHoldMs
+                    || gestureUpDownUp != other.gestureUpDownUp;
+        }
+
+        public boolean voiceGateDiffers(Snapshot other) {
+            return voiceGateEnabled != other.voiceGateEnabled
+                    || voiceGateOnDb != other.voiceGateOnDb
+                    || voiceGateOffDb != other.voiceGateOffDb
+                    || voiceGateHangoverMs != other.voiceGateHangoverMs;
+        }
+
+        private static boolean bool(Map<String, ?> values, String key, boolean def) {
+            Object v = values.get(key);
+            return v instanceof Boolean ? (Boolean) v : def;
+        }
+
+        private static Number number(Map<String, ?> values, String key, Number def) {
+            Object v = values.get(key);
+            return v instanceof Number ? (Number) v : def;
+        }
+
+        private static String string(Map<String, ?> values, String key, String def) {
+            Object v = values.get(key);
+            return v instanceof String && !((String) v).isEmpty() ? (String) v : def;
+        }
+    }
+
+    /** Changes to apply together; unset settings keep their current value. */
+    public final class Editor {
+        private final Map<String, Object> changes = new LinkedHashMap<>();
+
+        private Editor() {}
+
+        public Editor volumeEnabled(boolean on) {
+            return put(KEY_VOLUME_ENABLED, on);
+        }
+
+        public Editor gestureSimultaneous(boolean on) {
+            return put(KEY_GESTURE_SIMULTANEOUS, on);
+        }
+
+        public Editor gestureRapidPresses(int presses) {
+            return put(KEY_GESTURE_RAPID_PRESSES, Math.max(0, presses));
+        }
+
+        public Editor gestureLongHoldMs(long ms) {
+            return put(KEY_GESTURE_LONG_HOLD_MS, Math.max(0, ms));
+        }
+
+        public Editor gestureUpDownUp(boolean on) {
+            return put(KEY_GESTURE_UP_DOWN_UP, on);
+        }
+
+        public Editor wakeWordEnabled(boolean on) {
+            return put(KEY_WAKE_WORD_ENABLED, on);
+        }
+
+        public Editor wakeWord(String word) {
+            return put(KEY_WAKE_WORD, word);
+        }
+
+        public Editor wakeEngine(String engine) {
+            return put(KEY_WAKE_ENGINE, engine);
+        }
+
+        public Editor voiceGateEnabled(boolean on) {
+            return put(KEY_VOICE_GATE_ENABLED, on);
+        }
+
+        public Editor voiceGateOnDb(float db) {
+            return put(KEY_VOICE_GATE_ON_DB, db);
+        }
+
+        public Editor voiceGateOffDb(float db) {
+            return put(KEY_VOICE_GATE_OFF_DB, db);
+        }
+
+        public Editor voiceGateHangoverMs(int ms) {
+            if (ms < 0) throw new IllegalArgumentException("Hangover must not be negative: " + ms);
+            return put(KEY_VOICE_GATE_HANGOVER_MS, ms);
+        }
+
+        private Editor put(String key, Object value) {
+            changes.put(key, Objects.requireNonNull(value, key));
+            return this;
+        }
+
+        /** Swaps in the new snapshot, tells the listeners and queues the write; returns the new snapshot. */
+        public Snapshot apply() {
+            return SettingsStore.this.apply(changes);
+        }
+    }
+
+    private final Storage storage;
+    private final Executor writer;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private volatile Snapshot current;
+    // Guarded by lock: keys changed since the last write started.
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    private boolean writeQueued;
+    private long writes;
+
+    /** Reads the storage once. */
+    public SettingsStore(Storage storage, Executor writer) {
+        this.storage = storage;
+        this.writer = writer;
+        Map<String, ?> loaded = storage.load();
+        current = new Snapshot(loaded != null ? loaded : Collections.<String, Object>emptyMap());
+    }
+
+    /** The current snapshot; never blocks. */
+    public Snapshot get() {
+        return current;
+    }
+
+    public Editor edit() {
+        return new Editor();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private Snapshot apply(Map<String, Object> changes) {
+        Snapshot before;
+        Snapshot after;
+        synchronized (lock) {
+            before = current;
+            Map<String, Object> values = before.toMap();
+            values.putAll(changes);
+            after = new Snapshot(values);
+            Map<String, Object> oldValues = before.toMap();
+            boolean changed = false;
+            for (Map.Entry<String, Object> e : after.toMap().entrySet()) {
+                if (!e.getValue().equals(oldValues.get(e.getKey()))) {
+                    pending.put(e.getKey(), e.getValue());
+                    changed = true;
+                }
+            }
+            if (!changed) return before;
+            current = after;
+            if (!writeQueued) {
+                writeQueued = true;
+                writer.execute(this::flush);
+            }
+        }
+        for (Listener l : listeners) {
+            l.onSettingsChanged(before, after);
+        }
+        return after;
+    }
+
+    /** Writes whatever has changed since the last write; runs on the writer, or directly before shutdown. */
+    public void flush() {
+        Map<String, Object> batch;
+        synchronized (lock) {
+            writeQueued = false;
+            if (pending.isEmpty()) return;
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            writes++;
+        }
+        storage.write(batch);
+    }
+
+    /** Storage writes so far; several edits may share one. */
+    public long getWrites() {
+        synchronized (lock) {
+            return writes;
+        }
+    }
+}
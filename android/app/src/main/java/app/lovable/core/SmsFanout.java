@@ -0,0 +1,322 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends one batch of texts to many recipients at once and tracks each one
+ * through the radio's sent and delivered reports.
+ *
+ * Submissions run concurrently on the given (bounded) executor. The
+ * transport reports per-part outcomes back through {@link #onPartSent} and
+ * {@link #onPartDelivered}; a recipient counts as sent once every part was
+ * sent and as delivered once every part was delivered. A batch reaches "all
+ * sent" when every recipient has a send outcome and finishes when every
+ * recipient is delivered or failed, or when its deadline passes.
+ */
+public final class SmsFanout {
+    public interface Transport {
+        /**
+         * Hands one message on towards the radio and returns its number of parts.
+         * Outcomes for each part arrive later via the fan-out's callbacks.
+         */
+        int send(long batchId, int recipient, Message message) throws Exception;
+    }
+
+    /** Called with the batch locked; implementations must not block. */
+    public interface Listener {
+        void onProgress(Batch batch, Recipient recipient);
+        void onAllSent(Batch batch);
+        void onFinished(Batch batch);
+    }
+
+    public static final class Message {
+        public final String phoneNumber;
+        public final String message;
+        /** Scheduling hints for {@link SmsScheduler}. */
+        public final boolean primary;
+        public final SmsScheduler.Kind kind;
+
+        public Message(String phoneNumber, String message) {
+            this(phoneNumber, message, false, SmsScheduler.Kind.SOS);
+        }
+
+        public Message(String phoneNumber, String message, boolean primary, SmsScheduler.Kind kind) {
+            this.phoneNumber = phoneNumber;
+            this.message = message;
+            this.primary = primary;
+            this.kind = kind;
+        }
+    }
+
+    public enum State {
+        QUEUED, SUBMITTED, SENT, DELIVERED, FAILED, TIMED_OUT;
+
+        boolean hasSendOutcome() {
+            return this != QUEUED && this != SUBMITTED;
+        }
+    }
+
+    public static final class Recipient {
+        public final int index;
+        public final String phoneNumber;
+        final Message message;
+        State state = State.QUEUED;
+        int parts;
+        int sentParts;
+        int deliveredParts;
+        String error;
+        long sentAtMs = -1;
+        long deliveredAtMs = -1;
+
+        Recipient(int index, Message m) {
+            this.index = index;
+            this.phoneNumber = m.phoneNumber;
+            this.message = m;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /** Time from batch start until the last part was sent, or -1. */
+        public long getSentAtMs() {
+            return sentAtMs;
+        }
+
+        public long getDeliveredAtMs() {
+            return deliveredAtMs;
+        }
+
+        public int getParts() {
+            return parts;
+        }
+    }
+
+    public final class Batch {
+        public final long id;
+        final long startedAtMs;
+        final long deadlineAtMs;
+        final boolean awaitDelivery;
+        final List<Recipient> recipients;
+        final Listener listener;
+        private boolean allSent;
+        private boolean finished;
+        private long timeToAllSentMs = -1;
+        private long timeToAllDeliveredMs = -1;
+
+        Batch(long id, List<Message> messages, long deadlineMs, boolean awaitDelivery, Listener listener) {
+            this.id = id;
+            this.startedAtMs = clock.nowMs();
+            this.deadlineAtMs = startedAtMs + deadlineMs;
+            this.awaitDelivery = awaitDelivery;
+            List<Recipient> list = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) list.add(new Recipient(i, messages.get(i)));
+            this.recipients = Collections.unmodifiableList(list);
+            this.listener = listener;
+        }
+
+        public List<Recipient> getRecipients() {
+            return recipients;
+        }
+
+        public long getDeadlineAtMs() {
+            return deadlineAtMs;
+        }
+
+        public synchronized boolean isFinished() {
+            return finished;
+        }
+
+        /** Start until every recipient had a send outcome, or -1 if the deadline came first. */
+        public synchronized long getTimeToAllSentMs() {
+            return timeToAllSentMs;
+        }
+
+        /** Start until every recipient was delivered, or -1 if any was not. */
+        public synchronized long getTimeToAllDeliveredMs() {
+            return timeToAllDeliveredMs;
+        }
+
+        public synchronized int count(State state) {
+            int n = 0;
+            for (Recipient r : recipients) if (r.state == state) n++;
+            return n;
+        }
+
+        /** Recipients whose text left the phone (sent or delivered). */
+        public synchronized int sentCount() {
+            return count(State.SENT) + count(State.DELIVERED);
+        }
+
+        synchronized void update(Recipient r) {
+            listener.onProgress(this, r);
+            long now = clock.nowMs() - startedAtMs;
+            if (!allSent) {
+                boolean all = true;
+                for (Recipient x : recipients) all &= x.state.hasSendOutcome();
+                if (all) {
+                    allSent = true;
+                    timeToAllSentMs = now;
+                    listener.onAllSent(this);
+                }
+            }
+            if (!finished) {
+                boolean done = true;
+                boolean allDelivered = true;
+                for (Recipient x : recipients) {
+                    done &= x.state == State.DELIVERED || x.state == State.FAILED || x.state == State.TIMED_OUT
+                            || (!awaitDelivery && x.state == State.SENT);
+                    allDelivered &= x.state == State.DELIVERED;
+                }
+                if (done) {
+                    if (allDelivered && awaitDelivery) timeToAllDeliveredMs = now;
+                    finish();
+                }
+            }
+        }
+
+        synchronized void expire() {
+            if (finished) return;
+            for (Recipient r : recipients) {
+                if (!r.state.hasSendOutcome()) {
+                    r.state = State.TIMED_OUT;
+                    r.error = "deadline passed";
+                    listener.onProgress(this, r);
+                }
+            }
+            if (!allSent) {
+                allSent = true;
+                listener.onAllSent(this);
+            }
+            finish();
+        }
+
+        private void finish() {
+            finished = true;
+            batches.remove(id);
+            listener.onFinished(this);
+        }
+    }
+
+    private final Clock clock;
+    private final Executor executor;
+    private final Transport transport;
+    private final ConcurrentHashMap<Long, Batch> batches = new ConcurrentHashMap<>();
+    private final AtomicLong nextBatchId = new AtomicLong(1);
+
+    public SmsFanout(Clock clock, Executor executor, Transport transport) {
+        this.clock = clock;
+        this.executor = executor;
+        this.transport = transport;
+    }
+
+    /**
+     * Submits every message concurrently. Without {@code awaitDelivery} a
+     * batch finishes once everything is sent. The caller is responsible for
+     * calling {@link #expire} at {@link Batch#getDeadlineAtMs()}.
+     */
+    public Batch start(List<Message> messages, long deadlineMs, boolean awaitDelivery, Listener listener) {
+        Batch batch = new Batch(nextBatchId.getAndIncrement(), messages, deadlineMs, awaitDelivery, listener);
+        batches.put(batch.id, batch);
+        if (messages.isEmpty()) {
+            batch.expire();
+            return batch;
+        }
+        for (Recipient r : batch.recipients) {
+            executor.execute(() -> submit(batch, r));
+        }
+        return batch;
+    }
+
+    private void submit(Batch batch, Recipient r) {
+        int parts;
+        try {
+            parts = transport.send(batch.id, r.index, r.message);
+        } catch (Exception e) {
+            synchronized (batch) {
+                if (r.state != State.QUEUED) return;
+                r.state = State.FAILED;
+                r.error = String.valueOf(e.getMessage());
+                batch.update(r);
+            }
+            return;
+        }
+        synchronized (batch) {
+            if (r.state != State.QUEUED) return;
+            r.parts = Math.max(1, parts);
+            r.state = State.SUBMITTED;
+            // Reports may already have arrived for fast radios.
+            if (!advance(batch, r)) batch.update(r);
+        }
+    }
+
+    public void onPartSent(long batchId, int recipient, boolean ok, String error) {
+        Batch batch = batches.get(batchId);
+        if (batch == null) return;
+        synchronized (batch) {
+            Recipient r = batch.recipients.get(recipient);
+            if (r.state == State.FAILED || r.state == State.TIMED_OUT) return;
+            if (!ok) {
+                r.state = State.FAILED;
+                r.error = error;
+                batch.update(r);
+                return;
+            }
+            r.sentParts++;
+            advance(batch, r);
+        }
+    }
+
+    public void onPartDelivered(long batchId, int recipient, boolean ok) {
+        Batch batch = batches.get(batchId);
+        if (batch == null) return;
+        synchronized (batch) {
+            Recipient r = batch.recipients.get(recipient);
+            if (r.state == State.FAILED || r.state == State.TIMED_OUT || r.state == State.DELIVERED) return;
+            if (!ok) {
+                r.state = State.FAILED;
+                r.error = "not delivered";
+                batch.update(r);
+                return;
+            }
+            r.deliveredParts++;
+            advance(batch, r);
+        }
+    }
+
+    /** Moves a submitted recipient forward from its part counts; returns true if it changed. */
+    private boolean advance(Batch batch, Recipient r) {
+        State before = r.state;
+        long elapsed = clock.nowMs() - batch.startedAtMs;
+        if (r.state == State.SUBMITTED && r.sentParts >= r.parts) {
+            r.state = State.SENT;
+            r.sentAtMs = elapsed;
+        }
+        if (r.state == State.SENT && r.deliveredParts >= r.parts) {
+            r.state = State.DELIVERED;
+            r.deliveredAtMs = elapsed;
+        }
+        if (r.state == before) return false;
+        batch.update(r);
+        return true;
+    }
+
+    /** Deadline reached: unsent recipients time out and the batch finishes. */
+    public void expire(long batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch != null) batch.expire();
+    }
+
+    public int activeBatches() {
+        return batches.size();
+    }
+}
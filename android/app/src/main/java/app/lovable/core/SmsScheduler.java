@@ -0,0 +1,235 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * One ordered, rate-limited stream for every outgoing SMS.
+ *
+ * Callers on any thread {@link #submit} jobs; the owner calls {@link #pump}
+ * from a single thread whenever the {@link Driver} asks for it. Each pump
+ * sends, in priority order, every ready job whose subscription still has a
+ * token: primary contacts first, then SOS texts before follow-up location
+ * updates, then submission order. Android throttles bursts per app and
+ * carriers drop them, so each subscription gets its own {@link TokenBucket}.
+ *
+ * A job whose send throws is retried after a full-jitter exponential
+ * backoff, the same strategy as ChunkUploader's, up to
+ * {@link #MAX_ATTEMPTS} times, then reported as failed.
+ */
+public final class SmsScheduler {
+    public enum Kind {
+        /** The alert itself. */
+        SOS,
+        /** Location updates and other texts that may wait behind alerts. */
+        FOLLOW_UP
+    }
+
+    /** Hands one message to the radio; throws if it could not. */
+    public interface Action {
+        void send() throws Exception;
+    }
+
+    public interface Callback {
+        void onSent(Job job);
+        void onFailed(Job job, String error);
+    }
+
+    /** Asks the owner to call {@link #pump()} at (or soon after) {@code atMs}. */
+    public interface Driver {
+        void wakeAt(long atMs);
+    }
+
+    public static final class Job {
+        public final String subscription;
+        public final boolean primary;
+        public final Kind kind;
+        final Action action;
+        final Callback callback;
+        long seq;
+        long submittedAtMs;
+        long notBeforeMs;
+        int attempts;
+
+        public Job(String subscription, boolean primary, Kind kind, Action action, Callback callback) {
+            this.subscription = subscription;
+            this.primary = primary;
+            this.kind = kind;
+            this.action = action;
+            this.callback = callback;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    static final Comparator<Job> PRIORITY = (a, b) -> {
+        if (a.primary != b.primary) return a.primary ? -1 : 1;
+        if (a.kind != b.kind) return a.kind.compareTo(b.kind);
+        return Long.compare(a.seq, b.seq);
+    };
+
+    static final int MAX_ATTEMPTS = 4;
+    static final long RETRY_BASE_MS = 1_000;
+    static final long RETRY_MAX_MS = 30_000;
+
+    private final Clock clock;
+    private final Random random;
+    private final Driver driver;
+    private final int burst;
+    private final long refillMs;
+    private final TreeSet<Job> ready = new TreeSet<>(PRIORITY);
+    /** Jobs backing off after a failed attempt. */
+    private final List<Job> delayed = new ArrayList<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private long nextSeq;
+    private long sent;
+    private long failed;
+    private long retries;
+    private long throttled;
+
+    /**
+     * @param burst    texts a subscription may send back to back
+     * @param refillMs one more text allowed per this interval once the burst is used
+     */
+    public SmsScheduler(Clock clock, Random random, Driver driver, int burst, long refillMs) {
+        this.clock = clock;
+        this.random = random;
+        this.driver = driver;
+        this.burst = burst;
+        this.refillMs = refillMs;
+    }
+
+    /** Queues a job; concurrent callers are merged into the one priority-ordered stream. */
+    public void submit(Job job) {
+        synchronized (this) {
+            job.seq = nextSeq++;
+            job.submittedAtMs = clock.nowMs();
+            job.notBeforeMs = job.submittedAtMs;
+            ready.add(job);
+        }
+        driver.wakeAt(job.submittedAtMs);
+    }
+
+    /** Sends everything allowed right now, then asks the driver for the next wake-up. Single thread only. */
+    public void pump() {
+        Job job;
+        while ((job = takeNext()) != null) {
+            job.attempts++;
+            String error;
+            try {
+                job.action.send();
+                error = null;
+            } catch (Exception e) {
+                error = String.valueOf(e.getMessage());
+            }
+            finish(job, error);
+        }
+        long next = nextWakeAt();
+        if (next != Long.MAX_VALUE) driver.wakeAt(next);
+    }
+
+    private synchronized Job takeNext() {
+        long now = clock.nowMs();
+        for (Iterator<Job> it = delayed.iterator(); it.hasNext(); ) {
+            Job j = it.next();
+            if (j.notBeforeMs <= now) {
+                it.remove();
+                ready.add(j);
+            }
+        }
+        for (Job j : ready) {
+            if (bucket(j.subscription, now).tryAcquire(now)) {
+                ready.remove(j);
+                return j;
+            }
+        }
+        if (!ready.isEmpty()) throttled++;
+        return null;
+    }
+
+    private void finish(Job job, String error) {
+        boolean retry = false;
+        synchronized (this) {
+            long now = clock.nowMs();
+            if (error == null) {
+                sent++;
+                waitTime.record((now - job.submittedAtMs) * 1_000L);
+            } else if (job.attempts < MAX_ATTEMPTS) {
+                retries++;
+                job.notBeforeMs = now + backoffMs(job.attempts);
+                delayed.add(job);
+                retry = true;
+            } else {
+                failed++;
+            }
+        }
+        if (retry) return;
+        if (error == null) {
+            job.callback.onSent(job);
+        } else {
+            job.callback.onFailed(job, error);
+        }
+    }
+
+    /**
+     * Anywhere in [0, d) with d = base * 2^(attempts-1), capped: texts that
+     * failed together, e.g. when the radio lost service, come back spread out
+     * rather than in the same burst.
+     */
+    private long backoffMs(int attempts) {
+        long d = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempts - 1, 20));
+        return (long) (random.nextDouble() * d);
+    }
+
+    private synchronized long nextWakeAt() {
+        long now = clock.nowMs();
+        long next = Long.MAX_VALUE;
+        for (Job j : delayed) next = Math.min(next, j.notBeforeMs);
+        for (Job j : ready) next = Math.min(next, bucket(j.subscription, now).nextTokenAt(now));
+        return next;
+    }
+
+    private TokenBucket bucket(String subscription, long now) {
+        TokenBucket b = buckets.get(subscription);
+        if (b == null) {
+            b = new TokenBucket(burst, refillMs, now);
+            buckets.put(subscription, b);
+        }
+        return b;
+    }
+
+    public synchronized int getQueueDepth() {
+        return ready.size() + delayed.size();
+    }
+
+    /** Submit to successful send, across retries. */
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    public synchronized long getRetries() {
+        return retries;
+    }
+
+    /** Pumps that had to leave a ready job queued for lack of tokens. */
+    public synchronized long getThrottled() {
+        return throttled;
+    }
+}
@@ -0,0 +1,253 @@
+package app.lovable.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps SOS texts in as few SMS segments as possible.
+ *
+ * One character outside the GSM 03.38 alphabet (an emoji, a smart quote, an
+ * accented street name from reverse geocoding) makes the whole message
+ * UCS-2, cutting a segment from 160 characters to 70. {@link #optimize}
+ * first replaces such characters where the meaning survives (quotes, dashes,
+ * accents, decorative symbols), then shortens the message step by step, in
+ * order of least information lost, until it fits the segment budget:
+ * collapse whitespace, drop URL schemes, then round coordinates to 5 and 4
+ * decimals (about 1 m and 11 m). A message that already fits is sent as is.
+ *
+ * Segment counts follow SmsManager.divideMessage: 160 septets (GSM) or 70
+ * UTF-16 units (UCS-2) for a single part, 153 or 67 per part otherwise, and
+ * escape pairs or surrogate pairs are never split across parts.
+ */
+public final class SmsSegmentOptimizer {
+    public enum Encoding {
+        GSM7, UCS2
+    }
+
+    public static final class Result {
+        public final String text;
+        public final Encoding encoding;
+        public final int segments;
+        public final Encoding originalEncoding;
+        public final int originalSegments;
+        /** Steps applied, in order, e.g. "transliterate", "coordinates:5". */
+        public final List<String> steps;
+
+        Result(String text, Encoding encoding, int segments, Encoding originalEncoding, int originalSegments,
+               List<String> steps) {
+            this.text = text;
+            this.encoding = encoding;
+            this.segments = segments;
+            this.originalEncoding = originalEncoding;
+            this.originalSegments = originalSegments;
+            this.steps = Collections.unmodifiableList(steps);
+        }
+
+        public boolean changed() {
+            return !steps.isEmpty();
+        }
+    }
+
+    static final int GSM_SINGLE = 160;
+    static final int GSM_MULTI = 153;
+    static final int UCS2_SINGLE = 70;
+    static final int UCS2_MULTI = 67;
+
+    /** GSM 03.38 default alphabet; the escape at 0x1B is left out on purpose. */
+    private static final String GSM_BASIC =
+            "@\u00A3$\u00A5\u00E8\u00E9\u00F9\u00EC\u00F2\u00C7\n\u00D8\u00F8\r\u00C5\u00E5"
+            + "\u0394_\u03A6\u0393\u039B\u03A9\u03A0\u03A8\u03A3\u0398\u039E\u00C6\u00E6\u00DF\u00C9"
+            + " !\"#\u00A4%&'()*+,-./0123456789:;<=>?"
+            + "\u00A1ABCDEFGHIJKLMNOPQRSTUVWXYZ\u00C4\u00D6\u00D1\u00DC\u00A7"
+            + "\u00BFabcdefghijklmnopqrstuvwxyz\u00E4\u00F6\u00F1\u00FC\u00E0";
+    /** Extension table: each costs an escape septet plus itself. */
+    private static final String GSM_EXTENSION = "\f^{}\\[~]|\u20AC";
+
+    /** Septets per char below 0x400 (0 = not in GSM); the euro sign is the only extension above. */
+    private static final byte[] SEPTETS = new byte[0x400];
+
+    static {
+        for (int i = 0; i < GSM_BASIC.length(); i++) SEPTETS[GSM_BASIC.charAt(i)] = 1;
+        for (int i = 0; i < GSM_EXTENSION.length(); i++) {
+            char c = GSM_EXTENSION.charAt(i);
+            if (c < SEPTETS.length) SEPTETS[c] = 2;
+        }
+    }
+
+    /** Replacements that keep the meaning; anything else goes through accent stripping. */
+    private static final String[][] TRANSLITERATIONS = {
+            {"\u2018\u2019\u201A\u201B\u2032\u00B4`", "'"},
+            {"\u201C\u201D\u201E\u201F\u2033\u00AB\u00BB", "\""},
+            {"\u2010\u2011\u2012\u2013\u2014\u2015\u2212", "-"},
+            {"\u00A0\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2007\u2008\u2009\u200A\u202F\u205F\u3000\t", " "},
+            {"\u200B\u200C\u200D\u2060\uFEFF\uFE0E\uFE0F", ""},
+            {"\u2022\u00B7", "*"},
+            {"\u00E7", "\u00C7"},
+    };
+
+    private static final Pattern URL_SCHEME = Pattern.compile("\\bhttps?://");
+    private static final Pattern COORDINATE = Pattern.compile("(?<![\\d.])-?\\d{1,3}\\.\\d{5,}(?![\\d.])");
+    private static final Pattern SPACES = Pattern.compile("[ \\t]{2,}");
+
+    private SmsSegmentOptimizer() {}
+
+    static int septets(char c) {
+        if (c < SEPTETS.length) return SEPTETS[c];
+        return c == '\u20AC' ? 2 : 0;
+    }
+
+    public static Encoding encodingOf(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (septets(text.charAt(i)) == 0) return Encoding.UCS2;
+        }
+        return Encoding.GSM7;
+    }
+
+    public static int segmentCount(CharSequence text) {
+        return encodingOf(text) == Encoding.GSM7 ? gsmSegments(text) : ucs2Segments(text);
+    }
+
+    private static int gsmSegments(CharSequence text) {
+        int total = 0;
+        for (int i = 0; i < text.length(); i++) total += septets(text.charAt(i));
+        if (total <= GSM_SINGLE) return 1;
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int n = septets(text.charAt(i));
+            if (used + n > GSM_MULTI) {
+                segments++;
+                used = 0;
+            }
+            used += n;
+        }
+        return segments;
+    }
+
+    private static int ucs2Segments(CharSequence text) {
+        if (text.length() <= UCS2_SINGLE) return 1;
+        int segments = 1;
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int n = Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length() ? 2 : 1;
+            if (used + n > UCS2_MULTI) {
+                segments++;
+                used = 0;
+            }
+            used += n;
+            i += n - 1;
+        }
+        return segments;
+    }
+
+    /**
+     * Maps the text onto the GSM alphabet. Returns null if some character
+     * has no safe replacement (e.g. a name in a non-Latin script), in which
+     * case the message has to stay UCS-2.
+     */
+    public static String transliterate(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp < 0x10000 && septets((char) cp) > 0) {
+                out.append((char) cp);
+                continue;
+            }
+            String mapped = mapped(cp);
+            if (mapped == null) return null;
+            out.append(mapped);
+        }
+        return out.toString();
+    }
+
+    private static String mapped(int cp) {
+        if (cp < 0x10000) {
+            char c = (char) cp;
+            for (String[] t : TRANSLITERATIONS) {
+                if (t[0].indexOf(c) >= 0) return t[1];
+            }
+            if (c == '\u2026') return "...";
+        }
+        int type = Character.getType(cp);
+        // Emoji and other pictographs are decoration in an SOS text.
+        if (type == Character.OTHER_SYMBOL || type == Character.NON_SPACING_MARK) return "";
+        if (Character.isLetter(cp)) {
+            String base = Normalizer.normalize(new String(Character.toChars(cp)), Normalizer.Form.NFD);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < base.length(); i++) {
+                char b = base.charAt(i);
+                if (Character.getType(b) == Character.NON_SPACING_MARK) continue;
+                if (septets(b) == 0) return null;
+                sb.append(b);
+            }
+            return sb.length() > 0 ? sb.toString() : null;
+        }
+        return null;
+    }
+
+    /** Rounds coordinate-looking decimals with more than {@code decimals} places. */
+    static String roundCoordinates(String text, int decimals) {
+        Matcher m = COORDINATE.matcher(text);
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            String value = m.group();
+            int places = value.length() - value.indexOf('.') - 1;
+            String rounded = places <= decimals ? value
+                    : new BigDecimal(value).setScale(decimals, RoundingMode.HALF_UP).toPlainString();
+            m.appendReplacement(sb, rounded);
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /** Shrinks {@code message} towards {@code maxSegments}; returns the best it could do. */
+    public static Result optimize(String message, int maxSegments) {
+        Encoding originalEncoding = encodingOf(message);
+        int originalSegments = segmentCount(message);
+        List<String> steps = new ArrayList<>();
+        String text = message;
+        int segments = originalSegments;
+
+        if (segments > maxSegments && originalEncoding == Encoding.UCS2) {
+            String gsm = transliterate(text);
+            if (gsm != null) {
+                text = gsm;
+                steps.add("transliterate");
+            }
+        }
+        if (segmentCount(text) > maxSegments) {
+            String collapsed = SPACES.matcher(text).replaceAll(" ").trim();
+            if (!collapsed.equals(text)) {
+                text = collapsed;
+                steps.add("whitespace");
+            }
+        } else if (!text.equals(message)) {
+            // Dropped emoji can leave a leading space.
+            text = text.trim();
+        }
+        if (segmentCount(text) > maxSegments) {
+            String noScheme = URL_SCHEME.matcher(text).replaceAll("");
+            if (!noScheme.equals(text)) {
+                text = noScheme;
+                steps.add("url-scheme");
+            }
+        }
+        // Always round from the full-precision text, so 4 decimals are not rounded twice.
+        String unrounded = text;
+        for (int decimals = 5; decimals >= 4 && segmentCount(text) > maxSegments; decimals--) {
+            String rounded = roundCoordinates(unrounded, decimals);
+            if (!rounded.equals(text)) {
+                text = rounded;
+                steps.add("coordinates:" + decimals);
+            }
+        }
+        return new Result(text, encodingOf(text), segmentCount(text), originalEncoding, originalSegments, steps);
+    }
+}
@@ -0,0 +1,169 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Native SOS path that needs no WebView: read the last known location, build
+ * the alert text and text every cached emergency contact.
+ *
+ * Location and SMS are behind ports so the orchestration runs on the JVM
+ * with stubs. {@link #run} is synchronous; the Android side calls it on a
+ * background thread.
+ */
+public final class SosPipeline {
+    /** Fixes older than this are labelled with their age in the message. */
+    static final long STALE_FIX_MS = 2 * 60_000;
+
+    public interface LocationPort {
+        /** Most recent fix from any provider, or null if there is none. */
+        GeoFix lastKnown();
+    }
+
+    public interface SmsPort {
+        void send(Contact contact, String message) throws Exception;
+    }
+
+    public static final class Contact {
+        public final String name;
+        public final String phoneNumber;
+        public final boolean primary;
+
+        public Contact(String name, String phoneNumber) {
+            this(name, phoneNumber, false);
+        }
+
+        public Contact(String name, String phoneNumber, boolean primary) {
+            this.name = name;
+            this.phoneNumber = phoneNumber;
+            this.primary = primary;
+        }
+    }
+
+    /** What the app cached for native use while it was last open; primary contacts are texted first. */
+    public static final class Profile {
+        public final String userName;
+        public final List<Contact> contacts;
+
+        public Profile(String userName, List<Contact> contacts) {
+            this.userName = userName;
+            List<Contact> ordered = new ArrayList<>(contacts);
+            ordered.sort((a, b) -> Boolean.compare(b.primary, a.primary));
+            this.contacts = Collections.unmodifiableList(ordered);
+        }
+    }
+
+    public static final class Recipient {
+        public final String phoneNumber;
+        public final boolean sent;
+        public final String error;
+
+        Recipient(String phoneNumber, boolean sent, String error) {
+            this.phoneNumber = phoneNumber;
+            this.sent = sent;
+            this.error = error;
+        }
+    }
+
+    public static final class Result {
+        public final long triggerId;
+        public final boolean cancelled;
+        public final List<Recipient> recipients;
+        public final GeoFix location;
+        public final String message;
+        /** Trigger to first accepted SMS, or -1 if none was sent. */
+        public final long firstSmsLatencyMs;
+        public final long totalMs;
+
+        Result(long triggerId, boolean cancelled, List<Recipient> recipients, GeoFix location,
+               String message, long firstSmsLatencyMs, long totalMs) {
+            this.triggerId = triggerId;
+            this.cancelled = cancelled;
+            this.recipients = Collections.unmodifiableList(recipients);
+            this.location = location;
+            this.message = message;
+            this.firstSmsLatencyMs = firstSmsLatencyMs;
+            this.totalMs = totalMs;
+        }
+
+        public int sentCount() {
+            int n = 0;
+            for (Recipient r : recipients) if (r.sent) n++;
+            return n;
+        }
+    }
+
+    private final Clock clock;
+    private final LocationPort location;
+    private final SmsPort sms;
+    private final LatencyHistogram firstSmsLatency = new LatencyHistogram();
+    private volatile long cancelledTriggerId = Long.MIN_VALUE;
+
+    public SosPipeline(Clock clock, LocationPort location, SmsPort sms) {
+        this.clock = clock;
+        this.location = location;
+        this.sms = sms;
+    }
+
+    /** Stops a run for this trigger before its next SMS; texts already sent stay sent. */
+    public void cancel(long triggerId) {
+        cancelledTriggerId = triggerId;
+    }
+
+    /** Trigger-to-first-SMS latency over all runs. */
+    public LatencyHistogram getFirstSmsLatency() {
+        return firstSmsLatency;
+    }
+
+    /**
+     * @param triggeredAtMs trigger time on {@link #clock}, so the latency
+     *                      includes any hold before the run started
+     */
+    public Result run(long triggerId, long triggeredAtMs, Profile profile) {
+        GeoFix fix = null;
+        try {
+            fix = location.lastKnown();
+        } catch (RuntimeException e) {
+            // No location is better than no SOS.
+        }
+        String message = buildMessage(profile.userName, fix);
+
+        List<Recipient> recipients = new ArrayList<>(profile.contacts.size());
+        long firstSmsMs = -1;
+        boolean cancelled = false;
+        for (Contact contact : profile.contacts) {
+            if (cancelledTriggerId == triggerId) {
+                cancelled = true;
+                break;
+            }
+            try {
+                sms.send(contact, message);
+                recipients.add(new Recipient(contact.phoneNumber, true, null));
+                if (firstSmsMs < 0) firstSmsMs = clock.nowMs() - triggeredAtMs;
+            } catch (Exception e) {
+                recipients.add(new Recipient(contact.phoneNumber, false, String.valueOf(e.getMessage())));
+            }
+        }
+        if (firstSmsMs >= 0) firstSmsLatency.record(firstSmsMs * 1_000L);
+        return new Result(triggerId, cancelled, recipients, fix, message, firstSmsMs,
+                clock.nowMs() - triggeredAtMs);
+    }
+
+    /** Same wording as the app's useNativeSms.buildEmergencyMessage. */
+    public static String buildMessage(String userName, GeoFix fix) {
+        StringBuilder sb = new StringBuilder("\uD83D\uDEA8 EMERGENCY ALERT: ")
+                .append(userName == null || userName.isEmpty() ? "A ResQMe user" : userName)
+                .append(" has triggered an SOS.");
+        if (fix != null) {
+            sb.append(String.format(Locale.US, " Location: https://maps.google.com/?q=%.6f,%.6f",
+                    fix.latitude, fix.longitude));
+            if (fix.ageMs >= STALE_FIX_MS) {
+                sb.append(" (last known, ").append(fix.ageMs / 60_000).append(" min ago)");
+            }
+        }
+        sb.append(" Please call immediately!");
+        return sb.toString();
+    }
+}
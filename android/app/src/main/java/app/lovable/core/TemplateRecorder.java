@@ -0,0 +1,82 @@
+package app.lovable.core;
+
+import java.util.Arrays;
+
+/**
+ * Captures one spoken utterance from a feature stream for enrollment: waits
+ * for frame energy to rise above the noise floor, records until a run of
+ * quiet frames (or the length cap), and trims the trailing silence.
+ */
+public final class TemplateRecorder {
+    /** 2 s at a 10 ms hop. */
+    public static final int MAX_FRAMES = 200;
+    private static final int MIN_FRAMES = 20;
+    private static final int TRAILING_SILENCE_FRAMES = 30;
+    private static final int NOISE_FLOOR_FRAMES = 20;
+    private static final float ONSET_MARGIN = 2.0f;
+
+    private final float[][] frames = new float[MAX_FRAMES][MfccExtractor.NUM_COEFFS];
+    private int count;
+    private int quietRun;
+    private int floorFrames;
+    private float noiseFloor;
+    private boolean speaking;
+    private KeywordTemplate result;
+
+    /**
+     * Feeds one frame. Returns true once an utterance has been captured;
+     * {@link #getResult()} then holds it until {@link #reset()}.
+     */
+    public boolean onFrame(float[] coeffs, float logEnergy) {
+        if (result != null) return true;
+
+        if (floorFrames < NOISE_FLOOR_FRAMES) {
+            noiseFloor = (noiseFloor * floorFrames + logEnergy) / (floorFrames + 1);
+            floorFrames++;
+            return false;
+        }
+
+        boolean loud = logEnergy > noiseFloor + ONSET_MARGIN;
+        if (!speaking) {
+            if (!loud) {
+                // Track slow drift of the background level while waiting.
+                noiseFloor = 0.95f * noiseFloor + 0.05f * logEnergy;
+                return false;
+            }
+            speaking = true;
+        }
+
+        System.arraycopy(coeffs, 0, frames[count], 0, MfccExtractor.NUM_COEFFS);
+        count++;
+        quietRun = loud ? 0 : quietRun + 1;
+
+        if (quietRun >= TRAILING_SILENCE_FRAMES || count == MAX_FRAMES) {
+            int voiced = count - quietRun;
+            if (voiced < MIN_FRAMES) {
+                // Too short to be the wake phrase (a click or cough); keep waiting.
+                speaking = false;
+                count = 0;
+                quietRun = 0;
+                return false;
+            }
+            float[][] trimmed = new float[voiced][];
+            for (int i = 0; i < voiced; i++) trimmed[i] = Arrays.copyOf(frames[i], frames[i].length);
+            result = new KeywordTemplate(trimmed);
+            return true;
+        }
+        return false;
+    }
+
+    public KeywordTemplate getResult() {
+        return result;
+    }
+
+    public void reset() {
+        count = 0;
+        quietRun = 0;
+        floorFrames = 0;
+        noiseFloor = 0f;
+        speaking = false;
+        result = null;
+    }
+}
@@ -0,0 +1,51 @@
+package app.lovable.core;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens and gains one
+ * every {@code refillMs}. Starts full so a first burst goes out at once.
+ * Not thread-safe.
+ */
+public final class TokenBucket {
+    private final int capacity;
+    private final long refillMs;
+    private int tokens;
+    private long lastRefillMs;
+
+    public TokenBucket(int capacity, long refillMs, long nowMs) {
+        if (capacity < 1 || refillMs < 1) throw new IllegalArgumentException("capacity and refillMs must be positive");
+        this.capacity = capacity;
+        this.refillMs = refillMs;
+        this.tokens = capacity;
+        this.lastRefillMs = nowMs;
+    }
+
+    private void refill(long nowMs) {
+        if (tokens >= capacity) {
+            lastRefillMs = nowMs;
+            return;
+        }
+        long earned = (nowMs - lastRefillMs) / refillMs;
+        if (earned <= 0) return;
+        tokens = (int) Math.min(capacity, tokens + earned);
+        // Keep the remainder so partial intervals are not lost.
+        lastRefillMs = tokens >= capacity ? nowMs : lastRefillMs + earned * refillMs;
+    }
+
+    public boolean tryAcquire(long nowMs) {
+        refill(nowMs);
+        if (tokens == 0) return false;
+        tokens--;
+        return true;
+    }
+
+    /** When the next token is available: {@code nowMs} if one is available already. */
+    public long nextTokenAt(long nowMs) {
+        refill(nowMs);
+        return tokens > 0 ? nowMs : lastRefillMs + refillMs;
+    }
+
+    public int available(long nowMs) {
+        refill(nowMs);
+        return tokens;
+    }
+}
@@ -0,0 +1,179 @@
+package app.lovable.core;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compact encodings for simplified trails.
+ *
+ * Both forms store the first point absolutely and every later one as a
+ * delta from its predecessor, quantized to {@code digits} decimal places
+ * and zigzag-encoded so small moves in either direction stay small.
+ *
+ * The SMS form is the polyline algorithm (5-bit groups with a continuation
+ * bit) written in the URL-safe base64 alphabet instead of polyline's
+ * ASCII 63-126 range, which includes characters GSM-7 lacks or has to
+ * escape; every character here costs one septet and survives in a URL. The
+ * first character holds the number of digits. Positions only.
+ *
+ * The binary form is for uploads: a version byte, the digits, a varint
+ * point count, then zigzag varint deltas of latitude, longitude and time.
+ */
+public final class TrailCodec {
+    static final int BINARY_VERSION = 1;
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int[] INDEX = new int[128];
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    static {
+        Arrays.fill(INDEX, -1);
+        for (int i = 0; i < ALPHABET.length; i++) INDEX[ALPHABET[i]] = i;
+    }
+
+    private TrailCodec() {}
+
+    /** Fewest decimal places whose quantization step is at most half of {@code maxErrorM}, between 3 and 7. */
+    public static int digitsFor(double maxErrorM) {
+        for (int d = 3; d < 7; d++) {
+            if (METERS_PER_DEGREE / Math.pow(10, d) <= maxErrorM / 2) return d;
+        }
+        return 7;
+    }
+
+    public static String encodeSms(TrailCompressor.Trail trail, int digits) {
+        checkDigits(digits);
+        double scale = Math.pow(10, digits);
+        StringBuilder sb = new StringBuilder(1 + trail.count * 6);
+        sb.append((char) ('0' + digits));
+        long prevLat = 0;
+        long prevLng = 0;
+        for (int i = 0; i < trail.count; i++) {
+            long lat = Math.round(trail.latitude[i] * scale);
+            long lng = Math.round(trail.longitude[i] * scale);
+            writeChars(sb, zigzag(lat - prevLat));
+            writeChars(sb, zigzag(lng - prevLng));
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return sb.toString();
+    }
+
+    /** Decodes {@link #encodeSms}; times are left at 0. */
+    public static TrailCompressor.Trail decodeSms(String s) {
+        if (s.isEmpty()) throw new IllegalArgumentException("empty trail");
+        int digits = s.charAt(0) - '0';
+        checkDigits(digits);
+        double scale = Math.pow(10, digits);
+        TrailCompressor.Trail trail = new TrailCompressor.Trail(s.length() / 4);
+        int[] pos = {1};
+        long lat = 0;
+        long lng = 0;
+        while (pos[0] < s.length()) {
+            lat += unzigzag(readChars(s, pos));
+            lng += unzigzag(readChars(s, pos));
+            trail.add(lat / scale, lng / scale, 0);
+        }
+        return trail;
+    }
+
+    public static byte[] encodeBinary(TrailCompressor.Trail trail, int digits) {
+        checkDigits(digits);
+        double scale = Math.pow(10, digits);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + trail.count * 8);
+        out.write(BINARY_VERSION);
+        out.write(digits);
+        writeVarint(out, trail.count);
+        long prevLat = 0;
+        long prevLng = 0;
+        long prevTime = 0;
+        for (int i = 0; i < trail.count; i++) {
+            long lat = Math.round(trail.latitude[i] * scale);
+            long lng = Math.round(trail.longitude[i] * scale);
+            writeVarint(out, zigzag(lat - prevLat));
+            writeVarint(out, zigzag(lng - prevLng));
+            writeVarint(out, zigzag(trail.timeMs[i] - prevTime));
+            prevLat = lat;
+            prevLng = lng;
+            prevTime = trail.timeMs[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static TrailCompressor.Trail decodeBinary(byte[] data) {
+        if (data.length < 3 || data[0] != BINARY_VERSION) throw new IllegalArgumentException("not a version 1 trail");
+        int digits = data[1];
+        int[] pos = {2};
+        checkDigits(digits);
+        double scale = Math.pow(10, digits);
+        long count = readVarint(data, pos);
+        if (count > data.length) throw new IllegalArgumentException("bad point count " + count);
+        TrailCompressor.Trail trail = new TrailCompressor.Trail((int) count);
+        long lat = 0;
+        long lng = 0;
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(data, pos));
+            lng += unzigzag(readVarint(data, pos));
+            time += unzigzag(readVarint(data, pos));
+            trail.add(lat / scale, lng / scale, time);
+        }
+        return trail;
+    }
+
+    private static void checkDigits(int digits) {
+        if (digits < 0 || digits > 9) throw new IllegalArgumentException("digits must be 0-9, got " + digits);
+    }
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeChars(StringBuilder sb, long v) {
+        while (v >= 0x20) {
+            sb.append(ALPHABET[(int) ((v & 0x1F) | 0x20)]);
+            v >>>= 5;
+        }
+        sb.append(ALPHABET[(int) v]);
+    }
+
+    private static long readChars(String s, int[] pos) {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= s.length()) throw new IllegalArgumentException("truncated trail");
+            char c = s.charAt(pos[0]++);
+            int b = c < 128 ? INDEX[c] : -1;
+            if (b < 0) throw new IllegalArgumentException("bad trail character '" + c + "'");
+            v |= (long) (b & 0x1F) << shift;
+            if ((b & 0x20) == 0) return v;
+            shift += 5;
+            if (shift > 63) throw new IllegalArgumentException("trail value too long");
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length) throw new IllegalArgumentException("truncated trail");
+            int b = data[pos[0]++] & 0xFF;
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+            shift += 7;
+            if (shift > 63) throw new IllegalArgumentException("trail varint too long");
+        }
+    }
+}
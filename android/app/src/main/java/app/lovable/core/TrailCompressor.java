@@ -0,0 +1,133 @@
+package app.lovable.core;
+
+import java.util.Arrays;
+
+/**
+ * Streaming line simplification for location trails.
+ *
+ * Douglas-Peucker needs the whole track before it can start, so this uses
+ * its incremental counterpart, the opening-window algorithm: points after
+ * the last kept one are held in a window, and a new point extends the
+ * window only if every held point stays within {@code maxErrorM} of the
+ * straight line from the last kept point to it. Otherwise the window's
+ * last point is kept and the window restarts. Every dropped point is thus
+ * within the error bound of the simplified trail, which always ends at the
+ * newest point. The window is capped so each point costs bounded work.
+ *
+ * Distances use a local equirectangular projection, accurate to well under
+ * a meter over the lengths involved. Not thread-safe.
+ */
+public final class TrailCompressor {
+    static final int MAX_WINDOW = 256;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Simplified points in order; arrays may be longer than {@link #count}. */
+    public static final class Trail {
+        public double[] latitude;
+        public double[] longitude;
+        public long[] timeMs;
+        public int count;
+
+        public Trail(int capacity) {
+            latitude = new double[capacity];
+            longitude = new double[capacity];
+            timeMs = new long[capacity];
+        }
+
+        void add(double lat, double lng, long time) {
+            if (count == latitude.length) {
+                int n = Math.max(8, count * 2);
+                latitude = Arrays.copyOf(latitude, n);
+                longitude = Arrays.copyOf(longitude, n);
+                timeMs = Arrays.copyOf(timeMs, n);
+            }
+            latitude[count] = lat;
+            longitude[count] = lng;
+            timeMs[count] = time;
+            count++;
+        }
+    }
+
+    private final double maxErrorM;
+    private final Trail kept = new Trail(16);
+    private final double[] windowLat = new double[MAX_WINDOW];
+    private final double[] windowLng = new double[MAX_WINDOW];
+    private final long[] windowTime = new long[MAX_WINDOW];
+    private int window;
+    private long added;
+
+    public TrailCompressor(double maxErrorM) {
+        if (!(maxErrorM >= 0)) throw new IllegalArgumentException("maxErrorM must be non-negative");
+        this.maxErrorM = maxErrorM;
+    }
+
+    public double getMaxErrorM() {
+        return maxErrorM;
+    }
+
+    public void add(double lat, double lng, long timeMs) {
+        added++;
+        if (kept.count == 0) {
+            kept.add(lat, lng, timeMs);
+            return;
+        }
+        if (window > 0 && (window == MAX_WINDOW || !fits(lat, lng))) {
+            int last = window - 1;
+            kept.add(windowLat[last], windowLng[last], windowTime[last]);
+            window = 0;
+        }
+        windowLat[window] = lat;
+        windowLng[window] = lng;
+        windowTime[window] = timeMs;
+        window++;
+    }
+
+    /** True if every window point is within the bound of the line from the last kept point to (lat, lng). */
+    private boolean fits(double lat, double lng) {
+        int a = kept.count - 1;
+        double lat0 = kept.latitude[a];
+        double lng0 = kept.longitude[a];
+        double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(lat0));
+        double bx = (lng - lng0) * kx;
+        double by = (lat - lat0) * METERS_PER_DEGREE;
+        double len2 = bx * bx + by * by;
+        double limit2 = maxErrorM * maxErrorM;
+        for (int i = 0; i < window; i++) {
+            double px = (windowLng[i] - lng0) * kx;
+            double py = (windowLat[i] - lat0) * METERS_PER_DEGREE;
+            double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / len2));
+            double dx = px - t * bx;
+            double dy = py - t * by;
+            if (dx * dx + dy * dy > limit2) return false;
+        }
+        return true;
+    }
+
+    /** Points added so far. */
+    public long getAdded() {
+        return added;
+    }
+
+    /** Size of {@link #snapshot()} without building it. */
+    public int size() {
+        return kept.count + (window > 0 ? 1 : 0);
+    }
+
+    /** The simplified trail so far, ending at the newest point. */
+    public Trail snapshot() {
+        Trail out = new Trail(size());
+        System.arraycopy(kept.latitude, 0, out.latitude, 0, kept.count);
+        System.arraycopy(kept.longitude, 0, out.longitude, 0, kept.count);
+        System.arraycopy(kept.timeMs, 0, out.timeMs, 0, kept.count);
+        out.count = kept.count;
+        if (window > 0) out.add(windowLat[window - 1], windowLng[window - 1], windowTime[window - 1]);
+        return out;
+    }
+
+    /** Distance in meters between two nearby points, on the same projection the bound uses. */
+    public static double distanceM(double lat1, double lng1, double lat2, double lng2) {
+        double dx = (lng2 - lng1) * METERS_PER_DEGREE * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double dy = (lat2 - lat1) * METERS_PER_DEGREE;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,222 @@
+package app.lovable.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running transcript of an SOS, built from a recognizer's partial and
+ * final results and handed to JS in increments.
+ *
+ * A recognizer rewrites its partial hypothesis as it hears more, so only
+ * words that have stopped changing are committed: a word becomes stable
+ * once it (and every word before it) has read the same for
+ * {@code stableMs}. Stable words are appended as a {@link Segment}; a final
+ * result commits whatever is left of the utterance. A revision to a word
+ * that is already committed is ignored (and counted), so segments never
+ * change once delivered.
+ *
+ * Readers take segments after a sequence number and acknowledge what
+ * they have processed; {@link #unacked} is capped, so a consumer that
+ * does not keep up receives a bounded backlog instead of an ever-growing
+ * one. Once the transcript holds more than {@code maxChars}, the oldest
+ * segments are dropped.
+ *
+ * Segment latency is measured from when its first word was heard (the
+ * start of speech for an utterance's first word, otherwise the first
+ * partial that contained it) to when it was committed.
+ *
+ * Thread-safe.
+ */
+public final class TranscriptBuffer {
+    public static final class Segment {
+        public final long seq;
+        public final String text;
+        /** When the segment's first word was heard, on the buffer's clock. */
+        public final long heardAtMs;
+        public final long committedAtMs;
+        /** Committed by a final result rather than by being stable. */
+        public final boolean fromFinal;
+
+        Segment(long seq, String text, long heardAtMs, long committedAtMs, boolean fromFinal) {
+            this.seq = seq;
+            this.text = text;
+            this.heardAtMs = heardAtMs;
+            this.committedAtMs = committedAtMs;
+            this.fromFinal = fromFinal;
+        }
+    }
+
+    private final Clock clock;
+    private final long stableMs;
+    private final int maxChars;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /** Current utterance: the latest hypothesis and since when each word has read as it does. */
+    private final List<String> words = new ArrayList<>();
+    private long[] sinceMs = new long[16];
+    private int committed;
+    private long speechStartMs = -1;
+
+    private long nextSeq = 1;
+    private long acked;
+    private int chars;
+    private long revisions;
+    private long droppedSegments;
+
+    public TranscriptBuffer(Clock clock, long stableMs, int maxChars) {
+        if (stableMs < 0) throw new IllegalArgumentException("stableMs must not be negative");
+        if (maxChars < 1) throw new IllegalArgumentException("maxChars must be positive");
+        this.clock = clock;
+        this.stableMs = stableMs;
+        this.maxChars = maxChars;
+    }
+
+    /** The recognizer heard the start of speech. */
+    public synchronized void onSpeechStart() {
+        if (words.isEmpty()) speechStartMs = clock.nowMs();
+    }
+
+    /** Applies a partial hypothesis and returns the segments it made stable (often none). */
+    public synchronized List<Segment> onPartial(String text) {
+        long now = clock.nowMs();
+        update(split(text), now);
+        int stable = committed;
+        while (stable < words.size() && now - sinceMs[stable] >= stableMs) stable++;
+        return commit(stable, now, false);
+    }
+
+    /** Applies a final result, commits the rest of the utterance and starts a new one. */
+    public synchronized List<Segment> onFinal(String text) {
+        long now = clock.nowMs();
+        update(split(text), now);
+        List<Segment> out = commit(words.size(), now, true);
+        resetUtterance();
+        return out;
+    }
+
+    /** Commits whatever the last partial held, e.g. when transcription stops mid-utterance. */
+    public synchronized List<Segment> finish() {
+        List<Segment> out = commit(words.size(), clock.nowMs(), true);
+        resetUtterance();
+        return out;
+    }
+
+    private void update(String[] hypothesis, long now) {
+        boolean same = true;
+        for (int i = 0; i < hypothesis.length; i++) {
+            if (i < committed) {
+                if (!hypothesis[i].equalsIgnoreCase(words.get(i))) revisions++;
+                continue;
+            }
+            same &= i < words.size() && hypothesis[i].equalsIgnoreCase(words.get(i));
+            if (i == sinceMs.length) sinceMs = Arrays.copyOf(sinceMs, sinceMs.length * 2);
+            if (!same) sinceMs[i] = now;
+            if (i < words.size()) words.set(i, hypothesis[i]);
+            else words.add(hypothesis[i]);
+        }
+        // A shorter hypothesis drops trailing words, but never committed ones.
+        while (words.size() > Math.max(committed, hypothesis.length)) words.remove(words.size() - 1);
+    }
+
+    private List<Segment> commit(int upTo, long now, boolean fromFinal) {
+        if (upTo <= committed) return new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = committed; i < upTo; i++) {
+            if (text.length() > 0) text.append(' ');
+            text.append(words.get(i));
+        }
+        long heard = sinceMs[committed];
+        if (committed == 0 && speechStartMs >= 0) heard = Math.min(heard, speechStartMs);
+        committed = upTo;
+        Segment s = new Segment(nextSeq++, text.toString(), heard, now, fromFinal);
+        segments.addLast(s);
+        chars += s.text.length() + 1;
+        while (chars > maxChars && segments.size() > 1) {
+            chars -= segments.pollFirst().text.length() + 1;
+            droppedSegments++;
+        }
+        latency.record((now - heard) * 1_000L);
+        List<Segment> out = new ArrayList<>(1);
+        out.add(s);
+        return out;
+    }
+
+    private void resetUtterance() {
+        words.clear();
+        committed = 0;
+        speechStartMs = -1;
+    }
+
+    /** Up to {@code max} segments after the last acknowledged one, oldest first. */
+    public synchronized List<Segment> unacked(int max) {
+        List<Segment> out = new ArrayList<>();
+        for (Segment s : segments) {
+            if (out.size() >= max) break;
+            if (s.seq > acked) out.add(s);
+        }
+        return out;
+    }
+
+    /** The reader has everything up to and including {@code seq}. Returns false if that was nothing new. */
+    public synchronized boolean ack(long seq) {
+        long clamped = Math.min(seq, nextSeq - 1);
+        if (clamped <= acked) return false;
+        acked = clamped;
+        return true;
+    }
+
+    public synchronized long getAcked() {
+        return acked;
+    }
+
+    /** Sequence number the next segment will get. */
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    /** The committed transcript, segments separated by spaces. */
+    public synchronized String text() {
+        StringBuilder out = new StringBuilder();
+        for (Segment s : segments) {
+            if (out.length() > 0) out.append(' ');
+            out.append(s.text);
+        }
+        return out.toString();
+    }
+
+    /** Words heard but not yet stable. */
+    public synchronized String pending() {
+        StringBuilder out = new StringBuilder();
+        for (int i = committed; i < words.size(); i++) {
+            if (out.length() > 0) out.append(' ');
+            out.append(words.get(i));
+        }
+        return out.toString();
+    }
+
+    public synchronized int size() {
+        return segments.size();
+    }
+
+    /** Recognizer changes to words that had already been committed, and so were ignored. */
+    public synchronized long getRevisions() {
+        return revisions;
+    }
+
+    public synchronized long getDroppedSegments() {
+        return droppedSegments;
+    }
+
+    /** Heard-to-committed time per segment. */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    private static String[] split(String text) {
+        String t = text == null ? "" : text.trim();
+        return t.isEmpty() ? new String[0] : t.split("\\s+");
+    }
+}
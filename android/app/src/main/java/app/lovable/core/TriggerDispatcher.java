@@ -0,0 +1,171 @@
+package app.lovable.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single in-process path from an SOS trigger (volume buttons, wake phrase) to
+ * the JS listeners.
+ *
+ * Producers call {@link #submit} from any thread. A trigger within
+ * {@link #DEDUP_WINDOW_MS} of the last accepted one is dropped, so the
+ * background service, the foreground key handler and a relaunch intent
+ * reporting the same press fire JS once. Accepted triggers get an
+ * idempotency ID and go onto a lock-free queue that is drained on the
+ * delivery executor (the main thread on Android) into the registered sinks.
+ * Triggers that arrive before any sink is registered wait in the queue until
+ * the first one is added.
+ */
+public final class TriggerDispatcher {
+    public static final long DEDUP_WINDOW_MS = 2_000;
+    private static final int RECENT_IDS = 16;
+
+    public enum Source {
+        VOLUME_SERVICE("background_service"),
+        VOLUME_FOREGROUND("foreground"),
+        VOICE("voice"),
+        LAUNCH_INTENT("launch");
+
+        public final String wireName;
+
+        Source(String wireName) {
+            this.wireName = wireName;
+        }
+    }
+
+    public static final class Trigger {
+        public final long id;
+        public final Source source;
+        /** Wall-clock time for the JS payload. */
+        public final long timestamp;
+        /** Submission time on the dispatcher's clock. */
+        public final long createdAtNanos;
+
+        Trigger(long id, Source source, long timestamp, long createdAtNanos) {
+            this.id = id;
+            this.source = source;
+            this.timestamp = timestamp;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+
+    /** Receives accepted triggers on the delivery executor. */
+    public interface Sink {
+        /** Returns true if the trigger reached a JS listener. */
+        boolean deliver(Trigger trigger);
+    }
+
+    private final Clock clock;
+    private final Executor deliveryExecutor;
+    private final ConcurrentLinkedQueue<Trigger> queue = new ConcurrentLinkedQueue<>();
+    private final CopyOnWriteArrayList<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+
+    private final AtomicLong nextId;
+    private final AtomicLong lastAcceptedAtMs = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLongArray recentIds = new AtomicLongArray(RECENT_IDS);
+    private final AtomicLong recentCursor = new AtomicLong();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * @param idSeed first idempotency ID; seeding from the wall clock keeps IDs
+     *               unique across process restarts
+     */
+    public TriggerDispatcher(Clock clock, Executor deliveryExecutor, long idSeed) {
+        this.clock = clock;
+        this.deliveryExecutor = deliveryExecutor;
+        this.nextId = new AtomicLong(idSeed);
+    }
+
+    /**
+     * Accepts a trigger unless it duplicates one accepted within the dedup
+     * window. Returns the new trigger, or null for a duplicate.
+     */
+    public Trigger submit(Source source, long timestamp) {
+        long now = clock.nowMs();
+        long last;
+        do {
+            last = lastAcceptedAtMs.get();
+            if (last != Long.MIN_VALUE && now - last < DEDUP_WINDOW_MS) {
+                duplicates.incrementAndGet();
+                return null;
+            }
+        } while (!lastAcceptedAtMs.compareAndSet(last, now));
+
+        Trigger trigger = new Trigger(nextId.getAndIncrement(), source, timestamp, clock.nowNanos());
+        recentIds.set((int) (recentCursor.getAndIncrement() % RECENT_IDS), trigger.id);
+        accepted.incrementAndGet();
+        queue.offer(trigger);
+        scheduleDrain();
+        return trigger;
+    }
+
+    /** True if {@code id} belongs to one of the most recently accepted triggers. */
+    public boolean wasAccepted(long id) {
+        for (int i = 0; i < RECENT_IDS; i++) {
+            if (recentIds.get(i) == id && id != 0) return true;
+        }
+        return false;
+    }
+
+    public void addSink(Sink sink) {
+        sinks.addIfAbsent(sink);
+        scheduleDrain();
+    }
+
+    public void removeSink(Sink sink) {
+        sinks.remove(sink);
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            deliveryExecutor.execute(drainTask);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (sinks.isEmpty()) return;
+        Trigger trigger;
+        while ((trigger = queue.poll()) != null) {
+            boolean reached = false;
+            for (Sink sink : sinks) {
+                reached |= sink.deliver(trigger);
+            }
+            if (reached) {
+                delivered.incrementAndGet();
+                latency.recordNanos(clock.nowNanos() - trigger.createdAtNanos);
+            }
+        }
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    /** Trigger-to-JS latency, measured from {@link #submit} to the sink handing the event to the bridge. */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
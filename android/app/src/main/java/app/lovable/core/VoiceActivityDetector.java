@@ -0,0 +1,171 @@
+package app.lovable.core;
+
+/**
+ * Cheap frame-level voice activity detector for a low-rate PCM stream.
+ *
+ * A frame counts as speech-like when its energy is above an adaptive noise
+ * floor by the "on" threshold and its zero-crossing rate is below the
+ * broadband-noise range. Speech starts after {@code attackMs} of consecutive
+ * speech-like frames and ends after {@code hangoverMs} without a frame above
+ * the (lower) "off" threshold, which gives the detector hysteresis in both
+ * level and time.
+ */
+public final class VoiceActivityDetector {
+    public static final int DEFAULT_SAMPLE_RATE = 8_000;
+    public static final int FRAME_MS = 20;
+
+    private static final float MAX_SPEECH_ZCR = 0.35f;
+    private static final float MIN_ENERGY_DB = 20f;
+    private static final int FLOOR_INIT_FRAMES = 10;
+    private static final float FLOOR_FALL = 0.2f;
+    private static final float FLOOR_RISE = 0.01f;
+
+    /**
+     * Tunable thresholds; the defaults suit a phone microphone in a quiet room.
+     * Immutable, so a new instance can be handed to the capture thread as is.
+     */
+    public static final class Settings {
+        public final float onThresholdDb;
+        public final float offThresholdDb;
+        public final int attackMs;
+        public final int hangoverMs;
+        final int attackFrames;
+        final int hangoverFrames;
+
+        public Settings() {
+            this(9f, 5f, 60, 1_500);
+        }
+
+        public Settings(float onThresholdDb, float offThresholdDb, int attackMs, int hangoverMs) {
+            this.onThresholdDb = onThresholdDb;
+            this.offThresholdDb = Math.min(offThresholdDb, onThresholdDb);
+            this.attackMs = attackMs;
+            this.hangoverMs = hangoverMs;
+            this.attackFrames = Math.max(1, attackMs / FRAME_MS);
+            this.hangoverFrames = Math.max(1, hangoverMs / FRAME_MS);
+        }
+    }
+
+    private final int frameSize;
+    // Replaced from other threads; process() reads it once per frame.
+    private volatile Settings settings;
+
+    private float noiseFloorDb;
+    private int floorFrames;
+    private boolean speech;
+    private int candidateRun;
+    private int quietRun;
+    private long onsets;
+    private float lastEnergyDb;
+
+    public VoiceActivityDetector(int sampleRate, Settings settings) {
+        this.frameSize = sampleRate * FRAME_MS / 1000;
+        setSettings(settings);
+    }
+
+    /** Safe to call from any thread; takes effect from the next frame. */
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /** Samples per analysis frame. */
+    public int frameSize() {
+        return frameSize;
+    }
+
+    public boolean isSpeech() {
+        return speech;
+    }
+
+    public long getOnsets() {
+        return onsets;
+    }
+
+    public float getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    public float getLastEnergyDb() {
+        return lastEnergyDb;
+    }
+
+    public void reset() {
+        floorFrames = 0;
+        noiseFloorDb = 0f;
+        speech = false;
+        candidateRun = 0;
+        quietRun = 0;
+    }
+
+    /**
+     * Analyses one {@link #frameSize()}-sample frame and returns true when the
+     * speech state changed.
+     */
+    public boolean process(short[] pcm, int offset) {
+        long sumSq = 0;
+        int crossings = 0;
+        int prev = pcm[offset];
+        for (int i = 0; i < frameSize; i++) {
+            int s = pcm[offset + i];
+            sumSq += (long) s * s;
+            if ((s >= 0) != (prev >= 0)) crossings++;
+            prev = s;
+        }
+        float energyDb = (float) (10 * Math.log10(sumSq / (double) frameSize + 1.0));
+        float zcr = crossings / (float) frameSize;
+        Settings settings = this.settings;
+        lastEnergyDb = energyDb;
+
+        if (floorFrames < FLOOR_INIT_FRAMES) {
+            noiseFloorDb = (noiseFloorDb * floorFrames + energyDb) / (floorFrames + 1);
+            floorFrames++;
+            return false;
+        }
+
+        boolean candidate = energyDb > MIN_ENERGY_DB
+                && energyDb > noiseFloorDb + settings.onThresholdDb
+                && zcr < MAX_SPEECH_ZCR;
+        boolean active = energyDb > noiseFloorDb + settings.offThresholdDb;
+
+        // The floor falls quickly and rises slowly, and is frozen during speech.
+        if (energyDb < noiseFloorDb) {
+            noiseFloorDb += FLOOR_FALL * (energyDb - noiseFloorDb);
+        } else if (!speech && !candidate) {
+            noiseFloorDb += FLOOR_RISE * (energyDb - noiseFloorDb);
+        }
+
+        if (!speech) {
+            candidateRun = candidate ? candidateRun + 1 : 0;
+            if (candidateRun >= settings.attackFrames) {
+                speech = true;
+                quietRun = 0;
+                onsets++;
+                return true;
+            }
+            return false;
+        }
+
+        quietRun = active ? 0 : quietRun + 1;
+        if (quietRun >= settings.hangoverFrames) {
+            speech = false;
+            candidateRun = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /** Runs every complete frame in {@code ring}; returns true if speech started during the drain. */
+    public boolean drain(PcmRingBuffer ring, short[] scratch) {
+        boolean started = false;
+        while (ring.available() >= frameSize) {
+            ring.peek(scratch, 0, frameSize);
+            ring.skip(frameSize);
+            if (process(scratch, 0) && speech) started = true;
+        }
+        return started;
+    }
+}
@@ -0,0 +1,275 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recognizes SOS gestures on the volume keys: both keys together, N rapid
+ * presses, a long hold, and fixed press sequences such as up-down-up.
+ *
+ * Every pattern is compiled into a small transition table over five input
+ * symbols (press/release of each key, and a timeout). The tables and the
+ * per-pattern state live in flat int/long arrays allocated once by the
+ * {@link Builder}, so feeding events allocates nothing. A pattern may
+ * carry a second table for {@link #onKeyTap}, whose releases are inferred
+ * rather than observed.
+ *
+ * Times must come from a monotonic clock (SystemClock.uptimeMillis, the
+ * time base of KeyEvent). A pattern that has been in progress for longer
+ * than its window receives a timeout symbol, which resets sequences and
+ * completes long holds. Callers that need holds to fire without further key
+ * events schedule {@link #onTick} at {@link #nextDeadline()}.
+ *
+ * Not thread-safe; drive it from one thread.
+ */
+public final class VolumeGestureRecognizer {
+    public static final int KEY_UP = 0;
+    public static final int KEY_DOWN = 1;
+    /** Matches either key in {@link Builder#rapidPresses} and {@link Builder#longHold}. */
+    public static final int KEY_ANY = 2;
+
+    /** Returned when no gesture completed. */
+    public static final int NONE = -1;
+
+    static final int SYM_UP_PRESS = 0;
+    static final int SYM_DOWN_PRESS = 1;
+    static final int SYM_UP_RELEASE = 2;
+    static final int SYM_DOWN_RELEASE = 3;
+    static final int SYM_TIMEOUT = 4;
+    private static final int SYMBOLS = 5;
+
+    /** Table entries: a state number, or one of these. */
+    private static final int ACCEPT = -1;
+    /** Back to state 0, then feed the same symbol again so it can start a new attempt. */
+    private static final int RESET = -2;
+
+    private final int[][] tables;
+    /** Used for the release half of {@link #onKeyTap}; the same array as in tables unless a pattern differs. */
+    private final int[][] tapTables;
+    private final long[] windowMs;
+    private final String[] names;
+    private final int[] state;
+    private final long[] startedAt;
+    private final boolean[] held = new boolean[2];
+
+    private VolumeGestureRecognizer(List<int[]> tables, List<int[]> tapTables, List<Long> windows,
+            List<String> names) {
+        int n = tables.size();
+        this.tables = tables.toArray(new int[n][]);
+        this.tapTables = tapTables.toArray(new int[n][]);
+        this.windowMs = new long[n];
+        this.names = names.toArray(new String[n]);
+        for (int i = 0; i < n; i++) windowMs[i] = windows.get(i);
+        this.state = new int[n];
+        this.startedAt = new long[n];
+    }
+
+    public int patternCount() {
+        return tables.length;
+    }
+
+    /** Name given to the pattern when it was added, e.g. for logging. */
+    public String patternName(int pattern) {
+        return names[pattern];
+    }
+
+    /**
+     * Key went down. Auto-repeat downs for a key that is already held are
+     * ignored. Returns the index of the completed pattern or {@link #NONE}.
+     */
+    public int onKeyDown(int key, long nowMs) {
+        if (held[key]) return expire(nowMs);
+        held[key] = true;
+        return feed(pressOf(key), nowMs, false);
+    }
+
+    public int onKeyUp(int key, long nowMs) {
+        if (!held[key]) return expire(nowMs);
+        held[key] = false;
+        return feed(releaseOf(key), nowMs, false);
+    }
+
+    /**
+     * Press and release with no observable hold, e.g. inferred from a volume
+     * change. The release goes through each pattern's tap table, so
+     * {@link Builder#simultaneous} still pairs two taps.
+     */
+    public int onKeyTap(int key, long nowMs) {
+        int result = onKeyDown(key, nowMs);
+        held[key] = false;
+        int released = feed(releaseOf(key), nowMs, true);
+        return result != NONE ? result : released;
+    }
+
+    /** Delivers timeouts that are due; returns a completed long hold, if any. */
+    public int onTick(long nowMs) {
+        return expire(nowMs);
+    }
+
+    /** Earliest time a pattern in progress times out, or Long.MAX_VALUE if none is. */
+    public long nextDeadline() {
+        long next = Long.MAX_VALUE;
+        for (int p = 0; p < tables.length; p++) {
+            if (state[p] != 0) next = Math.min(next, startedAt[p] + windowMs[p]);
+        }
+        return next;
+    }
+
+    public void reset() {
+        for (int p = 0; p < tables.length; p++) state[p] = 0;
+        held[KEY_UP] = false;
+        held[KEY_DOWN] = false;
+    }
+
+    private int expire(long nowMs) {
+        for (int p = 0; p < tables.length; p++) {
+            if (state[p] != 0 && nowMs - startedAt[p] >= windowMs[p]
+                    && step(p, SYM_TIMEOUT, nowMs, false)) {
+                return accepted(p);
+            }
+        }
+        return NONE;
+    }
+
+    private int feed(int symbol, long nowMs, boolean tap) {
+        int result = expire(nowMs);
+        if (result != NONE) return result;
+        for (int p = 0; p < tables.length; p++) {
+            if (step(p, symbol, nowMs, tap)) return accepted(p);
+        }
+        return NONE;
+    }
+
+    /** Advances pattern {@code p}; returns true if it accepted. */
+    private boolean step(int p, int symbol, long nowMs, boolean tap) {
+        int[] table = tap ? tapTables[p] : tables[p];
+        int next = table[state[p] * SYMBOLS + symbol];
+        if (next == RESET) {
+            state[p] = 0;
+            next = table[symbol];
+            if (next == RESET) return false;
+        }
+        if (next == ACCEPT) return true;
+        if (state[p] == 0 && next != 0) startedAt[p] = nowMs;
+        state[p] = next;
+        return false;
+    }
+
+    private int accepted(int p) {
+        // One gesture at a time: the events that completed it must not count towards another.
+        for (int i = 0; i < tables.length; i++) state[i] = 0;
+        return p;
+    }
+
+    private static int pressOf(int key) {
+        return key == KEY_UP ? SYM_UP_PRESS : SYM_DOWN_PRESS;
+    }
+
+    private static int releaseOf(int key) {
+        return key == KEY_UP ? SYM_UP_RELEASE : SYM_DOWN_RELEASE;
+    }
+
+    private static boolean matches(int key, int pressSymbol) {
+        return key == KEY_ANY || pressOf(key) == pressSymbol;
+    }
+
+    public static final class Builder {
+        private final List<int[]> tables = new ArrayList<>();
+        private final List<int[]> tapTables = new ArrayList<>();
+        private final List<Long> windows = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Both keys held at once, in either order, with the second press within
+         * {@code windowMs} of the first. Letting go of the first key before the
+         * second goes down starts over, so a tap of each key in turn is not a
+         * gesture. Taps inferred from volume changes have no real release;
+         * for those, two taps within the window count.
+         */
+        public Builder simultaneous(String name, long windowMs) {
+            int[] taps = newTable(3);
+            // 0: idle, 1: up pressed first, 2: down pressed first.
+            set(taps, 0, SYM_UP_PRESS, 1);
+            set(taps, 0, SYM_DOWN_PRESS, 2);
+            set(taps, 1, SYM_DOWN_PRESS, ACCEPT);
+            set(taps, 1, SYM_TIMEOUT, 0);
+            set(taps, 2, SYM_UP_PRESS, ACCEPT);
+            set(taps, 2, SYM_TIMEOUT, 0);
+            int[] keys = taps.clone();
+            set(keys, 1, SYM_UP_RELEASE, 0);
+            set(keys, 2, SYM_DOWN_RELEASE, 0);
+            return add(name, keys, taps, windowMs);
+        }
+
+        /** {@code count} presses of {@code key} (or {@link #KEY_ANY}) within {@code windowMs} of the first. */
+        public Builder rapidPresses(String name, int key, int count, long windowMs) {
+            if (count < 2) throw new IllegalArgumentException("count must be at least 2");
+            int[] t = newTable(count);
+            for (int s = 0; s < count; s++) {
+                int next = s == count - 1 ? ACCEPT : s + 1;
+                for (int sym = SYM_UP_PRESS; sym <= SYM_DOWN_PRESS; sym++) {
+                    set(t, s, sym, matches(key, sym) ? next : (s == 0 ? 0 : RESET));
+                }
+                if (s > 0) set(t, s, SYM_TIMEOUT, RESET);
+            }
+            return add(name, t, t, windowMs);
+        }
+
+        /** {@code key} (or {@link #KEY_ANY}) held down for {@code holdMs}. */
+        public Builder longHold(String name, int key, long holdMs) {
+            int[] t = newTable(1 + (key == KEY_ANY ? 2 : 1));
+            if (key == KEY_ANY) {
+                set(t, 0, SYM_UP_PRESS, 1);
+                set(t, 0, SYM_DOWN_PRESS, 2);
+                set(t, 1, SYM_UP_RELEASE, 0);
+                set(t, 1, SYM_TIMEOUT, ACCEPT);
+                set(t, 2, SYM_DOWN_RELEASE, 0);
+                set(t, 2, SYM_TIMEOUT, ACCEPT);
+            } else {
+                set(t, 0, pressOf(key), 1);
+                set(t, 1, releaseOf(key), 0);
+                set(t, 1, SYM_TIMEOUT, ACCEPT);
+            }
+            return add(name, t, t, holdMs);
+        }
+
+        /** Presses in exactly this key order (e.g. up, down, up) within {@code windowMs} of the first. */
+        public Builder sequence(String name, long windowMs, int... keys) {
+            if (keys.length < 2) throw new IllegalArgumentException("sequence needs at least 2 keys");
+            int[] t = newTable(keys.length);
+            for (int s = 0; s < keys.length; s++) {
+                int next = s == keys.length - 1 ? ACCEPT : s + 1;
+                for (int sym = SYM_UP_PRESS; sym <= SYM_DOWN_PRESS; sym++) {
+                    set(t, s, sym, pressOf(keys[s]) == sym ? next : (s == 0 ? 0 : RESET));
+                }
+                if (s > 0) set(t, s, SYM_TIMEOUT, RESET);
+            }
+            return add(name, t, t, windowMs);
+        }
+
+        public VolumeGestureRecognizer build() {
+            return new VolumeGestureRecognizer(tables, tapTables, windows, names);
+        }
+
+        private Builder add(String name, int[] table, int[] tapTable, long windowMs) {
+            tables.add(table);
+            tapTables.add(tapTable);
+            windows.add(windowMs);
+            names.add(name);
+            return this;
+        }
+
+        /** Every state stays put on every symbol until overridden. */
+        private static int[] newTable(int states) {
+            int[] t = new int[states * SYMBOLS];
+            for (int s = 0; s < states; s++) {
+                for (int sym = 0; sym < SYMBOLS; sym++) t[s * SYMBOLS + sym] = s;
+            }
+            return t;
+        }
+
+        private static void set(int[] table, int state, int symbol, int next) {
+            table[state * SYMBOLS + symbol] = next;
+        }
+    }
+}
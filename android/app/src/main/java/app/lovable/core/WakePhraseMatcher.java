@@ -0,0 +1,480 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled matcher for "&lt;wake phrase&gt; &lt;command&gt;" transcripts.
+ *
+ * All phrases are compiled once into an Aho-Corasick automaton over a
+ * normalized form of the text (lower case, runs of punctuation/whitespace
+ * collapsed to one space, padded with a space at both ends), so a whole
+ * hypothesis is checked in a single pass and phrases only match on word
+ * boundaries. Wake phrases that the recognizer splits or misspells
+ * ("rescue me" for "resqme") are caught by comparing phonetic keys of
+ * whole-token windows. The key keeps one mark per vowel group, so it has to
+ * agree syllable for syllable: "risk me" or "ask me" do not pass for
+ * "resqme".
+ *
+ * Most recognizer results contain no command, or a command with nothing
+ * that could be the wake phrase. {@link #matches} first checks the raw
+ * text, with no allocation and a table lookup per character, for a token
+ * starting with the first two letters of some command and a token that
+ * could start a wake phrase (or for a transcript short enough to be the
+ * command alone), and only normalizes and scans the text if both are there. The scan itself steps a dense ASCII
+ * transition table.
+ *
+ * Scanning reuses internal buffers and does not allocate once they have
+ * grown to the transcript size, which also means an instance must only be
+ * used from one thread at a time.
+ */
+public final class WakePhraseMatcher {
+    /** A wake phrase matched exactly. */
+    public static final int FLAG_WAKE = 1;
+    /** A command word matched. */
+    public static final int FLAG_COMMAND = 1 << 1;
+    /** The whole transcript is a single command ("help"). */
+    public static final int FLAG_COMMAND_ONLY = 1 << 2;
+    /** A wake phrase matched through its phonetic key. */
+    public static final int FLAG_FUZZY_WAKE = 1 << 3;
+
+    /** Stands for a vowel group in a phonetic key. */
+    static final char VOWEL = '.';
+    private static final int MIN_FUZZY_KEY_LENGTH = 4;
+    // Lower-case form of each ASCII letter or digit, 0 for the other ASCII characters.
+    private static final char[] ASCII_WORD = new char[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) ASCII_WORD[c] = c;
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_WORD[c] = c;
+            ASCII_WORD[c - 'a' + 'A'] = c;
+        }
+    }
+
+    // Flattened automaton. Edges of node n are labels/targets[edgeStart[n] .. edgeStart[n] + edgeCount[n]),
+    // sorted by label.
+    private final int[] edgeStart;
+    private final int[] edgeCount;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    private final int[] outFlags;
+    private final int[] commandLength;
+    // Full transition table for ASCII input: the next node for (node << 7 | c), failure links resolved.
+    private final int[] asciiNext;
+
+    private final char[][] wakeKeys;
+    // Phonetic codes that some wake phrase starts with; exact and fuzzy wake matches start with one of them.
+    private final String wakeStarts;
+    // Per lower-case ASCII character: true if its phonetic code is in wakeStarts.
+    private final boolean[] asciiWakeStart = new boolean[128];
+    // Bit (first << 7 | second) is set when a command starts with those two lower-case ASCII
+    // characters. Null when some command cannot be screened this way.
+    private final long[] commandStarts;
+    private final int maxCommandTokens;
+
+    private char[] norm = new char[128];
+    private int[] tokenStart = new int[32];
+    private int[] tokenEnd = new int[32];
+    private int tokenCount;
+    private final char[] keyBuf;
+
+    public WakePhraseMatcher(WakeVocabulary vocabulary) {
+        Builder b = new Builder();
+        List<char[]> keys = new ArrayList<>();
+        int maxKey = 0;
+        StringBuilder wakeStartCodes = new StringBuilder();
+        for (String phrase : vocabulary.getWakePhrases()) {
+            String n = normalizePhrase(phrase);
+            if (n.isEmpty()) continue;
+            b.add(" " + n + " ", FLAG_WAKE, false);
+
+            char[] key = phoneticKey(n);
+            if (wakeStartCodes.indexOf(String.valueOf(key[0])) < 0) wakeStartCodes.append(key[0]);
+            if (key.length >= MIN_FUZZY_KEY_LENGTH) {
+                keys.add(key);
+                maxKey = Math.max(maxKey, key.length);
+            }
+        }
+        wakeStarts = wakeStartCodes.toString();
+        for (char c = 0; c < 128; c++) asciiWakeStart[c] = wakeStarts.indexOf(phoneticCode(c)) >= 0;
+        long[] starts = new long[(128 * 128) / 64];
+        int maxTokens = 0;
+        for (String phrase : vocabulary.getCommandWords()) {
+            String n = normalizePhrase(phrase);
+            if (n.isEmpty()) continue;
+            b.add(" " + n + " ", FLAG_COMMAND, true);
+            maxTokens = Math.max(maxTokens, n.split(" ").length);
+            // Both characters must be ASCII and in the same token, e.g. not "a" in "a b".
+            if (starts != null && n.length() >= 2 && n.charAt(0) < 128 && n.charAt(1) < 128 && n.charAt(1) != ' ') {
+                int bit = n.charAt(0) << 7 | n.charAt(1);
+                starts[bit >>> 6] |= 1L << bit;
+            } else {
+                starts = null;
+            }
+        }
+        commandStarts = starts;
+        maxCommandTokens = maxTokens;
+        b.link();
+
+        int nodes = b.children.size();
+        edgeStart = new int[nodes];
+        edgeCount = new int[nodes];
+        int totalEdges = 0;
+        for (Map<Character, Integer> c : b.children) totalEdges += c.size();
+        edgeLabels = new char[totalEdges];
+        edgeTargets = new int[totalEdges];
+        int pos = 0;
+        for (int n = 0; n < nodes; n++) {
+            Map<Character, Integer> c = b.children.get(n);
+            char[] labels = new char[c.size()];
+            int i = 0;
+            for (Character ch : c.keySet()) labels[i++] = ch;
+            Arrays.sort(labels);
+            edgeStart[n] = pos;
+            edgeCount[n] = labels.length;
+            for (char ch : labels) {
+                edgeLabels[pos] = ch;
+                edgeTargets[pos] = c.get(ch);
+                pos++;
+            }
+        }
+        fail = b.toArray(b.fail);
+        outFlags = b.toArray(b.flags);
+        commandLength = b.toArray(b.commandLength);
+        asciiNext = new int[nodes << 7];
+        for (int n = 0; n < nodes; n++) {
+            for (char c = 0; c < 128; c++) asciiNext[n << 7 | c] = step(n, c);
+        }
+
+        wakeKeys = keys.toArray(new char[0][]);
+        keyBuf = new char[maxKey];
+    }
+
+    /**
+     * Returns true when the transcript contains a command together with a
+     * (possibly misheard) wake phrase, or consists of a command alone.
+     */
+    public boolean matches(CharSequence transcript) {
+        if (transcript == null || (commandStarts != null && !worthScanning(transcript))) return false;
+        int flags = scan(transcript);
+        if ((flags & FLAG_COMMAND) == 0) return false;
+        return (flags & (FLAG_WAKE | FLAG_FUZZY_WAKE | FLAG_COMMAND_ONLY)) != 0;
+    }
+
+    /**
+     * Scans a transcript and returns the combination of FLAG_* constants that
+     * apply. The phonetic pass only runs when a command was found without an
+     * exact wake phrase.
+     */
+    public int scan(CharSequence transcript) {
+        if (transcript == null) return 0;
+        int len = normalize(transcript);
+        if (len <= 2) return 0;
+
+        int flags = 0;
+        int node = 0;
+        for (int i = 0; i < len; i++) {
+            char c = norm[i];
+            node = c < 128 ? asciiNext[node << 7 | c] : step(node, c);
+            int out = outFlags[node];
+            if (out == 0) continue;
+            flags |= out;
+            if ((out & FLAG_COMMAND) != 0 && i == len - 1 && commandLength[node] == len) {
+                flags |= FLAG_COMMAND_ONLY;
+            }
+        }
+
+        if ((flags & FLAG_COMMAND) != 0 && (flags & FLAG_WAKE) == 0 && fuzzyWakeMatch()) {
+            flags |= FLAG_FUZZY_WAKE;
+        }
+        return flags;
+    }
+
+    /**
+     * False if the raw text cannot match: no token starts with the first two
+     * letters of a command, or no token can start a wake phrase and there
+     * are too many tokens for the text to be a command alone.
+     */
+    private boolean worthScanning(CharSequence text) {
+        if (!hasCommandStart(text)) return false;
+        int n = text.length();
+        int tokens = 0;
+        boolean inToken = false;
+        for (int i = 0; i < n; i++) {
+            char c = wordChar(text.charAt(i));
+            if (c == 0) {
+                inToken = false;
+            } else if (!inToken) {
+                inToken = true;
+                tokens++;
+                if (c < 128 ? asciiWakeStart[c] : wakeStarts.indexOf(phoneticCode(c)) >= 0) return true;
+            }
+        }
+        return tokens <= maxCommandTokens;
+    }
+
+    /** True if some token starts with the first two letters of a command. */
+    private boolean hasCommandStart(CharSequence text) {
+        int n = text.length();
+        int inToken = 0;
+        char first = 0;
+        for (int i = 0; i < n; i++) {
+            char c = wordChar(text.charAt(i));
+            if (c == 0) {
+                inToken = 0;
+                continue;
+            }
+            if (inToken == 0) {
+                first = c;
+            } else if (inToken == 1 && first < 128 && c < 128) {
+                int bit = first << 7 | c;
+                if ((commandStarts[bit >>> 6] & 1L << bit) != 0) return true;
+            }
+            inToken++;
+        }
+        return false;
+    }
+
+    /** The character lower-cased as {@link #normalize} writes it, or 0 if it separates tokens. */
+    private static char wordChar(char c) {
+        if (c < 128) return ASCII_WORD[c];
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            int target = edge(node, c);
+            if (target >= 0) return target;
+            if (node == 0) return 0;
+            node = fail[node];
+        }
+    }
+
+    private int edge(int node, char c) {
+        int lo = edgeStart[node];
+        int hi = lo + edgeCount[node] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char l = edgeLabels[mid];
+            if (l < c) lo = mid + 1;
+            else if (l > c) hi = mid - 1;
+            else return edgeTargets[mid];
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the padded, normalized transcript into {@link #norm} and records
+     * token boundaries. Returns the normalized length.
+     */
+    private int normalize(CharSequence text) {
+        int n = text.length();
+        if (norm.length < n + 2) norm = new char[n + 2];
+
+        int len = 0;
+        int tokens = 0;
+        boolean inToken = false;
+        norm[len++] = ' ';
+        for (int i = 0; i < n; i++) {
+            char c = wordChar(text.charAt(i));
+            if (c != 0) {
+                if (!inToken) {
+                    if (tokens == tokenStart.length) growTokens();
+                    tokenStart[tokens] = len;
+                    inToken = true;
+                }
+                norm[len++] = c;
+            } else if (inToken) {
+                tokenEnd[tokens++] = len;
+                inToken = false;
+                norm[len++] = ' ';
+            }
+        }
+        if (inToken) {
+            tokenEnd[tokens++] = len;
+            norm[len++] = ' ';
+        }
+        tokenCount = tokens;
+        return len;
+    }
+
+    private void growTokens() {
+        tokenStart = Arrays.copyOf(tokenStart, tokenStart.length * 2);
+        tokenEnd = Arrays.copyOf(tokenEnd, tokenEnd.length * 2);
+    }
+
+    private boolean fuzzyWakeMatch() {
+        if (wakeKeys.length == 0) return false;
+        for (int first = 0; first < tokenCount; first++) {
+            if (wakeStarts.indexOf(phoneticCode(norm[tokenStart[first]])) < 0) continue;
+            int keyLen = 0;
+            // Every token adds to the key, so windows end once it outgrows the longest wake key.
+            for (int t = first; t < tokenCount; t++) {
+                keyLen = appendKey(norm, tokenStart[t], tokenEnd[t], keyBuf, keyLen);
+                if (keyLen < 0) break;
+                for (char[] wake : wakeKeys) {
+                    if (sameKey(wake, keyLen)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean sameKey(char[] wake, int keyLen) {
+        if (wake.length != keyLen) return false;
+        for (int i = 0; i < keyLen; i++) {
+            if (wake[i] != keyBuf[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collapses a vocabulary phrase to the same normalized form the scanner
+     * uses (without the padding spaces).
+     */
+    static String normalizePhrase(String phrase) {
+        if (phrase == null) return "";
+        StringBuilder sb = new StringBuilder(phrase.length());
+        for (int i = 0; i < phrase.length(); i++) {
+            char c = phrase.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') sb.setLength(end - 1);
+        return sb.toString();
+    }
+
+    /**
+     * Phonetic key of a normalized phrase: consonant classes with each run
+     * of vowels as one {@link #VOWEL}, repeats collapsed, ignoring spaces.
+     * "resqme", "rescue me" and "rez cue me" all become "r.sk.m.".
+     */
+    static char[] phoneticKey(String normalized) {
+        char[] text = normalized.toCharArray();
+        char[] key = new char[2 * text.length];
+        int len = 0;
+        int start = 0;
+        for (int i = 0; i <= text.length; i++) {
+            if (i < text.length && text[i] != ' ') continue;
+            len = appendKey(text, start, i, key, len);
+            start = i + 1;
+        }
+        return Arrays.copyOf(key, len);
+    }
+
+    /**
+     * Appends the key of one token, {@code text[start, end)}, to
+     * {@code key[0, len)}. Returns the new length, or -1 if it does not fit.
+     */
+    private static int appendKey(char[] text, int start, int end, char[] key, int len) {
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            char code = phoneticCode(c);
+            // A q without its u is read as the letter: "resqme" is "res-cue-me".
+            boolean letterQ = c == 'q' && (i + 1 == end || text[i + 1] != 'u');
+            for (int k = 0; k < (letterQ ? 2 : 1); k++) {
+                if (k == 1) code = VOWEL;
+                if (len > 0 && key[len - 1] == code) continue;
+                if (len == key.length) return -1;
+                key[len++] = code;
+            }
+        }
+        return len;
+    }
+
+    /** Consonant class of a lower-case character, or {@link #VOWEL} for vowels and glides. */
+    static char phoneticCode(char c) {
+        switch (c) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+            case 'y': case 'h': case 'w':
+                return VOWEL;
+            case 'b': case 'p':
+                return 'p';
+            case 'f': case 'v':
+                return 'f';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 'x':
+                return 'k';
+            case 's': case 'z':
+                return 's';
+            case 'd': case 't':
+                return 't';
+            case 'm': case 'n':
+                return 'm';
+            default:
+                return c;
+        }
+    }
+
+    /** Trie construction state; discarded once the arrays are flattened. */
+    private static final class Builder {
+        final List<Map<Character, Integer>> children = new ArrayList<>();
+        final List<Integer> fail = new ArrayList<>();
+        final List<Integer> flags = new ArrayList<>();
+        final List<Integer> commandLength = new ArrayList<>();
+
+        Builder() {
+            newNode();
+        }
+
+        private int newNode() {
+            children.add(new HashMap<>());
+            fail.add(0);
+            flags.add(0);
+            commandLength.add(0);
+            return children.size() - 1;
+        }
+
+        void add(String pattern, int flag, boolean command) {
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            flags.set(node, flags.get(node) | flag);
+            if (command) commandLength.set(node, pattern.length());
+        }
+
+        /** Breadth-first failure links; outputs are merged down the failure chain. */
+        void link() {
+            ArrayList<Integer> queue = new ArrayList<>();
+            for (Integer child : children.get(0).values()) queue.add(child);
+            for (int head = 0; head < queue.size(); head++) {
+                int node = queue.get(head);
+                for (Map.Entry<Character, Integer> e : children.get(node).entrySet()) {
+                    int child = e.getValue();
+                    int f = fail.get(node);
+                    Integer target = children.get(f).get(e.getKey());
+                    while (target == null && f != 0) {
+                        f = fail.get(f);
+                        target = children.get(f).get(e.getKey());
+                    }
+                    int link = target != null && target != child ? target : 0;
+                    fail.set(child, link);
+                    flags.set(child, flags.get(child) | flags.get(link));
+                    commandLength.set(child, Math.max(commandLength.get(child), commandLength.get(link)));
+                    queue.add(child);
+                }
+            }
+        }
+
+        int[] toArray(List<Integer> values) {
+            int[] out = new int[values.size()];
+            for (int i = 0; i < out.length; i++) out[i] = values.get(i);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package app.lovable.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wake phrases and command words a {@link WakePhraseMatcher} is compiled from.
+ * English commands are always included so "resqme help" keeps working on
+ * devices set to another language.
+ */
+public final class WakeVocabulary {
+    private static final String[] COMMANDS_EN = { "help", "emergency" };
+    private static final String[] COMMANDS_ES = { "ayuda", "emergencia", "socorro" };
+    private static final String[] COMMANDS_FR = { "aide", "au secours", "urgence" };
+    private static final String[] COMMANDS_PT = { "ajuda", "socorro", "emerg\u00eancia" };
+    private static final String[] COMMANDS_DE = { "hilfe", "notfall" };
+
+    private final List<String> wakePhrases;
+    private final List<String> commandWords;
+
+    public WakeVocabulary(List<String> wakePhrases, List<String> commandWords) {
+        this.wakePhrases = Collections.unmodifiableList(new ArrayList<>(wakePhrases));
+        this.commandWords = Collections.unmodifiableList(new ArrayList<>(commandWords));
+    }
+
+    /**
+     * Vocabulary for a single wake word plus the command words of the given
+     * language (ISO 639 code, e.g. "es").
+     */
+    public static WakeVocabulary forLanguage(String wakeWord, String language) {
+        List<String> wake = new ArrayList<>();
+        wake.add(wakeWord);
+
+        List<String> commands = new ArrayList<>();
+        Collections.addAll(commands, COMMANDS_EN);
+        String lang = language == null ? "" : language.toLowerCase(Locale.ROOT);
+        switch (lang) {
+            case "es": Collections.addAll(commands, COMMANDS_ES); break;
+            case "fr": Collections.addAll(commands, COMMANDS_FR); break;
+            case "pt": Collections.addAll(commands, COMMANDS_PT); break;
+            case "de": Collections.addAll(commands, COMMANDS_DE); break;
+            default: break;
+        }
+        return new WakeVocabulary(wake, commands);
+    }
+
+    public List<String> getWakePhrases() {
+        return wakePhrases;
+    }
+
+    public List<String> getCommandWords() {
+        return commandWords;
+    }
+}
@@ -0,0 +1,66 @@
+package app.lovable.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Minimal RIFF/WAVE reader for 16-bit mono PCM, used for fixtures and
+ * offline evaluation of the audio pipeline.
+ */
+public final class WavReader {
+    private WavReader() {}
+
+    /** Decoded samples and the sample rate from the fmt chunk. */
+    public static final class Pcm {
+        public final short[] samples;
+        public final int sampleRate;
+
+        Pcm(short[] samples, int sampleRate) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static Pcm read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) bytes.write(buf, 0, n);
+        ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (b.remaining() < 12 || b.getInt() != 0x46464952 /* RIFF */) throw new IOException("not a RIFF file");
+        b.getInt();
+        if (b.getInt() != 0x45564157 /* WAVE */) throw new IOException("not a WAVE file");
+
+        int sampleRate = -1;
+        while (b.remaining() >= 8) {
+            int id = b.getInt();
+            int size = b.getInt();
+            if (size < 0 || size > b.remaining()) throw new IOException("truncated chunk");
+            if (id == 0x20746d66 /* "fmt " */) {
+                int start = b.position();
+                int format = b.getShort() & 0xffff;
+                int channels = b.getShort() & 0xffff;
+                sampleRate = b.getInt();
+                b.getInt();
+                b.getShort();
+                int bits = b.getShort() & 0xffff;
+                if (format != 1 || channels != 1 || bits != 16) {
+                    throw new IOException("only 16-bit mono PCM is supported");
+                }
+                b.position(start + size);
+            } else if (id == 0x61746164 /* "data" */) {
+                if (sampleRate < 0) throw new IOException("data chunk before fmt chunk");
+                short[] samples = new short[size / 2];
+                b.asShortBuffer().get(samples);
+                return new Pcm(samples, sampleRate);
+            } else {
+                b.position(b.position() + size + (size & 1));
+            }
+        }
+        throw new IOException("no data chunk");
+    }
+}
@@ -0,0 +1,39 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AdtsTest {
+    @Test
+    public void headerMatchesKnownBytes() {
+        byte[] h = new byte[Adts.HEADER_BYTES];
+        // AAC-LC, 16 kHz (index 8), mono, 100-byte payload => 107-byte frame.
+        Adts.writeHeader(h, 0, 100, 16_000, 1);
+        assertArrayEquals(new byte[] {(byte) 0xFF, (byte) 0xF1, 0x60, 0x40, 0x0D, 0x7F, (byte) 0xFC}, h);
+    }
+
+    @Test
+    public void frameLengthRoundTrips() {
+        byte[] h = new byte[Adts.HEADER_BYTES + 2];
+        for (int payload : new int[] {0, 1, 255, 1_000, Adts.MAX_FRAME_BYTES - Adts.HEADER_BYTES}) {
+            Adts.writeHeader(h, 2, payload, 44_100, 2);
+            assertEquals(payload + Adts.HEADER_BYTES, Adts.frameLength(h, 2));
+        }
+    }
+
+    @Test
+    public void frameLengthNeedsSyncWord() {
+        assertEquals(-1, Adts.frameLength(new byte[Adts.HEADER_BYTES], 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOversizedFrame() {
+        Adts.writeHeader(new byte[Adts.HEADER_BYTES], 0, Adts.MAX_FRAME_BYTES, 16_000, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedRate() {
+        Adts.sampleRateIndex(15_000);
+    }
+}
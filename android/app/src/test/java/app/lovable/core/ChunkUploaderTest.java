@@ -0,0 +1,316 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs the uploader against a local stand-in for the upload-recording function. */
+public class ChunkUploaderTest {
+    private static final int CHUNK = 4 * 1024;
+
+    /** Stores chunks per index after checking their SHA-256; assembles them on complete. */
+    private static final class StandIn {
+        final HttpServer server;
+        final Map<Integer, byte[]> chunks = new ConcurrentHashMap<>();
+        final Map<Integer, AtomicInteger> puts = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger checksumRejects = new AtomicInteger();
+        volatile byte[] assembled;
+        volatile String completeBody;
+        /** Status to answer chunk PUTs with until this many have failed; then 200. */
+        volatile int failFirst;
+        volatile int failStatus = 500;
+        final AtomicInteger failed = new AtomicInteger();
+        /** Flip one byte of this chunk the first time it arrives, to exercise checksums. */
+        volatile int corruptChunk = -1;
+        volatile long delayMs = 5;
+
+        StandIn() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/upload", this::handle);
+            server.setExecutor(Executors.newFixedThreadPool(8));
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+        }
+
+        void handle(HttpExchange ex) throws IOException {
+            Map<String, String> q = query(ex.getRequestURI());
+            byte[] body = readAll(ex.getRequestBody());
+            if (q.containsKey("complete")) {
+                int n = Integer.parseInt(ex.getRequestHeaders().getFirst("X-Upload-Chunks"));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (int i = 0; i < n; i++) {
+                    byte[] c = chunks.get(i);
+                    if (c == null) {
+                        reply(ex, 409);
+                        return;
+                    }
+                    out.write(c);
+                }
+                assembled = out.toByteArray();
+                completeBody = new String(body, StandardCharsets.UTF_8);
+                reply(ex, 200);
+                return;
+            }
+            int chunk = Integer.parseInt(q.get("chunk"));
+            puts.computeIfAbsent(chunk, k -> new AtomicInteger()).incrementAndGet();
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException ignored) {
+            }
+            inFlight.decrementAndGet();
+            if (failed.get() < failFirst) {
+                failed.incrementAndGet();
+                reply(ex, failStatus);
+                return;
+            }
+            if (chunk == corruptChunk) {
+                corruptChunk = -1;
+                body[0] ^= 1;
+            }
+            if (!sha256(body, body.length).equals(ex.getRequestHeaders().getFirst("X-Chunk-Sha256"))) {
+                checksumRejects.incrementAndGet();
+                reply(ex, 422);
+                return;
+            }
+            chunks.put(chunk, body);
+            reply(ex, 200);
+        }
+
+        int totalPuts() {
+            int n = 0;
+            for (AtomicInteger a : puts.values()) n += a.get();
+            return n;
+        }
+    }
+
+    private static final class Recorder implements ChunkUploader.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger acked = new AtomicInteger();
+        volatile String error = "not finished";
+
+        @Override
+        public void onChunkAcked(ChunkedUpload upload, int chunk) {
+            acked.incrementAndGet();
+        }
+
+        @Override
+        public void onFinished(ChunkedUpload upload, String error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("upload did not finish", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private StandIn server;
+    private File dir;
+    private ChunkUploader uploader;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StandIn();
+        dir = Files.createTempDirectory("upload").toFile();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (uploader != null) {
+            uploader.shutdown();
+            uploader.awaitTermination(2_000);
+        }
+        server.server.stop(0);
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private ChunkUploader uploader(Recorder listener, int streams) {
+        uploader = new ChunkUploader(Clock.SYSTEM, new HttpChunkTransport(server.url(), "", 5_000),
+                listener, streams, 5, new Random(1));
+        return uploader;
+    }
+
+    private File file(int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        File f = new File(dir, "rec-" + size + ".aac");
+        Files.write(f.toPath(), data);
+        return f;
+    }
+
+    private static ChunkedUpload upload(File f) {
+        return new ChunkedUpload("up-" + f.getName(), f, f.length(), CHUNK, "{\"alertId\":\"a1\"}");
+    }
+
+    @Test
+    public void uploadsOverParallelStreams() throws Exception {
+        File f = file(CHUNK * 20 + 123);
+        Recorder rec = new Recorder();
+        ChunkedUpload u = upload(f);
+        server.delayMs = 20;
+        assertTrue(uploader(rec, 4).submit(u));
+        rec.await();
+        assertNull(rec.error);
+        assertArrayEquals(Files.readAllBytes(f.toPath()), server.assembled);
+        assertEquals("{\"alertId\":\"a1\"}", server.completeBody);
+        assertEquals(21, rec.acked.get());
+        assertEquals(21, server.totalPuts());
+        assertTrue("streams did not overlap", server.maxInFlight.get() > 1);
+        assertEquals(f.length(), uploader.getBytesSent());
+        assertEquals(f.length(), u.getAckedOffset());
+        assertTrue(uploader.active().isEmpty());
+    }
+
+    @Test
+    public void retriesFailedChunks() throws Exception {
+        File f = file(CHUNK * 3);
+        Recorder rec = new Recorder();
+        server.failFirst = 3;
+        uploader(rec, 1).submit(upload(f));
+        rec.await();
+        assertNull(rec.error);
+        assertArrayEquals(Files.readAllBytes(f.toPath()), server.assembled);
+        assertEquals(3, uploader.getChunkFailures());
+    }
+
+    @Test
+    public void resendsChunkThatFailedItsChecksum() throws Exception {
+        File f = file(CHUNK * 4);
+        Recorder rec = new Recorder();
+        server.corruptChunk = 2;
+        uploader(rec, 2).submit(upload(f));
+        rec.await();
+        assertNull(rec.error);
+        assertEquals(1, server.checksumRejects.get());
+        assertEquals(2, server.puts.get(2).get());
+        assertArrayEquals(Files.readAllBytes(f.toPath()), server.assembled);
+    }
+
+    @Test
+    public void resumesFromAcknowledgedChunks() throws Exception {
+        File f = file(CHUNK * 6);
+        byte[] data = Files.readAllBytes(f.toPath());
+        // A previous process got chunks 0-3 to the server before dying.
+        ChunkedUpload u = upload(f);
+        for (int i = 0; i < 4; i++) {
+            byte[] c = new byte[CHUNK];
+            System.arraycopy(data, i * CHUNK, c, 0, CHUNK);
+            server.chunks.put(i, c);
+            u.ack(i);
+        }
+        Recorder rec = new Recorder();
+        uploader(rec, 2).submit(u);
+        rec.await();
+        assertNull(rec.error);
+        assertEquals(2, server.totalPuts());
+        assertNull(server.puts.get(0));
+        assertArrayEquals(data, server.assembled);
+    }
+
+    @Test
+    public void givesUpAfterRepeatedFailuresAndResumesLater() throws Exception {
+        File f = file(CHUNK * 2);
+        Recorder first = new Recorder();
+        server.failFirst = Integer.MAX_VALUE;
+        server.failStatus = 503;
+        ChunkedUpload u = upload(f);
+        uploader(first, 1).submit(u);
+        first.await();
+        assertEquals("HTTP 503", first.error);
+        assertEquals(1, uploader.getUploadsFailed());
+        assertTrue(uploader.active().isEmpty());
+
+        server.failFirst = 0;
+        uploader.shutdown();
+        uploader.awaitTermination(2_000);
+        Recorder second = new Recorder();
+        uploader(second, 1).submit(u);
+        second.await();
+        assertNull(second.error);
+        assertArrayEquals(Files.readAllBytes(f.toPath()), server.assembled);
+    }
+
+    @Test
+    public void missingFileFailsImmediately() throws Exception {
+        Recorder rec = new Recorder();
+        uploader(rec, 1).submit(upload(new File(dir, "gone.aac")));
+        rec.await();
+        assertNotNull(rec.error);
+        assertEquals(0, server.totalPuts());
+    }
+
+    @Test
+    public void emptyFileOnlyCompletes() throws Exception {
+        Recorder rec = new Recorder();
+        uploader(rec, 2).submit(upload(file(0)));
+        rec.await();
+        assertNull(rec.error);
+        assertEquals(0, server.assembled.length);
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> out = new HashMap<>();
+        String q = uri.getRawQuery();
+        if (q == null) return out;
+        for (String pair : q.split("&")) {
+            int eq = pair.indexOf('=');
+            out.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    private static void reply(HttpExchange ex, int status) throws IOException {
+        ex.sendResponseHeaders(status, -1);
+        ex.close();
+    }
+
+    private static String sha256(byte[] data, int length) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(data, 0, length);
+            return ChunkUploader.hex(md.digest());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
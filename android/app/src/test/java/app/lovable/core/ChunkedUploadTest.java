@@ -0,0 +1,98 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+public class ChunkedUploadTest {
+    private static ChunkedUpload upload(long size, int chunkSize) {
+        return new ChunkedUpload("u1", new File("/tmp/rec.aac"), size, chunkSize, "{}");
+    }
+
+    @Test
+    public void splitsIntoChunksWithShortLast() {
+        ChunkedUpload u = upload(1_000, 300);
+        assertEquals(4, u.chunkCount());
+        assertEquals(900, u.offsetOf(3));
+        assertEquals(300, u.lengthOf(0));
+        assertEquals(100, u.lengthOf(3));
+        assertEquals(0, upload(0, 300).chunkCount());
+    }
+
+    @Test
+    public void claimSkipsChunksInFlightAndAcked() {
+        ChunkedUpload u = upload(1_000, 300);
+        assertEquals(0, u.claim());
+        assertEquals(1, u.claim());
+        u.ack(0);
+        u.release(0);
+        u.release(1);
+        assertEquals(1, u.claim());
+        assertEquals(2, u.claim());
+        assertEquals(3, u.claim());
+        assertEquals(-1, u.claim());
+    }
+
+    @Test
+    public void completeOnlyWhenNothingInFlight() {
+        ChunkedUpload u = upload(500, 300);
+        int a = u.claim();
+        int b = u.claim();
+        u.ack(a);
+        u.release(a);
+        u.ack(b);
+        assertFalse(u.isComplete());
+        u.release(b);
+        assertTrue(u.isComplete());
+        assertEquals(500, u.getAckedBytes());
+    }
+
+    @Test
+    public void ackedOffsetIsContiguousPrefix() {
+        ChunkedUpload u = upload(1_000, 300);
+        u.ack(0);
+        u.ack(2);
+        assertEquals(300, u.getAckedOffset());
+        assertEquals(600, u.getAckedBytes());
+        u.ack(1);
+        u.ack(3);
+        assertEquals(1_000, u.getAckedOffset());
+        assertFalse(u.ack(3));
+    }
+
+    @Test
+    public void stateRoundTrips() throws IOException {
+        ChunkedUpload u = new ChunkedUpload("abc", new File("/data/rec.aac"), 10_000, 1_024, "{\"alertId\":\"x\"}");
+        u.ack(0);
+        u.ack(5);
+        u.ack(9);
+        assertEquals(1, u.claim());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        u.writeTo(new DataOutputStream(bytes));
+
+        ChunkedUpload r = ChunkedUpload.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals("abc", r.id);
+        assertEquals("/data/rec.aac", r.file.getPath());
+        assertEquals(10_000, r.size);
+        assertEquals(1_024, r.chunkSize);
+        assertEquals("{\"alertId\":\"x\"}", r.metadata);
+        assertEquals(3, r.getAckedChunks());
+        assertEquals(u.getAckedBytes(), r.getAckedBytes());
+        assertTrue(r.isAcked(9));
+        // The in-flight claim was not persisted.
+        assertEquals(1, r.claim());
+        assertEquals(2, r.claim());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownVersion() throws IOException {
+        ChunkedUpload.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[] {0, 0, 0, 9})));
+    }
+}
@@ -0,0 +1,122 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class EncodedAudioRingTest {
+    private static final long FRAME_US = 64_000;
+
+    private static byte[] frame(int len, int fill) {
+        byte[] b = new byte[len];
+        Arrays.fill(b, (byte) fill);
+        return b;
+    }
+
+    private static void write(EncodedAudioRing ring, int len, int i) {
+        assertTrue(ring.write(frame(len, i), 0, len, i * FRAME_US));
+    }
+
+    @Test
+    public void copiesFramesInOrder() {
+        EncodedAudioRing ring = new EncodedAudioRing(1_000, 16, 10_000_000);
+        for (int i = 0; i < 3; i++) write(ring, 10 + i, i);
+        EncodedAudioRing.Batch out = new EncodedAudioRing.Batch();
+        ring.copySince(1, out);
+        assertEquals(2, out.count);
+        assertEquals(1, out.firstSeq);
+        assertEquals(23, out.bytes);
+        assertEquals(11, out.length[0]);
+        assertEquals(12, out.length[1]);
+        assertEquals(1, out.data[out.offset[0]]);
+        assertEquals(2, out.data[out.offset[1] + 11]);
+        assertEquals(2 * FRAME_US, out.ptsUs[1]);
+        assertEquals(3, out.nextSeq());
+        assertEquals(0, out.skipped);
+    }
+
+    @Test
+    public void dropsFramesOutsideTheWindow() {
+        EncodedAudioRing ring = new EncodedAudioRing(10_000, 64, 5 * FRAME_US);
+        for (int i = 0; i < 20; i++) write(ring, 10, i);
+        assertEquals(6, ring.size());
+        assertEquals(14, ring.oldestSeq());
+        assertEquals(5 * FRAME_US, ring.bufferedUs());
+        assertEquals(60, ring.bytesUsed());
+        assertEquals(14, ring.getEvicted());
+    }
+
+    @Test
+    public void fullIndexEvictsOldest() {
+        EncodedAudioRing ring = new EncodedAudioRing(10_000, 4, Long.MAX_VALUE / 2);
+        for (int i = 0; i < 10; i++) write(ring, 10, i);
+        assertEquals(4, ring.size());
+        EncodedAudioRing.Batch out = new EncodedAudioRing.Batch();
+        ring.copySince(0, out);
+        assertEquals(6, out.skipped);
+        assertEquals(6, out.data[out.offset[0]]);
+    }
+
+    @Test
+    public void wrapsWithoutSplittingFrames() {
+        EncodedAudioRing ring = new EncodedAudioRing(100, 64, Long.MAX_VALUE / 2);
+        // 30-byte frames: three fit, the fourth wraps and evicts the first.
+        for (int i = 0; i < 4; i++) write(ring, 30, i);
+        assertEquals(3, ring.size());
+        assertEquals(90, ring.bytesUsed());
+        // A 45-byte frame needs the space of two more of the old ones.
+        write(ring, 45, 4);
+        assertEquals(2, ring.size());
+        EncodedAudioRing.Batch out = new EncodedAudioRing.Batch();
+        ring.copySince(0, out);
+        assertEquals(3, out.firstSeq);
+        for (int k = 0; k < out.count; k++) {
+            for (int j = 0; j < out.length[k]; j++) {
+                assertEquals(out.firstSeq + k, out.data[out.offset[k] + j]);
+            }
+        }
+    }
+
+    @Test
+    public void neverHoldsMoreThanTheArena() {
+        EncodedAudioRing ring = new EncodedAudioRing(512, 128, Long.MAX_VALUE / 2);
+        Random random = new Random(7);
+        EncodedAudioRing.Batch out = new EncodedAudioRing.Batch();
+        long next = 0;
+        for (int i = 0; i < 5_000; i++) {
+            int len = 1 + random.nextInt(200);
+            write(ring, len, i);
+            assertTrue(ring.bytesUsed() <= ring.capacityBytes());
+            ring.copySince(next, out);
+            assertEquals(i, out.ptsUs[out.count - 1] / FRAME_US);
+            assertEquals(len, out.length[out.count - 1]);
+            assertEquals((byte) i, out.data[out.offset[out.count - 1]]);
+            next = out.nextSeq();
+        }
+    }
+
+    @Test
+    public void rejectsFrameLargerThanArena() {
+        EncodedAudioRing ring = new EncodedAudioRing(16, 4, 1_000_000);
+        write(ring, 8, 0);
+        assertFalse(ring.write(new byte[17], 0, 17, FRAME_US));
+        assertEquals(1, ring.getRejected());
+        assertEquals(1, ring.size());
+    }
+
+    @Test
+    public void clearKeepsSequenceNumbers() {
+        EncodedAudioRing ring = new EncodedAudioRing(100, 8, 1_000_000);
+        write(ring, 10, 0);
+        write(ring, 10, 1);
+        ring.clear();
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.bytesUsed());
+        write(ring, 10, 2);
+        assertEquals(2, ring.oldestSeq());
+        assertEquals(3, ring.getWritten());
+    }
+}
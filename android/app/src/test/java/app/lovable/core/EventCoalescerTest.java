@@ -0,0 +1,194 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventCoalescerTest {
+    /** Runs scheduled tasks when the test advances the clock past them. */
+    private static final class ManualScheduler implements EventCoalescer.Scheduler {
+        final ManualClock clock;
+        final List<long[]> due = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+
+        ManualScheduler(ManualClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            due.add(new long[] {clock.nowMs() + delayMs});
+            tasks.add(task);
+        }
+
+        void advance(long ms) {
+            long until = clock.nowMs() + ms;
+            while (true) {
+                int next = -1;
+                for (int i = 0; i < due.size(); i++) {
+                    if (due.get(i)[0] <= until && (next < 0 || due.get(i)[0] < due.get(next)[0])) next = i;
+                }
+                if (next < 0) break;
+                long at = due.remove(next)[0];
+                Runnable task = tasks.remove(next);
+                clock.advance(Math.max(0, at - clock.nowMs()));
+                task.run();
+            }
+            clock.advance(until - clock.nowMs());
+        }
+    }
+
+    private final List<EventCoalescer.Frame<String>> frames = new ArrayList<>();
+    private ManualClock clock;
+    private ManualScheduler scheduler;
+    private EventCoalescer<String> bridge;
+    private boolean listening = true;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(1_000);
+        scheduler = new ManualScheduler(clock);
+        bridge = new EventCoalescer<>(clock, scheduler, 100, 4, 8);
+        bridge.setSink(frame -> {
+            if (!listening) return false;
+            frames.add(frame);
+            return true;
+        });
+    }
+
+    private static List<String> payloads(EventCoalescer.Frame<String> frame) {
+        List<String> out = new ArrayList<>();
+        for (EventCoalescer.Event<String> e : frame.events) out.add(e.payload);
+        return out;
+    }
+
+    @Test
+    public void gaugesKeepOnlyLatestValuePerFrame() {
+        scheduler.advance(0);
+        bridge.publish("rms", EventCoalescer.Kind.GAUGE, "first");
+        scheduler.advance(0);
+        assertEquals(1, frames.size());
+        for (int i = 0; i < 10; i++) {
+            bridge.publish("rms", EventCoalescer.Kind.GAUGE, "rms" + i);
+            scheduler.advance(5);
+        }
+        scheduler.advance(100);
+        assertEquals(2, frames.size());
+        assertEquals(Arrays.asList("rms9"), payloads(frames.get(1)));
+        assertEquals(9, frames.get(1).coalesced);
+        assertEquals(9, bridge.getCoalesced());
+        assertEquals(2, bridge.getDelivered());
+        assertEquals(11, bridge.getPublished());
+    }
+
+    @Test
+    public void flushesAtMostOncePerInterval() {
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "a");
+        scheduler.advance(0);
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "b");
+        bridge.publish("level", EventCoalescer.Kind.GAUGE, "g");
+        scheduler.advance(99);
+        assertEquals(1, frames.size());
+        scheduler.advance(1);
+        assertEquals(2, frames.size());
+        assertEquals(Arrays.asList("b", "g"), payloads(frames.get(1)));
+    }
+
+    @Test
+    public void fullBatchFlushesEarlyAndRestWaits() {
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "x");
+        scheduler.advance(0);
+        for (int i = 0; i < 6; i++) bridge.publish("t", EventCoalescer.Kind.STREAM, "s" + i);
+        scheduler.advance(0);
+        assertEquals(2, frames.size());
+        assertEquals(Arrays.asList("s0", "s1", "s2", "s3"), payloads(frames.get(1)));
+        assertEquals(2, bridge.getPending());
+        scheduler.advance(100);
+        assertEquals(Arrays.asList("s4", "s5"), payloads(frames.get(2)));
+    }
+
+    @Test
+    public void streamDropsOldestUnderBackpressure() {
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "x");
+        scheduler.advance(0);
+        bridge.setLimits(100, 100);
+        for (int i = 0; i < 12; i++) bridge.publish("t", EventCoalescer.Kind.STREAM, "s" + i);
+        scheduler.advance(100);
+        EventCoalescer.Frame<String> f = frames.get(1);
+        assertEquals(8, f.events.size());
+        assertEquals("s4", f.events.get(0).payload);
+        assertEquals(4, f.dropped);
+        assertEquals(4, bridge.getDropped());
+    }
+
+    @Test
+    public void criticalGoesOutImmediatelyInOrder() {
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "x");
+        scheduler.advance(0);
+        bridge.publish("rms", EventCoalescer.Kind.GAUGE, "g");
+        bridge.publish("trigger", EventCoalescer.Kind.CRITICAL, "sos");
+        scheduler.advance(0);
+        assertEquals(2, frames.size());
+        assertEquals(Arrays.asList("g", "sos"), payloads(frames.get(1)));
+        assertTrue(frames.get(1).hasCritical());
+    }
+
+    @Test
+    public void criticalIsNeverCutByBatchLimit() {
+        bridge.setLimits(100, 1);
+        for (int i = 0; i < 5; i++) bridge.publish("trigger", EventCoalescer.Kind.CRITICAL, "c" + i);
+        scheduler.advance(0);
+        int total = 0;
+        for (EventCoalescer.Frame<String> f : frames) total += f.events.size();
+        assertEquals(5, total);
+    }
+
+    @Test
+    public void criticalWaitsForListenerAndOthersAreDropped() {
+        listening = false;
+        bridge.publish("rms", EventCoalescer.Kind.GAUGE, "g");
+        bridge.publish("trigger", EventCoalescer.Kind.CRITICAL, "sos");
+        scheduler.advance(0);
+        assertEquals(0, frames.size());
+        assertEquals(1, bridge.getPending());
+        assertEquals(1, bridge.getDropped());
+
+        bridge.setSink(null);
+        bridge.publish("trigger", EventCoalescer.Kind.CRITICAL, "sos2");
+        scheduler.advance(1_000);
+        assertEquals(2, bridge.getPending());
+
+        listening = true;
+        bridge.setSink(frame -> frames.add(frame));
+        scheduler.advance(0);
+        assertEquals(1, frames.size());
+        assertEquals(Arrays.asList("sos", "sos2"), payloads(frames.get(0)));
+        assertEquals(0, bridge.getPending());
+    }
+
+    @Test
+    public void staleScheduledFlushDoesNotBreakInterval() {
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "a");
+        scheduler.advance(0);
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "b");
+        // Critical event pulls the flush forward; the flush planned for +100 must not run as well.
+        bridge.publish("trigger", EventCoalescer.Kind.CRITICAL, "c");
+        scheduler.advance(0);
+        bridge.publish("t", EventCoalescer.Kind.STREAM, "d");
+        scheduler.advance(99);
+        assertEquals(2, frames.size());
+        scheduler.advance(1);
+        assertEquals(3, frames.size());
+        assertEquals(Arrays.asList("d"), payloads(frames.get(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroBatch() {
+        bridge.setLimits(100, 0);
+    }
+}
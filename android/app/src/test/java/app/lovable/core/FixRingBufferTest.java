@@ -0,0 +1,59 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FixRingBufferTest {
+    @Test
+    public void copiesFixesInOrder() {
+        FixRingBuffer ring = new FixRingBuffer(4);
+        for (int i = 0; i < 3; i++) ring.add(10 + i, 20 + i, i, 1_000 * i);
+        FixRingBuffer.Batch out = new FixRingBuffer.Batch();
+        ring.copySince(1, out);
+        assertEquals(2, out.count);
+        assertEquals(1, out.firstSeq);
+        assertEquals(11, out.latitude[0], 0);
+        assertEquals(22, out.longitude[1], 0);
+        assertEquals(2_000, out.timeMs[1]);
+        assertEquals(3, out.nextSeq());
+        assertEquals(0, out.skipped);
+    }
+
+    @Test
+    public void overwritesOldestAndCountsSkipped() {
+        FixRingBuffer ring = new FixRingBuffer(4);
+        for (int i = 0; i < 10; i++) ring.add(i, i, 5, i);
+        assertEquals(4, ring.size());
+        assertEquals(6, ring.oldestSeq());
+        FixRingBuffer.Batch out = new FixRingBuffer.Batch();
+        ring.copySince(0, out);
+        assertEquals(4, out.count);
+        assertEquals(6, out.skipped);
+        assertEquals(6, out.latitude[0], 0);
+        assertEquals(9, out.latitude[3], 0);
+    }
+
+    @Test
+    public void nothingNewGivesEmptyBatch() {
+        FixRingBuffer ring = new FixRingBuffer(4);
+        ring.add(1, 1, 1, 1);
+        FixRingBuffer.Batch out = new FixRingBuffer.Batch();
+        ring.copySince(1, out);
+        assertEquals(0, out.count);
+        assertEquals(1, out.firstSeq);
+    }
+
+    @Test
+    public void latestReportsAge() {
+        FixRingBuffer ring = new FixRingBuffer(2);
+        assertNull(ring.latest(0));
+        ring.add(1, 2, 3, 1_000);
+        ring.add(4, 5, 6, 2_000);
+        ring.add(7, 8, 9, 3_000);
+        GeoFix fix = ring.latest(3_500);
+        assertEquals(7, fix.latitude, 0);
+        assertEquals(9, fix.accuracyM, 0);
+        assertEquals(500, fix.ageMs);
+    }
+}
@@ -0,0 +1,117 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GeocodeCacheTest {
+    private static final double LAT = 38.9101;
+    private static final double LNG = -77.0147;
+    /** Degrees of latitude per meter. */
+    private static final double M = 1 / 111_320.0;
+
+    private final GeocodeCache cache = new GeocodeCache(Clock.SYSTEM, 100);
+
+    @Test
+    public void findsTheClosestEntryWithinRadius() {
+        cache.put(LAT, LNG, "A St", 1);
+        cache.put(LAT + 40 * M, LNG, "B St", 2);
+        GeocodeCache.Match m = cache.nearest(LAT + 30 * M, LNG, 50);
+        assertEquals("B St", m.entry.address);
+        assertEquals(10, m.distanceM, 0.1);
+        assertNull(cache.nearest(LAT + 200 * M, LNG, 50));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void findsEntriesAcrossCellBoundaries() {
+        double[] b = Geohash.bounds(Geohash.encode(LAT, LNG, 7));
+        cache.put(b[2] - 5 * M, LNG, "just below", 1);
+        GeocodeCache.Match m = cache.nearest(b[2] + 5 * M, LNG, 20);
+        assertNotNull(m);
+        assertEquals("just below", m.entry.address);
+    }
+
+    @Test
+    public void sameSpotReplacesOlderAddress() {
+        cache.put(LAT, LNG, "old", 1);
+        cache.put(LAT + 0.5 * M, LNG, "new", 2);
+        assertEquals(1, cache.size());
+        assertEquals("new", cache.nearest(LAT, LNG, 10).entry.address);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        GeocodeCache small = new GeocodeCache(Clock.SYSTEM, 3);
+        for (int i = 0; i < 3; i++) small.put(LAT + i * 1_000 * M, LNG, "p" + i, i);
+        // Touch p0 so p1 is now the eldest.
+        assertNotNull(small.nearest(LAT, LNG, 10));
+        small.put(LAT + 3_000 * M, LNG, "p3", 3);
+        assertEquals(3, small.size());
+        assertEquals(1, small.getEvictions());
+        assertNull(small.nearest(LAT + 1_000 * M, LNG, 10));
+        assertNotNull(small.nearest(LAT, LNG, 10));
+    }
+
+    @Test
+    public void persistsEntriesInLruOrder() throws IOException {
+        GeocodeCache a = new GeocodeCache(Clock.SYSTEM, 3);
+        for (int i = 0; i < 3; i++) a.put(LAT + i * 1_000 * M, LNG, "p" + i, i);
+        a.nearest(LAT, LNG, 10);
+        a.recordVisit(LAT, LNG);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        a.writeTo(new DataOutputStream(bytes));
+
+        GeocodeCache b = new GeocodeCache(Clock.SYSTEM, 3);
+        b.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(3, b.size());
+        assertEquals(1, b.frequentAreas(5).size());
+        b.put(LAT + 3_000 * M, LNG, "p3", 3);
+        // p1 was the eldest before saving and still is.
+        assertNull(b.nearest(LAT + 1_000 * M, LNG, 10));
+        assertEquals(2, b.nearest(LAT + 2_000 * M, LNG, 10).entry.storedAtMs);
+    }
+
+    @Test
+    public void prewarmCoversFrequentAreasNotYetCached() {
+        for (int i = 0; i < 5; i++) cache.recordVisit(LAT, LNG);
+        cache.recordVisit(LAT + 0.5, LNG);
+        assertEquals(Geohash.encode(LAT, LNG, GeocodeCache.AREA_PRECISION), cache.frequentAreas(1).get(0));
+
+        List<double[]> targets = cache.prewarmTargets(1, 50, 100);
+        assertEquals(32, targets.size());
+        double[] first = targets.get(0);
+        cache.put(first[0], first[1], "cached", 1);
+        assertEquals(31, cache.prewarmTargets(1, 50, 100).size());
+        assertEquals(10, cache.prewarmTargets(2, 50, 10).size());
+    }
+
+    @Test
+    public void visitCountsStayBounded() {
+        for (int i = 0; i < GeocodeCache.MAX_AREAS + 50; i++) cache.recordVisit(LAT + i * 0.1, LNG);
+        assertEquals(GeocodeCache.MAX_AREAS, cache.frequentAreas(Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void lookupsStayUnderAMillisecond() {
+        GeocodeCache big = new GeocodeCache(Clock.SYSTEM, 5_000);
+        Random random = new Random(2);
+        for (int i = 0; i < 5_000; i++) {
+            big.put(LAT + random.nextGaussian() * 0.05, LNG + random.nextGaussian() * 0.05, "addr " + i, i);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            big.nearest(LAT + random.nextGaussian() * 0.05, LNG + random.nextGaussian() * 0.05, 100);
+        }
+        assertTrue(big.getHits() > 0);
+        assertTrue(big.getLookupTime().percentileMicros(99) + " us", big.getLookupTime().percentileMicros(99) < 1_000);
+    }
+}
@@ -0,0 +1,44 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class GeohashTest {
+    @Test
+    public void encodesKnownVectors() {
+        assertEquals("ezs42", Geohash.encode(42.6, -5.6, 5));
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    public void boundsContainThePoint() {
+        double[] b = Geohash.bounds(Geohash.encode(38.9101, -77.0147, 7));
+        assertTrue(b[0] <= 38.9101 && 38.9101 < b[2]);
+        assertTrue(b[1] <= -77.0147 && -77.0147 < b[3]);
+    }
+
+    @Test
+    public void neighbourhoodSurroundsTheCell() {
+        String cell = Geohash.encode(38.9101, -77.0147, 6);
+        String[] n = Geohash.neighbourhood(cell);
+        assertEquals(9, n.length);
+        assertEquals(cell, n[4]);
+        assertEquals(9, Arrays.stream(n).distinct().count());
+        // Near a cell edge the point just across is in a neighbour.
+        double[] b = Geohash.bounds(cell);
+        String across = Geohash.encode(b[2] + 1e-7, (b[1] + b[3]) / 2, 6);
+        assertTrue(Arrays.asList(n).contains(across));
+    }
+
+    @Test
+    public void precisionShrinksAsRadiusGrows() {
+        // Precision 7 cells are about 150 m, precision 6 about 1.2 x 0.6 km.
+        assertEquals(7, Geohash.precisionFor(100, 0));
+        assertEquals(6, Geohash.precisionFor(500, 0));
+        assertTrue(Geohash.precisionFor(100, 60) <= Geohash.precisionFor(100, 0));
+        assertEquals(Geohash.MAX_PRECISION, Geohash.precisionFor(0.01, 0));
+    }
+}
@@ -0,0 +1,176 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class KeywordSpotterTest {
+    private static final int RATE = MfccExtractor.SAMPLE_RATE;
+    private static final float[] KEYWORD = { 320f, 1250f, 640f, 2100f };
+    private static final float[] OTHER = { 2100f, 450f, 1700f, 900f };
+
+    @Test
+    public void ringBufferOverwritesOldestSamples() {
+        PcmRingBuffer ring = new PcmRingBuffer(4);
+        ring.write(new short[] { 1, 2, 3 }, 0, 3);
+        ring.write(new short[] { 4, 5, 6 }, 0, 3);
+        assertEquals(4, ring.available());
+        assertEquals(2, ring.getDropped());
+
+        short[] out = new short[4];
+        ring.peek(out, 0, 4);
+        assertEquals(3, out[0]);
+        assertEquals(6, out[3]);
+        ring.skip(3);
+        assertEquals(1, ring.available());
+    }
+
+    @Test
+    public void fftFindsToneBin() {
+        Fft fft = new Fft(64);
+        float[] re = new float[64];
+        float[] im = new float[64];
+        for (int i = 0; i < 64; i++) re[i] = (float) Math.cos(2 * Math.PI * 5 * i / 64);
+        fft.transform(re, im);
+        assertEquals(32f, Math.hypot(re[5], im[5]), 1e-3);
+        assertEquals(0f, Math.hypot(re[9], im[9]), 1e-3);
+    }
+
+    @Test
+    public void wavFixtureRoundTrips() throws IOException {
+        short[] pcm = synth(KEYWORD, 1.0f, 0.5f, 7);
+        WavReader.Pcm decoded = WavReader.read(new ByteArrayInputStream(wav(pcm)));
+        assertEquals(RATE, decoded.sampleRate);
+        assertEquals(pcm.length, decoded.samples.length);
+        assertEquals(pcm[1234], decoded.samples[1234]);
+    }
+
+    @Test
+    public void recorderCapturesUtteranceBetweenSilence() {
+        KeywordTemplate t = enroll(synth(KEYWORD, 1.0f, 0.5f, 1));
+        assertNotNull(t);
+        // Four 200 ms segments at a 10 ms hop, give or take the window edges.
+        assertTrue("frames: " + t.length(), t.length() > 70 && t.length() < 100);
+    }
+
+    @Test
+    public void detectsEnrolledKeywordInNoise() throws IOException {
+        KeywordSpotter spotter = enrolledSpotter();
+
+        // Read back through the WAV path the way recorded fixtures are consumed.
+        short[] stream = WavReader.read(new ByteArrayInputStream(wav(synth(KEYWORD, 1.1f, 0.4f, 42)))).samples;
+        int detectedAt = run(spotter, stream);
+        assertTrue("keyword not detected", detectedAt >= 0);
+
+        // Detection must land shortly after the keyword ends (noise lead-in + 0.88 s keyword).
+        int keywordEndFrame = (int) ((1.0f + 0.88f) * 100);
+        assertTrue("detected at frame " + detectedAt, Math.abs(detectedAt - keywordEndFrame) < 20);
+    }
+
+    @Test
+    public void ignoresDifferentPhraseAndSilence() {
+        KeywordSpotter spotter = enrolledSpotter();
+        assertEquals(-1, run(spotter, synth(OTHER, 1.0f, 0.5f, 5)));
+        spotter.reset();
+        assertEquals(-1, run(spotter, noise(3 * RATE, 9)));
+    }
+
+    @Test
+    public void templateSerializationRoundTrips() throws IOException {
+        KeywordTemplate t = enroll(synth(KEYWORD, 1.0f, 0.5f, 1));
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        t.writeTo(out);
+        KeywordTemplate back = KeywordTemplate.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(t.length(), back.length());
+        assertEquals(t.frame(3)[2], back.frame(3)[2], 0f);
+    }
+
+    private static KeywordSpotter enrolledSpotter() {
+        List<KeywordTemplate> templates = new ArrayList<>();
+        templates.add(enroll(synth(KEYWORD, 1.0f, 0.5f, 1)));
+        templates.add(enroll(synth(KEYWORD, 0.9f, 0.6f, 2)));
+        KeywordSpotter spotter = new KeywordSpotter();
+        spotter.setTemplates(templates);
+        spotter.setThreshold(KeywordSpotter.calibrate(templates));
+        return spotter;
+    }
+
+    private static KeywordTemplate enroll(short[] pcm) {
+        TemplateRecorder recorder = new TemplateRecorder();
+        MfccExtractor mfcc = new MfccExtractor();
+        PcmRingBuffer ring = new PcmRingBuffer(4096);
+        final boolean[] done = { false };
+        for (int off = 0; off < pcm.length && !done[0]; off += 1024) {
+            int n = Math.min(1024, pcm.length - off);
+            ring.write(pcm, off, n);
+            mfcc.drain(ring, (coeffs, logEnergy) -> {
+                if (!done[0]) done[0] = recorder.onFrame(coeffs, logEnergy);
+            });
+        }
+        return recorder.getResult();
+    }
+
+    /** Streams PCM through the pipeline in AudioRecord-sized reads; returns the first detection frame or -1. */
+    private static int run(KeywordSpotter spotter, short[] pcm) {
+        MfccExtractor mfcc = new MfccExtractor();
+        PcmRingBuffer ring = new PcmRingBuffer(4096);
+        final int[] frame = { 0 };
+        final int[] detected = { -1 };
+        for (int off = 0; off < pcm.length; off += 640) {
+            int n = Math.min(640, pcm.length - off);
+            ring.write(pcm, off, n);
+            mfcc.drain(ring, (coeffs, logEnergy) -> {
+                if (spotter.onFrame(coeffs) && detected[0] < 0) detected[0] = frame[0];
+                frame[0]++;
+            });
+        }
+        return detected[0];
+    }
+
+    /** One second of noise, the tone sequence (220 ms per tone at tempo 1), then trailing noise. */
+    private static short[] synth(float[] tones, float tempo, float amplitude, long seed) {
+        int segment = (int) (0.22f * tempo * RATE);
+        short[] lead = noise(RATE, seed);
+        short[] tail = noise(RATE / 2, seed + 1);
+        short[] out = Arrays.copyOf(lead, lead.length + segment * tones.length + tail.length);
+        Random r = new Random(seed);
+        int pos = lead.length;
+        for (float f : tones) {
+            for (int i = 0; i < segment; i++) {
+                double t = (double) i / RATE;
+                double env = Math.sin(Math.PI * i / segment);
+                double v = Math.sin(2 * Math.PI * f * t) + 0.5 * Math.sin(4 * Math.PI * f * t)
+                        + 0.25 * Math.sin(6 * Math.PI * f * t);
+                out[pos++] = (short) (amplitude * 12000 * env * v / 1.75 + r.nextGaussian() * 60);
+            }
+        }
+        System.arraycopy(tail, 0, out, pos, tail.length);
+        return out;
+    }
+
+    private static short[] noise(int samples, long seed) {
+        Random r = new Random(seed);
+        short[] out = new short[samples];
+        for (int i = 0; i < samples; i++) out[i] = (short) (r.nextGaussian() * 60);
+        return out;
+    }
+
+    private static byte[] wav(short[] pcm) {
+        ByteBuffer b = ByteBuffer.allocate(44 + pcm.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0x46464952).putInt(36 + pcm.length * 2).putInt(0x45564157);
+        b.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(RATE).putInt(RATE * 2).putShort((short) 2).putShort((short) 16);
+        b.putInt(0x61746164).putInt(pcm.length * 2);
+        for (short s : pcm) b.putShort(s);
+        return b.array();
+    }
+}
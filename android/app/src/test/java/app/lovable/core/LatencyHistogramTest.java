@@ -0,0 +1,53 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int v = 1; v <= 10; v++) h.record(v);
+        assertEquals(10, h.getCount());
+        assertEquals(5, h.percentileMicros(50));
+        assertEquals(9, h.percentileMicros(90));
+        assertEquals(10, h.percentileMicros(100));
+        assertEquals(5, h.getMeanMicros());
+    }
+
+    @Test
+    public void largeValuesWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        long[] values = {100, 1_000, 12_345, 250_000, 3_000_000_000L};
+        for (long v : values) {
+            h.record(v);
+            long bound = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(v));
+            assertTrue(bound >= v);
+            assertTrue("bucket too wide for " + v, bound <= v + v / 8);
+        }
+        assertEquals(3_000_000_000L, h.getMaxMicros());
+        assertEquals(3_000_000_000L, h.percentileMicros(99.9));
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        long expected = 0;
+        for (int b = 0; b < 200; b++) {
+            assertEquals(b, LatencyHistogram.bucketOf(expected));
+            expected = LatencyHistogram.upperBound(b) + 1;
+        }
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileMicros(50));
+        h.recordNanos(2_500_000);
+        assertEquals(2_500, h.getMaxMicros());
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMaxMicros());
+    }
+}
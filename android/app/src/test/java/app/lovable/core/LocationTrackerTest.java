@@ -0,0 +1,106 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocationTrackerTest {
+    private ManualClock clock;
+    private final List<String> requests = new ArrayList<>();
+    private final List<Long> delivered = new ArrayList<>();
+    private int batches;
+    private LocationTracker tracker;
+
+    private final LocationTracker.Provider provider = new LocationTracker.Provider() {
+        @Override
+        public void request(LocationTracker.Mode mode) {
+            requests.add(mode.name());
+        }
+
+        @Override
+        public void stop() {
+            requests.add("stop");
+        }
+    };
+
+    private final LocationTracker.Sink sink = batch -> {
+        batches++;
+        for (int i = 0; i < batch.count; i++) delivered.add(batch.timeMs[i]);
+    };
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(0);
+        tracker = new LocationTracker(clock, 8, provider);
+    }
+
+    private void wakeup(long... times) {
+        for (long t : times) tracker.onFix(1, 2, 3, t);
+        tracker.onWakeup();
+    }
+
+    @Test
+    public void deliversOneBatchPerWakeup() {
+        tracker.setSink(sink);
+        tracker.start();
+        wakeup(1, 2, 3);
+        wakeup(4, 5);
+        assertEquals(2, batches);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), delivered);
+        assertEquals(2.5, tracker.getFixesPerWakeup(), 1e-9);
+    }
+
+    @Test
+    public void holdsFixesUntilSinkAttaches() {
+        tracker.start();
+        wakeup(1, 2);
+        wakeup(3);
+        assertEquals(0, batches);
+        tracker.setSink(sink);
+        assertEquals(1, batches);
+        assertEquals(Arrays.asList(1L, 2L, 3L), delivered);
+        tracker.onWakeup();
+        assertEquals(1, batches);
+    }
+
+    @Test
+    public void countsFixesLostWhileDetached() {
+        tracker.start();
+        for (int i = 0; i < 10; i++) wakeup(i);
+        tracker.setSink(sink);
+        assertEquals(8, delivered.size());
+        assertEquals(2, tracker.getSkipped());
+    }
+
+    @Test
+    public void modeSwitchReregistersOnlyOnChange() {
+        tracker.start();
+        tracker.setMode(LocationTracker.Mode.IDLE);
+        tracker.setMode(LocationTracker.Mode.SOS);
+        tracker.setMode(LocationTracker.Mode.SOS);
+        tracker.stop();
+        tracker.setMode(LocationTracker.Mode.IDLE);
+        assertEquals(Arrays.asList("IDLE", "SOS", "stop"), requests);
+        assertEquals(2, tracker.getModeSwitches());
+        assertEquals(2, tracker.getRegistrations());
+    }
+
+    @Test
+    public void tracksTimeInSosMode() {
+        tracker.start();
+        clock.advance(1_000);
+        tracker.setMode(LocationTracker.Mode.SOS);
+        clock.advance(3_000);
+        assertEquals(3_000, tracker.getSosMs());
+        tracker.setMode(LocationTracker.Mode.IDLE);
+        clock.advance(5_000);
+        tracker.setMode(LocationTracker.Mode.SOS);
+        clock.advance(500);
+        assertEquals(3_500, tracker.getSosMs());
+    }
+}
@@ -0,0 +1,19 @@
+package app.lovable.core;
+
+/** Virtual clock for deterministic tests. */
+public class ManualClock implements Clock {
+    private long now;
+
+    public ManualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long nowMs() {
+        return now;
+    }
+
+    public void advance(long ms) {
+        now += ms;
+    }
+}
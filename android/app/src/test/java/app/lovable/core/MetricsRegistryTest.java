@@ -0,0 +1,105 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+    private ManualClock clock;
+    private MetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(5_000);
+        registry = new MetricsRegistry(clock);
+    }
+
+    @Test
+    public void sameNameReturnsSameMetric() {
+        assertSame(registry.counter("sms.sent"), registry.counter("sms.sent"));
+        assertSame(registry.gauge("queue"), registry.gauge("queue"));
+        assertSame(registry.histogram("trigger"), registry.histogram("trigger"));
+    }
+
+    @Test
+    public void snapshotReadsAllKinds() {
+        registry.counter("sms.sent").add(3);
+        registry.counter("sms.failed").inc();
+        registry.gauge("queue").set(7);
+        registry.gauge("queue").add(-2);
+        long[] uptime = {100};
+        registry.gauge("uptimeMs", () -> uptime[0]);
+        LatencyHistogram h = registry.histogram("trigger");
+        for (int i = 1; i <= 100; i++) h.record(i * 1_000L);
+
+        uptime[0] = 250;
+        MetricsRegistry.Snapshot s = registry.snapshot();
+        assertEquals(5_000, s.takenAtMs);
+        assertEquals(Long.valueOf(3), s.counters.get("sms.sent"));
+        assertEquals(Long.valueOf(1), s.counters.get("sms.failed"));
+        assertEquals(Long.valueOf(5), s.gauges.get("queue"));
+        assertEquals(Long.valueOf(250), s.gauges.get("uptimeMs"));
+        MetricsRegistry.HistogramSnapshot t = s.histograms.get("trigger");
+        assertEquals(100, t.count);
+        assertEquals(100_000, t.maxMicros);
+        assertTrue("p50 " + t.p50Micros, t.p50Micros >= 50_000 && t.p50Micros <= 50_000 * 9 / 8);
+    }
+
+    @Test
+    public void registeredHistogramIsShared() {
+        LatencyHistogram owned = new LatencyHistogram();
+        registry.register("sms.timeToAllSent", owned);
+        owned.record(42);
+        assertSame(owned, registry.histogram("sms.timeToAllSent"));
+        assertEquals(1, registry.snapshot().histograms.get("sms.timeToAllSent").count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nameBelongsToOneKind() {
+        registry.counter("recognizer.errors");
+        registry.histogram("recognizer.errors");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNameWithSpace() {
+        registry.counter("sms sent");
+    }
+
+    @Test
+    public void formatIsOneSortedLinePerMetric() {
+        registry.counter("b.count").add(2);
+        registry.counter("a.count").inc();
+        registry.gauge("level").set(-4);
+        registry.histogram("lat").record(10);
+        String[] lines = registry.snapshot().format().split("\n");
+        assertEquals("# t=5000", lines[0]);
+        assertEquals("a.count 1", lines[1]);
+        assertEquals("b.count 2", lines[2]);
+        assertEquals("level -4", lines[3]);
+        assertEquals("lat 1 10 10 10", lines[4]);
+    }
+
+    @Test
+    public void countsFromManyThreads() throws InterruptedException {
+        MetricsRegistry.Counter c = registry.counter("hits");
+        LatencyHistogram h = registry.histogram("lat");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    c.inc();
+                    h.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(40_000, c.get());
+        assertEquals(40_000, registry.snapshot().histograms.get("lat").count);
+    }
+}
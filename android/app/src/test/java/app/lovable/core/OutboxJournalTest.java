@@ -0,0 +1,199 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutboxJournalTest {
+    private File dir;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("outbox").toFile();
+        file = new File(dir, "outbox.journal");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void pendingItemsSurviveReopen() throws IOException {
+        try (OutboxJournal j = new OutboxJournal(file, 1)) {
+            long a = j.append(OutboxJournal.Kind.ALERT, "{\"id\":\"a\"}", 1_000);
+            long b = j.append(OutboxJournal.Kind.SMS, "{\"phoneNumber\":\"+1\"}", 2_000);
+            j.append(OutboxJournal.Kind.SMS, "{\"phoneNumber\":\"+2\"}", 3_000);
+            j.markAttempt(b);
+            assertTrue(j.complete(a));
+            assertFalse(j.complete(a));
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 1)) {
+            List<OutboxJournal.Entry> pending = j.pending();
+            assertEquals(2, pending.size());
+            assertEquals(OutboxJournal.Kind.SMS, pending.get(0).kind);
+            assertEquals("{\"phoneNumber\":\"+1\"}", pending.get(0).payload);
+            assertEquals(2_000, pending.get(0).createdAtMs);
+            assertEquals(1, pending.get(0).getAttempts());
+            assertEquals(0, j.getTruncatedBytes());
+            // Ids keep counting up after a reopen.
+            assertEquals(4, j.append(OutboxJournal.Kind.ALERT, "x", 0));
+        }
+    }
+
+    @Test
+    public void cancelledTriggerTextsAreNotReplayed() throws IOException {
+        try (OutboxJournal j = new OutboxJournal(file, 1)) {
+            j.append(OutboxJournal.Kind.SMS, "{\"phoneNumber\":\"+1\",\"triggerId\":7}", 1_000);
+            j.append(OutboxJournal.Kind.SMS, "{\"phoneNumber\":\"+1\",\"triggerId\":8}", 2_000);
+            j.append(OutboxJournal.Kind.SMS, "{\"phoneNumber\":\"+2\",\"triggerId\":7}", 3_000);
+            long alert = j.append(OutboxJournal.Kind.ALERT, "{\"triggerId\":7}", 4_000);
+
+            assertEquals(2, j.completeMatching(OutboxJournal.Kind.SMS, p -> p.contains("\"triggerId\":7")));
+            assertEquals(0, j.completeMatching(OutboxJournal.Kind.SMS, p -> p.contains("\"triggerId\":7")));
+            // Only SMS items of the cancelled trigger; the alert record still has to sync.
+            assertNotNull(j.get(alert));
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 1)) {
+            List<OutboxJournal.Entry> pending = j.pending();
+            assertEquals(2, pending.size());
+            assertEquals(OutboxJournal.Kind.SMS, pending.get(0).kind);
+            assertTrue(pending.get(0).payload.contains("\"triggerId\":8"));
+            assertEquals(OutboxJournal.Kind.ALERT, pending.get(1).kind);
+        }
+    }
+
+    @Test
+    public void tornTailAtEveryOffsetIsDropped() throws IOException {
+        long before;
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            j.append(OutboxJournal.Kind.SMS, "first", 1);
+            before = j.getFileBytes();
+            j.append(OutboxJournal.Kind.SMS, "second, with some payload", 2);
+        }
+        long full = file.length();
+        byte[] original = Files.readAllBytes(file.toPath());
+        for (long cut = before; cut < full; cut++) {
+            Files.write(file.toPath(), original);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(cut);
+            }
+            try (OutboxJournal j = new OutboxJournal(file, 0)) {
+                assertEquals("cut at " + cut, 1, j.size());
+                assertEquals("first", j.pending().get(0).payload);
+                assertEquals(cut - before, j.getTruncatedBytes());
+                // The journal keeps working from the clean boundary.
+                j.append(OutboxJournal.Kind.ALERT, "after crash", 3);
+            }
+            try (OutboxJournal j = new OutboxJournal(file, 0)) {
+                assertEquals(2, j.size());
+                assertEquals("after crash", j.pending().get(1).payload);
+            }
+        }
+    }
+
+    @Test
+    public void corruptRecordStopsReplay() throws IOException {
+        long second;
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            j.append(OutboxJournal.Kind.SMS, "one", 1);
+            second = j.getFileBytes();
+            j.append(OutboxJournal.Kind.SMS, "two", 2);
+            j.append(OutboxJournal.Kind.SMS, "three", 3);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long at = second + OutboxJournal.FRAME_OVERHEAD + 3;
+            raf.seek(at);
+            int b = raf.read();
+            raf.seek(at);
+            raf.write(b ^ 0xFF);
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            assertEquals(1, j.size());
+            assertEquals(second, j.getFileBytes());
+        }
+    }
+
+    @Test
+    public void tornHeaderStartsFresh() throws IOException {
+        Files.write(file.toPath(), new byte[] {0x52, 0x51});
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            assertEquals(0, j.size());
+            assertEquals(2, j.getTruncatedBytes());
+            j.append(OutboxJournal.Kind.ALERT, "a", 0);
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            assertEquals(1, j.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        Files.write(file.toPath(), "definitely not a journal".getBytes());
+        new OutboxJournal(file, 0).close();
+    }
+
+    @Test
+    public void syncsAreBatched() throws IOException {
+        try (OutboxJournal j = new OutboxJournal(file, 8)) {
+            for (int i = 0; i < 20; i++) j.append(OutboxJournal.Kind.SMS, "m" + i, i);
+            assertEquals(2, j.getSyncs());
+            j.sync();
+            assertEquals(3, j.getSyncs());
+            // Nothing new to force.
+            j.sync();
+            assertEquals(3, j.getSyncs());
+        }
+    }
+
+    @Test
+    public void compactsOnceMostlyFinished() throws IOException {
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 500; i++) payload.append('x');
+        long keep;
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            keep = j.append(OutboxJournal.Kind.ALERT, "keep me", 0);
+            for (int i = 0; i < 200; i++) {
+                long id = j.append(OutboxJournal.Kind.SMS, payload.toString(), i);
+                j.complete(id);
+            }
+            assertTrue(j.getCompactions() > 0);
+            assertTrue(j.getFileBytes() < OutboxJournal.COMPACT_MIN_BYTES);
+            assertEquals(1, j.size());
+            assertFalse(new File(file.getPath() + ".compact").exists());
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            assertEquals(keep, j.pending().get(0).id);
+            assertEquals("keep me", j.pending().get(0).payload);
+            // No id is handed out twice, even though the finished items are gone from the file.
+            assertEquals(keep + 201, j.append(OutboxJournal.Kind.SMS, "next", 0));
+        }
+    }
+
+    @Test
+    public void compactedJournalRecoversAfterFurtherWrites() throws IOException {
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            long a = j.append(OutboxJournal.Kind.SMS, "a", 0);
+            j.append(OutboxJournal.Kind.SMS, "b", 0);
+            j.complete(a);
+            j.compact();
+            j.append(OutboxJournal.Kind.SMS, "c", 0);
+        }
+        try (OutboxJournal j = new OutboxJournal(file, 0)) {
+            assertEquals(2, j.size());
+            assertEquals("b", j.pending().get(0).payload);
+            assertEquals("c", j.pending().get(1).payload);
+        }
+    }
+}
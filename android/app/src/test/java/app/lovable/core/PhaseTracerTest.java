@@ -0,0 +1,83 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.lovable.core.PhaseTracer.Phase;
+
+public class PhaseTracerTest {
+    private ManualClock clock;
+    private PhaseTracer tracer;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(10_000);
+        tracer = new PhaseTracer(clock, 4);
+    }
+
+    @Test
+    public void spanRunsFromLatestStartToFirstArmedAfterIt() {
+        tracer.markAt(Phase.PROCESS_START, null, 9_200);
+        tracer.mark(Phase.BOOT_COMPLETED, null);
+        clock.advance(300);
+        tracer.mark(Phase.DETECTOR_ARMED, "volume");
+        clock.advance(900);
+        tracer.mark(Phase.DETECTOR_ARMED, "wakeword");
+        assertEquals(300, tracer.span(Phase.BOOT_COMPLETED, Phase.DETECTOR_ARMED));
+        assertEquals(1_100, tracer.span(Phase.PROCESS_START, Phase.DETECTOR_ARMED));
+        assertEquals(11_200, tracer.last(Phase.DETECTOR_ARMED));
+    }
+
+    @Test
+    public void missingPhasesGiveMinusOne() {
+        assertEquals(-1, tracer.span(Phase.LAUNCH, Phase.DETECTOR_ARMED));
+        tracer.mark(Phase.LAUNCH, null);
+        assertEquals(-1, tracer.span(Phase.LAUNCH, Phase.DETECTOR_ARMED));
+        assertEquals(-1, tracer.last(Phase.WEBVIEW_READY));
+    }
+
+    @Test
+    public void armedBeforeTheLaunchDoesNotCount() {
+        tracer.mark(Phase.DETECTOR_ARMED, "volume");
+        clock.advance(5_000);
+        tracer.mark(Phase.LAUNCH, null);
+        assertEquals(-1, tracer.span(Phase.LAUNCH, Phase.DETECTOR_ARMED));
+        clock.advance(40);
+        tracer.mark(Phase.DETECTOR_ARMED, "volume");
+        assertEquals(40, tracer.span(Phase.LAUNCH, Phase.DETECTOR_ARMED));
+    }
+
+    @Test
+    public void ringKeepsTheNewestMarks() {
+        for (Phase p : new Phase[] {Phase.PROCESS_START, Phase.LAUNCH, Phase.SERVICE_CREATED,
+                Phase.DETECTOR_ARMED, Phase.WEBVIEW_READY, Phase.LAUNCH}) {
+            tracer.mark(p, null);
+            clock.advance(10);
+        }
+        List<PhaseTracer.Mark> marks = tracer.marks();
+        assertEquals(4, marks.size());
+        assertEquals(Phase.SERVICE_CREATED, marks.get(0).phase);
+        assertEquals(Phase.LAUNCH, marks.get(3).phase);
+        assertEquals(2, tracer.getDropped());
+        assertEquals(-1, tracer.last(Phase.PROCESS_START));
+        // The newest launch has nothing after it yet.
+        assertEquals(-1, tracer.span(Phase.LAUNCH, Phase.WEBVIEW_READY));
+    }
+
+    @Test
+    public void detailsAreKept() {
+        tracer.mark(Phase.DETECTOR_ARMED, "wakeword");
+        PhaseTracer.Mark m = tracer.marks().get(0);
+        assertEquals("wakeword", m.detail);
+        assertEquals(10_000, m.atMs);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityIsRejected() {
+        new PhaseTracer(clock, 0);
+    }
+}
@@ -0,0 +1,171 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProtectionHostTest {
+    private final List<String> log = new ArrayList<>();
+    private int changes;
+    private int empties;
+    private ProtectionHost host;
+
+    private final class FakeDetector implements ProtectionHost.Detector {
+        final String name;
+        boolean busy;
+
+        FakeDetector(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void start() {
+            log.add(name + ".start");
+        }
+
+        @Override
+        public void stop() {
+            log.add(name + ".stop");
+        }
+
+        @Override
+        public void destroy() {
+            log.add(name + ".destroy");
+        }
+
+        @Override
+        public boolean isBusy() {
+            return busy;
+        }
+
+        @Override
+        public ServiceSupervisor.State state() {
+            return ServiceSupervisor.State.ARMED;
+        }
+
+        @Override
+        public String notificationHint() {
+            return name.equals("volume") ? "press Vol+ & Vol- together" : "say \"resqme help\"";
+        }
+    }
+
+    @Before
+    public void setUp() {
+        host = new ProtectionHost(name -> name.equals("volume") || name.equals("wakeword")
+                ? new FakeDetector(name) : null, new ProtectionHost.Listener() {
+            @Override
+            public void onDetectorsChanged() {
+                changes++;
+            }
+
+            @Override
+            public void onEmpty() {
+                empties++;
+            }
+        });
+    }
+
+    @Test
+    public void enableStartsOnceAndDisableDestroys() {
+        assertTrue(host.enable("volume"));
+        assertTrue(host.enable("volume"));
+        host.disable("volume");
+        assertEquals(Arrays.asList("volume.start", "volume.stop", "volume.destroy"), log);
+        assertTrue(host.isEmpty());
+        assertEquals(1, empties);
+        assertEquals(2, changes);
+    }
+
+    @Test
+    public void lookupDoesNotCreate() {
+        host.enable("volume");
+        assertFalse(host.has("wakeword"));
+        assertFalse(host.has("wakeword"));
+        assertEquals(1, host.getCreated());
+
+        host.disable("volume");
+        assertFalse(host.has("volume"));
+        assertTrue(host.isEmpty());
+        assertEquals(1, empties);
+    }
+
+    @Test
+    public void unknownDetectorIsRefused() {
+        assertFalse(host.enable("barometer"));
+        assertNull(host.obtain("barometer"));
+        assertTrue(host.isEmpty());
+    }
+
+    @Test
+    public void detectorsRunSideBySide() {
+        host.enable("volume");
+        host.enable("wakeword");
+        host.disable("volume");
+        assertFalse(host.isEmpty());
+        assertEquals(0, empties);
+        assertEquals(Arrays.asList("wakeword"), host.enabledNames());
+    }
+
+    @Test
+    public void busyDetectorOutlivesDisable() {
+        host.enable("wakeword");
+        FakeDetector d = (FakeDetector) host.obtain("wakeword");
+        d.busy = true;
+        host.disable("wakeword");
+        assertFalse(host.isEmpty());
+        assertFalse(log.contains("wakeword.destroy"));
+
+        d.busy = false;
+        host.release("wakeword");
+        assertTrue(log.contains("wakeword.destroy"));
+        assertEquals(1, empties);
+    }
+
+    @Test
+    public void oneOffJobWithoutEnabling() {
+        // An enrollment command creates the detector without starting it.
+        assertNotNull(host.obtain("wakeword"));
+        assertTrue(log.isEmpty());
+        host.release("wakeword");
+        assertEquals(Arrays.asList("wakeword.destroy"), log);
+    }
+
+    @Test
+    public void enabledDetectorIsNotReleased() {
+        host.enable("wakeword");
+        host.release("wakeword");
+        assertFalse(host.isEmpty());
+    }
+
+    @Test
+    public void restartStopsAndStarts() {
+        host.enable("volume");
+        host.restart("volume");
+        assertEquals(Arrays.asList("volume.start", "volume.stop", "volume.start"), log);
+        assertEquals(1, host.getCreated());
+        host.restart("wakeword");
+        assertTrue(host.isEnabled("wakeword"));
+    }
+
+    @Test
+    public void notificationJoinsEnabledHints() {
+        assertNull(host.notificationText());
+        host.enable("volume");
+        host.enable("wakeword");
+        assertEquals("Press Vol+ & Vol- together or say \"resqme help\"", host.notificationText());
+    }
+
+    @Test
+    public void destroyAllStopsEnabledOnly() {
+        host.enable("volume");
+        host.obtain("wakeword");
+        host.destroyAll();
+        assertEquals(Arrays.asList("volume.start", "volume.stop", "volume.destroy", "wakeword.destroy"), log);
+        assertTrue(host.isEmpty());
+    }
+}
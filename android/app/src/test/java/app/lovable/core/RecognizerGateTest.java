@@ -0,0 +1,77 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RecognizerGateTest {
+
+    @Test
+    public void staysOpenWhileSpeechContinues() {
+        RecognizerGate gate = new RecognizerGate(1_500);
+        gate.open(10_000);
+        assertTrue(gate.isOpen());
+
+        gate.noteSpeech(12_000);
+        assertTrue(gate.onSessionEnded(13_000));
+        assertEquals(2, gate.getSessionsStarted());
+
+        assertFalse(gate.onSessionEnded(14_000));
+        assertFalse(gate.isOpen());
+        assertEquals(2, gate.getSessionsStarted());
+    }
+
+    @Test
+    public void countsClosedTimeAndAvoidedSessions() {
+        RecognizerGate gate = new RecognizerGate(1_000);
+        gate.park(0);
+        // Closed for 60 s before anything is measured: estimate from the default session length.
+        assertEquals(60_000, gate.getClosedMs(60_000));
+        assertEquals(60_000 / RecognizerGate.DEFAULT_SESSION_MS, gate.getSessionsAvoided(60_000));
+
+        gate.open(60_000);
+        assertFalse(gate.onSessionEnded(64_000));
+        gate.park(64_000);
+        // One measured 4 s session; 60 s closed before + 36 s after.
+        assertEquals(4_000, gate.getAverageSessionMs());
+        assertEquals(96_000, gate.getClosedMs(100_000));
+        assertEquals(24, gate.getSessionsAvoided(100_000));
+        assertEquals(1, gate.getOnsets());
+    }
+
+    @Test
+    public void closeAndReopen() {
+        RecognizerGate gate = new RecognizerGate(1_000);
+        gate.park(0);
+        gate.open(1_000);
+        gate.open(1_500);
+        assertEquals(1, gate.getOnsets());
+        gate.close(2_000);
+        assertFalse(gate.onSessionEnded(2_100));
+        gate.park(3_000);
+        gate.open(5_000);
+        assertEquals(2, gate.getOnsets());
+        assertEquals(1_000 + 2_000, gate.getClosedMs(5_000));
+    }
+
+    @Test
+    public void nothingAccruesWhileStoppedOrUnparked() {
+        RecognizerGate gate = new RecognizerGate(1_000);
+        // Never parked: the recognizer runs without the gate.
+        assertEquals(0, gate.getClosedMs(60_000));
+        assertEquals(0, gate.getSessionsAvoided(60_000));
+
+        gate.park(60_000);
+        // Listening stopped while the VAD had the microphone.
+        gate.close(70_000);
+        assertEquals(10_000, gate.getClosedMs(500_000));
+        assertEquals(10_000 / RecognizerGate.DEFAULT_SESSION_MS, gate.getSessionsAvoided(500_000));
+
+        // A session ending on hangover closes the gate, but it accrues only once parked again.
+        gate.open(500_000);
+        assertFalse(gate.onSessionEnded(505_000));
+        assertEquals(10_000, gate.getClosedMs(510_000));
+        gate.park(510_000);
+        assertEquals(15_000, gate.getClosedMs(515_000));
+    }
+}
@@ -0,0 +1,215 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecordingStoreTest {
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recordings").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    private RecordingStore open(int slots) throws IOException {
+        return new RecordingStore(dir, slots, Clock.SYSTEM);
+    }
+
+    private static RecordingStore.Meta meta(String id, long createdAtMs) {
+        return new RecordingStore.Meta(id, "user-1", "Ada", "audio/webm;codecs=opus", createdAtMs, 12_500,
+                40.7128, -74.006);
+    }
+
+    private static byte[] audio(int size) {
+        byte[] b = new byte[size];
+        new Random(size).nextBytes(b);
+        return b;
+    }
+
+    @Test
+    public void storesAudioAsFileWithMetadataInIndex() throws IOException {
+        byte[] data = audio(10_000);
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Entry e = store.put(meta("a1", 1_000), new ByteArrayInputStream(data));
+            assertEquals(10_000, e.sizeBytes);
+            assertEquals(new File(dir, "a1.webm"), e.file);
+            assertArrayEquals(data, Files.readAllBytes(e.file.toPath()));
+            assertTrue(store.verify("a1"));
+        }
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Entry e = store.get("a1");
+            assertEquals("user-1", e.meta.userId);
+            assertEquals("Ada", e.meta.userName);
+            assertEquals("audio/webm;codecs=opus", e.meta.mimeType);
+            assertEquals(1_000, e.meta.createdAtMs);
+            assertEquals(12_500, e.meta.durationMs);
+            assertEquals(40.7128, e.meta.latitude, 0);
+            assertFalse(e.synced);
+            assertEquals(0, store.getRepaired());
+        }
+    }
+
+    @Test
+    public void listSkipsSyncedAndIsOldestFirst() throws IOException {
+        try (RecordingStore store = open(2)) {
+            store.put(meta("c", 3_000), null);
+            store.put(meta("a", 1_000), new ByteArrayInputStream(audio(10)));
+            store.put(meta("b", 2_000), new ByteArrayInputStream(audio(20)));
+            assertTrue(store.setState("b", true, null));
+            assertTrue(store.setState("c", null, true));
+            assertFalse(store.setState("zz", true, null));
+            assertEquals(4, store.capacity());
+
+            List<RecordingStore.Entry> pending = store.list(true);
+            assertEquals(2, pending.size());
+            assertEquals("a", pending.get(0).meta.alertId);
+            assertEquals("c", pending.get(1).meta.alertId);
+            assertNull(pending.get(1).file);
+            assertTrue(pending.get(1).smsSent);
+            assertEquals(3, store.list(false).size());
+
+            assertEquals(1, store.removeSynced());
+            assertFalse(new File(dir, "b.webm").exists());
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void listNeverTouchesAudio() throws IOException {
+        try (RecordingStore store = open(16)) {
+            for (int i = 0; i < 2_000; i++) {
+                store.put(meta("r" + i, i), new ByteArrayInputStream(audio(64)));
+            }
+            // Listing reads only the index, so it works with every audio file gone.
+            for (File f : dir.listFiles()) {
+                if (!f.getName().equals(RecordingStore.INDEX_NAME)) assertTrue(f.delete());
+            }
+            List<RecordingStore.Entry> all = store.list(true);
+            assertEquals(2_000, all.size());
+            assertEquals("r1999", all.get(1_999).meta.alertId);
+            assertEquals(1, store.getListTime().getCount());
+        }
+    }
+
+    @Test
+    public void replacingKeepsStateAndRemovesOldFile() throws IOException {
+        try (RecordingStore store = open(4)) {
+            store.put(meta("a", 1), new ByteArrayInputStream(audio(100)));
+            store.setState("a", null, true);
+            RecordingStore.Meta aac = new RecordingStore.Meta("a", "user-1", "Ada", "audio/aac", 1, 30_000,
+                    Double.NaN, Double.NaN);
+            RecordingStore.Entry e = store.put(aac, new ByteArrayInputStream(audio(50)));
+            assertEquals(new File(dir, "a.aac"), e.file);
+            assertTrue(e.smsSent);
+            assertTrue(Double.isNaN(e.meta.latitude));
+            assertFalse(new File(dir, "a.webm").exists());
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void metadataOnlyUpdateKeepsAudio() throws IOException {
+        byte[] data = audio(100);
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Entry before = store.put(meta("a", 1), new ByteArrayInputStream(data));
+            RecordingStore.Meta moved = new RecordingStore.Meta("a", "user-1", "Ada", "audio/aac", 1, 12_500,
+                    51.5, -0.12);
+            RecordingStore.Entry e = store.put(moved, null);
+            assertEquals(before.file, e.file);
+            assertEquals("audio/webm;codecs=opus", e.meta.mimeType);
+            assertEquals(100, e.sizeBytes);
+            assertEquals(51.5, e.meta.latitude, 0);
+            assertArrayEquals(data, Files.readAllBytes(e.file.toPath()));
+            assertTrue(store.verify("a"));
+        }
+    }
+
+    @Test
+    public void adoptMovesFileIn() throws IOException {
+        File native_ = new File(dir.getParentFile(), "sos_" + System.nanoTime() + ".aac");
+        byte[] data = audio(3_000);
+        Files.write(native_.toPath(), data);
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Meta m = new RecordingStore.Meta("n1", "u", "", "audio/aac", 5, 0, 1, 2);
+            RecordingStore.Entry e = store.adopt(m, native_);
+            assertFalse(native_.exists());
+            assertArrayEquals(data, Files.readAllBytes(e.file.toPath()));
+            assertTrue(store.verify("n1"));
+        }
+    }
+
+    @Test
+    public void reopenRepairsMissingAudioAndOrphans() throws IOException {
+        try (RecordingStore store = open(4)) {
+            store.put(meta("a", 1), new ByteArrayInputStream(audio(100)));
+            store.put(meta("b", 2), new ByteArrayInputStream(audio(100)));
+        }
+        assertTrue(new File(dir, "a.webm").delete());
+        Files.write(new File(dir, "stray.webm").toPath(), audio(5));
+        Files.write(new File(dir, "c.tmp").toPath(), audio(5));
+        try (RecordingStore store = open(4)) {
+            assertEquals(3, store.getRepaired());
+            RecordingStore.Entry a = store.get("a");
+            assertNotNull("alert outlives its audio", a);
+            assertNull(a.file);
+            assertNotNull(store.get("b").file);
+            assertFalse(new File(dir, "stray.webm").exists());
+            assertFalse(new File(dir, "c.tmp").exists());
+        }
+    }
+
+    @Test
+    public void detectsCorruptAudio() throws IOException {
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Entry e = store.put(meta("a", 1), new ByteArrayInputStream(audio(100)));
+            try (RandomAccessFile f = new RandomAccessFile(e.file, "rw")) {
+                f.seek(50);
+                f.write(~f.read());
+            }
+            assertFalse(store.verify("a"));
+        }
+    }
+
+    @Test
+    public void longNamesAreCutAtCharacterBoundary() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 60; i++) name.append('é');
+        try (RecordingStore store = open(4)) {
+            RecordingStore.Meta m = new RecordingStore.Meta("a", "u", name.toString(), "audio/aac", 1, 0, 0, 0);
+            String stored = store.put(m, null).meta.userName;
+            assertEquals(RecordingStore.MAX_NAME_BYTES / 2, stored.length());
+            assertTrue(name.toString().startsWith(stored));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAlertIdThatIsNotAFileName() throws IOException {
+        try (RecordingStore store = open(4)) {
+            store.put(meta("../escape", 1), null);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignIndex() throws IOException {
+        Files.write(new File(dir, RecordingStore.INDEX_NAME).toPath(), new byte[64]);
+        open(4).close();
+    }
+}
@@ -0,0 +1,115 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RestartSchedulerTest {
+    private final ManualClock clock = new ManualClock(1_000_000);
+    private final List<String> transitions = new ArrayList<>();
+    private final RestartScheduler scheduler = new RestartScheduler(clock, new Random(1),
+            (from, to, reason) -> transitions.add(from + "->" + to));
+
+    @Test
+    public void classifiesErrorCodes() {
+        assertEquals(RestartScheduler.ErrorClass.BENIGN, RestartScheduler.classify(RestartScheduler.ERROR_NO_MATCH));
+        assertEquals(RestartScheduler.ErrorClass.BENIGN, RestartScheduler.classify(RestartScheduler.ERROR_SPEECH_TIMEOUT));
+        assertEquals(RestartScheduler.ErrorClass.RECOGNIZER_FAULT, RestartScheduler.classify(RestartScheduler.ERROR_RECOGNIZER_BUSY));
+        assertEquals(RestartScheduler.ErrorClass.RECOGNIZER_FAULT, RestartScheduler.classify(RestartScheduler.ERROR_CLIENT));
+        assertEquals(RestartScheduler.ErrorClass.TRANSIENT, RestartScheduler.classify(RestartScheduler.ERROR_NETWORK));
+        assertEquals(RestartScheduler.ErrorClass.FATAL, RestartScheduler.classify(RestartScheduler.ERROR_INSUFFICIENT_PERMISSIONS));
+        assertEquals(RestartScheduler.ErrorClass.TRANSIENT, RestartScheduler.classify(99));
+    }
+
+    @Test
+    public void noMatchRestartsImmediately() {
+        for (int i = 0; i < 50; i++) {
+            RestartScheduler.Decision d = scheduler.onError(RestartScheduler.ERROR_NO_MATCH);
+            assertEquals(RestartScheduler.Action.RESTART, d.action);
+            assertEquals(RestartScheduler.IMMEDIATE_DELAY_MS, d.delayMs);
+            clock.advance(5_000);
+        }
+        assertEquals(RestartScheduler.State.RUNNING, scheduler.getState());
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    public void busyRecreatesWithGrowingJitteredBackoff() {
+        long previousMax = 0;
+        for (int i = 1; i <= 4; i++) {
+            RestartScheduler.Decision d = scheduler.onError(RestartScheduler.ERROR_RECOGNIZER_BUSY);
+            assertEquals(RestartScheduler.Action.RECREATE, d.action);
+            long max = RestartScheduler.BACKOFF_BASE_MS << (i - 1);
+            assertTrue(d.toString(), d.delayMs >= max / 2 && d.delayMs <= max);
+            assertTrue(max > previousMax);
+            previousMax = max;
+            clock.advance(20_000);
+        }
+        assertEquals(RestartScheduler.State.BACKOFF, scheduler.getState());
+
+        assertEquals(RestartScheduler.Action.RESTART, scheduler.onSessionEnded().action);
+        assertEquals(RestartScheduler.State.RUNNING, scheduler.getState());
+        // Backoff starts over after a success.
+        assertTrue(scheduler.onError(RestartScheduler.ERROR_NETWORK).delayMs <= RestartScheduler.BACKOFF_BASE_MS);
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        for (int i = 0; i < 40; i++) {
+            RestartScheduler.Decision d = scheduler.onError(RestartScheduler.ERROR_SERVER);
+            assertTrue(d.delayMs <= RestartScheduler.BACKOFF_MAX_MS);
+            clock.advance(RestartScheduler.BREAKER_WINDOW_MS);
+        }
+    }
+
+    @Test
+    public void failureStormTripsBreakerAndProbeRecovers() {
+        RestartScheduler.Decision d = null;
+        for (int i = 0; i < RestartScheduler.BREAKER_FAILURES; i++) {
+            d = scheduler.onError(RestartScheduler.ERROR_CLIENT);
+            clock.advance(1_000);
+        }
+        assertEquals(RestartScheduler.Action.SUSPEND, d.action);
+        assertEquals(RestartScheduler.COOLDOWN_BASE_MS, d.delayMs);
+        assertEquals(RestartScheduler.State.OPEN, scheduler.getState());
+
+        clock.advance(d.delayMs);
+        RestartScheduler.Decision probe = scheduler.onProbeDue();
+        assertEquals(RestartScheduler.Action.RECREATE, probe.action);
+        assertEquals(RestartScheduler.State.HALF_OPEN, scheduler.getState());
+
+        scheduler.onSpeechDetected();
+        assertEquals(RestartScheduler.State.RUNNING, scheduler.getState());
+        assertEquals("[RUNNING->BACKOFF, BACKOFF->OPEN, OPEN->HALF_OPEN, HALF_OPEN->RUNNING]",
+                transitions.toString());
+    }
+
+    @Test
+    public void failedProbeReopensWithLongerCooldown() {
+        RestartScheduler.Decision d = scheduler.onError(RestartScheduler.ERROR_INSUFFICIENT_PERMISSIONS);
+        assertEquals(RestartScheduler.Action.SUSPEND, d.action);
+
+        scheduler.onProbeDue();
+        d = scheduler.onError(RestartScheduler.ERROR_NETWORK);
+        assertEquals(RestartScheduler.Action.SUSPEND, d.action);
+        assertEquals(RestartScheduler.COOLDOWN_BASE_MS * 2, d.delayMs);
+
+        // Errors arriving while suspended do not change state.
+        assertEquals(RestartScheduler.Action.SUSPEND, scheduler.onError(RestartScheduler.ERROR_CLIENT).action);
+        assertEquals(RestartScheduler.State.OPEN, scheduler.getState());
+    }
+
+    @Test
+    public void spacedOutFailuresDoNotTrip() {
+        for (int i = 0; i < 20; i++) {
+            assertNotEquals(RestartScheduler.Action.SUSPEND,
+                    scheduler.onError(RestartScheduler.ERROR_NETWORK).action);
+            clock.advance(RestartScheduler.BREAKER_WINDOW_MS / (RestartScheduler.BREAKER_FAILURES - 1));
+        }
+        assertEquals(20, scheduler.getErrorCount(RestartScheduler.ErrorClass.TRANSIENT));
+    }
+}
@@ -0,0 +1,157 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ServiceSupervisorTest {
+    private static final long STALE_MS = 15_000;
+
+    private final List<String> restarted = new ArrayList<>();
+    private ManualClock clock;
+    private ServiceSupervisor supervisor;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(0);
+        supervisor = new ServiceSupervisor(clock, restarted::add, STALE_MS, 2_000, 60_000, 120_000);
+        supervisor.setExpected("voice", true);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+    }
+
+    @Test
+    public void healthyServiceIsLeftAlone() {
+        for (int i = 0; i < 10; i++) {
+            clock.advance(5_000);
+            supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+            assertTrue(supervisor.check().isEmpty());
+        }
+        ServiceSupervisor.Status s = supervisor.status("voice");
+        assertTrue(s.alive);
+        assertEquals(ServiceSupervisor.State.ARMED, s.state);
+        assertEquals(0, s.sinceHeartbeatMs);
+    }
+
+    @Test
+    public void stallIsDetectedAfterStaleTimeAndRestarted() {
+        clock.advance(STALE_MS);
+        assertTrue(supervisor.check().isEmpty());
+        clock.advance(5_000);
+        assertEquals(Arrays.asList("voice"), supervisor.check());
+        ServiceSupervisor.Status s = supervisor.status("voice");
+        assertFalse(s.alive);
+        assertTrue(s.failed);
+        assertEquals(ServiceSupervisor.State.STOPPED, s.state);
+        assertEquals(20_000, s.sinceHeartbeatMs);
+        assertEquals(20_000_000, supervisor.getTimeToDetect().getMaxMicros());
+
+        clock.advance(3_000);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMING);
+        clock.advance(1_000);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+        assertFalse(supervisor.status("voice").failed);
+        assertEquals(4_000_000, supervisor.getTimeToRecover().getMaxMicros());
+    }
+
+    @Test
+    public void unexpectedStopIsDetectedAtOnce() {
+        clock.advance(1_000);
+        supervisor.stopped("voice");
+        assertEquals(1, supervisor.getFailures());
+        assertEquals(0, supervisor.getTimeToDetect().getMaxMicros());
+        assertEquals(Arrays.asList("voice"), supervisor.check());
+    }
+
+    @Test
+    public void requestedStopIsNotAFailure() {
+        supervisor.setExpected("voice", false);
+        supervisor.stopped("voice");
+        clock.advance(60_000);
+        assertTrue(supervisor.check().isEmpty());
+        assertEquals(0, supervisor.getFailures());
+        assertFalse(supervisor.status("voice").alive);
+    }
+
+    @Test
+    public void repeatedRestartsBackOff() {
+        supervisor.stopped("voice");
+        List<Long> at = new ArrayList<>();
+        for (int t = 0; t < 200; t++) {
+            if (!supervisor.check().isEmpty()) at.add(clock.nowMs());
+            clock.advance(1_000);
+        }
+        // Restart, then stale time plus 2 s, 4 s, 8 s... while nothing comes up.
+        assertEquals(Long.valueOf(0), at.get(0));
+        assertEquals(Long.valueOf(17_000), at.get(1));
+        assertEquals(Long.valueOf(36_000), at.get(2));
+        assertEquals(Long.valueOf(59_000), at.get(3));
+        assertEquals(at.size(), supervisor.status("voice").restarts);
+    }
+
+    @Test
+    public void backoffResetsAfterStayingHealthy() {
+        for (int i = 0; i < 3; i++) {
+            supervisor.stopped("voice");
+            clock.advance(60_000);
+            supervisor.check();
+            supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+        }
+        clock.advance(1_000);
+        supervisor.stopped("voice");
+        // Restarted quickly three times: the fourth attempt waits.
+        assertTrue(supervisor.check().isEmpty());
+
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+        for (int i = 0; i < 30; i++) {
+            clock.advance(5_000);
+            supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+        }
+        supervisor.stopped("voice");
+        assertEquals(Arrays.asList("voice"), supervisor.check());
+    }
+
+    @Test
+    public void serviceThatNeverStartsIsRestarted() {
+        supervisor.setExpected("volume", true);
+        clock.advance(STALE_MS);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMED);
+        assertTrue(supervisor.check().isEmpty());
+        clock.advance(1);
+        assertEquals(Collections.singletonList("volume"), supervisor.check());
+    }
+
+    @Test
+    public void armingServiceIsGivenTime() {
+        supervisor.stopped("voice");
+        supervisor.check();
+        clock.advance(1_000);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMING);
+        clock.advance(10_000);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.ARMING);
+        clock.advance(10_000);
+        assertTrue(supervisor.check().isEmpty());
+        assertTrue(supervisor.status("voice").failed);
+    }
+
+    @Test
+    public void degradedCountsAsRecovered() {
+        supervisor.stopped("voice");
+        supervisor.check();
+        clock.advance(2_000);
+        supervisor.heartbeat("voice", ServiceSupervisor.State.DEGRADED);
+        ServiceSupervisor.Status s = supervisor.status("voice");
+        assertFalse(s.failed);
+        assertEquals(ServiceSupervisor.State.DEGRADED, s.state);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stoppedIsNotAHeartbeat() {
+        supervisor.heartbeat("voice", ServiceSupervisor.State.STOPPED);
+    }
+}
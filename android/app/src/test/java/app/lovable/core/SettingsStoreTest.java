@@ -0,0 +1,158 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SettingsStoreTest {
+    private final Map<String, Object> stored = new HashMap<>();
+    private final List<Map<String, Object>> written = new ArrayList<>();
+    private final List<Runnable> queued = new ArrayList<>();
+    private int loads;
+
+    private final SettingsStore.Storage storage = new SettingsStore.Storage() {
+        @Override
+        public Map<String, ?> load() {
+            loads++;
+            return new HashMap<>(stored);
+        }
+
+        @Override
+        public void write(Map<String, Object> changes) {
+            written.add(changes);
+            stored.putAll(changes);
+        }
+    };
+
+    private SettingsStore store;
+
+    @Before
+    public void setUp() {
+        stored.put(SettingsStore.KEY_VOLUME_ENABLED, true);
+        stored.put(SettingsStore.KEY_WAKE_WORD, "nova");
+        stored.put(SettingsStore.KEY_GESTURE_LONG_HOLD_MS, 1500L);
+        stored.put("unrelated", "kept out");
+        store = new SettingsStore(storage, queued::add);
+    }
+
+    private void runWriter() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        for (Runnable r : tasks) r.run();
+    }
+
+    @Test
+    public void loadsOnceWithDefaults() {
+        SettingsStore.Snapshot s = store.get();
+        assertTrue(s.volumeEnabled);
+        assertEquals("nova", s.wakeWord);
+        assertEquals(1500, s.gestureLongHoldMs);
+        assertTrue(s.gestureSimultaneous);
+        assertEquals(SettingsStore.DEFAULT_WAKE_ENGINE, s.wakeEngine);
+        assertEquals(new VoiceActivityDetector.Settings().hangoverMs, s.voiceGateHangoverMs);
+        store.get();
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void editSwapsSnapshotWithoutTouchingTheOld() {
+        SettingsStore.Snapshot before = store.get();
+        SettingsStore.Snapshot after = store.edit().wakeWord("atlas").wakeWordEnabled(true).apply();
+        assertSame(after, store.get());
+        assertEquals("nova", before.wakeWord);
+        assertFalse(before.wakeWordEnabled);
+        assertEquals("atlas", after.wakeWord);
+        assertTrue(after.volumeEnabled);
+    }
+
+    @Test
+    public void listenersSeeBeforeAndAfter() {
+        List<String> seen = new ArrayList<>();
+        store.addListener((before, after) -> seen.add(before.wakeEngine + "->" + after.wakeEngine));
+        store.edit().wakeEngine("spotter").apply();
+        assertEquals(1, seen.size());
+        assertEquals("recognizer->spotter", seen.get(0));
+    }
+
+    @Test
+    public void unchangedEditIsSilent() {
+        List<SettingsStore.Snapshot> seen = new ArrayList<>();
+        store.addListener((before, after) -> seen.add(after));
+        SettingsStore.Snapshot s = store.edit().volumeEnabled(true).wakeWord("nova").apply();
+        assertSame(s, store.get());
+        assertTrue(seen.isEmpty());
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    public void editsBeforeTheWriteShareIt() {
+        store.edit().gestureRapidPresses(3).apply();
+        store.edit().gestureUpDownUp(true).apply();
+        store.edit().gestureRapidPresses(4).apply();
+        assertEquals(1, queued.size());
+        assertTrue(written.isEmpty());
+
+        runWriter();
+        assertEquals(1, written.size());
+        assertEquals(4, written.get(0).get(SettingsStore.KEY_GESTURE_RAPID_PRESSES));
+        assertEquals(true, written.get(0).get(SettingsStore.KEY_GESTURE_UP_DOWN_UP));
+        assertEquals(2, written.get(0).size());
+        assertEquals(1, store.getWrites());
+
+        store.edit().volumeEnabled(false).apply();
+        runWriter();
+        assertEquals(2, written.size());
+        assertEquals(1, written.get(1).size());
+    }
+
+    @Test
+    public void writtenValuesReloadTheSame() {
+        store.edit().voiceGateEnabled(true).voiceGateOnDb(12f).voiceGateHangoverMs(900)
+                .gestureLongHoldMs(2000).apply();
+        runWriter();
+        SettingsStore reloaded = new SettingsStore(storage, queued::add);
+        assertEquals(store.get().toMap(), reloaded.get().toMap());
+    }
+
+    @Test
+    public void flushWritesPendingDirectly() {
+        store.edit().wakeWordEnabled(true).apply();
+        store.flush();
+        assertEquals(1, written.size());
+        runWriter();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void badStoredValuesFallBackToDefaults() {
+        stored.put(SettingsStore.KEY_GESTURE_RAPID_PRESSES, "three");
+        stored.put(SettingsStore.KEY_WAKE_WORD, "");
+        stored.put(SettingsStore.KEY_GESTURE_LONG_HOLD_MS, -5);
+        SettingsStore.Snapshot s = new SettingsStore(storage, queued::add).get();
+        assertEquals(0, s.gestureRapidPresses);
+        assertEquals(SettingsStore.DEFAULT_WAKE_WORD, s.wakeWord);
+        assertEquals(0, s.gestureLongHoldMs);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeHangoverIsRejected() {
+        store.edit().voiceGateHangoverMs(-1);
+    }
+
+    @Test
+    public void gestureAndGateComparisons() {
+        SettingsStore.Snapshot before = store.get();
+        SettingsStore.Snapshot after = store.edit().wakeWord("atlas").apply();
+        assertFalse(after.gesturesDiffer(before));
+        assertFalse(after.voiceGateDiffers(before));
+        SettingsStore.Snapshot held = store.edit().gestureLongHoldMs(0).voiceGateOffDb(3f).apply();
+        assertTrue(held.gesturesDiffer(after));
+        assertTrue(held.voiceGateDiffers(after));
+    }
+}
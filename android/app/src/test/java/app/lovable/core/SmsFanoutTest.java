@@ -0,0 +1,196 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SmsFanoutTest {
+    private ManualClock clock;
+    private final List<Runnable> pending = new ArrayList<>();
+    private final List<String> submitted = new ArrayList<>();
+    private final List<String> events = new ArrayList<>();
+    private int parts = 1;
+    private String failFor;
+    private SmsFanout fanout;
+
+    private final SmsFanout.Listener listener = new SmsFanout.Listener() {
+        @Override
+        public void onProgress(SmsFanout.Batch batch, SmsFanout.Recipient r) {
+            events.add(r.phoneNumber + ":" + r.getState());
+        }
+
+        @Override
+        public void onAllSent(SmsFanout.Batch batch) {
+            events.add("allSent");
+        }
+
+        @Override
+        public void onFinished(SmsFanout.Batch batch) {
+            events.add("finished");
+        }
+    };
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(0);
+        fanout = new SmsFanout(clock, pending::add, (batchId, recipient, m) -> {
+            if (m.phoneNumber.equals(failFor)) throw new IllegalStateException("no service");
+            submitted.add(m.phoneNumber);
+            return parts;
+        });
+    }
+
+    private static List<SmsFanout.Message> messages(String... phones) {
+        List<SmsFanout.Message> list = new ArrayList<>();
+        for (String p : phones) list.add(new SmsFanout.Message(p, "help"));
+        return list;
+    }
+
+    private void runPending() {
+        List<Runnable> tasks = new ArrayList<>(pending);
+        pending.clear();
+        for (Runnable task : tasks) task.run();
+    }
+
+    @Test
+    public void submitsEveryRecipientAsItsOwnTask() {
+        SmsFanout.Batch batch = fanout.start(messages("+1", "+2", "+3"), 60_000, true, listener);
+        assertEquals(3, pending.size());
+        assertTrue(submitted.isEmpty());
+        runPending();
+        assertEquals(Arrays.asList("+1", "+2", "+3"), submitted);
+        assertEquals(3, batch.count(SmsFanout.State.SUBMITTED));
+    }
+
+    @Test
+    public void tracksSentThenDelivered() {
+        SmsFanout.Batch batch = fanout.start(messages("+1", "+2"), 60_000, true, listener);
+        runPending();
+
+        clock.advance(300);
+        fanout.onPartSent(batch.id, 1, true, null);
+        assertEquals(-1, batch.getTimeToAllSentMs());
+        clock.advance(200);
+        fanout.onPartSent(batch.id, 0, true, null);
+        assertEquals(500, batch.getTimeToAllSentMs());
+        assertEquals(2, batch.sentCount());
+        assertFalse(batch.isFinished());
+
+        clock.advance(1_000);
+        fanout.onPartDelivered(batch.id, 0, true);
+        fanout.onPartDelivered(batch.id, 1, true);
+        assertTrue(batch.isFinished());
+        assertEquals(1_500, batch.getTimeToAllDeliveredMs());
+        assertEquals(300, batch.getRecipients().get(1).getSentAtMs());
+        assertEquals(0, fanout.activeBatches());
+        assertEquals(Arrays.asList(
+                "+1:SUBMITTED", "+2:SUBMITTED", "+2:SENT", "+1:SENT", "allSent",
+                "+1:DELIVERED", "+2:DELIVERED", "finished"), events);
+    }
+
+    @Test
+    public void multipartCountsOnlyWhenEveryPartIsIn() {
+        parts = 3;
+        SmsFanout.Batch batch = fanout.start(messages("+1"), 60_000, true, listener);
+        runPending();
+        SmsFanout.Recipient r = batch.getRecipients().get(0);
+        assertEquals(3, r.getParts());
+
+        fanout.onPartSent(batch.id, 0, true, null);
+        fanout.onPartSent(batch.id, 0, true, null);
+        assertEquals(SmsFanout.State.SUBMITTED, r.getState());
+        fanout.onPartSent(batch.id, 0, true, null);
+        assertEquals(SmsFanout.State.SENT, r.getState());
+
+        fanout.onPartDelivered(batch.id, 0, true);
+        fanout.onPartDelivered(batch.id, 0, true);
+        assertFalse(batch.isFinished());
+        fanout.onPartDelivered(batch.id, 0, true);
+        assertTrue(batch.isFinished());
+    }
+
+    @Test
+    public void reportsBeforeSubmitReturnsAreNotLost() {
+        // Fast radios can report a send before the submitting task records the part count.
+        SmsFanout[] ref = new SmsFanout[1];
+        ref[0] = new SmsFanout(clock, pending::add, (batchId, recipient, m) -> {
+            ref[0].onPartSent(batchId, recipient, true, null);
+            return 1;
+        });
+        SmsFanout.Batch batch = ref[0].start(messages("+1"), 60_000, false, listener);
+        runPending();
+        assertEquals(SmsFanout.State.SENT, batch.getRecipients().get(0).getState());
+        assertTrue(batch.isFinished());
+    }
+
+    @Test
+    public void failureDoesNotHoldUpOthers() {
+        failFor = "+2";
+        SmsFanout.Batch batch = fanout.start(messages("+1", "+2"), 60_000, true, listener);
+        runPending();
+        SmsFanout.Recipient failed = batch.getRecipients().get(1);
+        assertEquals(SmsFanout.State.FAILED, failed.getState());
+        assertEquals("no service", failed.getError());
+
+        fanout.onPartSent(batch.id, 0, true, null);
+        assertTrue(events.contains("allSent"));
+        fanout.onPartDelivered(batch.id, 0, true);
+        assertTrue(batch.isFinished());
+        // Not everyone was delivered.
+        assertEquals(-1, batch.getTimeToAllDeliveredMs());
+    }
+
+    @Test
+    public void radioFailureAndFailedDeliveryAreReported() {
+        SmsFanout.Batch batch = fanout.start(messages("+1", "+2"), 60_000, true, listener);
+        runPending();
+        fanout.onPartSent(batch.id, 0, false, "generic failure");
+        fanout.onPartSent(batch.id, 1, true, null);
+        fanout.onPartDelivered(batch.id, 1, false);
+        assertEquals("generic failure", batch.getRecipients().get(0).getError());
+        assertEquals(SmsFanout.State.FAILED, batch.getRecipients().get(1).getState());
+        assertEquals(0, batch.sentCount());
+        assertTrue(batch.isFinished());
+    }
+
+    @Test
+    public void withoutDeliveryReportsFinishesOnceSent() {
+        SmsFanout.Batch batch = fanout.start(messages("+1"), 60_000, false, listener);
+        runPending();
+        fanout.onPartSent(batch.id, 0, true, null);
+        assertTrue(batch.isFinished());
+        assertEquals(-1, batch.getTimeToAllDeliveredMs());
+    }
+
+    @Test
+    public void deadlineTimesOutStragglers() {
+        SmsFanout.Batch batch = fanout.start(messages("+1", "+2"), 10_000, true, listener);
+        runPending();
+        fanout.onPartSent(batch.id, 0, true, null);
+        clock.advance(10_000);
+        fanout.expire(batch.id);
+
+        assertTrue(batch.isFinished());
+        assertEquals(SmsFanout.State.SENT, batch.getRecipients().get(0).getState());
+        assertEquals(SmsFanout.State.TIMED_OUT, batch.getRecipients().get(1).getState());
+        assertEquals(-1, batch.getTimeToAllSentMs());
+        assertEquals(Arrays.asList("+2:TIMED_OUT", "allSent", "finished"),
+                events.subList(events.size() - 3, events.size()));
+
+        // Late reports for a finished batch are ignored.
+        fanout.onPartSent(batch.id, 1, true, null);
+        assertEquals(SmsFanout.State.TIMED_OUT, batch.getRecipients().get(1).getState());
+    }
+
+    @Test
+    public void emptyBatchFinishesImmediately() {
+        SmsFanout.Batch batch = fanout.start(new ArrayList<>(), 60_000, true, listener);
+        assertTrue(batch.isFinished());
+        assertEquals(Arrays.asList("allSent", "finished"), events);
+    }
+}
@@ -0,0 +1,172 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SmsSchedulerTest {
+    private ManualClock clock;
+    private final List<Long> wakeups = new ArrayList<>();
+    private final List<String> radio = new ArrayList<>();
+    private final List<String> outcomes = new ArrayList<>();
+    private SmsScheduler scheduler;
+
+    private final SmsScheduler.Callback callback = new SmsScheduler.Callback() {
+        @Override
+        public void onSent(SmsScheduler.Job job) {
+            outcomes.add("sent");
+        }
+
+        @Override
+        public void onFailed(SmsScheduler.Job job, String error) {
+            outcomes.add("failed: " + error);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(0);
+        // Burst of 3, then one text per second.
+        scheduler = new SmsScheduler(clock, new Random(1), wakeups::add, 3, 1_000);
+    }
+
+    private void submit(String name, String sub, boolean primary, SmsScheduler.Kind kind) {
+        scheduler.submit(new SmsScheduler.Job(sub, primary, kind, () -> radio.add(name), callback));
+    }
+
+    private void submit(String name, boolean primary, SmsScheduler.Kind kind) {
+        submit(name, "sub1", primary, kind);
+    }
+
+    private long lastWakeup() {
+        return wakeups.get(wakeups.size() - 1);
+    }
+
+    @Test
+    public void ordersPrimaryThenSosThenArrival() {
+        submit("follow-up", false, SmsScheduler.Kind.FOLLOW_UP);
+        submit("sos-a", false, SmsScheduler.Kind.SOS);
+        submit("primary-follow-up", true, SmsScheduler.Kind.FOLLOW_UP);
+        submit("sos-b", false, SmsScheduler.Kind.SOS);
+        submit("primary-sos", true, SmsScheduler.Kind.SOS);
+        assertEquals(Long.valueOf(0), wakeups.get(0));
+        assertEquals(5, scheduler.getQueueDepth());
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.pump();
+            clock.advance(1_000);
+        }
+        assertEquals(Arrays.asList("primary-sos", "primary-follow-up", "sos-a", "sos-b", "follow-up"), radio);
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void burstThenPacedByTokens() {
+        for (int i = 0; i < 5; i++) submit("m" + i, false, SmsScheduler.Kind.SOS);
+        scheduler.pump();
+        assertEquals(3, radio.size());
+        assertEquals(1_000, lastWakeup());
+        assertEquals(1, scheduler.getThrottled());
+
+        clock.advance(999);
+        scheduler.pump();
+        assertEquals(3, radio.size());
+
+        clock.advance(1);
+        scheduler.pump();
+        assertEquals(4, radio.size());
+        assertEquals(2_000, lastWakeup());
+
+        clock.advance(1_000);
+        scheduler.pump();
+        assertEquals(5, radio.size());
+        assertEquals(0, scheduler.getQueueDepth());
+        assertEquals(5, scheduler.getSent());
+        // The last text waited two seconds for its token.
+        assertEquals(2_000_000, scheduler.getWaitTime().getMaxMicros(), 2_000_000 / 16);
+    }
+
+    @Test
+    public void subscriptionsHaveSeparateBuckets() {
+        for (int i = 0; i < 4; i++) submit("a" + i, "sim1", false, SmsScheduler.Kind.SOS);
+        submit("b0", "sim2", false, SmsScheduler.Kind.SOS);
+        scheduler.pump();
+        // sim1 is out of tokens after three; sim2's text still goes out in the same pump.
+        assertEquals(Arrays.asList("a0", "a1", "a2", "b0"), radio);
+        assertEquals(1, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void latePrimaryJumpsTheQueue() {
+        for (int i = 0; i < 5; i++) submit("m" + i, false, SmsScheduler.Kind.SOS);
+        scheduler.pump();
+        submit("primary", true, SmsScheduler.Kind.SOS);
+        clock.advance(1_000);
+        scheduler.pump();
+        assertEquals("primary", radio.get(3));
+    }
+
+    @Test
+    public void retriesWithBackoffThenSucceeds() {
+        int[] calls = {0};
+        scheduler.submit(new SmsScheduler.Job("sub1", false, SmsScheduler.Kind.SOS, () -> {
+            if (++calls[0] < 3) throw new IllegalStateException("no service");
+            radio.add("ok");
+        }, callback));
+
+        scheduler.pump();
+        assertEquals(1, calls[0]);
+        long retryAt = lastWakeup();
+        // First retry waits up to 1 s; the seed puts it well clear of 0.
+        assertTrue(retryAt > 0 && retryAt <= 1_000);
+        assertEquals(1, scheduler.getQueueDepth());
+
+        clock.advance(retryAt - 1);
+        scheduler.pump();
+        assertEquals(1, calls[0]);
+
+        clock.advance(1);
+        scheduler.pump();
+        assertEquals(2, calls[0]);
+        long second = lastWakeup() - clock.nowMs();
+        assertTrue(second >= 0 && second <= 2_000);
+
+        clock.advance(second);
+        scheduler.pump();
+        assertEquals(Arrays.asList("ok"), radio);
+        assertEquals(Arrays.asList("sent"), outcomes);
+        assertEquals(2, scheduler.getRetries());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        scheduler = new SmsScheduler(clock, new Random(1), wakeups::add, 10, 1);
+        scheduler.submit(new SmsScheduler.Job("sub1", false, SmsScheduler.Kind.SOS, () -> {
+            throw new IllegalStateException("radio off");
+        }, callback));
+        for (int i = 0; i < SmsScheduler.MAX_ATTEMPTS; i++) {
+            scheduler.pump();
+            clock.advance(SmsScheduler.RETRY_MAX_MS);
+        }
+        assertEquals(Arrays.asList("failed: radio off"), outcomes);
+        assertEquals(1, scheduler.getFailed());
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void backingOffJobDoesNotBlockOthers() {
+        scheduler.submit(new SmsScheduler.Job("sub1", true, SmsScheduler.Kind.SOS, () -> {
+            throw new IllegalStateException("flaky");
+        }, callback));
+        submit("next", false, SmsScheduler.Kind.SOS);
+        scheduler.pump();
+        assertEquals(Arrays.asList("next"), radio);
+        assertEquals(1, scheduler.getQueueDepth());
+    }
+}
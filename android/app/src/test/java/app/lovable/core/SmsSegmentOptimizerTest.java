@@ -0,0 +1,122 @@
+package app.lovable.core;
+
+import static app.lovable.core.SmsSegmentOptimizer.Encoding.GSM7;
+import static app.lovable.core.SmsSegmentOptimizer.Encoding.UCS2;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class SmsSegmentOptimizerTest {
+    private static String repeat(char c, int n) {
+        return String.join("", Collections.nCopies(n, String.valueOf(c)));
+    }
+
+    @Test
+    public void detectsEncoding() {
+        assertEquals(GSM7, SmsSegmentOptimizer.encodingOf("Help at Café Ångström {x} €5"));
+        assertEquals(UCS2, SmsSegmentOptimizer.encodingOf("It’s me"));
+        assertEquals(UCS2, SmsSegmentOptimizer.encodingOf("🚨 SOS"));
+    }
+
+    @Test
+    public void gsmSegmentBoundaries() {
+        assertEquals(1, SmsSegmentOptimizer.segmentCount(repeat('a', 160)));
+        assertEquals(2, SmsSegmentOptimizer.segmentCount(repeat('a', 161)));
+        assertEquals(2, SmsSegmentOptimizer.segmentCount(repeat('a', 306)));
+        assertEquals(3, SmsSegmentOptimizer.segmentCount(repeat('a', 307)));
+        // Extension characters take two septets each.
+        assertEquals(2, SmsSegmentOptimizer.segmentCount(repeat('a', 159) + "{"));
+        // An escape pair is never split: 152 + 2 does not fit the first part.
+        assertEquals(3, SmsSegmentOptimizer.segmentCount(repeat('a', 152) + "[" + repeat('a', 152)));
+    }
+
+    @Test
+    public void ucs2SegmentBoundaries() {
+        String quote = "’";
+        assertEquals(1, SmsSegmentOptimizer.segmentCount(quote + repeat('a', 69)));
+        assertEquals(2, SmsSegmentOptimizer.segmentCount(quote + repeat('a', 70)));
+        assertEquals(2, SmsSegmentOptimizer.segmentCount(quote + repeat('a', 133)));
+        assertEquals(3, SmsSegmentOptimizer.segmentCount(quote + repeat('a', 134)));
+        // A surrogate pair at the boundary moves to the next part.
+        assertEquals(3, SmsSegmentOptimizer.segmentCount(repeat('a', 66) + "🚨" + repeat('a', 66)));
+    }
+
+    @Test
+    public void transliteratesWhatIsSafe() {
+        assertEquals("It's \"fine\" - really...",
+                SmsSegmentOptimizer.transliterate("It’s “fine” — really…"));
+        // Accents outside GSM lose their mark; the ones in GSM stay.
+        assertEquals("Sao José, München, Ceské Budejovice, Ça",
+                SmsSegmentOptimizer.transliterate("São José, München, České Budějovice, ça"));
+        assertEquals(" SOS", SmsSegmentOptimizer.transliterate("🚨 SOS"));
+        assertEquals("a b", SmsSegmentOptimizer.transliterate("a b"));
+    }
+
+    @Test
+    public void refusesUnsafeScripts() {
+        assertNull(SmsSegmentOptimizer.transliterate("李明 needs help"));
+        assertNull(SmsSegmentOptimizer.transliterate("Анна"));
+    }
+
+    @Test
+    public void messageThatFitsIsLeftAlone() {
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize("🚨 Help", 1);
+        assertEquals("🚨 Help", r.text);
+        assertFalse(r.changed());
+        assertEquals(UCS2, r.encoding);
+    }
+
+    @Test
+    public void sosWithEmojiAndAccentedAddressFitsOneSegment() {
+        String message = SosPipeline.buildMessage("José Martínez", new GeoFix(33.749012, -84.388045, 5f, 0))
+                + " Near Café Olé – Atlanta";
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize(message, 1);
+        assertEquals(UCS2, r.originalEncoding);
+        assertEquals(3, r.originalSegments);
+        assertEquals(GSM7, r.encoding);
+        assertEquals(1, r.segments);
+        assertEquals(Collections.singletonList("transliterate"), r.steps);
+        assertTrue(r.text.startsWith("EMERGENCY ALERT: José Martinez"));
+        assertTrue(r.text.contains("https://maps.google.com/?q=33.749012,-84.388045"));
+    }
+
+    @Test
+    public void shortensByPriorityUntilItFits() {
+        String base = "EMERGENCY ALERT: Jordan has triggered an SOS. Location: https://maps.google.com/?q=33.749012,-84.388045"
+                + " (last known, 7 min ago) Please call immediately!";
+        assertEquals(152, base.length());
+
+        // Dropping the scheme is enough for a few extra characters.
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize(base + repeat('x', 9), 1);
+        assertEquals(Collections.singletonList("url-scheme"), r.steps);
+        assertEquals(1, r.segments);
+        assertTrue(r.text.contains(" maps.google.com/?q=33.749012,-84.388045"));
+
+        // Longer messages also give up coordinate precision, 5 decimals before 4.
+        r = SmsSegmentOptimizer.optimize(base + repeat('x', 17), 1);
+        assertEquals(Arrays.asList("url-scheme", "coordinates:5"), r.steps);
+        assertTrue(r.text.contains("q=33.74901,-84.38805"));
+
+        r = SmsSegmentOptimizer.optimize(base + repeat('x', 20), 1);
+        assertEquals(Arrays.asList("url-scheme", "coordinates:5", "coordinates:4"), r.steps);
+        assertTrue(r.text.contains("q=33.7490,-84.3880"));
+        assertEquals(1, r.segments);
+    }
+
+    @Test
+    public void reportsBestEffortWhenBudgetIsImpossible() {
+        SmsSegmentOptimizer.Result r = SmsSegmentOptimizer.optimize(repeat('a', 400), 1);
+        assertEquals(3, r.segments);
+        assertEquals(r.originalSegments, r.segments);
+        assertFalse(r.changed());
+    }
+
+    @Test
+    public void roundsOnlyCoordinateLikeNumbers() {
+        assertEquals("q=33.7490,-84.3880 in 7 min, v1.2.345678",
+                SmsSegmentOptimizer.roundCoordinates("q=33.749012,-84.388045 in 7 min, v1.2.345678", 4));
+    }
+}
@@ -0,0 +1,101 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SosPipelineTest {
+    private ManualClock clock;
+    private GeoFix fix;
+    private final List<String> sentTo = new ArrayList<>();
+    private String failFor;
+    private SosPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(10_000);
+        fix = new GeoFix(33.7490, -84.3880, 12f, 5_000);
+        pipeline = new SosPipeline(clock, () -> fix, (contact, message) -> {
+            clock.advance(40);
+            if (contact.phoneNumber.equals(failFor)) throw new IllegalStateException("radio off");
+            sentTo.add(contact.phoneNumber);
+        });
+    }
+
+    private static SosPipeline.Profile profile(String... phones) {
+        List<SosPipeline.Contact> contacts = new ArrayList<>();
+        for (String p : phones) contacts.add(new SosPipeline.Contact("Contact " + p, p));
+        return new SosPipeline.Profile("Jordan", contacts);
+    }
+
+    @Test
+    public void textsEveryContactAndMeasuresFirstSms() {
+        long triggeredAt = clock.nowMs();
+        clock.advance(60);
+        SosPipeline.Result result = pipeline.run(7, triggeredAt, profile("+1555", "+1666"));
+
+        assertEquals(Arrays.asList("+1555", "+1666"), sentTo);
+        assertEquals(2, result.sentCount());
+        assertEquals(100, result.firstSmsLatencyMs);
+        assertEquals(140, result.totalMs);
+        assertEquals(100_000, pipeline.getFirstSmsLatency().getMaxMicros());
+        assertTrue(result.message.contains("Jordan has triggered an SOS."));
+        assertTrue(result.message.contains("https://maps.google.com/?q=33.749000,-84.388000"));
+    }
+
+    @Test
+    public void failedRecipientDoesNotStopTheRest() {
+        failFor = "+1555";
+        SosPipeline.Result result = pipeline.run(1, clock.nowMs(), profile("+1555", "+1666"));
+        assertEquals(1, result.sentCount());
+        assertFalse(result.recipients.get(0).sent);
+        assertEquals("radio off", result.recipients.get(0).error);
+        // Latency counts to the first text that actually went out.
+        assertEquals(80, result.firstSmsLatencyMs);
+    }
+
+    @Test
+    public void worksWithoutLocation() {
+        fix = null;
+        SosPipeline.Result result = pipeline.run(1, clock.nowMs(), profile("+1555"));
+        assertEquals(1, result.sentCount());
+        assertNull(result.location);
+        assertFalse(result.message.contains("maps.google.com"));
+    }
+
+    @Test
+    public void primaryContactsGoFirst() {
+        List<SosPipeline.Contact> contacts = Arrays.asList(
+                new SosPipeline.Contact("A", "+1"),
+                new SosPipeline.Contact("B", "+2", true),
+                new SosPipeline.Contact("C", "+3"),
+                new SosPipeline.Contact("D", "+4", true));
+        pipeline.run(1, clock.nowMs(), new SosPipeline.Profile("Jordan", contacts));
+        assertEquals(Arrays.asList("+2", "+4", "+1", "+3"), sentTo);
+    }
+
+    @Test
+    public void staleFixIsLabelled() {
+        String msg = SosPipeline.buildMessage("Jordan", new GeoFix(1, 2, 0, 7 * 60_000));
+        assertTrue(msg.contains("(last known, 7 min ago)"));
+    }
+
+    @Test
+    public void cancelStopsBeforeNextSms() {
+        SosPipeline p = new SosPipeline(clock, () -> fix, (contact, message) -> sentTo.add(contact.phoneNumber));
+        p.cancel(3);
+        SosPipeline.Result result = p.run(3, clock.nowMs(), profile("+1555", "+1666"));
+        assertTrue(result.cancelled);
+        assertTrue(sentTo.isEmpty());
+        assertEquals(-1, result.firstSmsLatencyMs);
+        assertEquals(0, p.getFirstSmsLatency().getCount());
+
+        // Cancelling one trigger leaves the next one alone.
+        assertFalse(p.run(4, clock.nowMs(), profile("+1555")).cancelled);
+    }
+}
@@ -0,0 +1,38 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+    @Test
+    public void startsFullAndRefillsOnePerInterval() {
+        TokenBucket b = new TokenBucket(2, 500, 0);
+        assertTrue(b.tryAcquire(0));
+        assertTrue(b.tryAcquire(0));
+        assertFalse(b.tryAcquire(0));
+        assertEquals(500, b.nextTokenAt(100));
+        assertFalse(b.tryAcquire(499));
+        assertTrue(b.tryAcquire(500));
+        assertFalse(b.tryAcquire(500));
+    }
+
+    @Test
+    public void keepsPartialIntervals() {
+        TokenBucket b = new TokenBucket(3, 1_000, 0);
+        for (int i = 0; i < 3; i++) b.tryAcquire(0);
+        // 1.5 intervals: one token now, the next at 2000 rather than 2500.
+        assertEquals(1, b.available(1_500));
+        assertTrue(b.tryAcquire(1_500));
+        assertEquals(2_000, b.nextTokenAt(1_500));
+    }
+
+    @Test
+    public void neverExceedsCapacity() {
+        TokenBucket b = new TokenBucket(2, 10, 0);
+        assertEquals(2, b.available(1_000_000));
+        b.tryAcquire(1_000_000);
+        b.tryAcquire(1_000_000);
+        assertEquals(1_000_010, b.nextTokenAt(1_000_000));
+    }
+}
@@ -0,0 +1,101 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class TrailCodecTest {
+    @Test
+    public void zigzagRoundTrips() {
+        for (long v : new long[] {0, 1, -1, 63, -64, 1L << 40, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertEquals(v, TrailCodec.unzigzag(TrailCodec.zigzag(v)));
+        }
+        assertEquals(1, TrailCodec.zigzag(-1));
+        assertEquals(2, TrailCodec.zigzag(1));
+    }
+
+    @Test
+    public void digitsFollowTheErrorBound() {
+        assertEquals(5, TrailCodec.digitsFor(10));
+        assertEquals(4, TrailCodec.digitsFor(25));
+        assertEquals(6, TrailCodec.digitsFor(1));
+        assertEquals(3, TrailCodec.digitsFor(1_000));
+        assertEquals(7, TrailCodec.digitsFor(0));
+    }
+
+    @Test
+    public void smsFormRoundTripsAndIsSingleSeptetGsm() {
+        TrailCompressor.Trail raw = TrailCompressorTest.walk(600, 3);
+        TrailCompressor.Trail simple = TrailCompressorTest.compress(raw, 10).snapshot();
+        String sms = TrailCodec.encodeSms(simple, 5);
+        assertEquals('5', sms.charAt(0));
+        assertEquals(SmsSegmentOptimizer.Encoding.GSM7, SmsSegmentOptimizer.encodingOf(sms));
+        // No escaped characters: septets equal characters.
+        assertEquals(SmsSegmentOptimizer.segmentCount(sms), SmsSegmentOptimizer.segmentCount(sms.replaceAll(".", "a")));
+
+        TrailCompressor.Trail back = TrailCodec.decodeSms(sms);
+        assertEquals(simple.count, back.count);
+        for (int i = 0; i < simple.count; i++) {
+            assertEquals(simple.latitude[i], back.latitude[i], 0.5e-5 + 1e-12);
+            assertEquals(simple.longitude[i], back.longitude[i], 0.5e-5 + 1e-12);
+        }
+    }
+
+    @Test
+    public void smsFormIsMuchShorterThanPlainCoordinates() {
+        TrailCompressor.Trail raw = TrailCompressorTest.walk(600, 5);
+        TrailCompressor.Trail simple = TrailCompressorTest.compress(raw, 10).snapshot();
+        StringBuilder plain = new StringBuilder();
+        for (int i = 0; i < simple.count; i++) {
+            plain.append(String.format(Locale.ROOT, "%.5f,%.5f;", simple.latitude[i], simple.longitude[i]));
+        }
+        String sms = TrailCodec.encodeSms(simple, 5);
+        assertTrue(sms.length() + " vs " + plain.length(), sms.length() * 2 < plain.length());
+    }
+
+    @Test
+    public void binaryFormRoundTripsWithTimes() {
+        TrailCompressor.Trail raw = TrailCompressorTest.walk(300, 9);
+        byte[] bytes = TrailCodec.encodeBinary(raw, 6);
+        TrailCompressor.Trail back = TrailCodec.decodeBinary(bytes);
+        assertEquals(raw.count, back.count);
+        for (int i = 0; i < raw.count; i++) {
+            assertEquals(raw.latitude[i], back.latitude[i], 0.5e-6 + 1e-12);
+            assertEquals(raw.longitude[i], back.longitude[i], 0.5e-6 + 1e-12);
+            assertEquals(raw.timeMs[i], back.timeMs[i]);
+        }
+        // Against 24 bytes per point for two doubles and a long.
+        assertTrue(bytes.length + " bytes", bytes.length < raw.count * 8);
+    }
+
+    @Test
+    public void emptyTrail() {
+        TrailCompressor.Trail empty = new TrailCompressor.Trail(0);
+        assertEquals(0, TrailCodec.decodeSms(TrailCodec.encodeSms(empty, 5)).count);
+        assertEquals(0, TrailCodec.decodeBinary(TrailCodec.encodeBinary(empty, 5)).count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCharactersOutsideTheAlphabet() {
+        TrailCodec.decodeSms("5A!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedSmsForm() {
+        TrailCodec.decodeSms("5g");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownBinaryVersion() {
+        TrailCodec.decodeBinary(new byte[] {9, 5, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedBinaryForm() {
+        byte[] bytes = TrailCodec.encodeBinary(TrailCompressorTest.walk(10, 1), 5);
+        TrailCodec.decodeBinary(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
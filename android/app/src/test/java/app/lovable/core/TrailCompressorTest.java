@@ -0,0 +1,116 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TrailCompressorTest {
+    /**
+     * A walk through a street grid: straight legs with right-angle turns,
+     * one fix per second at about 1.4 m/s with 2-3 m of GPS jitter.
+     */
+    static TrailCompressor.Trail walk(int points, long seed) {
+        Random random = new Random(seed);
+        TrailCompressor.Trail trail = new TrailCompressor.Trail(points);
+        double lat = 38.9101;
+        double lng = -77.0147;
+        double heading = 0;
+        double kx = 111_320.0 * Math.cos(Math.toRadians(lat));
+        for (int i = 0; i < points; i++) {
+            if (i % 90 == 89) heading += random.nextBoolean() ? Math.PI / 2 : -Math.PI / 2;
+            lat += 1.4 * Math.cos(heading) / 111_320.0;
+            lng += 1.4 * Math.sin(heading) / kx;
+            double jitterLat = random.nextGaussian() * 2.5 / 111_320.0;
+            double jitterLng = random.nextGaussian() * 2.5 / kx;
+            trail.add(lat + jitterLat, lng + jitterLng, 1_700_000_000_000L + i * 1_000L);
+        }
+        return trail;
+    }
+
+    static TrailCompressor compress(TrailCompressor.Trail raw, double maxErrorM) {
+        TrailCompressor c = new TrailCompressor(maxErrorM);
+        for (int i = 0; i < raw.count; i++) c.add(raw.latitude[i], raw.longitude[i], raw.timeMs[i]);
+        return c;
+    }
+
+    /** Distance from each raw point to the simplified polyline, taking the worst. */
+    static double maxDeviationM(TrailCompressor.Trail raw, TrailCompressor.Trail simple) {
+        double worst = 0;
+        for (int i = 0; i < raw.count; i++) {
+            double best = Double.MAX_VALUE;
+            for (int j = 0; j + 1 < simple.count; j++) {
+                best = Math.min(best, segmentDistanceM(raw.latitude[i], raw.longitude[i],
+                        simple.latitude[j], simple.longitude[j], simple.latitude[j + 1], simple.longitude[j + 1]));
+            }
+            if (simple.count == 1) {
+                best = TrailCompressor.distanceM(raw.latitude[i], raw.longitude[i], simple.latitude[0], simple.longitude[0]);
+            }
+            worst = Math.max(worst, best);
+        }
+        return worst;
+    }
+
+    private static double segmentDistanceM(double lat, double lng, double lat1, double lng1, double lat2, double lng2) {
+        double kx = 111_320.0 * Math.cos(Math.toRadians(lat1));
+        double bx = (lng2 - lng1) * kx;
+        double by = (lat2 - lat1) * 111_320.0;
+        double px = (lng - lng1) * kx;
+        double py = (lat - lat1) * 111_320.0;
+        double len2 = bx * bx + by * by;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / len2));
+        return Math.hypot(px - t * bx, py - t * by);
+    }
+
+    @Test
+    public void straightLineKeepsEndpoints() {
+        TrailCompressor c = new TrailCompressor(1);
+        for (int i = 0; i < 100; i++) c.add(10 + i * 1e-5, 20 + i * 1e-5, i);
+        TrailCompressor.Trail t = c.snapshot();
+        assertEquals(2, t.count);
+        assertEquals(10, t.latitude[0], 1e-12);
+        assertEquals(99, t.timeMs[1]);
+        assertEquals(100, c.getAdded());
+    }
+
+    @Test
+    public void walkStaysWithinErrorBound() {
+        TrailCompressor.Trail raw = walk(1_000, 7);
+        for (double maxErrorM : new double[] {5, 10, 25}) {
+            TrailCompressor.Trail simple = compress(raw, maxErrorM).snapshot();
+            assertTrue("bound " + maxErrorM, maxDeviationM(raw, simple) <= maxErrorM + 1e-6);
+            assertEquals(raw.timeMs[raw.count - 1], simple.timeMs[simple.count - 1]);
+        }
+    }
+
+    @Test
+    public void walkCompressesWell() {
+        TrailCompressor.Trail raw = walk(1_000, 11);
+        TrailCompressor c = compress(raw, 10);
+        // Eleven straight legs; jitter costs a few extra points per leg at most.
+        assertTrue("kept " + c.size(), c.size() < raw.count / 10);
+        assertTrue(compress(raw, 25).size() <= c.size());
+    }
+
+    @Test
+    public void snapshotEndsAtNewestPoint() {
+        TrailCompressor c = new TrailCompressor(10);
+        assertEquals(0, c.snapshot().count);
+        c.add(1, 1, 1);
+        assertEquals(1, c.snapshot().count);
+        c.add(1.00001, 1, 2);
+        c.add(1.00002, 1, 3);
+        TrailCompressor.Trail t = c.snapshot();
+        assertEquals(2, t.count);
+        assertEquals(3, t.timeMs[1]);
+    }
+
+    @Test
+    public void windowIsCapped() {
+        TrailCompressor c = new TrailCompressor(1_000);
+        for (int i = 0; i <= 2 * TrailCompressor.MAX_WINDOW; i++) c.add(0, i * 1e-6, i);
+        // The first point, a forced keep when the window filled, and the newest point.
+        assertEquals(3, c.size());
+    }
+}
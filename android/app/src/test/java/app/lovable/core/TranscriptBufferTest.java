@@ -0,0 +1,121 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TranscriptBufferTest {
+    private ManualClock clock;
+    private TranscriptBuffer buffer;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(10_000);
+        buffer = new TranscriptBuffer(clock, 300, 10_000);
+    }
+
+    @Test
+    public void commitsWordsOnceStable() {
+        buffer.onSpeechStart();
+        clock.advance(400);
+        assertTrue(buffer.onPartial("help").isEmpty());
+        clock.advance(200);
+        assertTrue(buffer.onPartial("help me").isEmpty());
+        clock.advance(150);
+        List<TranscriptBuffer.Segment> s = buffer.onPartial("help me I'm");
+        assertEquals(1, s.size());
+        assertEquals("help", s.get(0).text);
+        assertFalse(s.get(0).fromFinal);
+        assertEquals(10_000, s.get(0).heardAtMs);
+        assertEquals("me I'm", buffer.pending());
+
+        clock.advance(300);
+        s = buffer.onPartial("help me I'm at");
+        assertEquals("me I'm", s.get(0).text);
+        assertEquals(10_600, s.get(0).heardAtMs);
+        assertEquals("help me I'm", buffer.text());
+    }
+
+    @Test
+    public void unstableWordsWaitAndFinalCommitsTheRest() {
+        buffer.onPartial("call the");
+        clock.advance(200);
+        buffer.onPartial("call Theo");
+        clock.advance(200);
+        // "call" is stable; "Theo" changed 200 ms ago.
+        List<TranscriptBuffer.Segment> s = buffer.onPartial("call Theo now");
+        assertEquals("call", s.get(0).text);
+        clock.advance(50);
+        s = buffer.onFinal("call Theo now please");
+        assertEquals("Theo now please", s.get(0).text);
+        assertTrue(s.get(0).fromFinal);
+        assertEquals("", buffer.pending());
+        assertEquals("call Theo now please", buffer.text());
+    }
+
+    @Test
+    public void revisionsToCommittedWordsAreIgnored() {
+        buffer.onPartial("fire on");
+        clock.advance(400);
+        buffer.onPartial("fire on main");
+        buffer.onFinal("fired on Maine street");
+        assertEquals("fire on Maine street", buffer.text());
+        assertEquals(1, buffer.getRevisions());
+    }
+
+    @Test
+    public void utterancesAppendInOrder() {
+        buffer.onFinal("someone is following me");
+        buffer.onPartial("");
+        buffer.onFinal("I am near the station");
+        assertEquals("someone is following me I am near the station", buffer.text());
+        assertEquals(2, buffer.size());
+        assertEquals(3, buffer.getNextSeq());
+    }
+
+    @Test
+    public void finishCommitsPendingPartial() {
+        buffer.onPartial("send help");
+        assertEquals("send help", buffer.finish().get(0).text);
+        assertTrue(buffer.finish().isEmpty());
+    }
+
+    @Test
+    public void unackedIsBoundedAndAdvancesWithAck() {
+        for (int i = 0; i < 10; i++) buffer.onFinal("word" + i);
+        List<TranscriptBuffer.Segment> first = buffer.unacked(4);
+        assertEquals(4, first.size());
+        assertEquals(1, first.get(0).seq);
+        assertTrue(buffer.ack(first.get(3).seq));
+        assertFalse(buffer.ack(2));
+        assertEquals("word4", buffer.unacked(4).get(0).text);
+        assertTrue(buffer.ack(1_000));
+        assertEquals(10, buffer.getAcked());
+        assertTrue(buffer.unacked(4).isEmpty());
+    }
+
+    @Test
+    public void dropsOldestPastCharLimit() {
+        TranscriptBuffer small = new TranscriptBuffer(clock, 0, 20);
+        small.onFinal("aaaaaaaaa");
+        small.onFinal("bbbbbbbbb");
+        small.onFinal("ccccccccc");
+        assertEquals("bbbbbbbbb ccccccccc", small.text());
+        assertEquals(1, small.getDroppedSegments());
+    }
+
+    @Test
+    public void latencyIsMeasuredFromSpeechStart() {
+        buffer.onSpeechStart();
+        clock.advance(700);
+        buffer.onPartial("help");
+        clock.advance(500);
+        buffer.onFinal("help");
+        assertEquals(1, buffer.getLatency().getCount());
+        long p50 = buffer.getLatency().percentileMicros(50);
+        assertTrue("p50 " + p50, p50 >= 1_200_000 && p50 <= 1_200_000 * 9 / 8);
+    }
+}
@@ -0,0 +1,94 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TriggerDispatcherTest {
+    private ManualClock clock;
+    private List<Runnable> posted;
+    private TriggerDispatcher dispatcher;
+    private List<TriggerDispatcher.Trigger> received;
+
+    @Before
+    public void setUp() {
+        clock = new ManualClock(1_000);
+        posted = new ArrayList<>();
+        dispatcher = new TriggerDispatcher(clock, posted::add, 500);
+        received = new ArrayList<>();
+    }
+
+    private void runPosted() {
+        while (!posted.isEmpty()) posted.remove(0).run();
+    }
+
+    @Test
+    public void duplicatesWithinWindowAreDropped() {
+        dispatcher.addSink(t -> received.add(t));
+        TriggerDispatcher.Trigger first = dispatcher.submit(TriggerDispatcher.Source.VOLUME_SERVICE, 1L);
+        assertNotNull(first);
+        clock.advance(300);
+        assertNull(dispatcher.submit(TriggerDispatcher.Source.VOLUME_FOREGROUND, 2L));
+        assertNull(dispatcher.submit(TriggerDispatcher.Source.LAUNCH_INTENT, 3L));
+        runPosted();
+
+        assertEquals(1, received.size());
+        assertEquals(500, received.get(0).id);
+        assertEquals(2, dispatcher.getDuplicates());
+
+        clock.advance(TriggerDispatcher.DEDUP_WINDOW_MS);
+        TriggerDispatcher.Trigger second = dispatcher.submit(TriggerDispatcher.Source.VOICE, 4L);
+        assertNotNull(second);
+        assertEquals(501, second.id);
+        runPosted();
+        assertEquals(2, received.size());
+        assertEquals(2, dispatcher.getDelivered());
+    }
+
+    @Test
+    public void queuedUntilFirstSink() {
+        dispatcher.submit(TriggerDispatcher.Source.VOICE, 1L);
+        runPosted();
+        assertEquals(1, dispatcher.getPending());
+
+        clock.advance(40);
+        dispatcher.addSink(t -> received.add(t));
+        runPosted();
+        assertEquals(1, received.size());
+        assertEquals(0, dispatcher.getPending());
+        // Latency covers the wait for the bridge.
+        assertEquals(40_000, dispatcher.getLatency().getMaxMicros());
+    }
+
+    @Test
+    public void oneDrainPerBurst() {
+        dispatcher.addSink(t -> received.add(t));
+        runPosted();
+        dispatcher.submit(TriggerDispatcher.Source.VOICE, 1L);
+        clock.advance(TriggerDispatcher.DEDUP_WINDOW_MS);
+        dispatcher.submit(TriggerDispatcher.Source.VOICE, 2L);
+        assertEquals(1, posted.size());
+        runPosted();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void recognizesOwnIds() {
+        TriggerDispatcher.Trigger t = dispatcher.submit(TriggerDispatcher.Source.VOLUME_SERVICE, 1L);
+        assertTrue(dispatcher.wasAccepted(t.id));
+        assertFalse(dispatcher.wasAccepted(t.id + 1));
+    }
+
+    @Test
+    public void undeliveredTriggersAreNotTimed() {
+        dispatcher.addSink(t -> false);
+        dispatcher.submit(TriggerDispatcher.Source.VOICE, 1L);
+        runPosted();
+        assertEquals(0, dispatcher.getDelivered());
+        assertEquals(0, dispatcher.getLatency().getCount());
+    }
+}
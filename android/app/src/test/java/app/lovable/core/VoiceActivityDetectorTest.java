@@ -0,0 +1,111 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class VoiceActivityDetectorTest {
+    private static final int RATE = VoiceActivityDetector.DEFAULT_SAMPLE_RATE;
+
+    @Test
+    public void detectsVoicedSpeechAfterAttack() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE, new VoiceActivityDetector.Settings());
+        short[] pcm = concat(noise(RATE, 80, 1), voiced(RATE * 8 / 10, 2), noise(RATE * 3, 80, 3));
+
+        int[] transitions = run(vad, pcm);
+        // Onset within attack time (+1 frame) of the voiced segment starting at 1.0 s.
+        assertTrue("onset at " + transitions[0] + " ms", transitions[0] >= 1_000 && transitions[0] <= 1_100);
+        // Offset after the 1.5 s hangover following the end at 1.8 s.
+        assertTrue("offset at " + transitions[1] + " ms", transitions[1] >= 3_250 && transitions[1] <= 3_400);
+        assertEquals(1, vad.getOnsets());
+    }
+
+    @Test
+    public void ignoresSilenceBroadbandNoiseAndClicks() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE, new VoiceActivityDetector.Settings());
+        short[] click = voiced(RATE / 50, 4);
+        short[] pcm = concat(noise(RATE, 80, 1), noise(RATE, 3_000, 5), noise(RATE / 2, 80, 6), click, noise(RATE, 80, 7));
+
+        assertEquals(-1, run(vad, pcm)[0]);
+        assertEquals(0, vad.getOnsets());
+    }
+
+    @Test
+    public void hangoverIsConfigurable() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE,
+                new VoiceActivityDetector.Settings(9f, 5f, 60, 300));
+        short[] pcm = concat(noise(RATE, 80, 1), voiced(RATE / 2, 2), noise(RATE * 2, 80, 3));
+
+        int[] transitions = run(vad, pcm);
+        assertTrue("offset at " + transitions[1] + " ms", transitions[1] >= 1_750 && transitions[1] <= 1_900);
+    }
+
+    @Test
+    public void offThresholdNeverExceedsOnThreshold() {
+        VoiceActivityDetector.Settings s = new VoiceActivityDetector.Settings(6f, 12f, 60, 500);
+        assertEquals(6f, s.offThresholdDb, 0f);
+    }
+
+    @Test
+    public void drainsFramesFromRingBuffer() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(RATE, new VoiceActivityDetector.Settings());
+        PcmRingBuffer ring = new PcmRingBuffer(RATE);
+        short[] scratch = new short[vad.frameSize()];
+        short[] pcm = concat(noise(RATE, 80, 1), voiced(RATE / 2, 2));
+
+        boolean started = false;
+        for (int off = 0; off < pcm.length; off += 256) {
+            ring.write(pcm, off, Math.min(256, pcm.length - off));
+            started |= vad.drain(ring, scratch);
+        }
+        assertTrue(started);
+        assertTrue(vad.isSpeech());
+    }
+
+    /** Returns {onsetMs, offsetMs}, -1 where the transition did not happen. */
+    private static int[] run(VoiceActivityDetector vad, short[] pcm) {
+        int[] out = { -1, -1 };
+        int frame = vad.frameSize();
+        for (int off = 0; off + frame <= pcm.length; off += frame) {
+            if (vad.process(pcm, off)) {
+                int ms = (off + frame) * 1000 / RATE;
+                if (vad.isSpeech()) out[0] = ms; else out[1] = ms;
+            }
+        }
+        return out;
+    }
+
+    /** Vowel-like signal: 140 Hz fundamental with decaying harmonics. */
+    private static short[] voiced(int samples, long seed) {
+        Random r = new Random(seed);
+        short[] out = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            double t = (double) i / RATE;
+            double v = 0;
+            for (int h = 1; h <= 8; h++) v += Math.sin(2 * Math.PI * 140 * h * t) / h;
+            out[i] = (short) (v * 3_000 + r.nextGaussian() * 80);
+        }
+        return out;
+    }
+
+    private static short[] noise(int samples, double sigma, long seed) {
+        Random r = new Random(seed);
+        short[] out = new short[samples];
+        for (int i = 0; i < samples; i++) out[i] = (short) (r.nextGaussian() * sigma);
+        return out;
+    }
+
+    private static short[] concat(short[]... parts) {
+        int n = 0;
+        for (short[] p : parts) n += p.length;
+        short[] out = new short[n];
+        int pos = 0;
+        for (short[] p : parts) {
+            System.arraycopy(p, 0, out, pos, p.length);
+            pos += p.length;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,190 @@
+package app.lovable.core;
+
+import static app.lovable.core.VolumeGestureRecognizer.KEY_ANY;
+import static app.lovable.core.VolumeGestureRecognizer.KEY_DOWN;
+import static app.lovable.core.VolumeGestureRecognizer.KEY_UP;
+import static app.lovable.core.VolumeGestureRecognizer.NONE;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class VolumeGestureRecognizerTest {
+    private static final int SIMULTANEOUS = 0;
+    private static final int RAPID = 1;
+    private static final int HOLD = 2;
+    private static final int SEQUENCE = 3;
+
+    private static VolumeGestureRecognizer all() {
+        return new VolumeGestureRecognizer.Builder()
+                .simultaneous("both", 500)
+                .rapidPresses("rapid", KEY_DOWN, 5, 3_000)
+                .longHold("hold", KEY_UP, 2_000)
+                .sequence("up-down-up", 2_000, KEY_UP, KEY_DOWN, KEY_UP)
+                .build();
+    }
+
+    @Test
+    public void simultaneousInEitherOrder() {
+        VolumeGestureRecognizer r = all();
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 1_000));
+        assertEquals(SIMULTANEOUS, r.onKeyDown(KEY_DOWN, 1_200));
+        r.onKeyUp(KEY_UP, 1_300);
+        r.onKeyUp(KEY_DOWN, 1_300);
+
+        assertEquals(NONE, r.onKeyDown(KEY_DOWN, 5_000));
+        assertEquals(SIMULTANEOUS, r.onKeyDown(KEY_UP, 5_499));
+    }
+
+    @Test
+    public void simultaneousFromTapsButNotOutsideWindow() {
+        VolumeGestureRecognizer r = all();
+        assertEquals(NONE, r.onKeyTap(KEY_UP, 1_000));
+        assertEquals(SIMULTANEOUS, r.onKeyTap(KEY_DOWN, 1_200));
+
+        r.onKeyDown(KEY_UP, 4_000);
+        assertEquals(NONE, r.onKeyDown(KEY_DOWN, 4_500));
+    }
+
+    @Test
+    public void simultaneousNeedsBothKeysHeld() {
+        VolumeGestureRecognizer r = all();
+        // Press and release Vol+, then press Vol- inside the window.
+        r.onKeyDown(KEY_UP, 1_000);
+        r.onKeyUp(KEY_UP, 1_080);
+        assertEquals(NONE, r.onKeyDown(KEY_DOWN, 1_300));
+        r.onKeyUp(KEY_DOWN, 1_380);
+
+        r.onKeyDown(KEY_DOWN, 5_000);
+        r.onKeyUp(KEY_DOWN, 5_100);
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 5_200));
+        r.onKeyUp(KEY_UP, 5_300);
+
+        // Still fires once the first key is held through the second press.
+        r.onKeyDown(KEY_UP, 9_000);
+        assertEquals(SIMULTANEOUS, r.onKeyDown(KEY_DOWN, 9_200));
+    }
+
+    @Test
+    public void simultaneousAgainAfterBothReleased() {
+        VolumeGestureRecognizer r = all();
+        r.onKeyDown(KEY_UP, 1_000);
+        assertEquals(SIMULTANEOUS, r.onKeyDown(KEY_DOWN, 1_100));
+        // The media session's first release lets go of both keys; the second finds none held.
+        r.onKeyUp(KEY_UP, 1_400);
+        r.onKeyUp(KEY_DOWN, 1_400);
+
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 4_000));
+        assertEquals(SIMULTANEOUS, r.onKeyDown(KEY_DOWN, 4_100));
+    }
+
+    @Test
+    public void unreleasedKeySwallowsItsNextPress() {
+        VolumeGestureRecognizer r = all();
+        r.onKeyDown(KEY_UP, 1_000);
+        r.onKeyDown(KEY_DOWN, 1_100);
+        r.onKeyUp(KEY_DOWN, 1_400);
+
+        // Vol+ never saw its release, so its next press reads as auto-repeat.
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 4_000));
+        assertEquals(NONE, r.onKeyDown(KEY_DOWN, 4_100));
+    }
+
+    @Test
+    public void rapidPressesWithinWindow() {
+        VolumeGestureRecognizer r = all();
+        long t = 10_000;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(NONE, r.onKeyTap(KEY_DOWN, t));
+            t += 400;
+        }
+        assertEquals(RAPID, r.onKeyTap(KEY_DOWN, t));
+    }
+
+    @Test
+    public void rapidPressesRestartAfterTimeoutOrOtherKey() {
+        VolumeGestureRecognizer r = all();
+        long t = 0;
+        for (int i = 0; i < 4; i++) r.onKeyTap(KEY_DOWN, t += 100);
+        // Too late: the fifth press starts a new run instead.
+        assertEquals(NONE, r.onKeyTap(KEY_DOWN, t += 3_000));
+        for (int i = 0; i < 3; i++) assertEquals(NONE, r.onKeyTap(KEY_DOWN, t += 100));
+        r.onKeyTap(KEY_UP, t += 100);
+        assertEquals(NONE, r.onKeyTap(KEY_DOWN, t += 100));
+    }
+
+    @Test
+    public void longHoldFiresOnTickAndOnlyOnce() {
+        VolumeGestureRecognizer r = all();
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 0));
+        assertEquals(500, r.nextDeadline());
+        assertEquals(NONE, r.onTick(500));
+        assertEquals(2_000, r.nextDeadline());
+        // Auto-repeat downs while held are ignored.
+        assertEquals(NONE, r.onKeyDown(KEY_UP, 1_000));
+        assertEquals(HOLD, r.onTick(2_000));
+        assertEquals(Long.MAX_VALUE, r.nextDeadline());
+        assertEquals(NONE, r.onTick(5_000));
+        assertEquals(NONE, r.onKeyUp(KEY_UP, 5_100));
+    }
+
+    @Test
+    public void shortHoldDoesNotFire() {
+        VolumeGestureRecognizer r = all();
+        r.onKeyDown(KEY_UP, 0);
+        r.onKeyUp(KEY_UP, 1_999);
+        assertEquals(NONE, r.onTick(2_500));
+    }
+
+    @Test
+    public void upDownUpSequence() {
+        VolumeGestureRecognizer r = all();
+        // Spaced out beyond the simultaneous window.
+        assertEquals(NONE, r.onKeyTap(KEY_UP, 0));
+        assertEquals(NONE, r.onKeyTap(KEY_DOWN, 600));
+        assertEquals(SEQUENCE, r.onKeyTap(KEY_UP, 1_200));
+    }
+
+    @Test
+    public void brokenSequenceCanRestartOnSamePress() {
+        VolumeGestureRecognizer r = new VolumeGestureRecognizer.Builder()
+                .sequence("up-down-up", 2_000, KEY_UP, KEY_DOWN, KEY_UP)
+                .build();
+        r.onKeyTap(KEY_UP, 0);
+        // Up again breaks the sequence but is itself a valid first step.
+        assertEquals(NONE, r.onKeyTap(KEY_UP, 100));
+        assertEquals(NONE, r.onKeyTap(KEY_DOWN, 200));
+        assertEquals(0, r.onKeyTap(KEY_UP, 300));
+    }
+
+    @Test
+    public void anyKeyPatterns() {
+        VolumeGestureRecognizer r = new VolumeGestureRecognizer.Builder()
+                .rapidPresses("rapid", KEY_ANY, 3, 1_000)
+                .longHold("hold", KEY_ANY, 1_000)
+                .build();
+        r.onKeyTap(KEY_UP, 0);
+        r.onKeyTap(KEY_DOWN, 100);
+        assertEquals(0, r.onKeyTap(KEY_UP, 200));
+
+        r.onKeyDown(KEY_DOWN, 5_000);
+        assertEquals(1, r.onTick(6_000));
+    }
+
+    @Test
+    public void syntheticStreamCountsGestures() {
+        VolumeGestureRecognizer r = all();
+        int[] counts = new int[r.patternCount()];
+        long t = 0;
+        for (int i = 0; i < 1_000; i++) {
+            int g = r.onKeyDown(KEY_UP, t);
+            if (g != NONE) counts[g]++;
+            g = r.onKeyDown(KEY_DOWN, t + 50);
+            if (g != NONE) counts[g]++;
+            r.onKeyUp(KEY_UP, t + 100);
+            r.onKeyUp(KEY_DOWN, t + 100);
+            t += 10_000;
+        }
+        assertEquals(1_000, counts[SIMULTANEOUS]);
+        assertEquals(0, counts[RAPID] + counts[HOLD] + counts[SEQUENCE]);
+    }
+}
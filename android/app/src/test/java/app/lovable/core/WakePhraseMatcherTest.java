@@ -0,0 +1,129 @@
+package app.lovable.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class WakePhraseMatcherTest {
+
+    private final WakePhraseMatcher matcher =
+            new WakePhraseMatcher(WakeVocabulary.forLanguage("resqme", "en"));
+
+    @Test
+    public void matchesWakeWordWithCommand() {
+        assertTrue(matcher.matches("resqme help"));
+        assertTrue(matcher.matches("ResQMe, EMERGENCY!"));
+        assertTrue(matcher.matches("hey resqme please help me"));
+    }
+
+    @Test
+    public void matchesStandaloneCommand() {
+        assertTrue(matcher.matches("help"));
+        assertTrue(matcher.matches("  Emergency. "));
+        assertEquals(WakePhraseMatcher.FLAG_COMMAND | WakePhraseMatcher.FLAG_COMMAND_ONLY,
+                matcher.scan("help"));
+    }
+
+    @Test
+    public void rejectsCommandWithoutWakeWord() {
+        assertFalse(matcher.matches("can you help me with the dishes"));
+        assertFalse(matcher.matches("resqme"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void requiresWordBoundaries() {
+        assertFalse(matcher.matches("resqme that was helpful"));
+        assertFalse(matcher.matches("resqmeister help"));
+        assertTrue(matcher.matches("resqme's help"));
+    }
+
+    @Test
+    public void matchesMisrecognizedWakeWord() {
+        assertTrue(matcher.matches("rescue me help"));
+        assertTrue(matcher.matches("rez cue me emergency"));
+        assertTrue(matcher.matches("rescue me, help!"));
+        assertEquals(WakePhraseMatcher.FLAG_COMMAND | WakePhraseMatcher.FLAG_FUZZY_WAKE,
+                matcher.scan("rescue me help"));
+    }
+
+    @Test
+    public void rejectsUnrelatedWordsAroundCommand() {
+        assertFalse(matcher.matches("tell me help"));
+        assertFalse(matcher.matches("mom help"));
+    }
+
+    @Test
+    public void rejectsOrdinarySentencesWithHelp() {
+        // Consonants one edit or less away from the wake word, but not its syllables.
+        assertFalse(matcher.matches("can you ask me for help"));
+        assertFalse(matcher.matches("the mask may help"));
+        assertFalse(matcher.matches("risk me help"));
+        assertFalse(matcher.matches("the rest may help"));
+        assertFalse(matcher.matches("his car may need some help"));
+        assertFalse(matcher.matches("I rescued them with some help"));
+        assertFalse(matcher.matches("ask my sister for help with the rent"));
+    }
+
+    @Test
+    public void matchesLocalizedCommands() {
+        WakePhraseMatcher es = new WakePhraseMatcher(WakeVocabulary.forLanguage("resqme", "es"));
+        assertTrue(es.matches("resqme ayuda"));
+        assertTrue(es.matches("resqme help"));
+        assertFalse(matcher.matches("resqme ayuda"));
+
+        WakePhraseMatcher fr = new WakePhraseMatcher(WakeVocabulary.forLanguage("resqme", "fr"));
+        assertTrue(fr.matches("resqme au secours"));
+        assertTrue(fr.matches("au secours"));
+    }
+
+    @Test
+    public void matchesMultiWordWakePhrases() {
+        WakePhraseMatcher m = new WakePhraseMatcher(new WakeVocabulary(
+                Arrays.asList("code red", "resqme"), Arrays.asList("help")));
+        assertTrue(m.matches("code red help"));
+        assertTrue(m.matches("code-red help"));
+        assertFalse(m.matches("code blue help"));
+    }
+
+    @Test
+    public void screeningAgreesWithFullScan() {
+        String[] transcripts = {
+                "HELP", "Rescue me, HELP!", "can you help me", "so what do we get for dinner",
+                "resqme EMERGÊNCIA", "Emergência", "resqme socorro", "au secours", "Au-secours!",
+                "Hilfe", "resqme notfall", "rez cue me ayuda", "x", "résqme help", "12 help",
+        };
+        String[] languages = {"en", "es", "fr", "pt", "de"};
+        for (String lang : languages) {
+            WakePhraseMatcher m = new WakePhraseMatcher(WakeVocabulary.forLanguage("resqme", lang));
+            for (String t : transcripts) {
+                int flags = m.scan(t);
+                boolean expected = (flags & WakePhraseMatcher.FLAG_COMMAND) != 0
+                        && (flags & (WakePhraseMatcher.FLAG_WAKE | WakePhraseMatcher.FLAG_FUZZY_WAKE
+                                | WakePhraseMatcher.FLAG_COMMAND_ONLY)) != 0;
+                assertEquals(lang + ": " + t, expected, m.matches(t));
+            }
+        }
+    }
+
+    @Test
+    public void handlesLongTranscriptsAfterShortOnes() {
+        assertTrue(matcher.matches("help"));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) sb.append("blah ");
+        sb.append("resqme help");
+        assertTrue(matcher.matches(sb));
+        assertFalse(matcher.matches("resqme"));
+    }
+
+    @Test
+    public void phoneticKeyCollapsesSoundAlikes() {
+        assertEquals("r.sk.m.", new String(WakePhraseMatcher.phoneticKey("resqme")));
+        assertEquals("r.sk.m.", new String(WakePhraseMatcher.phoneticKey("rescue me")));
+        assertEquals("r.sk.m.", new String(WakePhraseMatcher.phoneticKey("rez cue me")));
+        assertEquals("r.skm.", new String(WakePhraseMatcher.phoneticKey("risk me")));
+    }
+}
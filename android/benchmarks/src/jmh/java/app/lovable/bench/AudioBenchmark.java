@@ -0,0 +1,62 @@
+package app.lovable.bench;
+
+import app.lovable.core.Adts;
+import app.lovable.core.EncodedAudioRing;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The pre-roll ring as PreRoll sizes it for 16 kHz: 30 s of 32 kbit/s AAC.
+ * Writes run against a full ring, so every frame evicts; the copy is what
+ * an SOS pays to turn the ring into the start of a recording.
+ */
+@State(Scope.Thread)
+public class AudioBenchmark {
+    private static final int RATE = 16_000;
+    private static final long WINDOW_MS = 30_000;
+    private static final int BIT_RATE = 32_000;
+    private static final int CAPACITY_BYTES = (int) (WINDOW_MS / 1_000 * BIT_RATE / 8 * 2);
+    private static final long FRAME_US = Adts.SAMPLES_PER_FRAME * 1_000_000L / RATE;
+
+    private EncodedAudioRing ring;
+    private final EncodedAudioRing.Batch batch = new EncodedAudioRing.Batch();
+    private final byte[][] frames = new byte[64][];
+    private long ptsUs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int maxFrames = (int) (WINDOW_MS * RATE / 1_000 / Adts.SAMPLES_PER_FRAME) + 64;
+        ring = new EncodedAudioRing(CAPACITY_BYTES, maxFrames, WINDOW_MS * 1_000);
+        // Encoded frame sizes vary around the average of 256 bytes.
+        Random random = new Random(9);
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new byte[180 + random.nextInt(160)];
+            random.nextBytes(frames[i]);
+        }
+        ptsUs = 0;
+        while (ptsUs <= WINDOW_MS * 1_000) write();
+    }
+
+    @Benchmark
+    public boolean writeFrame() {
+        return write();
+    }
+
+    @Benchmark
+    public int copyPreRoll() {
+        ring.copySince(0, batch);
+        return batch.bytes;
+    }
+
+    private boolean write() {
+        byte[] frame = frames[next++ & (frames.length - 1)];
+        ptsUs += FRAME_US;
+        return ring.write(frame, 0, frame.length, ptsUs);
+    }
+}
@@ -0,0 +1,30 @@
+package app.lovable.bench;
+
+import app.lovable.core.Clock;
+
+/**
+ * Clock the benchmarks move forward themselves, so windows, deadlines and
+ * dedup intervals pass on demand. Nanoseconds stay real, so the latency
+ * histograms the core classes keep still measure something.
+ */
+final class BenchClock implements Clock {
+    private volatile long nowMs;
+
+    BenchClock(long startMs) {
+        nowMs = startMs;
+    }
+
+    @Override
+    public long nowMs() {
+        return nowMs;
+    }
+
+    @Override
+    public long nowNanos() {
+        return System.nanoTime();
+    }
+
+    void advance(long ms) {
+        nowMs += ms;
+    }
+}
@@ -0,0 +1,82 @@
+package app.lovable.bench;
+
+import app.lovable.core.EventCoalescer;
+import app.lovable.core.TranscriptBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Native-to-JS event traffic: coalescing events into bridge frames with
+ * EventBridge's limits, and turning a stream of recognizer partials into
+ * transcript segments during an SOS.
+ */
+@State(Scope.Thread)
+public class EventBenchmark {
+    private static final long INTERVAL_MS = 100;
+    private static final int MAX_BATCH = 64;
+    private static final int MAX_PENDING = 512;
+    private static final long PARTIAL_MS = 150;
+    private static final String[] SPEECH = ("there is someone following me on the corner of main street and "
+            + "fifth avenue near the pharmacy please send someone now i am walking towards the station").split(" ");
+
+    private BenchClock clock;
+    private EventCoalescer<Integer> coalescer;
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final Integer payload = 42;
+
+    private TranscriptBuffer transcript;
+    private final StringBuilder hypothesis = new StringBuilder();
+    private int word;
+
+    @Setup
+    public void setUp() {
+        clock = new BenchClock(1_000_000);
+        coalescer = new EventCoalescer<>(clock, (task, delayMs) -> scheduled.add(task),
+                INTERVAL_MS, MAX_BATCH, MAX_PENDING);
+        coalescer.setSink(frame -> true);
+        transcript = new TranscriptBuffer(clock, 600, 32_000);
+    }
+
+    /** A full batch of stream events and the frame it flushes; scored per event. */
+    @Benchmark
+    @OperationsPerInvocation(MAX_BATCH)
+    public long streamFrame() {
+        for (int i = 0; i < MAX_BATCH; i++) coalescer.publish("transcript", EventCoalescer.Kind.STREAM, payload);
+        clock.advance(INTERVAL_MS);
+        runScheduled();
+        return coalescer.getFrames();
+    }
+
+    /** An RMS level update replacing the pending one, the most frequent event there is. */
+    @Benchmark
+    public void gaugeUpdate() {
+        coalescer.publish("rms", EventCoalescer.Kind.GAUGE, payload);
+    }
+
+    /** The recognizer's hypothesis grows by a word per partial; a final result ends each sentence. */
+    @Benchmark
+    public List<TranscriptBuffer.Segment> partial() {
+        clock.advance(PARTIAL_MS);
+        if (hypothesis.length() > 0) hypothesis.append(' ');
+        hypothesis.append(SPEECH[word]);
+        if (++word < SPEECH.length) return transcript.onPartial(hypothesis.toString());
+        word = 0;
+        List<TranscriptBuffer.Segment> out = transcript.onFinal(hypothesis.toString());
+        hypothesis.setLength(0);
+        transcript.ack(transcript.getNextSeq() - 1);
+        return out;
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable r : tasks) r.run();
+    }
+}
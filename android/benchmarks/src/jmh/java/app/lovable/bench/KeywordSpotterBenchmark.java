@@ -0,0 +1,82 @@
+package app.lovable.bench;
+
+import app.lovable.core.KeywordSpotter;
+import app.lovable.core.KeywordTemplate;
+import app.lovable.core.MfccExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-frame cost of the on-device keyword spotter: one 10 ms hop of 16 kHz
+ * audio through the MFCC front end, and one DTW step against three
+ * enrolled templates of about a second each. The spotter has to stay well
+ * under 10 ms per frame to keep up with the microphone.
+ */
+@State(Scope.Thread)
+public class KeywordSpotterBenchmark {
+    private static final int TEMPLATES = 3;
+    private static final int TEMPLATE_FRAMES = 90;
+
+    private final MfccExtractor mfcc = new MfccExtractor();
+    private final KeywordSpotter spotter = new KeywordSpotter();
+    private final float[] lastCoeffs = new float[MfccExtractor.NUM_COEFFS];
+    private final MfccExtractor.FrameListener keep =
+            (coeffs, logEnergy) -> System.arraycopy(coeffs, 0, lastCoeffs, 0, coeffs.length);
+    private short[] pcm;
+    private int offset;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        // Two seconds of a voiced-speech-like signal: a few harmonics plus noise.
+        pcm = new short[2 * MfccExtractor.SAMPLE_RATE];
+        for (int i = 0; i < pcm.length; i++) {
+            double t = (double) i / MfccExtractor.SAMPLE_RATE;
+            double s = 0.4 * Math.sin(2 * Math.PI * 180 * t) + 0.2 * Math.sin(2 * Math.PI * 720 * t)
+                    + 0.1 * Math.sin(2 * Math.PI * 2_300 * t) + 0.05 * random.nextGaussian();
+            pcm[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, s * 12_000));
+        }
+        List<KeywordTemplate> templates = new ArrayList<>();
+        for (int t = 0; t < TEMPLATES; t++) {
+            float[][] frames = new float[TEMPLATE_FRAMES][MfccExtractor.NUM_COEFFS];
+            for (float[] f : frames) {
+                for (int c = 0; c < f.length; c++) f[c] = (float) random.nextGaussian() * 4f;
+            }
+            templates.add(new KeywordTemplate(frames));
+        }
+        spotter.setTemplates(templates);
+        offset = 0;
+    }
+
+    @Benchmark
+    public float[] mfccFrame() {
+        mfcc.process(pcm, nextOffset(), keep);
+        return lastCoeffs;
+    }
+
+    @Benchmark
+    public boolean spotterFrame() {
+        return spotter.onFrame(lastCoeffs);
+    }
+
+    /** Both together: what the engine spends per hop. */
+    @Benchmark
+    public boolean frame() {
+        mfcc.process(pcm, nextOffset(), keep);
+        return spotter.onFrame(lastCoeffs);
+    }
+
+    private int nextOffset() {
+        int at = offset;
+        offset += MfccExtractor.HOP_LENGTH;
+        if (offset + MfccExtractor.FRAME_LENGTH > pcm.length) offset = 0;
+        return at;
+    }
+}
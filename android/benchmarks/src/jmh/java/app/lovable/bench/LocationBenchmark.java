@@ -0,0 +1,117 @@
+package app.lovable.bench;
+
+import app.lovable.core.Clock;
+import app.lovable.core.GeocodeCache;
+import app.lovable.core.LocationTracker;
+import app.lovable.core.TrailCodec;
+import app.lovable.core.TrailCompressor;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Location handling around an alert: reverse-geocode cache lookups, trail
+ * compression of a walk (scored per point), encoding the compressed trail
+ * for an SMS, and one SOS-mode wakeup of the tracker.
+ */
+@State(Scope.Thread)
+public class LocationBenchmark {
+    private static final double LAT = 38.9101;
+    private static final double LNG = -77.0147;
+    private static final int CACHED = 5_000;
+    private static final int QUERIES = 1_024;
+    private static final int WALK = 1_000;
+    private static final double MAX_ERROR_M = 10;
+
+    private GeocodeCache cache;
+    private final double[] queryLat = new double[QUERIES];
+    private final double[] queryLng = new double[QUERIES];
+    private int nextQuery;
+
+    private final double[] walkLat = new double[WALK];
+    private final double[] walkLng = new double[WALK];
+    private final long[] walkTime = new long[WALK];
+    private TrailCompressor.Trail compressed;
+
+    private LocationTracker tracker;
+    private long fixTimeMs = 1_700_000_000_000L;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(2);
+        cache = new GeocodeCache(Clock.SYSTEM, CACHED);
+        for (int i = 0; i < CACHED; i++) {
+            cache.put(LAT + random.nextGaussian() * 0.05, LNG + random.nextGaussian() * 0.05, "addr " + i, i);
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            queryLat[i] = LAT + random.nextGaussian() * 0.05;
+            queryLng[i] = LNG + random.nextGaussian() * 0.05;
+        }
+
+        // A street-grid walk, one fix per second at 1.4 m/s with 2-3 m of jitter.
+        double lat = LAT;
+        double lng = LNG;
+        double heading = 0;
+        double kx = 111_320.0 * Math.cos(Math.toRadians(lat));
+        for (int i = 0; i < WALK; i++) {
+            if (i % 90 == 89) heading += random.nextBoolean() ? Math.PI / 2 : -Math.PI / 2;
+            lat += 1.4 * Math.cos(heading) / 111_320.0;
+            lng += 1.4 * Math.sin(heading) / kx;
+            walkLat[i] = lat + random.nextGaussian() * 2.5 / 111_320.0;
+            walkLng[i] = lng + random.nextGaussian() * 2.5 / kx;
+            walkTime[i] = 1_700_000_000_000L + i * 1_000L;
+        }
+        compressed = compress();
+
+        tracker = new LocationTracker(Clock.SYSTEM, LocationTracker.DEFAULT_CAPACITY, new LocationTracker.Provider() {
+            @Override
+            public void request(LocationTracker.Mode mode) {}
+
+            @Override
+            public void stop() {}
+        });
+        tracker.setSink(batch -> {});
+        tracker.start();
+        tracker.setMode(LocationTracker.Mode.SOS);
+    }
+
+    /** Mostly misses with some hits, as for fixes scattered around a city. */
+    @Benchmark
+    public GeocodeCache.Match geocodeLookup() {
+        int i = nextQuery++ & (QUERIES - 1);
+        return cache.nearest(queryLat[i], queryLng[i], 100);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WALK)
+    public TrailCompressor.Trail compressTrail() {
+        return compress();
+    }
+
+    @Benchmark
+    public String encodeTrailSms() {
+        return TrailCodec.encodeSms(compressed, TrailCodec.digitsFor(MAX_ERROR_M));
+    }
+
+    /** Three fixes batched by the platform, then delivered to the sink in one go. */
+    @Benchmark
+    public long trackerWakeup() {
+        for (int i = 0; i < 3; i++) {
+            fixTimeMs += LocationTracker.Mode.SOS.intervalMs;
+            tracker.onFix(LAT, LNG, 8f, fixTimeMs);
+        }
+        tracker.onWakeup();
+        return tracker.getBatchesDelivered();
+    }
+
+    private TrailCompressor.Trail compress() {
+        TrailCompressor c = new TrailCompressor(MAX_ERROR_M);
+        for (int i = 0; i < WALK; i++) c.add(walkLat[i], walkLng[i], walkTime[i]);
+        return c.snapshot();
+    }
+}
@@ -0,0 +1,93 @@
+package app.lovable.bench;
+
+import app.lovable.core.LatencyHistogram;
+import app.lovable.core.MetricsRegistry;
+import app.lovable.core.ServiceSupervisor;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Always-on overhead: recording into the metrics registry from the hot
+ * paths (alone and from four threads at once), taking a snapshot for
+ * getMetrics, and one watchdog pass of the supervisor over both detectors.
+ */
+public class RuntimeBenchmark {
+    private static final long STALE_MS = 15_000;
+    private static final long HEARTBEAT_MS = 5_000;
+
+    @State(Scope.Benchmark)
+    public static class Metrics {
+        MetricsRegistry registry;
+        MetricsRegistry.Counter counter;
+        LatencyHistogram histogram;
+
+        @Setup
+        public void setUp() {
+            registry = new MetricsRegistry(new BenchClock(1_000_000));
+            counter = registry.counter("protection.wakeups");
+            histogram = registry.histogram("dispatch.latency");
+            for (int i = 0; i < 20; i++) {
+                registry.counter("counter." + i).add(i);
+                registry.gauge("gauge." + i).set(i);
+                LatencyHistogram h = registry.histogram("histogram." + i);
+                for (int v = 1; v < 1_000; v++) h.record(v * 37L);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Supervision {
+        BenchClock clock;
+        ServiceSupervisor supervisor;
+
+        @Setup
+        public void setUp() {
+            clock = new BenchClock(1_000_000);
+            supervisor = new ServiceSupervisor(clock, service -> {}, STALE_MS, 2_000, 5 * 60_000, 2 * 60_000);
+            supervisor.setExpected("volume", true);
+            supervisor.setExpected("wakeword", true);
+        }
+    }
+
+    @Benchmark
+    public void counterInc(Metrics m) {
+        m.counter.inc();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterIncContended(Metrics m) {
+        m.counter.inc();
+    }
+
+    @Benchmark
+    public void histogramRecord(Metrics m) {
+        m.histogram.recordNanos(12_345);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramRecordContended(Metrics m) {
+        m.histogram.recordNanos(12_345);
+    }
+
+    @Benchmark
+    public MetricsRegistry.Snapshot snapshot(Metrics m) {
+        return m.registry.snapshot();
+    }
+
+    /** One heartbeat period: both detectors beat, then the watchdog checks. */
+    @Benchmark
+    public List<String> heartbeatAndCheck(Supervision s) {
+        s.clock.advance(HEARTBEAT_MS);
+        s.supervisor.heartbeat("volume", ServiceSupervisor.State.ARMED);
+        s.supervisor.heartbeat("wakeword", ServiceSupervisor.State.ARMED);
+        return s.supervisor.check();
+    }
+}
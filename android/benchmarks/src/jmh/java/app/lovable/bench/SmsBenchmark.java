@@ -0,0 +1,110 @@
+package app.lovable.bench;
+
+import app.lovable.core.GeoFix;
+import app.lovable.core.SmsFanout;
+import app.lovable.core.SmsScheduler;
+import app.lovable.core.SmsSegmentOptimizer;
+import app.lovable.core.SosPipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The SMS path of an SOS, minus the radio: building the alert text, fitting
+ * it into one segment, and pushing it to five contacts through the fan-out
+ * and the rate-limited scheduler. Transports and actions complete at once,
+ * so the scores are the bookkeeping cost per alert.
+ */
+@State(Scope.Thread)
+public class SmsBenchmark {
+    private static final int CONTACTS = 5;
+    private static final int BURST = CONTACTS;
+    private static final long REFILL_MS = 1_000;
+
+    private final GeoFix freshFix = new GeoFix(37.4219983, -122.0840575, 12f, 4_000);
+    private final GeoFix staleFix = new GeoFix(37.4219983, -122.0840575, 35f, 7 * 60_000);
+    private String message;
+
+    private BenchClock clock;
+    private SmsFanout fanout;
+    private List<SmsFanout.Message> messages;
+    private final SmsFanout.Listener ignore = new SmsFanout.Listener() {
+        @Override
+        public void onProgress(SmsFanout.Batch batch, SmsFanout.Recipient recipient) {}
+
+        @Override
+        public void onAllSent(SmsFanout.Batch batch) {}
+
+        @Override
+        public void onFinished(SmsFanout.Batch batch) {}
+    };
+
+    private SmsScheduler scheduler;
+    private final SmsScheduler.Action send = () -> {};
+    private final SmsScheduler.Callback done = new SmsScheduler.Callback() {
+        @Override
+        public void onSent(SmsScheduler.Job job) {}
+
+        @Override
+        public void onFailed(SmsScheduler.Job job, String error) {}
+    };
+
+    @Setup
+    public void setUp() {
+        message = SosPipeline.buildMessage("Ada Lovelace", freshFix);
+        clock = new BenchClock(1_000_000);
+        // Radios this fast report every part before send() has even returned.
+        fanout = new SmsFanout(clock, Runnable::run, (batchId, recipient, m) -> {
+            fanout.onPartSent(batchId, recipient, true, null);
+            fanout.onPartDelivered(batchId, recipient, true);
+            return 1;
+        });
+        messages = new ArrayList<>();
+        for (int i = 0; i < CONTACTS; i++) {
+            messages.add(new SmsFanout.Message("+1555010" + (1_000 + i), message, i == 0, SmsScheduler.Kind.SOS));
+        }
+        scheduler = new SmsScheduler(clock, new Random(3), atMs -> {}, BURST, REFILL_MS);
+    }
+
+    @Benchmark
+    public String buildMessage() {
+        return SosPipeline.buildMessage("Ada Lovelace", freshFix);
+    }
+
+    @Benchmark
+    public String buildMessageStaleFix() {
+        return SosPipeline.buildMessage("Ada Lovelace", staleFix);
+    }
+
+    /** The emoji makes the alert UCS-2; the optimizer has to bring it back to one GSM-7 segment. */
+    @Benchmark
+    public SmsSegmentOptimizer.Result optimize() {
+        return SmsSegmentOptimizer.optimize(message, 1);
+    }
+
+    @Benchmark
+    public int segmentCount() {
+        return SmsSegmentOptimizer.segmentCount(message);
+    }
+
+    @Benchmark
+    public SmsFanout.Batch fanout() {
+        return fanout.start(messages, 60_000, true, ignore);
+    }
+
+    @Benchmark
+    public long schedule() {
+        clock.advance(CONTACTS * REFILL_MS);
+        for (int i = 0; i < CONTACTS; i++) {
+            scheduler.submit(new SmsScheduler.Job("sub-1", i == 0, SmsScheduler.Kind.SOS, send, done));
+        }
+        scheduler.pump();
+        return scheduler.getSent();
+    }
+}
@@ -0,0 +1,138 @@
+package app.lovable.bench;
+
+import app.lovable.core.Clock;
+import app.lovable.core.OutboxJournal;
+import app.lovable.core.RecordingStore;
+import app.lovable.core.SettingsStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The on-disk state an SOS touches: the outbox journal that makes alerts
+ * survive process death, the recording index the history screen lists, and
+ * the settings load every detector waits for at startup. Files live in a
+ * temporary directory on whatever disk the JVM runs on, so journal numbers
+ * with fsync are only comparable on the same machine.
+ */
+public class StorageBenchmark {
+    @State(Scope.Thread)
+    public static class Journal {
+        /** Appends per fsync: 1 is the SOS setting, 0 leaves syncing to the OS. */
+        @Param({ "0", "1" })
+        public int syncEvery;
+
+        File dir;
+        OutboxJournal journal;
+
+        @Setup
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("outbox").toFile();
+            journal = new OutboxJournal(new File(dir, "outbox.journal"), syncEvery);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            journal.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Recordings {
+        @Param({ "100", "2000" })
+        public int recordings;
+
+        File dir;
+        RecordingStore store;
+
+        @Setup
+        public void setUp() throws IOException {
+            dir = Files.createTempDirectory("recordings").toFile();
+            store = new RecordingStore(dir, 64, Clock.SYSTEM);
+            for (int i = 0; i < recordings; i++) {
+                String id = "alert-" + i;
+                store.put(new RecordingStore.Meta(id, "user-1", "Ada", "audio/webm;codecs=opus",
+                        1_700_000_000_000L + i * 60_000L, 12_500, 37.42, -122.08), null);
+                if (i % 2 == 0) store.setState(id, true, true);
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            store.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Settings {
+        final Map<String, Object> stored = new HashMap<>();
+        final SettingsStore.Storage storage = new SettingsStore.Storage() {
+            @Override
+            public Map<String, ?> load() {
+                return new HashMap<>(stored);
+            }
+
+            @Override
+            public void write(Map<String, Object> changes) {
+                stored.putAll(changes);
+            }
+        };
+
+        @Setup
+        public void setUp() {
+            SettingsStore store = new SettingsStore(storage, Runnable::run);
+            store.edit().volumeEnabled(true).wakeWordEnabled(true).wakeWord("nova")
+                    .gestureRapidPresses(5).gestureLongHoldMs(2_000).voiceGateEnabled(true).apply();
+        }
+    }
+
+    /** A pending SMS journaled and then completed, the lifetime of one outbox item. */
+    @Benchmark
+    public boolean journalAppendComplete(Journal s) throws IOException {
+        long id = s.journal.append(OutboxJournal.Kind.SMS,
+                "{\"phoneNumber\":\"+15550101000\",\"message\":\"EMERGENCY ALERT\"}", 1_700_000_000_000L);
+        return s.journal.complete(id);
+    }
+
+    @Benchmark
+    public List<RecordingStore.Entry> listRecordings(Recordings s) {
+        return s.store.list(false);
+    }
+
+    @Benchmark
+    public List<RecordingStore.Entry> listPendingRecordings(Recordings s) {
+        return s.store.list(true);
+    }
+
+    /**
+     * Parsing the stored values into a snapshot. On a device the
+     * SharedPreferences XML read comes on top; the app reports the whole
+     * load as the settings.loadMicros gauge.
+     */
+    @Benchmark
+    public SettingsStore.Snapshot settingsLoad(Settings s) {
+        return new SettingsStore(s.storage, Runnable::run).get();
+    }
+
+    static void delete(File dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package app.lovable.bench;
+
+import app.lovable.core.TriggerDispatcher;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Trigger dispatch from a detector to the JS sink. {@link #accepted} and
+ * {@link #duplicate} deliver on the calling thread to isolate the
+ * dispatcher's own cost; {@link #handoff} delivers on a separate thread
+ * standing in for the main looper and waits for the sink, which is the
+ * submit-to-JS latency a real trigger sees before the bridge.
+ */
+@State(Scope.Thread)
+public class TriggerDispatchBenchmark {
+    private BenchClock clock;
+    private TriggerDispatcher direct;
+    private TriggerDispatcher threaded;
+    private ExecutorService main;
+    private volatile long lastDelivered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clock = new BenchClock(1_000_000);
+        direct = new TriggerDispatcher(clock, Runnable::run, 1);
+        direct.addSink(trigger -> true);
+        main = Executors.newSingleThreadExecutor(r -> new Thread(r, "main"));
+        threaded = new TriggerDispatcher(clock, main, 1);
+        threaded.addSink(trigger -> {
+            lastDelivered = trigger.id;
+            return true;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        main.shutdownNow();
+    }
+
+    @Benchmark
+    public TriggerDispatcher.Trigger accepted() {
+        clock.advance(TriggerDispatcher.DEDUP_WINDOW_MS);
+        return direct.submit(TriggerDispatcher.Source.VOLUME_SERVICE, 1_700_000_000_000L);
+    }
+
+    /** A second report of the same press inside the dedup window. */
+    @Benchmark
+    public TriggerDispatcher.Trigger duplicate() {
+        return direct.submit(TriggerDispatcher.Source.VOLUME_FOREGROUND, 1_700_000_000_000L);
+    }
+
+    @Benchmark
+    public long handoff() {
+        clock.advance(TriggerDispatcher.DEDUP_WINDOW_MS);
+        long id = threaded.submit(TriggerDispatcher.Source.VOICE, 1_700_000_000_000L).id;
+        while (lastDelivered != id) Thread.onSpinWait();
+        return id;
+    }
+}
@@ -0,0 +1,88 @@
+package app.lovable.bench;
+
+import app.lovable.core.ChunkUploader;
+import app.lovable.core.ChunkedUpload;
+import app.lovable.core.Clock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * One 4 MB recording pushed through the chunk uploader to a transport that
+ * stores nothing, so the score is the uploader's own cost per upload:
+ * reading and hashing chunks on the stream threads and the bookkeeping
+ * around them. Divide 4 MB by the time per upload for MB/s.
+ */
+@State(Scope.Thread)
+public class UploadBenchmark {
+    private static final int FILE_BYTES = 4 * 1024 * 1024;
+
+    /** Uploads' default chunk size and a smaller one for poor connections. */
+    @Param({ "65536", "262144" })
+    public int chunkBytes;
+
+    @Param({ "1", "2" })
+    public int streams;
+
+    private File dir;
+    private File file;
+    private ChunkUploader uploader;
+    private final AtomicLong nextId = new AtomicLong();
+    private volatile CountDownLatch finished;
+    private volatile String error;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("uploads").toFile();
+        file = new File(dir, "recording.aac");
+        byte[] data = new byte[FILE_BYTES];
+        new Random(4).nextBytes(data);
+        Files.write(file.toPath(), data);
+        uploader = new ChunkUploader(Clock.SYSTEM, new ChunkUploader.Transport() {
+            @Override
+            public void putChunk(ChunkedUpload upload, int chunk, byte[] data, int length, String sha256) {}
+
+            @Override
+            public void complete(ChunkedUpload upload) {}
+        }, new ChunkUploader.Listener() {
+            @Override
+            public void onChunkAcked(ChunkedUpload upload, int chunk) {}
+
+            @Override
+            public void onFinished(ChunkedUpload upload, String err) {
+                error = err;
+                finished.countDown();
+            }
+        }, streams, 1_000, new Random(4));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        uploader.shutdown();
+        uploader.awaitTermination(5_000);
+        StorageBenchmark.delete(dir);
+    }
+
+    @Benchmark
+    public ChunkedUpload upload() throws InterruptedException {
+        finished = new CountDownLatch(1);
+        ChunkedUpload upload = new ChunkedUpload("upload-" + nextId.incrementAndGet(), file, FILE_BYTES,
+                chunkBytes, "{}");
+        uploader.submit(upload);
+        finished.await();
+        if (error != null) throw new IllegalStateException(error);
+        return upload;
+    }
+}
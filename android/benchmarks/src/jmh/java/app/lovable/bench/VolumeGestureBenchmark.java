@@ -0,0 +1,80 @@
+package app.lovable.bench;
+
+import static app.lovable.core.VolumeGestureRecognizer.KEY_DOWN;
+import static app.lovable.core.VolumeGestureRecognizer.KEY_UP;
+
+import app.lovable.core.VolumeGestureRecognizer;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-event cost of the volume-gesture checks, with every pattern the
+ * settings can enable. Events replay a recorded-like stream of presses and
+ * releases of both keys, 80 to 400 ms apart; one operation is one key event.
+ */
+@State(Scope.Thread)
+public class VolumeGestureBenchmark {
+    private static final int EVENTS = 4_096;
+
+    private final int[] keys = new int[EVENTS];
+    private final boolean[] down = new boolean[EVENTS];
+    private final long[] at = new long[EVENTS];
+    private VolumeGestureRecognizer recognizer;
+    private int next;
+    private long offsetMs;
+
+    @Setup
+    public void setUp() {
+        recognizer = new VolumeGestureRecognizer.Builder()
+                .simultaneous("simultaneous", 500)
+                .rapidPresses("rapid", VolumeGestureRecognizer.KEY_ANY, 5, 3_000)
+                .longHold("hold", KEY_UP, 2_000)
+                .sequence("up-down-up", 2_000, KEY_UP, KEY_DOWN, KEY_UP)
+                .build();
+        Random random = new Random(17);
+        boolean[] held = new boolean[2];
+        long t = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            int key = random.nextBoolean() ? KEY_UP : KEY_DOWN;
+            t += 80 + random.nextInt(320);
+            keys[i] = key;
+            down[i] = !held[key];
+            at[i] = t;
+            held[key] = !held[key];
+        }
+        offsetMs = 0;
+        next = 0;
+    }
+
+    @Benchmark
+    public int keyEvent() {
+        int i = next;
+        long now = offsetMs + at[i];
+        int gesture = down[i] ? recognizer.onKeyDown(keys[i], now) : recognizer.onKeyUp(keys[i], now);
+        if (++next == EVENTS) {
+            // Start the replay over with both keys released.
+            next = 0;
+            offsetMs = now + 5_000;
+            recognizer.reset();
+        }
+        return gesture;
+    }
+
+    /**
+     * The scheduled deadline check while Vol+ is held: one operation is a
+     * tick that finds nothing due yet, the case that repeats most.
+     */
+    @Benchmark
+    public int tick() {
+        offsetMs += 10;
+        if (recognizer.nextDeadline() == Long.MAX_VALUE) recognizer.onKeyDown(KEY_UP, offsetMs);
+        int gesture = recognizer.onTick(offsetMs);
+        if (gesture != VolumeGestureRecognizer.NONE) recognizer.reset();
+        return gesture;
+    }
+}
@@ -0,0 +1,86 @@
+package app.lovable.bench;
+
+import app.lovable.core.WakePhraseMatcher;
+import app.lovable.core.WakeVocabulary;
+
+import java.util.Locale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of checking one recognizer result in WakeWordDetector.handleResults:
+ * every hypothesis of the result goes through the matcher until one hits.
+ * {@link #legacyContains} is the toLowerCase/contains check the matcher
+ * replaced, kept here as the baseline.
+ */
+@State(Scope.Thread)
+public class WakePhraseBenchmark {
+    private static final String WAKE_WORD = "resqme";
+
+    /** Up to five hypotheses per result, as SpeechRecognizer returns them. */
+    private static final String[][] RESULTS = {
+            // miss: everyday speech with no command
+            { "so I was thinking we could get dinner later tonight",
+              "so I was thinking we could get dinner later to night",
+              "so I was thinking we could get dinner letter tonight",
+              "so I was thinking we good get dinner later tonight",
+              "so I was thinking we could get a dinner later tonight" },
+            // command without the wake word: scanned in full, fuzzy pass included
+            { "can you help me with the dishes",
+              "can you help me with the dish is",
+              "can you help me with a dishes",
+              "can you hope me with the dishes",
+              "can u help me with the dishes" },
+            // exact hit in the first hypothesis
+            { "resqme help", "rescue me help", "rest me help", "resqme helped", "res q me help" },
+            // misheard wake word, found by the phonetic pass
+            { "rescue me please help", "rescue me please", "rescue be please help",
+              "rescue me police help", "risk you me please help" },
+    };
+
+    @Param({ "miss", "command", "exact", "fuzzy" })
+    public String kind;
+
+    private String[] hypotheses;
+    private WakePhraseMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        switch (kind) {
+            case "miss": hypotheses = RESULTS[0]; break;
+            case "command": hypotheses = RESULTS[1]; break;
+            case "exact": hypotheses = RESULTS[2]; break;
+            default: hypotheses = RESULTS[3]; break;
+        }
+        matcher = new WakePhraseMatcher(WakeVocabulary.forLanguage(WAKE_WORD, "en"));
+    }
+
+    @Benchmark
+    public boolean matcher() {
+        for (String m : hypotheses) {
+            if (matcher.matches(m)) return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean legacyContains() {
+        for (String m : hypotheses) {
+            String t = m.toLowerCase(Locale.ROOT);
+            boolean hasHelp = t.contains("help") || t.contains("emergency");
+            boolean hasWake = t.contains(WAKE_WORD);
+            if (hasHelp && (hasWake || t.trim().equals("help") || t.trim().equals("emergency"))) return true;
+        }
+        return false;
+    }
+
+    /** Building the automaton, paid when the wake word or language changes. */
+    @Benchmark
+    public WakePhraseMatcher compile() {
+        return new WakePhraseMatcher(WakeVocabulary.forLanguage(WAKE_WORD, "en"));
+    }
+}
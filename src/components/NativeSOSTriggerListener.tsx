@@ -2,6 +2,7 @@ import { useEffect } from "react";
 import { useLocation, useNavigate } from "react-router-dom";
 import { Capacitor } from "@capacitor/core";
 import VolumeButton from "@/plugins/VolumeButtonPlugin";
+import { nativeSosAtKey } from "@/hooks/useNativeSos";
 
 export const pendingSosKey = "resqme_pending_sos";
 
@@ -31,6 +32,8 @@ export function NativeSOSTriggerListener() {
 
           try {
             localStorage.setItem(pendingSosKey, String(Date.now()));
+            // Contacts are already being texted natively; the app must not text them again.
+            if (data.nativeSos) localStorage.setItem(nativeSosAtKey, String(Date.now()));
           } catch {
             // ignore storage failures
           }
@@ -1,6 +1,7 @@
 import { useCallback, useRef, useState, useEffect } from 'react';
 import { supabase } from '@/integrations/supabase/client';
 import { reverseGeocode } from '@/hooks/useReverseGeocode';
+import { nativeSosRecentlyHandled } from '@/hooks/useNativeSos';
 
 interface UseHybridAlertOptions {
   userId: string | null;
@@ -14,8 +15,25 @@ interface PendingAlert {
   location: { lat: number; lng: number } | null;
   triggeredAt: string;
   triggerType: string;
+  /** Native outbox item mirroring this alert (Android only). */
+  outboxId?: number;
 }
 
+const loadOutbox = async () => (await import('@/plugins/OutboxPlugin')).default;
+
+// Mirror offline alerts into the native outbox: localStorage can be lost if
+// the process dies before the WebView flushes it.
+const journalAlert = async (pending: PendingAlert): Promise<PendingAlert> => {
+  try {
+    const Outbox = await loadOutbox();
+    const { id } = await Outbox.enqueue({ kind: 'alert', payload: JSON.stringify(pending), sync: true });
+    return { ...pending, outboxId: id };
+  } catch {
+    // Web, or the journal is unavailable
+    return pending;
+  }
+};
+
 export const useHybridAlert = (options: UseHybridAlertOptions) => {
   const { userId, userName, onAlertCreated, onSyncComplete } = options;
   
@@ -53,16 +71,33 @@ export const useHybridAlert = (options: UseHybridAlertOptions) => {
     checkNativeSms();
   }, []);
 
-  // Load pending alerts from localStorage
+  // Load pending alerts from localStorage, plus any only the native outbox kept
   useEffect(() => {
-    try {
-      const stored = localStorage.getItem('pending_alerts');
-      if (stored) {
-        setPendingAlerts(JSON.parse(stored));
+    const load = async () => {
+      let alerts: PendingAlert[] = [];
+      try {
+        const stored = localStorage.getItem('pending_alerts');
+        if (stored) {
+          alerts = JSON.parse(stored);
+        }
+      } catch {
+        // Ignore parse errors
       }
-    } catch {
-      // Ignore parse errors
-    }
+      try {
+        const Outbox = await loadOutbox();
+        const { items } = await Outbox.getPending({ kind: 'alert' });
+        for (const item of items) {
+          const alert: PendingAlert = { ...JSON.parse(item.payload), outboxId: item.id };
+          if (!alerts.some((a) => a.id === alert.id)) {
+            alerts.push(alert);
+          }
+        }
+      } catch {
+        // No native outbox
+      }
+      setPendingAlerts(alerts);
+    };
+    load();
   }, []);
 
   // Auto-sync when coming back online
@@ -115,12 +150,12 @@ export const useHybridAlert = (options: UseHybridAlertOptions) => {
       if (error) {
         console.error('[useHybridAlert] Failed to create alert:', error);
         // Fall back to offline mode
-        const pending: PendingAlert = {
+        const pending = await journalAlert({
           id: alertId,
           location: location ? { lat: location.lat, lng: location.lng } : null,
           triggeredAt: now,
           triggerType: 'sos',
-        };
+        });
         savePendingAlerts([...pendingAlerts, pending]);
       }
 
@@ -128,23 +163,23 @@ export const useHybridAlert = (options: UseHybridAlertOptions) => {
       return alertId;
     } else {
       // Offline: store locally and optionally send native SMS
-      const pending: PendingAlert = {
+      const pending = await journalAlert({
         id: alertId,
         location: location ? { lat: location.lat, lng: location.lng } : null,
         triggeredAt: now,
         triggerType: 'sos',
-      };
+      });
       savePendingAlerts([...pendingAlerts, pending]);
 
-      // Try native SMS if available
-      if (nativeSmsAvailable) {
+      // Try native SMS if available, unless the native SOS pipeline already texted contacts
+      if (nativeSmsAvailable && !nativeSosRecentlyHandled()) {
         try {
           const NativeSms = (await import('@/plugins/NativeSmsPlugin')).default;
           
           // Fetch emergency contacts
           const { data: contacts } = await supabase
             .from('emergency_contacts')
-            .select('phone_number, name')
+            .select('phone_number, name, is_primary')
             .eq('user_id', userId);
 
           if (contacts && contacts.length > 0) {
@@ -158,6 +193,7 @@ export const useHybridAlert = (options: UseHybridAlertOptions) => {
               await NativeSms.sendSms({
                 phoneNumber: contact.phone_number,
                 message,
+                primary: !!contact.is_primary,
               });
             }
           }
@@ -202,6 +238,12 @@ export const useHybridAlert = (options: UseHybridAlertOptions) => {
         });
       }
 
+      const outboxIds = pendingAlerts.flatMap((p) => (p.outboxId !== undefined ? [p.outboxId] : []));
+      if (outboxIds.length > 0) {
+        const Outbox = await loadOutbox();
+        await Promise.all(outboxIds.map((id) => Outbox.complete({ id })));
+      }
+
       savePendingAlerts([]);
       onSyncComplete?.();
     } catch (e) {
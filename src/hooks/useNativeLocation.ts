@@ -0,0 +1,51 @@
+import { useEffect, useRef } from "react";
+import { Capacitor } from "@capacitor/core";
+import NativeLocation from "@/plugins/NativeLocationPlugin";
+
+export interface TrackedLocation {
+  lat: number;
+  lng: number;
+  accuracy: number;
+}
+
+/**
+ * Follows the native tracker on Android: reports the newest fix of each
+ * batch and switches to the SOS sampling rate while an alert is active.
+ * Returns false on web, where there is no native tracker.
+ */
+export const useNativeLocation = (
+  sosActive: boolean,
+  onLocation: (location: TrackedLocation) => void
+): boolean => {
+  const isNative = Capacitor.isNativePlatform();
+  const onLocationRef = useRef(onLocation);
+  onLocationRef.current = onLocation;
+
+  useEffect(() => {
+    if (!isNative) return;
+    let handle: { remove: () => void } | null = null;
+    let cancelled = false;
+
+    NativeLocation.addListener("locationBatch", (batch) => {
+      const last = batch.lat.length - 1;
+      if (last < 0) return;
+      onLocationRef.current({ lat: batch.lat[last], lng: batch.lng[last], accuracy: batch.accuracy[last] });
+    }).then((h) => {
+      if (cancelled) h.remove();
+      else handle = h;
+    });
+    NativeLocation.start().catch((e) => console.log("Native location unavailable:", e));
+
+    return () => {
+      cancelled = true;
+      handle?.remove();
+    };
+  }, [isNative]);
+
+  useEffect(() => {
+    if (!isNative) return;
+    NativeLocation.setMode({ mode: sosActive ? "sos" : "idle" }).catch(() => {});
+  }, [isNative, sosActive]);
+
+  return isNative;
+};
@@ -9,6 +9,7 @@ interface UseNativeSmsOptions {
 interface Contact {
   name: string;
   phone_number: string;
+  is_primary?: boolean | null;
 }
 
 export const useNativeSms = ({ onSuccess, onError }: UseNativeSmsOptions = {}) => {
@@ -69,6 +70,7 @@ export const useNativeSms = ({ onSuccess, onError }: UseNativeSmsOptions = {}) =
       const messages: SmsMessage[] = contacts.map((contact) => ({
         phoneNumber: contact.phone_number,
         message,
+        primary: !!contact.is_primary,
       }));
 
       const result = await NativeSms.sendMultipleSms({ messages });
@@ -0,0 +1,60 @@
+import { useCallback, useEffect } from "react";
+import { Capacitor } from "@capacitor/core";
+import { supabase } from "@/integrations/supabase/client";
+import NativeSos from "@/plugins/NativeSosPlugin";
+
+/** localStorage key: when the native pipeline last took over SMS for a trigger. */
+export const nativeSosAtKey = "resqme_native_sos_at";
+
+/** How long after a native SOS the app skips its own SMS fallback. */
+const NATIVE_SOS_WINDOW_MS = 10 * 60 * 1000;
+
+export const nativeSosRecentlyHandled = (): boolean => {
+  try {
+    const at = Number(localStorage.getItem(nativeSosAtKey));
+    return !!at && Date.now() - at < NATIVE_SOS_WINDOW_MS;
+  } catch {
+    return false;
+  }
+};
+
+/**
+ * Caches the user's name and emergency contacts natively so background
+ * triggers can text contacts before the WebView loads.
+ */
+export const useNativeSos = (userId: string | null, userName: string) => {
+  useEffect(() => {
+    if (!userId || !Capacitor.isNativePlatform()) return;
+
+    const sync = async () => {
+      const { data: contacts } = await supabase
+        .from("emergency_contacts")
+        .select("name, phone_number, is_primary")
+        .eq("user_id", userId);
+
+      await NativeSos.configure({
+        enabled: true,
+        userName,
+        contacts: (contacts || []).map((c) => ({
+          name: c.name,
+          phoneNumber: c.phone_number,
+          primary: !!c.is_primary,
+        })),
+      });
+    };
+
+    sync().catch((e) => console.log("Native SOS sync failed:", e));
+  }, [userId, userName]);
+
+  const cancelNativeSos = useCallback(async () => {
+    if (!Capacitor.isNativePlatform()) return;
+    try {
+      const { cancelled } = await NativeSos.cancel();
+      if (cancelled) localStorage.removeItem(nativeSosAtKey);
+    } catch {
+      // ignore
+    }
+  }, []);
+
+  return { cancelNativeSos };
+};
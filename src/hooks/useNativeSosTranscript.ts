@@ -0,0 +1,77 @@
+import { useCallback, useEffect, useRef, useState } from "react";
+import { Capacitor } from "@capacitor/core";
+import NativeEvents from "@/plugins/NativeEventsPlugin";
+import WakeWord, { type SosTranscriptPush } from "@/plugins/WakeWordPlugin";
+
+/**
+ * SOS transcript produced by the native voice service, so the microphone
+ * stays with the service instead of moving to a WebView recognizer.
+ * Segments arrive on the NativeEvents bridge and are acknowledged as they
+ * are applied; `start` resolves false when the caller should fall back to
+ * its own recognizer.
+ */
+export const useNativeSosTranscript = () => {
+  const [transcript, setTranscript] = useState("");
+  const [isActive, setIsActive] = useState(false);
+  const committedRef = useRef<string[]>([]);
+  const lastSeqRef = useRef(0);
+
+  useEffect(() => {
+    if (!Capacitor.isNativePlatform()) return;
+    let handle: { remove: () => void } | null = null;
+    let cancelled = false;
+    NativeEvents.addListener("eventFrame", ({ events }) => {
+      const push = events.find((e) => e.type === "sosTranscript")?.data as SosTranscriptPush | undefined;
+      if (!push) return;
+      let last = lastSeqRef.current;
+      for (const seg of push.segments) {
+        if (seg.seq <= last) continue;
+        committedRef.current.push(seg.text);
+        last = seg.seq;
+      }
+      if (last !== lastSeqRef.current) {
+        lastSeqRef.current = last;
+        WakeWord.ackSosTranscript({ seq: last }).catch(() => undefined);
+      }
+      setTranscript([...committedRef.current, push.pending].join(" ").trim());
+    }).then((h) => {
+      if (cancelled) h.remove();
+      else handle = h;
+    });
+    return () => {
+      cancelled = true;
+      handle?.remove();
+    };
+  }, []);
+
+  const start = useCallback(async (): Promise<boolean> => {
+    if (!Capacitor.isNativePlatform()) return false;
+    committedRef.current = [];
+    lastSeqRef.current = 0;
+    setTranscript("");
+    try {
+      const { native } = await WakeWord.startSosTranscription();
+      setIsActive(native);
+      return native;
+    } catch (e) {
+      console.log("Native SOS transcription unavailable:", e);
+      return false;
+    }
+  }, []);
+
+  /** Stops transcription and returns the complete native transcript ("" if none). */
+  const stop = useCallback(async (): Promise<string> => {
+    if (!isActive) return "";
+    setIsActive(false);
+    try {
+      const { text } = await WakeWord.stopSosTranscription();
+      setTranscript(text);
+      return text;
+    } catch (e) {
+      console.error("Failed to stop native SOS transcription:", e);
+      return committedRef.current.join(" ");
+    }
+  }, [isActive]);
+
+  return { transcript, isActive, start, stop };
+};
@@ -1,6 +1,10 @@
 import { useState, useEffect, useCallback } from "react";
+import { Capacitor } from "@capacitor/core";
+import RecordingStore, { type StoredRecording } from "@/plugins/RecordingStorePlugin";
 
-// IndexedDB for storing audio blobs (localStorage can't handle blobs)
+// On Android alerts and audio go to the native recording store, which keeps
+// audio as files and lists alerts without loading it. The web falls back to
+// IndexedDB for storing audio blobs (localStorage can't handle blobs).
 const DB_NAME = "resqme_offline_db";
 const DB_VERSION = 1;
 const ALERT_STORE = "pending_alerts";
@@ -14,10 +18,52 @@ export interface OfflineAlert {
   synced: boolean;
   nativeSmsSent: boolean;
   audioBlob?: Blob;
+  /** Native store only: URL the WebView can fetch the audio from, instead of a Blob. */
+  audioUri?: string;
   audioMimeType?: string;
   userName?: string;
 }
 
+const isNative = Capacitor.isNativePlatform();
+
+const fromStored = (r: StoredRecording): OfflineAlert => ({
+  id: r.alertId,
+  oderId: r.userId,
+  latitude: r.latitude ?? null,
+  longitude: r.longitude ?? null,
+  timestamp: new Date(r.createdAt).toISOString(),
+  synced: r.synced,
+  nativeSmsSent: r.nativeSmsSent,
+  audioUri: r.path ? Capacitor.convertFileSrc(r.path) : undefined,
+  audioMimeType: r.mimeType,
+  userName: r.userName,
+});
+
+const blobToBase64 = (blob: Blob): Promise<string> =>
+  new Promise((resolve, reject) => {
+    const reader = new FileReader();
+    reader.onload = () => resolve((reader.result as string).split(",")[1] ?? "");
+    reader.onerror = () => reject(reader.error);
+    reader.readAsDataURL(blob);
+  });
+
+/** Saves an alert natively; without a blob, audio already stored for it is kept. */
+const saveNative = async (alert: OfflineAlert): Promise<OfflineAlert> => {
+  const { recording } = await RecordingStore.save({
+    alertId: alert.id,
+    userId: alert.oderId,
+    userName: alert.userName,
+    mimeType: alert.audioBlob?.type || alert.audioMimeType,
+    createdAt: Date.parse(alert.timestamp) || Date.now(),
+    latitude: alert.latitude,
+    longitude: alert.longitude,
+    nativeSmsSent: alert.nativeSmsSent,
+    audioBase64: alert.audioBlob ? await blobToBase64(alert.audioBlob) : undefined,
+  });
+  if (alert.synced) await RecordingStore.update({ alertId: alert.id, synced: true });
+  return { ...fromStored(recording), synced: alert.synced };
+};
+
 const openDB = (): Promise<IDBDatabase> => {
   return new Promise((resolve, reject) => {
     const request = indexedDB.open(DB_NAME, DB_VERSION);
@@ -62,6 +108,16 @@ export const useOfflineAlertQueue = () => {
   }, []);
 
   const loadPendingAlerts = useCallback(async () => {
+    if (isNative) {
+      try {
+        const { recordings } = await RecordingStore.list({ pendingOnly: true });
+        setPendingAlerts(recordings.map(fromStored));
+      } catch (error) {
+        console.error("Failed to load pending alerts:", error);
+      }
+      setIsLoading(false);
+      return;
+    }
     try {
       const db = await openDB();
       const transaction = db.transaction(ALERT_STORE, "readonly");
@@ -85,6 +141,11 @@ export const useOfflineAlertQueue = () => {
   }, []);
 
   const queueAlert = useCallback(async (alert: Omit<OfflineAlert, "synced">): Promise<void> => {
+    if (isNative) {
+      const stored = await saveNative({ ...alert, synced: false });
+      setPendingAlerts((prev) => [...prev.filter((a) => a.id !== alert.id), stored]);
+      return;
+    }
     try {
       const db = await openDB();
       const transaction = db.transaction(ALERT_STORE, "readwrite");
@@ -119,6 +180,21 @@ export const useOfflineAlertQueue = () => {
     id: string, 
     updates: Partial<OfflineAlert>
   ): Promise<void> => {
+    if (isNative) {
+      const { recording } = await RecordingStore.get({ alertId: id });
+      if (!recording) throw new Error("Alert not found");
+      const keys = Object.keys(updates);
+      let updatedAlert: OfflineAlert;
+      if (keys.every((k) => k === "synced" || k === "nativeSmsSent")) {
+        // Flag changes touch one byte of the index; no need to rewrite the alert.
+        await RecordingStore.update({ alertId: id, synced: updates.synced, nativeSmsSent: updates.nativeSmsSent });
+        updatedAlert = { ...fromStored(recording), ...updates };
+      } else {
+        updatedAlert = await saveNative({ ...fromStored(recording), ...updates });
+      }
+      setPendingAlerts((prev) => prev.map((a) => (a.id === id ? updatedAlert : a)));
+      return;
+    }
     try {
       const db = await openDB();
       const transaction = db.transaction(ALERT_STORE, "readwrite");
@@ -160,6 +236,10 @@ export const useOfflineAlertQueue = () => {
   }, [updateAlert]);
 
   const getAlert = useCallback(async (id: string): Promise<OfflineAlert | null> => {
+    if (isNative) {
+      const { recording } = await RecordingStore.get({ alertId: id });
+      return recording ? fromStored(recording) : null;
+    }
     try {
       const db = await openDB();
       const transaction = db.transaction(ALERT_STORE, "readonly");
@@ -177,6 +257,10 @@ export const useOfflineAlertQueue = () => {
   }, []);
 
   const clearSyncedAlerts = useCallback(async (): Promise<void> => {
+    if (isNative) {
+      await RecordingStore.clearSynced().catch((error) => console.error("Error clearing synced alerts:", error));
+      return;
+    }
     try {
       const db = await openDB();
       const transaction = db.transaction(ALERT_STORE, "readwrite");
@@ -0,0 +1,83 @@
+import { useCallback, useEffect } from "react";
+import { Capacitor } from "@capacitor/core";
+import RecordingUpload from "@/plugins/RecordingUploadPlugin";
+import WakeWord from "@/plugins/WakeWordPlugin";
+
+let configured = false;
+
+/** Points the native uploader at the upload-recording function, once per app run. */
+const configureUploader = () => {
+  if (configured) return;
+  configured = true;
+  const url = import.meta.env.VITE_SUPABASE_URL;
+  if (!url) return;
+  RecordingUpload.configure({
+    endpoint: `${url}/functions/v1/upload-recording`,
+    apiKey: import.meta.env.VITE_SUPABASE_PUBLISHABLE_KEY,
+  }).catch((e) => console.log("Native upload unavailable:", e));
+};
+
+/**
+ * Hands the native SOS recording (pre-roll plus what followed the trigger)
+ * to the native uploader, which streams it from disk and resumes after
+ * network loss or a restart. No-op on web.
+ */
+export const useRecordingUpload = () => {
+  const isNative = Capacitor.isNativePlatform();
+
+  useEffect(() => {
+    if (!isNative) return;
+    configureUploader();
+    let handle: { remove: () => void } | null = null;
+    let cancelled = false;
+    RecordingUpload.addListener("uploadProgress", ({ finished }) => {
+      for (const f of finished) {
+        if (f.ok) console.log("Recording uploaded:", f.uploadId);
+        else console.log("Recording upload paused:", f.uploadId, f.error);
+      }
+    }).then((h) => {
+      if (cancelled) h.remove();
+      else handle = h;
+    });
+    return () => {
+      cancelled = true;
+      handle?.remove();
+    };
+  }, [isNative]);
+
+  /** Resolves true if the native recording runs, so the WebView must not open the microphone. */
+  const startNativeRecording = useCallback(async (): Promise<boolean> => {
+    if (!isNative) return false;
+    try {
+      const { native } = await WakeWord.startPreRollRecording();
+      return native;
+    } catch (e) {
+      console.log("Native recording unavailable:", e);
+      return false;
+    }
+  }, [isNative]);
+
+  /** Ends the native recording without uploading it, for a cancelled alert. */
+  const discardNativeRecording = useCallback(async () => {
+    if (!isNative) return;
+    await WakeWord.stopPreRollRecording().catch(() => undefined);
+  }, [isNative]);
+
+  const uploadNativeRecording = useCallback(
+    async (alertId: string, userId: string): Promise<string | null> => {
+      if (!isNative) return null;
+      try {
+        const { path } = await WakeWord.stopPreRollRecording();
+        if (!path) return null;
+        const { uploadId } = await RecordingUpload.enqueue({ path, alertId, userId, mimeType: "audio/aac" });
+        return uploadId;
+      } catch (e) {
+        console.error("Failed to queue native recording:", e);
+        return null;
+      }
+    },
+    [isNative]
+  );
+
+  return { startNativeRecording, uploadNativeRecording, discardNativeRecording };
+};
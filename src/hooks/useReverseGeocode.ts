@@ -1,5 +1,7 @@
 import { useState, useEffect } from "react";
+import { Capacitor } from "@capacitor/core";
 import { supabase } from "@/integrations/supabase/client";
+import Geocode from "@/plugins/GeocodePlugin";
 
 interface GeocodeResult {
   address: string | null;
@@ -10,10 +12,39 @@ interface GeocodeResult {
 // Cache to avoid repeated API calls for the same coordinates
 const geocodeCache = new Map<string, string>();
 
-const fetchAddressFromEdgeFunction = async (
+let nativeConfigured = false;
+
+/** Points the native prewarm job at the same edge function, once per app run. */
+const configureNativeCache = () => {
+  if (nativeConfigured || !Capacitor.isNativePlatform()) return;
+  nativeConfigured = true;
+  const url = import.meta.env.VITE_SUPABASE_URL;
+  if (!url) return;
+  Geocode.configure({
+    endpoint: `${url}/functions/v1/reverse-geocode`,
+    apiKey: import.meta.env.VITE_SUPABASE_PUBLISHABLE_KEY,
+  }).catch(() => {});
+};
+
+/** The on-device cache answers offline and without a round trip. */
+const lookupNativeCache = async (latitude: number, longitude: number): Promise<string | null> => {
+  if (!Capacitor.isNativePlatform()) return null;
+  configureNativeCache();
+  try {
+    const result = await Geocode.lookup({ latitude, longitude });
+    return result.cached ? result.address ?? null : null;
+  } catch {
+    return null;
+  }
+};
+
+const resolveAddress = async (
   latitude: number,
   longitude: number
 ): Promise<string | null> => {
+  const cached = await lookupNativeCache(latitude, longitude);
+  if (cached) return cached;
+
   try {
     const { data, error } = await supabase.functions.invoke("reverse-geocode", {
       body: { latitude, longitude },
@@ -24,7 +55,11 @@ const fetchAddressFromEdgeFunction = async (
       return null;
     }
 
-    return data?.address || null;
+    const address: string | null = data?.address || null;
+    if (address && Capacitor.isNativePlatform()) {
+      Geocode.put({ latitude, longitude, address }).catch(() => {});
+    }
+    return address;
   } catch {
     return null;
   }
@@ -57,7 +92,7 @@ export const useReverseGeocode = (
       setError(null);
 
       try {
-        const formattedAddress = await fetchAddressFromEdgeFunction(latitude, longitude);
+        const formattedAddress = await resolveAddress(latitude, longitude);
 
         // Cache the result
         if (formattedAddress) {
@@ -91,7 +126,7 @@ export const reverseGeocode = async (
     return geocodeCache.get(cacheKey)!;
   }
 
-  const formattedAddress = await fetchAddressFromEdgeFunction(latitude, longitude);
+  const formattedAddress = await resolveAddress(latitude, longitude);
 
   if (formattedAddress) {
     geocodeCache.set(cacheKey, formattedAddress);
@@ -17,6 +17,10 @@ import { useHybridAlert } from "@/hooks/useHybridAlert";
 import { useVolumeButtonTrigger } from "@/hooks/useVolumeButtonTrigger";
 import { useWakeWordTrigger } from "@/hooks/useWakeWordTrigger";
 import { useSpeechTranscription } from "@/hooks/useSpeechTranscription";
+import { useNativeSos } from "@/hooks/useNativeSos";
+import { useNativeLocation } from "@/hooks/useNativeLocation";
+import { useRecordingUpload } from "@/hooks/useRecordingUpload";
+import { useNativeSosTranscript } from "@/hooks/useNativeSosTranscript";
 
 import { AlertHistory } from "@/components/AlertHistory";
 
@@ -32,6 +36,8 @@ const Index = () => {
   const [location, setLocation] = useState<{ lat: number; lng: number; accuracy: number } | null>(null);
   const [alertStartTime, setAlertStartTime] = useState<Date | null>(null);
   const [recordingFailed, setRecordingFailed] = useState(false);
+  // The native pre-roll recording is capturing this alert's audio.
+  const [isNativeRecording, setIsNativeRecording] = useState(false);
   
   const alertIdRef = useRef<string | null>(null);
   const [user, setUser] = useState<any>(null);
@@ -52,6 +58,7 @@ const Index = () => {
     stopListening: stopTranscribing,
     reset: resetTranscription,
   } = useSpeechTranscription();
+  const { start: startNativeTranscript, stop: stopNativeTranscript } = useNativeSosTranscript();
 
   const { 
     isProcessing, 
@@ -82,6 +89,9 @@ const Index = () => {
     },
   });
 
+  const { cancelNativeSos } = useNativeSos(user?.id || null, userProfile.full_name || user?.email || "User");
+  const { startNativeRecording, uploadNativeRecording, discardNativeRecording } = useRecordingUpload();
+
   // This is called when recording completes (silence detection or max duration)
   const handleRecordingComplete = useCallback(async (audioBlob: Blob, duration: number) => {
     console.log("Recording complete! Duration:", duration, "Blob size:", audioBlob.size);
@@ -91,7 +101,11 @@ const Index = () => {
       return;
     }
 
-    const transcriptText = transcription?.trim() || undefined;
+    // The native recording holds the seconds before the trigger; it uploads on its own from disk.
+    uploadNativeRecording(alertIdRef.current, user.id);
+
+    const nativeTranscript = await stopNativeTranscript();
+    const transcriptText = (nativeTranscript || transcription)?.trim() || undefined;
     
     // Convert blob to base64
     const reader = new FileReader();
@@ -110,7 +124,7 @@ const Index = () => {
         transcriptText
       );
     };
-  }, [user, location, transcription, processEmergency]);
+  }, [user, location, transcription, processEmergency, uploadNativeRecording, stopNativeTranscript]);
 
   const { 
     isRecording, 
@@ -124,7 +138,10 @@ const Index = () => {
     onRecordingComplete: handleRecordingComplete,
   });
 
-  // Location tracking
+  // Location tracking. On Android the native tracker keeps going when the WebView is throttled;
+  // the web watch still runs so the permission prompt and foreground updates work as before.
+  useNativeLocation(isAlertActive || showCancelWindow, setLocation);
+
   useEffect(() => {
     if (navigator.geolocation) {
       const watchId = navigator.geolocation.watchPosition(
@@ -182,6 +199,7 @@ const Index = () => {
     setIsAlertActive(true);
     setAlertStartTime(new Date());
     setRecordingFailed(false);
+    setIsNativeRecording(false);
     resetTranscription();
 
     // Create the alert in database first
@@ -194,11 +212,18 @@ const Index = () => {
     // Start recording with proper error handling
     try {
       console.log("Starting audio recording...");
-      await startRecording();
-      startTranscribing();
+      // The voice service keeps the microphone and transcribes natively; otherwise use the WebView recognizer.
+      const nativeTranscript = await startNativeTranscript();
+      const nativeRecording = await startNativeRecording();
+      setIsNativeRecording(nativeRecording);
+      // While the service holds the microphone a WebView capture would fail or record silence.
+      if (!nativeTranscript && !nativeRecording) await startRecording();
+      if (!nativeTranscript) startTranscribing();
       toast({ 
         title: "🚨 SOS ACTIVATED", 
-        description: "Recording audio... Speak now or stay silent for 10s to auto-stop.",
+        description: nativeRecording
+          ? "Recording audio... Press Stop & Send when you are ready."
+          : "Recording audio... Speak now or stay silent for 10s to auto-stop.",
         variant: "destructive" 
       });
     } catch (e: any) {
@@ -220,23 +245,31 @@ const Index = () => {
     } else {
       // Recording already stopped or failed, process without audio
       if (alertIdRef.current && user) {
-        processEmergency(
-          "", // Empty audio
-          alertIdRef.current,
-          user.id,
-          location,
-          "audio/webm",
-          transcription?.trim() || undefined
+        const alertId = alertIdRef.current;
+        setIsNativeRecording(false);
+        uploadNativeRecording(alertId, user.id);
+        stopNativeTranscript().then((nativeTranscript) =>
+          processEmergency(
+            "", // Empty audio
+            alertId,
+            user.id,
+            location,
+            "audio/webm",
+            (nativeTranscript || transcription)?.trim() || undefined
+          )
         );
       }
     }
     stopTranscribing();
-  }, [isRecording, stopRecording, stopTranscribing, processEmergency, user, location, transcription]);
+  }, [isRecording, stopRecording, stopTranscribing, stopNativeTranscript, uploadNativeRecording, processEmergency, user, location, transcription]);
 
   // Cancel without sending
   const cancelAlert = async () => {
     stopRecording();
     stopTranscribing();
+    stopNativeTranscript();
+    discardNativeRecording();
+    setIsNativeRecording(false);
     setIsAlertActive(false);
     setAlertStartTime(null);
     setRecordingFailed(false);
@@ -288,7 +321,10 @@ const Index = () => {
         <CancelCountdown 
           duration={5} 
           onComplete={activateAlert} 
-          onCancel={() => setShowCancelWindow(false)} 
+          onCancel={() => {
+            setShowCancelWindow(false);
+            cancelNativeSos();
+          }}
         />
       )}
       
@@ -296,7 +332,7 @@ const Index = () => {
         <ActiveAlertBanner
           alertId={alertIdRef.current}
           startedAt={alertStartTime}
-          isRecording={isRecording}
+          isRecording={isRecording || isNativeRecording}
           recordingFailed={recordingFailed}
           recordingDuration={recordingDuration}
           maxRecordingDuration={MAX_RECORDING_DURATION}
@@ -338,7 +374,7 @@ const Index = () => {
 
             <StatusBar 
               isLocationEnabled={!!location} 
-              isRecording={isRecording} 
+              isRecording={isRecording || isNativeRecording} 
               isConnected={isOnline} 
             />
 
@@ -346,7 +382,7 @@ const Index = () => {
               <SOSButton 
                 onTrigger={() => isAlertActive ? handleStopAndSend() : setShowCancelWindow(true)} 
                 isActive={isAlertActive} 
-                isRecording={isRecording} 
+                isRecording={isRecording || isNativeRecording} 
               />
             </div>
 
@@ -0,0 +1,42 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface GeocodeLookup {
+  cached: boolean;
+  address?: string;
+  /** Distance from the query to the cached point, in meters. */
+  distanceM?: number;
+  /** Epoch ms the cached address was fetched. */
+  storedAt?: number;
+}
+
+export interface GeocodeStats {
+  size: number;
+  capacity: number;
+  hits: number;
+  misses: number;
+  evictions: number;
+  frequentAreas: number;
+  lookupP50Us: number;
+  lookupP99Us: number;
+  lookupMaxUs: number;
+}
+
+/**
+ * On-device reverse-geocode cache. Lookups never touch the network, so they
+ * work offline during an SOS; the app stores what the edge function returns
+ * and a native job prewarms the user's frequent areas while charging.
+ */
+export interface GeocodePlugin {
+  /** Nearest cached address within `radiusM` (default 100). */
+  lookup(options: { latitude: number; longitude: number; radiusM?: number }): Promise<GeocodeLookup>;
+  put(options: { latitude: number; longitude: number; address: string }): Promise<void>;
+  /** Reverse-geocode endpoint and key the prewarm job calls. */
+  configure(options: { endpoint: string; apiKey?: string }): Promise<void>;
+  getStats(): Promise<GeocodeStats>;
+}
+
+const Geocode = registerPlugin<GeocodePlugin>("Geocode", {
+  web: () => import("./GeocodeWeb").then((m) => new m.GeocodeWeb()),
+});
+
+export default Geocode;
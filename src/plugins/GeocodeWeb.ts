@@ -0,0 +1,21 @@
+import { WebPlugin } from "@capacitor/core";
+import type { GeocodeLookup, GeocodePlugin, GeocodeStats } from "./GeocodePlugin";
+
+/** Web relies on the in-memory cache in useReverseGeocode. */
+export class GeocodeWeb extends WebPlugin implements GeocodePlugin {
+  async lookup(_options: { latitude: number; longitude: number; radiusM?: number }): Promise<GeocodeLookup> {
+    return { cached: false };
+  }
+
+  async put(_options: { latitude: number; longitude: number; address: string }): Promise<void> {
+    // No-op on web.
+  }
+
+  async configure(_options: { endpoint: string; apiKey?: string }): Promise<void> {
+    // No-op on web.
+  }
+
+  async getStats(): Promise<GeocodeStats> {
+    throw this.unavailable("The geocode cache is only available on Android");
+  }
+}
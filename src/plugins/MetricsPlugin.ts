@@ -0,0 +1,69 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface NativeHistogram {
+  count: number;
+  meanMs: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+export interface NativeMetrics {
+  /** Wall-clock time of the snapshot. */
+  timestamp: number;
+  /**
+   * Monotonic counts since the process started, e.g. "sms.failed",
+   * "recognizer.error.7", "trigger.duplicates".
+   */
+  counters: Record<string, number>;
+  /** Current values, e.g. "protection.uptimeMs" (0 while the service is stopped). */
+  gauges: Record<string, number>;
+  /** Latencies, e.g. "trigger.toJs", "sos.firstSms", "sms.timeToAllSent". */
+  histograms: Record<string, NativeHistogram>;
+}
+
+export type StartupPhase =
+  | "process_start"
+  | "boot_completed"
+  | "launch"
+  | "service_created"
+  | "detector_armed"
+  | "webview_ready";
+
+export interface StartupMark {
+  phase: StartupPhase;
+  /** E.g. the detector that armed, or "restored" for a launch with saved state. */
+  detail?: string;
+  /** Wall-clock time. */
+  at: number;
+  sinceBootMs: number;
+}
+
+/** Durations are -1 until both ends have happened in this process. */
+export interface StartupTrace {
+  /** Device boot until the first detector armed; only in a process the boot receiver started. */
+  bootToArmedMs: number;
+  bootReceivedToArmedMs: number;
+  launchToArmedMs: number;
+  launchToWebViewMs: number;
+  processToArmedMs: number;
+  /** Recent marks, oldest first. */
+  marks: StartupMark[];
+}
+
+/**
+ * Counters, gauges and latency histograms kept by the native services.
+ * The same numbers are written to filesDir/metrics.txt every few minutes.
+ */
+export interface MetricsPlugin {
+  getMetrics(): Promise<NativeMetrics>;
+  /** How long the phone went unprotected after the last boot or launch. */
+  getStartupTrace(): Promise<StartupTrace>;
+}
+
+const Metrics = registerPlugin<MetricsPlugin>("Metrics", {
+  web: () => import("./MetricsWeb").then((m) => new m.MetricsWeb()),
+});
+
+export default Metrics;
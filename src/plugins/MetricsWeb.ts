@@ -0,0 +1,12 @@
+import { WebPlugin } from "@capacitor/core";
+import type { MetricsPlugin, NativeMetrics, StartupTrace } from "./MetricsPlugin";
+
+export class MetricsWeb extends WebPlugin implements MetricsPlugin {
+  async getMetrics(): Promise<NativeMetrics> {
+    throw this.unavailable("Native metrics are only available on Android");
+  }
+
+  async getStartupTrace(): Promise<StartupTrace> {
+    throw this.unavailable("Startup tracing is only available on Android");
+  }
+}
@@ -0,0 +1,53 @@
+import { registerPlugin } from "@capacitor/core";
+
+export type NativeEventKind = "gauge" | "stream" | "critical";
+
+export interface NativeEvent {
+  /** "rms", "partialTranscript", "transcript", "recognizerState" or "trigger". */
+  type: string;
+  kind: NativeEventKind;
+  /** Publish order across all events. */
+  seq: number;
+  data: Record<string, unknown>;
+}
+
+export interface NativeEventFrame {
+  /** In publish order; a gauge appears once, with its latest value. */
+  events: NativeEvent[];
+  /** Gauge updates replaced by newer values since the previous frame. */
+  coalesced: number;
+  /** Stream events dropped since the previous frame because JS fell behind. */
+  dropped: number;
+}
+
+export interface NativeEventsStats {
+  published: number;
+  coalesced: number;
+  dropped: number;
+  delivered: number;
+  frames: number;
+  pending: number;
+  delayP50Ms: number;
+  delayP99Ms: number;
+}
+
+/**
+ * High-rate native events (audio level, transcripts, recognizer state)
+ * batched into one bridge message per flush. Triggers are included as
+ * critical events and are never dropped.
+ */
+export interface NativeEventsPlugin {
+  /** Flush at most every `intervalMs` (16-5000, default 100) or once `maxBatch` (default 64) events wait. */
+  configure(options: { intervalMs?: number; maxBatch?: number }): Promise<void>;
+  getStats(): Promise<NativeEventsStats>;
+  addListener(
+    eventName: "eventFrame",
+    listenerFunc: (frame: NativeEventFrame) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+const NativeEvents = registerPlugin<NativeEventsPlugin>("NativeEvents", {
+  web: () => import("./NativeEventsWeb").then((m) => new m.NativeEventsWeb()),
+});
+
+export default NativeEvents;
@@ -0,0 +1,13 @@
+import { WebPlugin } from "@capacitor/core";
+import type { NativeEventsPlugin, NativeEventsStats } from "./NativeEventsPlugin";
+
+/** There are no native event sources on web; listeners simply never fire. */
+export class NativeEventsWeb extends WebPlugin implements NativeEventsPlugin {
+  async configure(_options: { intervalMs?: number; maxBatch?: number }): Promise<void> {
+    // No-op on web.
+  }
+
+  async getStats(): Promise<NativeEventsStats> {
+    throw this.unavailable("Native events are only available on Android");
+  }
+}
@@ -0,0 +1,75 @@
+import { registerPlugin } from "@capacitor/core";
+
+export type NativeLocationMode = "idle" | "sos";
+
+/**
+ * A run of fixes in column form: `lat[i]`, `lng[i]`, `accuracy[i]` (meters)
+ * and `time[i]` (epoch ms) describe fix `firstSeq + i`.
+ */
+export interface NativeLocationBatch {
+  firstSeq: number;
+  /** Pass as `sinceSeq` to getFixes to continue after this batch. */
+  nextSeq: number;
+  /** Fixes overwritten natively before they could be delivered. */
+  skipped: number;
+  lat: number[];
+  lng: number[];
+  accuracy: number[];
+  time: number[];
+}
+
+/** Retained fixes simplified to a maximum error and encoded compactly. */
+export interface NativeLocationTrail {
+  nextSeq: number;
+  /** Fixes before simplification. */
+  points: number;
+  keptPoints: number;
+  /**
+   * Delta-encoded positions in a GSM-7 and URL-safe alphabet; the first
+   * character is the number of decimal places kept.
+   */
+  sms: string;
+  /** Base64 of version, digits, count, then zigzag varint deltas of lat, lng and time. */
+  binary: string;
+  binaryBytes: number;
+}
+
+export interface NativeLocationStats {
+  running: boolean;
+  mode: NativeLocationMode;
+  fixes: number;
+  wakeups: number;
+  fixesPerWakeup: number;
+  batchesDelivered: number;
+  skipped: number;
+  modeSwitches: number;
+  /** Location requests registered with the platform. */
+  registrations: number;
+  /** Time spent sampling at the SOS rate. */
+  sosMs: number;
+}
+
+/**
+ * Native location tracking hosted by the background protection service.
+ * Fixes are batched by the platform and arrive as one "locationBatch"
+ * event per wakeup.
+ */
+export interface NativeLocationPlugin {
+  start(): Promise<{ running: boolean }>;
+  /** "sos" samples every 2 s; "idle" every 30 s, delivered up to 5 min late. */
+  setMode(options: { mode: NativeLocationMode }): Promise<void>;
+  getFixes(options?: { sinceSeq?: number }): Promise<NativeLocationBatch>;
+  /** Every dropped fix lies within `maxErrorM` (default 10) of the kept trail. */
+  getTrail(options?: { sinceSeq?: number; maxErrorM?: number }): Promise<NativeLocationTrail>;
+  getStats(): Promise<NativeLocationStats>;
+  addListener(
+    eventName: "locationBatch",
+    listenerFunc: (batch: NativeLocationBatch) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+const NativeLocation = registerPlugin<NativeLocationPlugin>("NativeLocation", {
+  web: () => import("./NativeLocationWeb").then((m) => new m.NativeLocationWeb()),
+});
+
+export default NativeLocation;
@@ -0,0 +1,42 @@
+import { WebPlugin } from "@capacitor/core";
+import type {
+  NativeLocationBatch,
+  NativeLocationMode,
+  NativeLocationPlugin,
+  NativeLocationStats,
+  NativeLocationTrail,
+} from "./NativeLocationPlugin";
+
+/** Web keeps using navigator.geolocation; there is no native tracker. */
+export class NativeLocationWeb extends WebPlugin implements NativeLocationPlugin {
+  async start(): Promise<{ running: boolean }> {
+    throw this.unavailable("Native location tracking is only available on Android");
+  }
+
+  async setMode(_options: { mode: NativeLocationMode }): Promise<void> {
+    // No-op on web.
+  }
+
+  async getFixes(_options?: { sinceSeq?: number }): Promise<NativeLocationBatch> {
+    return { firstSeq: 0, nextSeq: 0, skipped: 0, lat: [], lng: [], accuracy: [], time: [] };
+  }
+
+  async getTrail(_options?: { sinceSeq?: number; maxErrorM?: number }): Promise<NativeLocationTrail> {
+    throw this.unavailable("Native location trails are only available on Android");
+  }
+
+  async getStats(): Promise<NativeLocationStats> {
+    return {
+      running: false,
+      mode: "idle",
+      fixes: 0,
+      wakeups: 0,
+      fixesPerWakeup: 0,
+      batchesDelivered: 0,
+      skipped: 0,
+      modeSwitches: 0,
+      registrations: 0,
+      sosMs: 0,
+    };
+  }
+}
@@ -1,18 +1,99 @@
 import { registerPlugin } from "@capacitor/core";
 
+export type SmsKind = "sos" | "follow_up";
+
 export interface SmsMessage {
   phoneNumber: string;
   message: string;
+  /** Primary contacts are texted before everyone else. */
+  primary?: boolean;
+  /** "follow_up" texts (e.g. location updates) wait behind SOS texts. Defaults to "sos". */
+  kind?: SmsKind;
+}
+
+export type SmsState = "queued" | "submitted" | "sent" | "delivered" | "failed" | "timed_out";
+
+export interface SmsRecipientResult {
+  phoneNumber: string;
+  /** The radio accepted every part (sent or delivered). */
+  success: boolean;
+  error?: string;
+  index?: number;
+  state?: SmsState;
+  parts?: number;
+}
+
+export interface SmsBatchResult {
+  successCount: number;
+  failedCount: number;
+  results: SmsRecipientResult[];
+  batchId?: number;
+  /** -1 when the deadline passed first. */
+  timeToAllSentMs?: number;
+}
+
+export type SmsEncoding = "gsm7" | "ucs2";
+
+export interface SmsAnalysis {
+  encoding: SmsEncoding;
+  segments: number;
+  /** What native sending actually sends: non-GSM characters replaced and long parts shortened. */
+  optimizedMessage: string;
+  optimizedEncoding: SmsEncoding;
+  optimizedSegments: number;
+  /** Optimizer steps applied, e.g. "transliterate", "url-scheme", "coordinates:5". */
+  steps: string[];
+}
+
+export interface SmsStats {
+  batches: number;
+  allSentP50Ms: number;
+  allSentP90Ms: number;
+  allSentMaxMs: number;
+  allDeliveredP50Ms: number;
+  allDeliveredP90Ms: number;
+  allDeliveredMaxMs: number;
+  /** Texts waiting for the rate limiter or a retry. */
+  queueDepth: number;
+  /** Time from queueing to reaching the radio. */
+  waitP50Ms: number;
+  waitP90Ms: number;
+  waitMaxMs: number;
+  retries: number;
+  throttled: number;
 }
 
 export interface NativeSmsPlugin {
-  sendSms(options: SmsMessage): Promise<{ success: boolean }>;
-  sendMultipleSms(options: { messages: SmsMessage[] }): Promise<{ 
-    successCount: number; 
-    failedCount: number;
-    results: Array<{ phoneNumber: string; success: boolean; error?: string }>;
-  }>;
+  /**
+   * Native sends are segment-optimized and rate limited; resolves once the
+   * text reached the radio. `segments` is how many parts went out.
+   */
+  sendSms(options: SmsMessage): Promise<{ success: boolean; segments?: number; error?: string }>;
+  /** Segment count before sending, aiming at `maxSegments` (default 1). */
+  analyzeSms(options: { message: string; maxSegments?: number }): Promise<SmsAnalysis>;
+  /**
+   * Sends to all recipients at once and resolves when each was sent or failed.
+   * Delivery reports keep arriving as "smsProgress" events afterwards.
+   */
+  sendMultipleSms(options: {
+    messages: SmsMessage[];
+    /** Overall deadline; unsent recipients time out. Defaults to 60 s. */
+    deadlineMs?: number;
+    /** Wait for delivery reports before "smsBatchFinished". Defaults to true. */
+    awaitDelivery?: boolean;
+  }): Promise<SmsBatchResult>;
+  getSmsStats(): Promise<SmsStats>;
   isAvailable(): Promise<{ available: boolean }>;
+  addListener(
+    eventName: "smsProgress",
+    listenerFunc: (data: SmsRecipientResult & { batchId: number }) => void
+  ): Promise<{ remove: () => void }>;
+  addListener(
+    eventName: "smsBatchFinished",
+    listenerFunc: (
+      data: SmsBatchResult & { deliveredCount: number; timeToAllDeliveredMs: number }
+    ) => void
+  ): Promise<{ remove: () => void }>;
 }
 
 const NativeSms = registerPlugin<NativeSmsPlugin>("NativeSms", {
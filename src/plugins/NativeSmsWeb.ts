@@ -1,5 +1,12 @@
 import { WebPlugin } from "@capacitor/core";
-import type { NativeSmsPlugin, SmsMessage } from "./NativeSmsPlugin";
+import type {
+  NativeSmsPlugin,
+  SmsAnalysis,
+  SmsBatchResult,
+  SmsMessage,
+  SmsRecipientResult,
+  SmsStats,
+} from "./NativeSmsPlugin";
 
 export class NativeSmsWeb extends WebPlugin implements NativeSmsPlugin {
   async sendSms(options: SmsMessage): Promise<{ success: boolean }> {
@@ -15,13 +22,9 @@ export class NativeSmsWeb extends WebPlugin implements NativeSmsPlugin {
     }
   }
 
-  async sendMultipleSms(options: { messages: SmsMessage[] }): Promise<{
-    successCount: number;
-    failedCount: number;
-    results: Array<{ phoneNumber: string; success: boolean; error?: string }>;
-  }> {
+  async sendMultipleSms(options: { messages: SmsMessage[] }): Promise<SmsBatchResult> {
     // Web cannot send multiple SMS automatically - open first one
-    const results: Array<{ phoneNumber: string; success: boolean; error?: string }> = [];
+    const results: SmsRecipientResult[] = [];
     
     for (const msg of options.messages) {
       const result = await this.sendSms(msg);
@@ -39,6 +42,28 @@ export class NativeSmsWeb extends WebPlugin implements NativeSmsPlugin {
     };
   }
 
+  async analyzeSms(_options: { message: string; maxSegments?: number }): Promise<SmsAnalysis> {
+    throw this.unavailable("SMS analysis is only available on Android");
+  }
+
+  async getSmsStats(): Promise<SmsStats> {
+    return {
+      batches: 0,
+      allSentP50Ms: 0,
+      allSentP90Ms: 0,
+      allSentMaxMs: 0,
+      allDeliveredP50Ms: 0,
+      allDeliveredP90Ms: 0,
+      allDeliveredMaxMs: 0,
+      queueDepth: 0,
+      waitP50Ms: 0,
+      waitP90Ms: 0,
+      waitMaxMs: 0,
+      retries: 0,
+      throttled: 0,
+    };
+  }
+
   async isAvailable(): Promise<{ available: boolean }> {
     // Check if we're on a mobile device that might support sms: URLs
     const isMobile = /Android|iPhone|iPad|iPod/i.test(navigator.userAgent);
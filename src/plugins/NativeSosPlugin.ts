@@ -0,0 +1,56 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface NativeSosContact {
+  name: string;
+  phoneNumber: string;
+  /** Texted first. */
+  primary?: boolean;
+}
+
+export interface NativeSosConfig {
+  /** Text contacts natively as soon as a background trigger fires. */
+  enabled?: boolean;
+  userName?: string;
+  contacts?: NativeSosContact[];
+  /** Delay before the texts go out, so the cancel countdown still works (default 5000). */
+  holdMs?: number;
+}
+
+export interface NativeSosResult {
+  triggerId: string;
+  cancelled: boolean;
+  sentCount: number;
+  /** Trigger to first SMS (ms), or -1 if none was sent. */
+  firstSmsLatencyMs: number;
+  totalMs: number;
+  location?: { lat: number; lng: number; accuracy: number; ageMs: number };
+  results: Array<{ phoneNumber: string; success: boolean; error?: string }>;
+}
+
+export interface NativeSosStatus {
+  enabled: boolean;
+  contactCount: number;
+  holdMs: number;
+  runs: number;
+  firstSmsP50Ms: number;
+  firstSmsP90Ms: number;
+  firstSmsMaxMs: number;
+  lastResult?: NativeSosResult;
+}
+
+export interface NativeSosPlugin {
+  configure(options: NativeSosConfig): Promise<void>;
+  /** Calls off a native SOS that has not sent yet. */
+  cancel(): Promise<{ cancelled: boolean }>;
+  getStatus(): Promise<NativeSosStatus>;
+  addListener(
+    eventName: "nativeSosSent",
+    listenerFunc: (result: NativeSosResult) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+const NativeSos = registerPlugin<NativeSosPlugin>("NativeSos", {
+  web: () => import("./NativeSosWeb").then((m) => new m.NativeSosWeb()),
+});
+
+export default NativeSos;
@@ -0,0 +1,25 @@
+import { WebPlugin } from "@capacitor/core";
+import type { NativeSosConfig, NativeSosPlugin, NativeSosStatus } from "./NativeSosPlugin";
+
+/** Web has no background triggers, so there is nothing to send natively. */
+export class NativeSosWeb extends WebPlugin implements NativeSosPlugin {
+  async configure(_options: NativeSosConfig): Promise<void> {
+    // No-op on web.
+  }
+
+  async cancel(): Promise<{ cancelled: boolean }> {
+    return { cancelled: false };
+  }
+
+  async getStatus(): Promise<NativeSosStatus> {
+    return {
+      enabled: false,
+      contactCount: 0,
+      holdMs: 0,
+      runs: 0,
+      firstSmsP50Ms: 0,
+      firstSmsP90Ms: 0,
+      firstSmsMaxMs: 0,
+    };
+  }
+}
@@ -0,0 +1,44 @@
+import { registerPlugin } from "@capacitor/core";
+
+export type OutboxKind = "alert" | "sms";
+
+export interface OutboxItem {
+  id: number;
+  kind: OutboxKind;
+  /** Whatever the app stored, usually JSON. */
+  payload: string;
+  /** Epoch ms. */
+  createdAt: number;
+  /** Native replays started for this item. */
+  attempts: number;
+}
+
+export interface OutboxStats {
+  available: boolean;
+  pending?: number;
+  appends?: number;
+  syncs?: number;
+  compactions?: number;
+  /** Bytes of torn writes dropped when the journal was opened. */
+  truncatedBytes?: number;
+  fileBytes?: number;
+}
+
+/**
+ * Native crash-safe journal for alert and SMS work. SMS items that were not
+ * completed are re-sent natively when the services start or the phone boots;
+ * alert items stay pending until the app syncs and completes them.
+ */
+export interface OutboxPlugin {
+  /** Set `sync` to force the item to disk before resolving. */
+  enqueue(options: { kind: OutboxKind; payload: string; sync?: boolean }): Promise<{ id: number }>;
+  complete(options: { id: number }): Promise<{ completed: boolean }>;
+  getPending(options?: { kind?: OutboxKind }): Promise<{ items: OutboxItem[] }>;
+  getStats(): Promise<OutboxStats>;
+}
+
+const Outbox = registerPlugin<OutboxPlugin>("Outbox", {
+  web: () => import("./OutboxWeb").then((m) => new m.OutboxWeb()),
+});
+
+export default Outbox;
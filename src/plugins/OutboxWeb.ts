@@ -0,0 +1,21 @@
+import { WebPlugin } from "@capacitor/core";
+import type { OutboxItem, OutboxKind, OutboxPlugin, OutboxStats } from "./OutboxPlugin";
+
+/** Web keeps its queues in localStorage/IndexedDB already; there is no native journal. */
+export class OutboxWeb extends WebPlugin implements OutboxPlugin {
+  async enqueue(_options: { kind: OutboxKind; payload: string; sync?: boolean }): Promise<{ id: number }> {
+    throw this.unavailable("Outbox is only available on Android");
+  }
+
+  async complete(_options: { id: number }): Promise<{ completed: boolean }> {
+    return { completed: false };
+  }
+
+  async getPending(_options?: { kind?: OutboxKind }): Promise<{ items: OutboxItem[] }> {
+    return { items: [] };
+  }
+
+  async getStats(): Promise<OutboxStats> {
+    return { available: false };
+  }
+}
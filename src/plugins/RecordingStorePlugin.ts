@@ -0,0 +1,65 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface StoredRecording {
+  alertId: string;
+  userId: string;
+  userName: string;
+  mimeType: string;
+  /** Epoch ms. */
+  createdAt: number;
+  durationMs: number;
+  latitude?: number;
+  longitude?: number;
+  sizeBytes: number;
+  /** CRC-32 of the audio, hex. */
+  crc32: string;
+  synced: boolean;
+  nativeSmsSent: boolean;
+  /** Absolute path of the audio file; pass it to Capacitor.convertFileSrc to load it. Absent without audio. */
+  path?: string;
+}
+
+export interface RecordingStoreStats {
+  available: boolean;
+  count?: number;
+  capacity?: number;
+  /** Slots and files fixed up after a crash when the store was opened. */
+  repaired?: number;
+  listP50Ms?: number;
+  listP99Ms?: number;
+}
+
+/**
+ * Native store for offline alerts and their recordings. Audio lives in
+ * files and metadata in a memory-mapped index, so listing alerts never
+ * loads audio into the WebView.
+ */
+export interface RecordingStorePlugin {
+  /** Audio comes from `audioBase64` or from `path` (a file in app storage, moved into the store). */
+  save(options: {
+    alertId: string;
+    userId?: string;
+    userName?: string;
+    mimeType?: string;
+    createdAt: number;
+    durationMs?: number;
+    latitude?: number | null;
+    longitude?: number | null;
+    nativeSmsSent?: boolean;
+    audioBase64?: string;
+    path?: string;
+  }): Promise<{ recording: StoredRecording }>;
+  /** Oldest first; `pendingOnly` (default true) leaves out synced alerts. */
+  list(options?: { pendingOnly?: boolean }): Promise<{ recordings: StoredRecording[] }>;
+  get(options: { alertId: string }): Promise<{ recording?: StoredRecording }>;
+  update(options: { alertId: string; synced?: boolean; nativeSmsSent?: boolean }): Promise<{ updated: boolean }>;
+  remove(options: { alertId: string }): Promise<{ removed: boolean }>;
+  clearSynced(): Promise<{ removed: number }>;
+  getStats(): Promise<RecordingStoreStats>;
+}
+
+const RecordingStore = registerPlugin<RecordingStorePlugin>("RecordingStore", {
+  web: () => import("./RecordingStoreWeb").then((m) => new m.RecordingStoreWeb()),
+});
+
+export default RecordingStore;
@@ -0,0 +1,33 @@
+import { WebPlugin } from "@capacitor/core";
+import type { RecordingStorePlugin, RecordingStoreStats, StoredRecording } from "./RecordingStorePlugin";
+
+/** Web keeps offline alerts in IndexedDB (see useOfflineAlertQueue). */
+export class RecordingStoreWeb extends WebPlugin implements RecordingStorePlugin {
+  async save(_options: { alertId: string; createdAt: number }): Promise<{ recording: StoredRecording }> {
+    throw this.unavailable("Recording store is only available on Android");
+  }
+
+  async list(_options?: { pendingOnly?: boolean }): Promise<{ recordings: StoredRecording[] }> {
+    return { recordings: [] };
+  }
+
+  async get(_options: { alertId: string }): Promise<{ recording?: StoredRecording }> {
+    return {};
+  }
+
+  async update(_options: { alertId: string; synced?: boolean; nativeSmsSent?: boolean }): Promise<{ updated: boolean }> {
+    return { updated: false };
+  }
+
+  async remove(_options: { alertId: string }): Promise<{ removed: boolean }> {
+    return { removed: false };
+  }
+
+  async clearSynced(): Promise<{ removed: number }> {
+    return { removed: 0 };
+  }
+
+  async getStats(): Promise<RecordingStoreStats> {
+    return { available: false };
+  }
+}
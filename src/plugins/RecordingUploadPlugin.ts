@@ -0,0 +1,62 @@
+import { registerPlugin } from "@capacitor/core";
+
+export interface RecordingUploadProgress {
+  uploadId: string;
+  size: number;
+  ackedBytes: number;
+  /** Every byte before this offset is on the server. */
+  ackedOffset: number;
+  chunks: number;
+  ackedChunks: number;
+}
+
+export interface RecordingUploadFinished {
+  uploadId: string;
+  ok: boolean;
+  /** Why the upload paused; it resumes on the next network change or app start. */
+  error?: string;
+}
+
+export interface RecordingUploadStatus {
+  active: RecordingUploadProgress[];
+  /** Saved uploads that are waiting to be retried. */
+  paused: string[];
+  chunksSent: number;
+  bytesSent: number;
+  chunkFailures: number;
+  uploadsFinished: number;
+  uploadsFailed: number;
+  chunkP50Ms: number;
+  chunkP99Ms: number;
+}
+
+/**
+ * Native resumable upload of recording files. Files are streamed from disk
+ * in checksummed chunks over parallel connections and never enter the
+ * WebView; progress survives process death.
+ */
+export interface RecordingUploadPlugin {
+  configure(options: {
+    endpoint: string;
+    apiKey?: string;
+    /** Parallel chunk streams, 1-6 (default 2). */
+    streams?: number;
+    /** Chunk size in KiB, 16-4096 (default 256). */
+    chunkSizeKb?: number;
+  }): Promise<void>;
+  /** `path` must be a file in the app's own storage, e.g. a native SOS recording. */
+  enqueue(options: { path: string; alertId: string; userId: string; mimeType?: string }): Promise<{ uploadId: string }>;
+  cancel(options: { uploadId: string }): Promise<{ cancelled: boolean }>;
+  getStatus(): Promise<RecordingUploadStatus>;
+  /** Batched: at most a few events a second, covering every running upload. */
+  addListener(
+    eventName: "uploadProgress",
+    listenerFunc: (event: { uploads: RecordingUploadProgress[]; finished: RecordingUploadFinished[] }) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+const RecordingUpload = registerPlugin<RecordingUploadPlugin>("RecordingUpload", {
+  web: () => import("./RecordingUploadWeb").then((m) => new m.RecordingUploadWeb()),
+});
+
+export default RecordingUpload;
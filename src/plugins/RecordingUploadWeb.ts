@@ -0,0 +1,21 @@
+import { WebPlugin } from "@capacitor/core";
+import type { RecordingUploadPlugin, RecordingUploadStatus } from "./RecordingUploadPlugin";
+
+/** Web records into Blobs and uploads them through analyze-emergency instead. */
+export class RecordingUploadWeb extends WebPlugin implements RecordingUploadPlugin {
+  async configure(_options: { endpoint: string; apiKey?: string; streams?: number; chunkSizeKb?: number }): Promise<void> {
+    // No-op on web.
+  }
+
+  async enqueue(_options: { path: string; alertId: string; userId: string; mimeType?: string }): Promise<{ uploadId: string }> {
+    throw this.unavailable("Native recording upload is only available on Android");
+  }
+
+  async cancel(_options: { uploadId: string }): Promise<{ cancelled: boolean }> {
+    return { cancelled: false };
+  }
+
+  async getStatus(): Promise<RecordingUploadStatus> {
+    throw this.unavailable("Native recording upload is only available on Android");
+  }
+}
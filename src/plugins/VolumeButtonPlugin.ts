@@ -1,13 +1,61 @@
 import { registerPlugin } from '@capacitor/core';
 
+/** Volume-key patterns that trigger SOS; all enabled patterns are active at once. */
+export interface GestureSettings {
+  /** Both keys within 500 ms (default on). */
+  simultaneous?: boolean;
+  /** Number of presses within 3 s; 0 disables. */
+  rapidPresses?: number;
+  /** Hold either key this long (ms); 0 disables. */
+  longHoldMs?: number;
+  /** Up, down, up within 2 s. */
+  upDownUp?: boolean;
+}
+
+export interface TriggerStats {
+  accepted: number;
+  /** Triggers dropped because another source reported the same press. */
+  duplicates: number;
+  delivered: number;
+  pending: number;
+  latencyP50Us: number;
+  latencyP90Us: number;
+  latencyP99Us: number;
+  latencyMaxUs: number;
+}
+
+/** Liveness of a native protection service, from its heartbeats. */
+export interface ServiceStatus {
+  /** Heartbeat within the last 15 s. */
+  running: boolean;
+  state?: 'arming' | 'armed' | 'degraded' | 'stopped';
+  /** The user has the service turned on, so it is restarted if it dies. */
+  enabled?: boolean;
+  sinceHeartbeatMs?: number;
+  /** Died or stalled and not yet back up. */
+  recovering?: boolean;
+  /** Restarts by the native supervisor since the app process started. */
+  restarts?: number;
+}
+
 export interface VolumeButtonPlugin {
   isSupported(): Promise<{ supported: boolean }>;
   startBackgroundService(): Promise<{ started: boolean }>;
   stopBackgroundService(): Promise<{ stopped: boolean }>;
-  isBackgroundServiceRunning(): Promise<{ running: boolean }>;
+  isBackgroundServiceRunning(): Promise<ServiceStatus>;
+  setGestures(options: GestureSettings): Promise<void>;
+  getGestures(): Promise<Required<GestureSettings>>;
+  getTriggerStats(): Promise<TriggerStats>;
   addListener(
     eventName: 'volumeButtonsPressed',
-    listenerFunc: (data: { triggered: boolean; timestamp: number; source: string }) => void
+    listenerFunc: (data: {
+      triggered: boolean;
+      timestamp: number;
+      source: string;
+      triggerId?: string;
+      /** Contacts are being texted natively for this trigger. */
+      nativeSos?: boolean;
+    }) => void
   ): Promise<{ remove: () => void }>;
 }
 
@@ -1,5 +1,5 @@
 import { WebPlugin } from '@capacitor/core';
-import type { VolumeButtonPlugin } from './VolumeButtonPlugin';
+import type { GestureSettings, ServiceStatus, TriggerStats, VolumeButtonPlugin } from './VolumeButtonPlugin';
 
 export class VolumeButtonWeb extends WebPlugin implements VolumeButtonPlugin {
   async isSupported(): Promise<{ supported: boolean }> {
@@ -15,7 +15,28 @@ export class VolumeButtonWeb extends WebPlugin implements VolumeButtonPlugin {
     return { stopped: false };
   }
 
-  async isBackgroundServiceRunning(): Promise<{ running: boolean }> {
+  async isBackgroundServiceRunning(): Promise<ServiceStatus> {
     return { running: false };
   }
+
+  async setGestures(_options: GestureSettings): Promise<void> {
+    // Volume keys are not observable on web.
+  }
+
+  async getGestures(): Promise<Required<GestureSettings>> {
+    return { simultaneous: true, rapidPresses: 0, longHoldMs: 0, upDownUp: false };
+  }
+
+  async getTriggerStats(): Promise<TriggerStats> {
+    return {
+      accepted: 0,
+      duplicates: 0,
+      delivered: 0,
+      pending: 0,
+      latencyP50Us: 0,
+      latencyP90Us: 0,
+      latencyP99Us: 0,
+      latencyMaxUs: 0,
+    };
+  }
 }
@@ -1,8 +1,89 @@
 import { registerPlugin } from "@capacitor/core";
+import type { ServiceStatus } from "./VolumeButtonPlugin";
+
+export type WakeWordEngine = "recognizer" | "spotter";
 
 export interface WakeWordSettings {
   wakeWord: string;
   enabled: boolean;
+  engine?: WakeWordEngine;
+  enrolledTemplates?: number;
+  recognizerState?: RecognizerState;
+}
+
+/** Restart policy state of the SpeechRecognizer engine (see RestartScheduler). */
+export type RecognizerState = "RUNNING" | "BACKOFF" | "OPEN" | "HALF_OPEN";
+
+export interface VoiceGateSettings {
+  enabled?: boolean;
+  /** Energy above the noise floor (dB) needed to detect speech onset. */
+  onThresholdDb?: number;
+  /** Energy above the noise floor (dB) that keeps speech active; at most onThresholdDb. */
+  offThresholdDb?: number;
+  /** How long the recognizer keeps running after the last speech (ms). */
+  hangoverMs?: number;
+}
+
+export interface VoiceGateStats extends Required<VoiceGateSettings> {
+  open: boolean;
+  speechOnsets: number;
+  sessionsStarted: number;
+  /** Estimated recognizer sessions skipped while the gate was closed. */
+  sessionsAvoided: number;
+  gatedMs: number;
+}
+
+/** Encoded audio kept from before a trigger; only filled while the spotter engine holds the mic. */
+export interface PreRollStats {
+  buffering: boolean;
+  windowMs: number;
+  bufferedMs: number;
+  bufferedBytes: number;
+  capacityBytes: number;
+  framesEncoded: number;
+  framesEvicted: number;
+  /** PCM the encoder could not take in time. */
+  samplesDropped: number;
+  /** Capture-thread CPU spent encoding, as a percentage of audio time. */
+  encodeCpuPercent: number;
+  encodeCpuP50Us: number;
+  encodeCpuP99Us: number;
+  /** Absolute path of the .aac file being written for the current SOS, if any. */
+  recording: string | null;
+  recordedBytes: number;
+  skippedFrames: number;
+}
+
+export interface SosTranscriptSegment {
+  seq: number;
+  text: string;
+  /** Epoch ms when the segment's first word was heard. */
+  heardAt: number;
+  /** Heard-to-committed time. */
+  latencyMs: number;
+}
+
+/** Payload of the "sosTranscript" gauge on the NativeEvents eventFrame. */
+export interface SosTranscriptPush {
+  /** Unacknowledged segments, oldest first; ack to receive later ones. */
+  segments: SosTranscriptSegment[];
+  /** Words heard but not yet stable. */
+  pending: string;
+  nextSeq: number;
+  active: boolean;
+}
+
+export interface SosTranscriptStats {
+  active: boolean;
+  text: string;
+  pending?: string;
+  nextSeq?: number;
+  acked?: number;
+  /** Recognizer revisions of words already committed (ignored). */
+  revisions?: number;
+  droppedSegments?: number;
+  latencyP50Ms?: number;
+  latencyP99Ms?: number;
 }
 
 export interface WakeWordPlugin {
@@ -10,10 +91,41 @@ export interface WakeWordPlugin {
   stopService(): Promise<void>;
   updateWakeWord(options: { wakeWord: string }): Promise<void>;
   getSettings(): Promise<WakeWordSettings>;
-  isServiceRunning(): Promise<{ running: boolean }>;
+  isServiceRunning(): Promise<ServiceStatus>;
+  setEngine(options: { engine: WakeWordEngine }): Promise<void>;
+  enrollWakeWord(): Promise<void>;
+  clearEnrollment(): Promise<void>;
+  setVoiceGate(options: VoiceGateSettings): Promise<void>;
+  getVoiceGateStats(): Promise<VoiceGateStats>;
+  getPreRollStats(): Promise<PreRollStats>;
+  /**
+   * Starts (or keeps) the native SOS recording from the pre-roll. Resolves
+   * native=false when nothing is buffered, so the caller records itself.
+   */
+  startPreRollRecording(): Promise<{ native: boolean }>;
+  /** Ends the native SOS recording; resolves with its file path, or null if none was running. */
+  stopPreRollRecording(): Promise<{ path: string | null }>;
+  /**
+   * Has the voice service transcribe the SOS with the microphone it already
+   * holds. Resolves native=false if it cannot, so the caller uses its own recognizer.
+   */
+  startSosTranscription(): Promise<{ native: boolean }>;
+  /** Ends SOS transcription and resolves with the complete transcript. */
+  stopSosTranscription(): Promise<{ text: string; segments: number }>;
+  getSosTranscript(): Promise<SosTranscriptStats>;
+  /** Acknowledges segments up to `seq`; the next push starts after it. */
+  ackSosTranscript(options: { seq: number }): Promise<{ acked: number }>;
   addListener(
     eventName: "wakeWordDetected",
-    listenerFunc: (event: { wakeWord: string; action: string }) => void
+    listenerFunc: (event: { wakeWord: string; action: string; triggerId?: string }) => void
+  ): Promise<{ remove: () => void }>;
+  addListener(
+    eventName: "wakeWordEnrolled",
+    listenerFunc: (event: { templateCount: number }) => void
+  ): Promise<{ remove: () => void }>;
+  addListener(
+    eventName: "recognizerStateChanged",
+    listenerFunc: (event: { from: RecognizerState; to: RecognizerState; reason: string }) => void
   ): Promise<{ remove: () => void }>;
 }
 
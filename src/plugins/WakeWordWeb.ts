@@ -1,5 +1,14 @@
 import { WebPlugin, PluginListenerHandle, ListenerCallback } from "@capacitor/core";
-import type { WakeWordPlugin, WakeWordSettings } from "./WakeWordPlugin";
+import type {
+  PreRollStats,
+  SosTranscriptStats,
+  VoiceGateSettings,
+  VoiceGateStats,
+  WakeWordEngine,
+  WakeWordPlugin,
+  WakeWordSettings,
+} from "./WakeWordPlugin";
+import type { ServiceStatus } from "./VolumeButtonPlugin";
 
 // Web Speech API type declarations
 interface SpeechRecognitionInterface {
@@ -130,12 +139,86 @@ export class WakeWordWeb extends WebPlugin implements WakeWordPlugin {
     };
   }
 
-  async isServiceRunning(): Promise<{ running: boolean }> {
+  async isServiceRunning(): Promise<ServiceStatus> {
     return { running: this.enabled };
   }
 
+  async setEngine(_options: { engine: WakeWordEngine }): Promise<void> {
+    // Web always uses the Web Speech API.
+  }
+
+  async enrollWakeWord(): Promise<void> {
+    throw this.unavailable("Wake phrase enrollment is only available on Android");
+  }
+
+  async clearEnrollment(): Promise<void> {
+    // Nothing enrolled on web.
+  }
+
+  async setVoiceGate(_options: VoiceGateSettings): Promise<void> {
+    // The browser manages its own recognizer lifecycle.
+  }
+
+  async getVoiceGateStats(): Promise<VoiceGateStats> {
+    return {
+      enabled: false,
+      onThresholdDb: 0,
+      offThresholdDb: 0,
+      hangoverMs: 0,
+      open: false,
+      speechOnsets: 0,
+      sessionsStarted: 0,
+      sessionsAvoided: 0,
+      gatedMs: 0,
+    };
+  }
+
+  async getPreRollStats(): Promise<PreRollStats> {
+    return {
+      buffering: false,
+      windowMs: 0,
+      bufferedMs: 0,
+      bufferedBytes: 0,
+      capacityBytes: 0,
+      framesEncoded: 0,
+      framesEvicted: 0,
+      samplesDropped: 0,
+      encodeCpuPercent: 0,
+      encodeCpuP50Us: 0,
+      encodeCpuP99Us: 0,
+      recording: null,
+      recordedBytes: 0,
+      skippedFrames: 0,
+    };
+  }
+
+  async startPreRollRecording(): Promise<{ native: boolean }> {
+    return { native: false };
+  }
+
+  async stopPreRollRecording(): Promise<{ path: string | null }> {
+    return { path: null };
+  }
+
+  async startSosTranscription(): Promise<{ native: boolean }> {
+    // The browser's own Web Speech recognizer is used instead.
+    return { native: false };
+  }
+
+  async stopSosTranscription(): Promise<{ text: string; segments: number }> {
+    return { text: "", segments: 0 };
+  }
+
+  async getSosTranscript(): Promise<SosTranscriptStats> {
+    return { active: false, text: "" };
+  }
+
+  async ackSosTranscript(_options: { seq: number }): Promise<{ acked: number }> {
+    return { acked: 0 };
+  }
+
   async addListener(
-    eventName: "wakeWordDetected",
+    eventName: "wakeWordDetected" | "wakeWordEnrolled" | "recognizerStateChanged",
     listenerFunc: ListenerCallback
   ): Promise<PluginListenerHandle> {
     if (!this.eventListeners.has(eventName)) {
@@ -0,0 +1,132 @@
+import { serve } from "https://deno.land/std@0.168.0/http/server.ts";
+import { createClient } from "https://esm.sh/@supabase/supabase-js@2.49.1";
+
+const corsHeaders = {
+  "Access-Control-Allow-Origin": "*",
+  "Access-Control-Allow-Headers":
+    "authorization, x-client-info, apikey, content-type, x-chunk-offset, x-chunk-sha256, x-upload-size, x-upload-chunks",
+  "Access-Control-Allow-Methods": "PUT, POST, OPTIONS",
+};
+
+const BUCKET = "emergency-recordings";
+const MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+const UPLOAD_ID = /^[A-Za-z0-9-]{8,64}$/;
+
+const json = (body: unknown, status = 200) =>
+  new Response(JSON.stringify(body), {
+    status,
+    headers: { ...corsHeaders, "Content-Type": "application/json" },
+  });
+
+const sha256Hex = async (data: Uint8Array) => {
+  const digest = new Uint8Array(await crypto.subtle.digest("SHA-256", data));
+  return Array.from(digest, (b) => b.toString(16).padStart(2, "0")).join("");
+};
+
+const partPath = (uploadId: string, index: number) =>
+  `uploads/${uploadId}/${String(index).padStart(6, "0")}.part`;
+
+/**
+ * Resumable chunked upload for native recordings.
+ *
+ * PUT ?uploadId=&chunk=  body: raw chunk bytes, X-Chunk-Sha256: hex digest.
+ *   Stores the chunk once its checksum matches. Re-sending a chunk is harmless.
+ * POST ?uploadId=&complete=1  body: { alertId, userId, mimeType }, X-Upload-Chunks: count.
+ *   Joins the chunks into userId/alertId-uploadId.aac and attaches it to the
+ *   alert if the alert has no recording yet.
+ */
+serve(async (req) => {
+  if (req.method === "OPTIONS") {
+    return new Response(null, { headers: corsHeaders });
+  }
+
+  try {
+    const url = new URL(req.url);
+    const uploadId = url.searchParams.get("uploadId") ?? "";
+    if (!UPLOAD_ID.test(uploadId)) {
+      return json({ error: "Invalid uploadId" }, 400);
+    }
+
+    const supabase = createClient(
+      Deno.env.get("SUPABASE_URL")!,
+      Deno.env.get("SUPABASE_SERVICE_ROLE_KEY")!
+    );
+
+    if (req.method === "PUT") {
+      const index = Number(url.searchParams.get("chunk"));
+      if (!Number.isInteger(index) || index < 0) {
+        return json({ error: "Invalid chunk index" }, 400);
+      }
+      const data = new Uint8Array(await req.arrayBuffer());
+      if (data.length === 0 || data.length > MAX_CHUNK_BYTES) {
+        return json({ error: "Chunk size out of range" }, 413);
+      }
+      const expected = (req.headers.get("x-chunk-sha256") ?? "").toLowerCase();
+      if ((await sha256Hex(data)) !== expected) {
+        return json({ error: "Checksum mismatch" }, 422);
+      }
+      const { error } = await supabase.storage
+        .from(BUCKET)
+        .upload(partPath(uploadId, index), data, { contentType: "application/octet-stream", upsert: true });
+      if (error) throw new Error(`Failed to store chunk: ${error.message}`);
+      return json({ chunk: index });
+    }
+
+    if (req.method === "POST" && url.searchParams.get("complete")) {
+      const { alertId, userId, mimeType } = await req.json();
+      if (!alertId || !userId) {
+        return json({ error: "Missing required fields: alertId, userId" }, 400);
+      }
+      const chunks = Number(req.headers.get("x-upload-chunks"));
+      if (!Number.isInteger(chunks) || chunks < 0) {
+        return json({ error: "Invalid chunk count" }, 400);
+      }
+
+      const parts: Uint8Array[] = [];
+      const missing: number[] = [];
+      for (let i = 0; i < chunks; i++) {
+        const { data, error } = await supabase.storage.from(BUCKET).download(partPath(uploadId, i));
+        if (error || !data) missing.push(i);
+        else parts.push(new Uint8Array(await data.arrayBuffer()));
+      }
+      if (missing.length > 0) {
+        return json({ error: "Missing chunks", missing }, 409);
+      }
+
+      const total = parts.reduce((n, p) => n + p.length, 0);
+      const audio = new Uint8Array(total);
+      let offset = 0;
+      for (const p of parts) {
+        audio.set(p, offset);
+        offset += p.length;
+      }
+
+      const contentType = typeof mimeType === "string" && mimeType.startsWith("audio/") ? mimeType : "audio/aac";
+      const fileName = `${userId}/${alertId}-${uploadId}.aac`;
+      const { error: uploadError } = await supabase.storage
+        .from(BUCKET)
+        .upload(fileName, audio, { contentType, upsert: true });
+      if (uploadError) throw new Error(`Failed to store recording: ${uploadError.message}`);
+
+      await supabase.storage
+        .from(BUCKET)
+        .remove(Array.from({ length: chunks }, (_, i) => partPath(uploadId, i)));
+
+      const { error: updateError } = await supabase
+        .from("alerts")
+        .update({ audio_url: fileName })
+        .eq("id", alertId)
+        .eq("user_id", userId)
+        .is("audio_url", null);
+      if (updateError) console.error("Failed to attach recording to alert:", updateError);
+
+      console.log(`Assembled ${fileName} from ${chunks} chunks (${total} bytes)`);
+      return json({ path: fileName, size: total });
+    }
+
+    return json({ error: "Unsupported request" }, 405);
+  } catch (error) {
+    console.error("Error in upload-recording:", error);
+    return json({ error: error instanceof Error ? error.message : "Unknown error" }, 500);
+  }
+});